@@ -0,0 +1,48 @@
+package com.evershop.driver;
+
+import com.evershop.utils.TestConfig;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BrowserSlots - caps how many browsers are open at once, independent of how many tests run.
+ *
+ * TestNG's thread-count (or -Dexecution.virtual.tests in virtual mode) decides how many tests run;
+ * -Dbrowsers.max keeps the number of real Chrome instances at what the machine or grid can drive.
+ * A fair Semaphore (not synchronized) hands the slots out in arrival order and keeps waiting
+ * virtual threads unmounted.
+ *
+ * A slot is waited for at most -Dbrowsers.slotTimeoutMs (default 10 minutes): a slot never released
+ * (a browser leaked by a failed setup) fails the waiting test instead of hanging the suite.
+ */
+public final class BrowserSlots {
+
+    private static final int MAX = Math.max(1, TestConfig.getInt("browsers.max", Runtime.getRuntime().availableProcessors()));
+    private static final Semaphore SLOTS = new Semaphore(MAX, true);
+    private static final Duration TIMEOUT = TestConfig.getMillis("browsers.slotTimeoutMs", Duration.ofMinutes(10));
+
+    private BrowserSlots() {
+    }
+
+    public static void acquire() {
+        try {
+            if (!SLOTS.tryAcquire(TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)) {
+                throw new IllegalStateException("No browser slot free within " + TIMEOUT.toMillis() + " ms (all "
+                        + MAX + " held, -Dbrowsers.max / -Dbrowsers.slotTimeoutMs)");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a browser slot", e);
+        }
+    }
+
+    public static void release() {
+        SLOTS.release();
+    }
+
+    public static int available() {
+        return SLOTS.availablePermits();
+    }
+}
@@ -0,0 +1,280 @@
+package com.evershop.driver;
+
+import com.evershop.perf.JfrEvents;
+import com.evershop.utils.Artifacts;
+import com.evershop.utils.Log;
+import com.evershop.utils.TestContext;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.support.events.EventFiringDecorator;
+import org.openqa.selenium.support.events.WebDriverListener;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * CommandProfiler - counts and times every WebDriver command sent by a test.
+ *
+ * The driver is wrapped with Selenium's {@link EventFiringDecorator}; each call on the driver,
+ * its elements, navigation, options and target locator is one HTTP round trip to the driver,
+ * and is recorded:
+ *  - by command type ("WebElement.getText", "JavascriptExecutor.executeScript", ...)
+ *  - by caller: the innermost page-object method on the stack (lambdas are folded into their
+ *    method), else the test method, so polling helpers show up with their real cost
+ *
+ * Profiles are kept per test (TestContext id); {@link #finish(String)} closes one and
+ * {@link #writeReport(Path)} writes all of them at suite end. Each command is also a JFR
+ * DriverCommand event when -Djfr.events=true.
+ */
+public final class CommandProfiler implements WebDriverListener {
+
+    private static final Log LOG = Log.get(CommandProfiler.class);
+
+    private static final String NO_TEST = "(no test)";
+
+    // calls on the decorated objects that are answered locally, not by the driver
+    private static final Set<String> LOCAL_CALLS = new HashSet<>(Arrays.asList(
+            "manage", "navigate", "switchTo", "timeouts", "window", "logs",
+            "getWrappedDriver", "getWrappedElement", "toString", "hashCode", "equals"));
+
+    // page-package infrastructure that is never the interesting caller
+    private static final Set<String> INFRASTRUCTURE = new HashSet<>(Arrays.asList(
+            "BasePage", "WaitPolicy", "ElementHandle", "LocatorSet", "BrowserCondition", "FormFiller", "PageObjects"));
+
+    private static final StackWalker WALKER = StackWalker.getInstance();
+    private static final Map<String, Profile> ACTIVE = new ConcurrentHashMap<>();
+    private static final ConcurrentLinkedQueue<Profile> FINISHED = new ConcurrentLinkedQueue<>();
+
+    private final ThreadLocal<Deque<Call>> started = ThreadLocal.withInitial(ArrayDeque::new);
+
+    public static WebDriver decorate(WebDriver driver) {
+        return new EventFiringDecorator<>(WebDriver.class, new CommandProfiler()).decorate(driver);
+    }
+
+    /* -----------------------------
+       Listener
+       ----------------------------- */
+
+    @Override
+    public void beforeAnyCall(Object target, Method method, Object[] args) {
+        if (LOCAL_CALLS.contains(method.getName())) return;
+        started.get().push(new Call());
+    }
+
+    @Override
+    public void afterAnyCall(Object target, Method method, Object[] args, Object result) {
+        record(method, false);
+    }
+
+    @Override
+    public void onError(Object target, Method method, Object[] args, InvocationTargetException e) {
+        record(method, true);
+    }
+
+    private void record(Method method, boolean failed) {
+        if (LOCAL_CALLS.contains(method.getName())) return;
+        Call call = started.get().poll();
+        if (call == null) return;
+        long nanos = System.nanoTime() - call.startNanos;
+        String command = method.getDeclaringClass().getSimpleName() + "." + method.getName();
+        String caller = callerOf();
+        TestContext context = TestContext.current();
+        String testId = context != null ? context.getTestId() : NO_TEST;
+        ACTIVE.computeIfAbsent(testId, Profile::new).record(command, caller, nanos);
+        call.event.end(command, caller, failed);
+    }
+
+    /** A command in flight on this thread. */
+    private static final class Call {
+        final long startNanos = System.nanoTime();
+        final JfrEvents.DriverCommand event = new JfrEvents.DriverCommand();
+
+        Call() {
+            event.begin();
+        }
+    }
+
+    /** Innermost page-object method on the stack, else the innermost test-class method. */
+    private static String callerOf() {
+        return WALKER.walk(frames -> {
+            String testFrame = null;
+            for (StackWalker.StackFrame f : (Iterable<StackWalker.StackFrame>) frames::iterator) {
+                String cls = f.getClassName();
+                if (cls.startsWith("com.evershop.pages.") && !cls.contains("$ByteBuddy$")) {
+                    String simple = simpleName(cls);
+                    if (!INFRASTRUCTURE.contains(simple)) return simple + "." + methodName(f.getMethodName());
+                } else if (testFrame == null && cls.startsWith("com.evershop.tests.")) {
+                    testFrame = simpleName(cls) + "." + methodName(f.getMethodName());
+                }
+            }
+            return testFrame != null ? testFrame : "(framework)";
+        });
+    }
+
+    private static String simpleName(String className) {
+        String simple = className.substring(className.lastIndexOf('.') + 1);
+        int nested = simple.indexOf('$');
+        return nested > 0 ? simple.substring(0, nested) : simple;
+    }
+
+    private static String methodName(String method) {
+        // lambda$isAddressInListRobust$3 -> isAddressInListRobust
+        if (method.startsWith("lambda$")) {
+            int end = method.indexOf('$', 7);
+            return end > 7 ? method.substring(7, end) : method;
+        }
+        return method;
+    }
+
+    /* -----------------------------
+       Per-test profiles
+       ----------------------------- */
+
+    /** Commands recorded so far for a test (empty profile when none). */
+    public static Profile current(String testId) {
+        return Optional.ofNullable(ACTIVE.get(testId)).orElseGet(() -> new Profile(testId));
+    }
+
+    /** Closes the profile of a test; it is kept for the suite report. */
+    public static Profile finish(String testId) {
+        Profile profile = ACTIVE.remove(testId);
+        if (profile == null) return new Profile(testId);
+        FINISHED.add(profile);
+        return profile;
+    }
+
+    /** CSV with one row per test and caller/command: test, kind, name, count, total_ms, avg_ms. */
+    public static void writeReport(Path file) {
+        if (FINISHED.isEmpty()) return;
+        StringBuilder sb = new StringBuilder("test,kind,name,count,total_ms,avg_ms\n");
+        for (Profile p : FINISHED) {
+            for (Row r : p.callers()) sb.append(r.csv(p.testId, "caller"));
+            for (Row r : p.commands()) sb.append(r.csv(p.testId, "command"));
+        }
+        try {
+            Artifacts.write("webdriver-commands", file, sb.toString().getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            LOG.warn("Failed to write WebDriver command report: " + e.getMessage());
+        }
+    }
+
+    /** Round trips of one test, by command type and by caller. */
+    public static final class Profile {
+        private final String testId;
+        private final LongAdder total = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final Map<String, Stat> byCommand = new ConcurrentHashMap<>();
+        private final Map<String, Stat> byCaller = new ConcurrentHashMap<>();
+
+        Profile(String testId) {
+            this.testId = testId;
+        }
+
+        void record(String command, String caller, long nanos) {
+            total.increment();
+            totalNanos.add(nanos);
+            byCommand.computeIfAbsent(command, k -> new Stat()).add(nanos);
+            byCaller.computeIfAbsent(caller, k -> new Stat()).add(nanos);
+        }
+
+        public String getTestId() {
+            return testId;
+        }
+
+        public long getRoundTrips() {
+            return total.sum();
+        }
+
+        public long getTotalMillis() {
+            return totalNanos.sum() / 1_000_000;
+        }
+
+        /** Callers, most round trips first. */
+        public List<Row> callers() {
+            return rows(byCaller);
+        }
+
+        /** Command types, most round trips first. */
+        public List<Row> commands() {
+            return rows(byCommand);
+        }
+
+        /** Multi-line summary with the heaviest callers and commands. */
+        public String describe(int top) {
+            StringBuilder sb = new StringBuilder(String.format(Locale.ROOT,
+                    "%s: %d WebDriver commands, %d ms in the driver%n", testId, getRoundTrips(), getTotalMillis()));
+            sb.append("heaviest callers:\n");
+            callers().stream().limit(top).forEach(r -> sb.append("  ").append(r).append('\n'));
+            sb.append("commands:\n");
+            commands().stream().limit(top).forEach(r -> sb.append("  ").append(r).append('\n'));
+            return sb.toString();
+        }
+
+        private static List<Row> rows(Map<String, Stat> stats) {
+            List<Row> rows = new ArrayList<>();
+            stats.forEach((name, s) -> rows.add(new Row(name, s.count.sum(), s.nanos.sum())));
+            rows.sort((a, b) -> Long.compare(b.count, a.count));
+            return rows;
+        }
+    }
+
+    /** One line of a profile. */
+    public static final class Row {
+        private final String name;
+        private final long count;
+        private final long nanos;
+
+        Row(String name, long count, long nanos) {
+            this.name = name;
+            this.count = count;
+            this.nanos = nanos;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getTotalMillis() {
+            return nanos / 1_000_000;
+        }
+
+        String csv(String testId, String kind) {
+            return String.format(Locale.ROOT, "\"%s\",%s,\"%s\",%d,%.1f,%.2f%n", testId, kind, name, count,
+                    nanos / 1e6, count == 0 ? 0 : nanos / 1e6 / count);
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%-50s %6d calls %8.1f ms", name, count, nanos / 1e6);
+        }
+    }
+
+    private static final class Stat {
+        final LongAdder count = new LongAdder();
+        final LongAdder nanos = new LongAdder();
+
+        void add(long n) {
+            count.increment();
+            nanos.add(n);
+        }
+    }
+}
@@ -0,0 +1,549 @@
+package com.evershop.driver;
+
+import com.evershop.utils.Artifacts;
+import com.evershop.utils.Log;
+import com.evershop.utils.TestConfig;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.devtools.Command;
+import org.openqa.selenium.devtools.DevTools;
+import org.openqa.selenium.devtools.HasDevTools;
+import org.openqa.selenium.json.Json;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * DomSnapshot - the rendered page as the browser sees it, written to a gzipped JSONL file.
+ *
+ * Provides:
+ *  - {@link #capture(WebDriver, Path)}: CDP DOMSnapshot.captureSnapshot; one line per element with
+ *    a key, attributes, own text, input value/checked, layout bounds [x, y, width, height] and the
+ *    computed styles in -Dsnapshot.styles
+ *  - {@link #diff(Path, Path, String)}: elements added, removed and changed (text, value,
+ *    attributes, styles, bounds moved by more than 1 px) between two snapshots, e.g. the address
+ *    list before and after Save; also from the command line (main)
+ *
+ * Notes:
+ *  - keys are paths of tag#id, or tag.classes[name=..][data-*=..]; an id starts the path afresh.
+ *    Siblings that still look alike get their position among themselves ([0], [1], ...), never
+ *    their text, so a text change stays a change of that element and does not rename its subtree
+ *  - diff pairs alike siblings by content before comparing (the most descendants with the same
+ *    text, value and checked state), so inserting a card or reordering the list does not show up
+ *    as every later card removed and added again
+ *  - the whole protocol result is held in memory (DevTools delivers it as one message); the lines
+ *    are streamed through gzip
+ *  - script, style, head and similar subtrees are left out; only the main frame is captured
+ *  - without DevTools (Grid session) the page source is stored in the same format, under key "html"
+ */
+public final class DomSnapshot {
+
+    private static final Log LOG = Log.get(DomSnapshot.class);
+    private static final Json JSON = new Json();
+
+    private static final List<String> STYLES = Collections.unmodifiableList(Arrays.asList(TestConfig.getString(
+            "snapshot.styles", "display,visibility,opacity,color,background-color,border-top-color,font-weight,pointer-events")
+            .split("\\s*,\\s*")));
+
+    private static final Set<String> SKIPPED = new HashSet<>(Arrays.asList(
+            "head", "script", "style", "noscript", "template", "meta", "link", "svg"));
+
+    private static final int MAX_TEXT = 200;
+    private static final double MOVE_TOLERANCE_PX = 1.0;
+    private static final String CHILD = " > "; // between the segments of a key
+    private static final Pattern POSITION = Pattern.compile("\\[\\d+]$"); // trailing [n] of alike siblings
+
+    private DomSnapshot() {
+    }
+
+    /** Captures the current page into {@code file} (gzipped JSONL) and returns the file. */
+    public static Path capture(WebDriver driver, Path file) throws IOException {
+        HasDevTools hasDevTools = DriverFactory.unwrap(driver, HasDevTools.class);
+        if (hasDevTools == null) {
+            String source = driver.getPageSource();
+            return Artifacts.write("dom-snapshot", file, out -> {
+                try (Writer w = gzipWriter(out)) {
+                    writeLine(w, header(driver.getCurrentUrl(), driver.getTitle(), "pageSource"));
+                    writeLine(w, Map.of("key", "html", "source", source));
+                }
+            });
+        }
+        DevTools devTools = hasDevTools.getDevTools();
+        devTools.createSessionIfThereIsNotOne();
+        Map<String, Object> params = new LinkedHashMap<>();
+        params.put("computedStyles", STYLES);
+        params.put("includeDOMRects", false);
+        Map<String, Object> result = devTools.send(new Command<Map<String, Object>>("DOMSnapshot.captureSnapshot", params, Json.MAP_TYPE));
+        Captured captured = parse(result);
+
+        return Artifacts.write("dom-snapshot", file, out -> {
+            try (Writer w = gzipWriter(out)) {
+                captured.writeTo(w);
+            }
+        });
+    }
+
+    private static Writer gzipWriter(java.io.OutputStream out) throws IOException {
+        return new OutputStreamWriter(new GZIPOutputStream(out, 64 * 1024), StandardCharsets.UTF_8);
+    }
+
+    private static Map<String, Object> header(String url, String title, String source) {
+        Map<String, Object> header = new LinkedHashMap<>();
+        header.put("snapshot", source);
+        header.put("url", url);
+        header.put("title", title);
+        header.put("capturedAt", Instant.now().toString());
+        header.put("styles", STYLES);
+        return header;
+    }
+
+    private static void writeLine(Writer w, Map<String, Object> line) throws IOException {
+        JSON.newOutput(w).setPrettyPrint(false).write(line); // not closed: that would close the file
+        w.write('\n');
+    }
+
+    /* -----------------------------
+       Protocol result
+       ----------------------------- */
+
+    /** Main-frame document of a captureSnapshot result, as string-table indexes. */
+    static final class Captured {
+        List<String> strings = Collections.emptyList();
+        int url = -1;
+        int title = -1;
+        int[] parent = new int[0];
+        int[] nodeType = new int[0];
+        int[] nodeName = new int[0];
+        int[] nodeValue = new int[0];
+        int[][] attributes = new int[0][];
+        int[][] inputValue = {new int[0], new int[0]}; // node indexes, string indexes
+        int[] inputChecked = new int[0];
+        int[] layoutNode = new int[0];
+        int[][] layoutStyles = new int[0][];
+        double[][] layoutBounds = new double[0][];
+
+        String string(int index) {
+            return index >= 0 && index < strings.size() ? strings.get(index) : null;
+        }
+
+        void writeTo(Writer w) throws IOException {
+            int n = parent.length;
+            Map<Integer, Integer> layoutOf = new HashMap<>();
+            for (int i = 0; i < layoutNode.length; i++) layoutOf.putIfAbsent(layoutNode[i], i);
+            Map<Integer, String> valueOf = new HashMap<>();
+            for (int i = 0; i < inputValue[0].length; i++) valueOf.put(inputValue[0][i], string(inputValue[1][i]));
+            Set<Integer> checked = new HashSet<>();
+            for (int i : inputChecked) checked.add(i);
+
+            // skipped subtrees (script, style, ...); parents always come before their children
+            boolean[] skipped = new boolean[n];
+            for (int i = 0; i < n; i++) {
+                int p = parent[i];
+                skipped[i] = (p >= 0 && skipped[p])
+                        || (nodeType[i] == 1 && SKIPPED.contains(String.valueOf(string(nodeName[i])).toLowerCase(Locale.ROOT)));
+            }
+
+            // own text of every element: its text-node children
+            StringBuilder[] text = new StringBuilder[n];
+            for (int i = 0; i < n; i++) {
+                if (nodeType[i] != 3 || parent[i] < 0 || skipped[i]) continue;
+                String value = string(nodeValue[i]);
+                if (value == null || value.trim().isEmpty()) continue;
+                if (text[parent[i]] == null) text[parent[i]] = new StringBuilder();
+                text[parent[i]].append(' ').append(value);
+            }
+
+            Map<Integer, Map<String, String>> attrsOf = new HashMap<>();
+            String[] signatures = new String[n];
+            Map<String, Integer> sameSignature = new HashMap<>(); // parent|signature -> siblings
+            for (int i = 0; i < n; i++) {
+                if (nodeType[i] != 1 || skipped[i]) continue;
+                Map<String, String> attrs = attributesOf(i);
+                attrsOf.put(i, attrs);
+                signatures[i] = String.valueOf(string(nodeName[i])).toLowerCase(Locale.ROOT) + signature(attrs);
+                sameSignature.merge(parent[i] + "|" + signatures[i], 1, Integer::sum);
+            }
+
+            writeLine(w, header(string(url), string(title), "DOMSnapshot"));
+            String[] keys = new String[n];
+            Map<String, Integer> position = new HashMap<>(); // parent|signature -> siblings so far
+            for (int i = 0; i < n; i++) {
+                if (signatures[i] == null) continue;
+                int p = parent[i];
+                Map<String, String> attrs = attrsOf.get(i);
+                String segment = signatures[i];
+                if (sameSignature.get(p + "|" + signatures[i]) > 1) {
+                    // siblings look alike: their position; diff pairs them by content, not by this index
+                    segment += "[" + (position.merge(p + "|" + signatures[i], 1, Integer::sum) - 1) + "]";
+                }
+                String parentKey = p >= 0 && keys[p] != null ? keys[p] : "";
+                boolean anchored = attrs.get("id") != null && !attrs.get("id").isEmpty(); // an id starts the path afresh
+                keys[i] = parentKey.isEmpty() || anchored ? segment : parentKey + " > " + segment;
+
+                Map<String, Object> line = new LinkedHashMap<>();
+                line.put("key", keys[i]);
+                line.put("tag", String.valueOf(string(nodeName[i])).toLowerCase(Locale.ROOT));
+                if (!attrs.isEmpty()) line.put("attrs", attrs);
+                if (text[i] != null) line.put("text", clip(text[i].toString().replaceAll("\\s+", " ").trim()));
+                if (valueOf.containsKey(i)) line.put("value", clip(valueOf.get(i)));
+                if (checked.contains(i)) line.put("checked", true);
+                Integer layout = layoutOf.get(i);
+                if (layout != null) {
+                    if (layout < layoutBounds.length) line.put("bounds", rounded(layoutBounds[layout]));
+                    if (layout < layoutStyles.length) line.put("styles", stylesOf(layoutStyles[layout]));
+                }
+                writeLine(w, line);
+            }
+        }
+
+        private Map<String, String> attributesOf(int node) {
+            Map<String, String> attrs = new LinkedHashMap<>();
+            if (node >= attributes.length) return attrs;
+            int[] pairs = attributes[node];
+            for (int i = 0; i + 1 < pairs.length; i += 2) {
+                attrs.put(String.valueOf(string(pairs[i])), clip(String.valueOf(string(pairs[i + 1]))));
+            }
+            return attrs;
+        }
+
+        private Map<String, String> stylesOf(int[] indexes) {
+            Map<String, String> styles = new LinkedHashMap<>();
+            for (int i = 0; i < indexes.length && i < STYLES.size(); i++) styles.put(STYLES.get(i), string(indexes[i]));
+            return styles;
+        }
+    }
+
+    /** #id, or the classes plus the name and data-* attributes (sorted): what stays put when siblings move. */
+    private static String signature(Map<String, String> attrs) {
+        String id = attrs.get("id");
+        if (id != null && !id.isEmpty()) return "#" + id;
+        StringBuilder signature = new StringBuilder();
+        String classes = attrs.get("class");
+        if (classes != null && !classes.trim().isEmpty()) signature.append('.').append(String.join(".", classes.trim().split("\\s+")));
+        String name = attrs.get("name");
+        if (name != null && !name.isEmpty()) signature.append("[name=").append(name).append(']');
+        new TreeMap<>(attrs).forEach((attr, value) -> {
+            if (attr.startsWith("data-")) signature.append('[').append(attr).append('=').append(value).append(']');
+        });
+        return signature.toString();
+    }
+
+    private static String clip(String s) {
+        return s == null || s.length() <= MAX_TEXT ? s : s.substring(0, MAX_TEXT) + "...";
+    }
+
+    private static List<Double> rounded(double[] bounds) {
+        List<Double> out = new ArrayList<>(bounds.length);
+        for (double b : bounds) out.add(Math.round(b * 10) / 10.0);
+        return out;
+    }
+
+    /** Main-frame document of the captureSnapshot result map; iframes (further documents) are ignored. */
+    static Captured parse(Map<String, Object> result) {
+        Captured c = new Captured();
+        List<String> strings = new ArrayList<>();
+        for (Object string : asList(result.get("strings"))) strings.add(String.valueOf(string));
+        c.strings = strings;
+        List<?> documents = asList(result.get("documents"));
+        if (documents.isEmpty()) return c;
+
+        Map<String, Object> document = asMap(documents.get(0));
+        c.url = number(document.get("documentURL"));
+        c.title = number(document.get("title"));
+        Map<String, Object> nodes = asMap(document.get("nodes"));
+        c.parent = ints(nodes.get("parentIndex"));
+        c.nodeType = ints(nodes.get("nodeType"));
+        c.nodeName = ints(nodes.get("nodeName"));
+        c.nodeValue = ints(nodes.get("nodeValue"));
+        c.attributes = intArrays(nodes.get("attributes"));
+        Map<String, Object> inputValue = asMap(nodes.get("inputValue")); // RareStringData {index, value}
+        c.inputValue = new int[][] {ints(inputValue.get("index")), ints(inputValue.get("value"))};
+        c.inputChecked = ints(asMap(nodes.get("inputChecked")).get("index")); // RareBooleanData {index}
+        Map<String, Object> layout = asMap(document.get("layout"));
+        c.layoutNode = ints(layout.get("nodeIndex"));
+        c.layoutStyles = intArrays(layout.get("styles"));
+        List<?> bounds = asList(layout.get("bounds"));
+        c.layoutBounds = new double[bounds.size()][];
+        for (int i = 0; i < bounds.size(); i++) {
+            List<?> rect = asList(bounds.get(i));
+            c.layoutBounds[i] = new double[rect.size()];
+            for (int j = 0; j < rect.size(); j++) c.layoutBounds[i][j] = ((Number) rect.get(j)).doubleValue();
+        }
+        return c;
+    }
+
+    private static int number(Object value) {
+        return value instanceof Number ? ((Number) value).intValue() : -1;
+    }
+
+    private static int[] ints(Object value) {
+        List<?> list = asList(value);
+        int[] ints = new int[list.size()];
+        for (int i = 0; i < ints.length; i++) ints[i] = number(list.get(i));
+        return ints;
+    }
+
+    private static int[][] intArrays(Object value) {
+        List<?> list = asList(value);
+        int[][] arrays = new int[list.size()][];
+        for (int i = 0; i < arrays.length; i++) arrays[i] = ints(list.get(i));
+        return arrays;
+    }
+
+    private static List<?> asList(Object value) {
+        return value instanceof List ? (List<?>) value : Collections.emptyList();
+    }
+
+    /* -----------------------------
+       Diff
+       ----------------------------- */
+
+    /**
+     * Changes from {@code before} to {@code after}, one line each: "+ key" added, "- key" removed,
+     * "~ key: what changed" (keys as in {@code after} for + and ~). Only keys containing {@code scope}
+     * when it is not null (e.g. ".address__summary").
+     */
+    public static List<String> diff(Path before, Path after, String scope) throws IOException {
+        Map<String, Map<String, Object>> old = read(before);
+        Map<String, Map<String, Object>> now = read(after);
+        Map<String, String> pairedKey = pair(old, now); // after key -> before key (or a fresh one when added)
+        Map<String, String> afterKeyOf = new HashMap<>();
+        List<String> changes = new ArrayList<>();
+        for (String key : now.keySet()) afterKeyOf.put(pairedKey.get(key), key);
+        for (Map.Entry<String, Map<String, Object>> e : old.entrySet()) {
+            String afterKey = afterKeyOf.get(e.getKey());
+            if (!inScope(scope, e.getKey(), afterKey)) continue;
+            if (afterKey == null) {
+                changes.add("- " + e.getKey() + describe(e.getValue()));
+                continue;
+            }
+            List<String> what = changed(e.getValue(), now.get(afterKey));
+            if (!what.isEmpty()) changes.add("~ " + afterKey + ": " + String.join("; ", what));
+        }
+        for (Map.Entry<String, Map<String, Object>> e : now.entrySet()) {
+            if (!old.containsKey(pairedKey.get(e.getKey())) && inScope(scope, e.getKey(), null)) {
+                changes.add("+ " + e.getKey() + describe(e.getValue()));
+            }
+        }
+        return changes;
+    }
+
+    private static boolean inScope(String scope, String key, String otherKey) {
+        return scope == null || key.contains(scope) || (otherKey != null && otherKey.contains(scope));
+    }
+
+    private static Map<String, Map<String, Object>> read(Path file) throws IOException {
+        Map<String, Map<String, Object>> elements = new LinkedHashMap<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) continue;
+                Map<String, Object> element = JSON.toType(line, Json.MAP_TYPE);
+                Object key = element.get("key");
+                if (key == null) continue; // header
+                elements.put(key.toString(), element); // scope applies after pairing, which needs the parents
+            }
+        }
+        return elements;
+    }
+
+    private static List<String> changed(Map<String, Object> before, Map<String, Object> after) {
+        List<String> what = new ArrayList<>();
+        for (String field : Arrays.asList("text", "value", "checked", "source")) {
+            if (!Objects.equals(before.get(field), after.get(field))) {
+                what.add(field + " '" + before.get(field) + "' -> '" + after.get(field) + "'");
+            }
+        }
+        compareMaps("attr", asMap(before.get("attrs")), asMap(after.get("attrs")), what);
+        compareMaps("style", asMap(before.get("styles")), asMap(after.get("styles")), what);
+        if (moved(before.get("bounds"), after.get("bounds"))) {
+            what.add("bounds " + before.get("bounds") + " -> " + after.get("bounds"));
+        }
+        return what;
+    }
+
+    private static void compareMaps(String label, Map<String, Object> before, Map<String, Object> after, List<String> what) {
+        Set<String> names = new TreeSet<>(before.keySet());
+        names.addAll(after.keySet());
+        for (String name : names) {
+            if (!Objects.equals(before.get(name), after.get(name))) {
+                what.add(label + " " + name + " '" + before.get(name) + "' -> '" + after.get(name) + "'");
+            }
+        }
+    }
+
+    private static boolean moved(Object before, Object after) {
+        if (!(before instanceof List) || !(after instanceof List)) return !Objects.equals(before, after);
+        List<?> a = (List<?>) before;
+        List<?> b = (List<?>) after;
+        if (a.size() != b.size()) return true;
+        for (int i = 0; i < a.size(); i++) {
+            if (Math.abs(((Number) a.get(i)).doubleValue() - ((Number) b.get(i)).doubleValue()) > MOVE_TOLERANCE_PX) return true;
+        }
+        return false;
+    }
+
+    private static String describe(Map<String, Object> element) {
+        Object text = element.get("text");
+        return text != null ? "  '" + text + "'" : "";
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> asMap(Object o) {
+        return o instanceof Map ? (Map<String, Object>) o : Collections.emptyMap();
+    }
+
+    /** java ... DomSnapshot before.dom.jsonl.gz after.dom.jsonl.gz [key substring] */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            LOG.warn("usage: DomSnapshot <before.dom.jsonl.gz> <after.dom.jsonl.gz> [key substring]");
+        } else {
+            List<String> changes = diff(Paths.get(args[0]), Paths.get(args[1]), args.length > 2 ? args[2] : null);
+            changes.forEach(LOG::info);
+            LOG.info(changes.size() + " changes");
+        }
+        Log.flush();
+    }
+
+    /* -----------------------------
+       Pairing alike siblings
+       ----------------------------- */
+
+    /**
+     * Maps every key of {@code now} to the key of the same element in {@code old}. Alike siblings
+     * (same path but for the trailing [n]) are paired top-down, best content match first (see
+     * {@link #similarity}) and the nearer position on a tie, so the renamed card carries its whole subtree along; one left
+     * without a partner gets a key that is not in {@code old}.
+     */
+    static Map<String, String> pair(Map<String, Map<String, Object>> old, Map<String, Map<String, Object>> now) {
+        Map<String, List<String>> oldGroups = groups(old.keySet());
+        Map<String, List<String>> nowGroups = groups(now.keySet());
+        TreeMap<String, Map<String, Object>> oldSorted = new TreeMap<>(old);
+        TreeMap<String, Map<String, Object>> nowSorted = new TreeMap<>(now);
+
+        Map<String, String> renamed = new HashMap<>(); // only keys that differ, and their subtrees follow
+        List<String> groupOrder = new ArrayList<>(nowGroups.keySet());
+        groupOrder.sort(Comparator.comparingInt(DomSnapshot::depth)); // parents' pairing first
+        for (String nowGroup : groupOrder) {
+            List<String> members = nowGroups.get(nowGroup);
+            String oldGroup = translate(nowGroup, renamed);
+            List<String> candidates = oldGroups.getOrDefault(oldGroup, Collections.emptyList());
+            if (members.size() == 1 && candidates.size() == 1) { // the common case: nothing alike
+                if (!members.get(0).equals(candidates.get(0))) renamed.put(members.get(0), candidates.get(0));
+                continue;
+            }
+            List<Map<String, Integer>> memberContent = new ArrayList<>();
+            for (String member : members) memberContent.add(content(nowSorted, member));
+            List<Map<String, Integer>> candidateContent = new ArrayList<>();
+            for (String candidate : candidates) candidateContent.add(content(oldSorted, candidate));
+            Map<String, Integer> spread = new HashMap<>(); // fingerprint -> how many of the siblings have it
+            for (Map<String, Integer> content : memberContent) content.keySet().forEach(f -> spread.merge(f, 1, Integer::sum));
+            for (Map<String, Integer> content : candidateContent) content.keySet().forEach(f -> spread.merge(f, 1, Integer::sum));
+            int siblings = members.size() + candidates.size();
+
+            List<double[]> pairs = new ArrayList<>(); // {score, distance, member, candidate}
+            for (int m = 0; m < members.size(); m++) {
+                for (int c = 0; c < candidates.size(); c++) {
+                    double score = similarity(memberContent.get(m), candidateContent.get(c), spread, siblings);
+                    pairs.add(new double[] {score, Math.abs(m - c), m, c});
+                }
+            }
+            pairs.sort(Comparator.<double[]>comparingDouble(x -> -x[0]).thenComparingDouble(x -> x[1]).thenComparingDouble(x -> x[2]));
+            boolean[] memberDone = new boolean[members.size()];
+            boolean[] candidateDone = new boolean[candidates.size()];
+            for (double[] p : pairs) {
+                int m = (int) p[2];
+                int c = (int) p[3];
+                if (memberDone[m] || candidateDone[c]) continue;
+                memberDone[m] = candidateDone[c] = true;
+                String member = members.get(m);
+                String candidate = candidates.get(c);
+                if (!member.equals(candidate)) renamed.put(member, candidate);
+            }
+            for (int m = 0; m < members.size(); m++) {
+                if (!memberDone[m]) renamed.put(members.get(m), oldGroup + "[added " + m + "]");
+            }
+        }
+
+        Map<String, String> paired = new HashMap<>();
+        for (String key : now.keySet()) paired.put(key, translate(key, renamed));
+        return paired;
+    }
+
+    /** Path without the trailing [n] -> keys sharing it, in document order. */
+    private static Map<String, List<String>> groups(Set<String> keys) {
+        Map<String, List<String>> groups = new LinkedHashMap<>();
+        for (String key : keys) groups.computeIfAbsent(POSITION.matcher(key).replaceFirst(""), k -> new ArrayList<>()).add(key);
+        return groups;
+    }
+
+    /** The key with its longest renamed ancestor (or itself) replaced. */
+    private static String translate(String key, Map<String, String> renamed) {
+        String direct = renamed.get(key);
+        if (direct != null) return direct;
+        for (int at = key.lastIndexOf(CHILD); at > 0; at = key.lastIndexOf(CHILD, at - 1)) {
+            String ancestor = renamed.get(key.substring(0, at));
+            if (ancestor != null) return ancestor + key.substring(at);
+        }
+        return key;
+    }
+
+    private static int depth(String key) {
+        int depth = 0;
+        for (int at = key.indexOf(CHILD); at >= 0; at = key.indexOf(CHILD, at + 1)) depth++;
+        return depth;
+    }
+
+    /** The element and its descendants as "relative path|text|value|checked", counted. */
+    private static Map<String, Integer> content(TreeMap<String, Map<String, Object>> elements, String key) {
+        Map<String, Integer> content = new HashMap<>();
+        content.merge(fingerprint("", elements.get(key)), 1, Integer::sum);
+        for (Map.Entry<String, Map<String, Object>> e : elements.subMap(key + CHILD, key + CHILD + Character.MAX_VALUE).entrySet()) {
+            content.merge(fingerprint(e.getKey().substring(key.length()), e.getValue()), 1, Integer::sum);
+        }
+        return content;
+    }
+
+    private static String fingerprint(String relativeKey, Map<String, Object> element) {
+        return relativeKey + "|" + element.get("text") + "|" + element.get("value") + "|" + element.get("checked");
+    }
+
+    /**
+     * Shared fingerprints, each weighted by how rare it is among the siblings: a name that only
+     * one card has outweighs a "Make default" label most of them carry, which counts for nothing
+     * once all of them have it.
+     */
+    private static double similarity(Map<String, Integer> a, Map<String, Integer> b, Map<String, Integer> spread, int siblings) {
+        double score = 0;
+        for (Map.Entry<String, Integer> e : a.entrySet()) {
+            Integer other = b.get(e.getKey());
+            if (other != null) score += Math.min(e.getValue(), other) * Math.log((double) siblings / spread.get(e.getKey()));
+        }
+        return score;
+    }
+}
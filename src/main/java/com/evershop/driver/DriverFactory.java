@@ -0,0 +1,204 @@
+package com.evershop.driver;
+
+import com.evershop.utils.Log;
+import com.evershop.utils.TestConfig;
+import io.github.bonigarcia.wdm.WebDriverManager;
+import org.openqa.selenium.InvalidArgumentException;
+import org.openqa.selenium.SessionNotCreatedException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.WrapsDriver;
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.openqa.selenium.remote.RemoteWebDriver;
+
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * DriverFactory - creates the WebDriver for a test.
+ *
+ * Modes (-Ddriver.mode):
+ *  - local (default): ChromeDriver on this machine, binary resolved by WebDriverManager; its
+ *    chromedriver/Chrome processes and profile folder are tracked by {@link ResourceGuard}
+ *  - grid: RemoteWebDriver against -Dgrid.url (default http://localhost:4444), either a standalone
+ *    grid started on the same box or a hub with nodes
+ *
+ * In grid mode session requests are throttled to the free slots reported by the grid's /status,
+ * so parallel tests wait here instead of piling up in the grid's new-session queue, and session
+ * creation is retried on transient failures (grid restarting, node just registered, network blips).
+ */
+public final class DriverFactory {
+
+    private static final Log LOG = Log.get(DriverFactory.class);
+
+    // set only after WebDriverManager has resolved the binary; threads arriving meanwhile wait on the lock
+    private static final ReentrantLock BINARY_LOCK = new ReentrantLock();
+    private static volatile boolean localBinaryReady;
+
+    // session requests sent to the grid but not yet answered; the grid's status does not count them yet
+    private static final ReentrantLock SLOT_LOCK = new ReentrantLock();
+    private static int pendingSessions;
+
+    private DriverFactory() {
+    }
+
+    public static boolean isGridMode() {
+        return "grid".equalsIgnoreCase(TestConfig.getString("driver.mode", "local"));
+    }
+
+    public static WebDriver createDriver(ChromeOptions options) {
+        if (isGridMode()) {
+            return createRemoteDriver(options);
+        }
+        ensureLocalBinary();
+        return ResourceGuard.isEnabled() ? ResourceGuard.launch(options) : new ChromeDriver(options);
+    }
+
+    /** Options for browsers nobody watches (load users, benchmark pool): headless, 1920x1080. */
+    public static ChromeOptions headlessOptions() {
+        ChromeOptions options = new ChromeOptions();
+        options.addArguments("--headless=new");
+        options.addArguments("--window-size=1920,1080");
+        options.addArguments("--disable-notifications");
+        return options;
+    }
+
+    /** Quits a pooled browser, logging instead of throwing; {@code what} names it in the warning. */
+    public static void quitQuietly(WebDriver driver, String what) {
+        if (driver == null) return;
+        try {
+            driver.quit();
+        } catch (WebDriverException e) {
+            LOG.warn("Ignoring error while closing " + what + " browser: " + e.getMessage());
+        }
+    }
+
+    /**
+     * The driver itself or the first driver it wraps (profiler, event decorators) that is a {@code type},
+     * e.g. HasDevTools or HasCdp; null if none is.
+     */
+    public static <T> T unwrap(WebDriver driver, Class<T> type) {
+        WebDriver current = driver;
+        while (true) {
+            if (type.isInstance(current)) return type.cast(current);
+            if (!(current instanceof WrapsDriver)) return null;
+            current = ((WrapsDriver) current).getWrappedDriver();
+        }
+    }
+
+    private static void ensureLocalBinary() {
+        if (localBinaryReady) return;
+        BINARY_LOCK.lock();
+        try {
+            if (!localBinaryReady) {
+                WebDriverManager.chromedriver().setup();
+                localBinaryReady = true;
+            }
+        } finally {
+            BINARY_LOCK.unlock();
+        }
+    }
+
+    /* -----------------------------
+       Grid mode
+       ----------------------------- */
+
+    private static WebDriver createRemoteDriver(ChromeOptions options) {
+        String gridUrl = TestConfig.getString("grid.url", "http://localhost:4444");
+        URL url;
+        try {
+            url = new URL(gridUrl);
+        } catch (MalformedURLException e) {
+            throw new IllegalArgumentException("Invalid grid.url: " + gridUrl, e);
+        }
+
+        GridStatus status = new GridStatus(gridUrl);
+        Duration slotTimeout = TestConfig.getMillis("grid.slot.timeoutMs", Duration.ofMinutes(5));
+        int maxAttempts = Math.max(1, TestConfig.getInt("grid.session.retries", 3));
+
+        WebDriverException last = null;
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            acquireSlot(status, options.getBrowserName(), slotTimeout);
+            try {
+                return new RemoteWebDriver(url, options);
+            } catch (WebDriverException e) {
+                if (!isTransient(e) || attempt == maxAttempts) throw e;
+                last = e;
+                LOG.warn("[Grid] Session creation failed (attempt " + attempt + "/" + maxAttempts + "): "
+                        + firstLine(e.getMessage()));
+                sleepQuietly(1000L * attempt);
+            } finally {
+                releaseSlot();
+            }
+        }
+        throw last;
+    }
+
+    /**
+     * Wait until the grid reports more free slots than we already have requests in flight for.
+     */
+    private static void acquireSlot(GridStatus status, String browserName, Duration timeout) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        long backoff = 250;
+        while (true) {
+            int free = status.freeSlots(browserName);
+            SLOT_LOCK.lock();
+            try {
+                if (free > pendingSessions) {
+                    pendingSessions++;
+                    return;
+                }
+            } finally {
+                SLOT_LOCK.unlock();
+            }
+            if (System.nanoTime() > deadline) {
+                throw new SessionNotCreatedException("No free " + browserName + " slot on the grid within "
+                        + timeout.getSeconds() + "s (last free count: " + free + ")",
+                        new TimeoutException("grid slot wait"));
+            }
+            sleepQuietly(backoff);
+            backoff = Math.min(2000, backoff * 2);
+        }
+    }
+
+    private static void releaseSlot() {
+        SLOT_LOCK.lock();
+        try {
+            pendingSessions = Math.max(0, pendingSessions - 1);
+        } finally {
+            SLOT_LOCK.unlock();
+        }
+    }
+
+    private static boolean isTransient(WebDriverException e) {
+        if (e instanceof InvalidArgumentException) return false;
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof IOException || t instanceof TimeoutException) return true;
+            String msg = t.getMessage();
+            if (msg != null && (msg.contains("timed out") || msg.contains("Connection refused")
+                    || msg.contains("Could not start a new session"))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String firstLine(String s) {
+        if (s == null) return "";
+        int nl = s.indexOf('\n');
+        return nl < 0 ? s : s.substring(0, nl);
+    }
+
+    private static void sleepQuietly(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.evershop.driver;
+
+import com.evershop.utils.Log;
+import org.openqa.selenium.json.Json;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * GridStatus - reads free session slots from a Selenium Grid "/status" endpoint.
+ *
+ * Works for a standalone grid started on the same box and for hub + nodes:
+ * a slot is free when its node is UP, its stereotype matches the browser and it holds no session.
+ */
+public class GridStatus {
+
+    private static final Log LOG = Log.get(GridStatus.class);
+
+    private static final HttpClient HTTP = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    private final URI statusUri;
+
+    public GridStatus(String gridUrl) {
+        String base = gridUrl.endsWith("/") ? gridUrl.substring(0, gridUrl.length() - 1) : gridUrl;
+        if (base.endsWith("/wd/hub")) base = base.substring(0, base.length() - "/wd/hub".length());
+        this.statusUri = URI.create(base + "/status");
+    }
+
+    /**
+     * Number of free slots for the given browser, or -1 when the grid cannot be reached / is not ready.
+     */
+    public int freeSlots(String browserName) {
+        Map<String, Object> value;
+        try {
+            HttpRequest request = HttpRequest.newBuilder(statusUri).timeout(Duration.ofSeconds(5)).GET().build();
+            HttpResponse<String> response = HTTP.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) return -1;
+            Map<String, Object> body = new Json().toType(response.body(), Json.MAP_TYPE);
+            value = asMap(body.get("value"));
+        } catch (IOException e) {
+            return -1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return -1;
+        } catch (RuntimeException e) {
+            LOG.warn("[Grid] Unreadable status from " + statusUri + ": " + e.getMessage());
+            return -1;
+        }
+
+        if (value == null || !Boolean.TRUE.equals(value.get("ready"))) return -1;
+
+        int free = 0;
+        for (Object n : asList(value.get("nodes"))) {
+            Map<String, Object> node = asMap(n);
+            if (node == null || !"UP".equalsIgnoreCase(String.valueOf(node.get("availability")))) continue;
+            for (Object s : asList(node.get("slots"))) {
+                Map<String, Object> slot = asMap(s);
+                if (slot == null || slot.get("session") != null) continue;
+                Map<String, Object> stereotype = asMap(slot.get("stereotype"));
+                if (stereotype != null && browserName.equalsIgnoreCase(String.valueOf(stereotype.get("browserName")))) {
+                    free++;
+                }
+            }
+        }
+        return free;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> asMap(Object o) {
+        return o instanceof Map ? (Map<String, Object>) o : null;
+    }
+
+    private static Collection<?> asList(Object o) {
+        return o instanceof Collection ? (Collection<?>) o : java.util.Collections.emptyList();
+    }
+}
@@ -0,0 +1,453 @@
+package com.evershop.driver;
+
+import com.evershop.utils.Artifacts;
+import com.evershop.utils.Log;
+import com.evershop.utils.TestConfig;
+import com.evershop.utils.TestContext;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.chrome.ChromeDriverService;
+import org.openqa.selenium.chrome.ChromeOptions;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * ResourceGuard - keeps track of the chromedriver and Chrome processes and the profile folder of
+ * every local browser session, and cleans up what a test left behind.
+ *
+ * Provides:
+ *  - {@link #launch(ChromeOptions)}: a ChromeDriver with its own temp profile (--user-data-dir);
+ *    the chromedriver pid, the browser pids and the folder go into a ledger file before and after
+ *    Chrome starts
+ *  - quit() of that driver waits -Dguard.killWait (ms, default 3000) for the processes to exit,
+ *    kills what is left and deletes the profile
+ *  - {@link #reapClass(String)}: at the end of a test class, reaps the sessions it never quit
+ *    (tearDown skipped after a @BeforeMethod failure) and reports what the class leaked
+ *  - {@link #reportLeaks(Path)}: sessions never quit or that left processes behind, per test class,
+ *    for the whole run; open ones are reaped
+ *  - a shutdown hook that reaps the sessions still open when the JVM exits
+ *  - a startup sweep: ledgers of earlier runs whose JVM is gone (killed, crashed) are replayed and
+ *    their processes and profiles removed
+ *
+ * Notes:
+ *  - ledgers live in -Dguard.dir (default &lt;java.io.tmpdir&gt;/evershop-resource-guard), one per JVM,
+ *    named after its pid and start time; a ledger whose JVM still runs (a parallel build on the same
+ *    agent) is left alone
+ *  - a pid is only killed if its start time matches the ledger, so a reused pid is never hit; one
+ *    without a known start time is never killed by pid
+ *  - Chrome processes orphaned by a dead chromedriver are found by their --user-data-dir; that
+ *    scans the whole process table, so quit() only does it when chromedriver was already gone or
+ *    something had to be killed
+ *  - -Dguard.enabled=false launches a plain ChromeDriver; grid sessions are not guarded
+ */
+public final class ResourceGuard {
+
+    private static final Log LOG = Log.get(ResourceGuard.class);
+
+    private static final Path DIR = Paths.get(TestConfig.getString("guard.dir",
+            Paths.get(System.getProperty("java.io.tmpdir"), "evershop-resource-guard").toString()));
+    private static final Duration KILL_WAIT = TestConfig.getMillis("guard.killWait", Duration.ofSeconds(3));
+    private static final long START_TOLERANCE_MILLIS = 1000; // start times from /proc are not exact
+    private static final long UNKNOWN_START = 0; // the OS did not report a start time
+    private static final String NO_TEST = "(no test)";
+
+    private static final ProcessHandle SELF = ProcessHandle.current();
+    private static final Path LEDGER = DIR.resolve(SELF.pid() + "-" + startMillis(SELF) + ".ledger");
+    private static final ReentrantLock LEDGER_LOCK = new ReentrantLock();
+    private static final AtomicBoolean STARTED = new AtomicBoolean();
+    private static final AtomicInteger IDS = new AtomicInteger();
+    private static final LongAdder LAUNCHED = new LongAdder();
+
+    private static final Map<Integer, Session> OPEN = new ConcurrentHashMap<>();
+    private static final Map<String, List<String>> LEAKS = new ConcurrentHashMap<>(); // test class -> what leaked
+
+    private ResourceGuard() {
+    }
+
+    public static boolean isEnabled() {
+        return TestConfig.getBoolean("guard.enabled", true);
+    }
+
+    /* -----------------------------
+       Launch / quit
+       ----------------------------- */
+
+    /** A local ChromeDriver whose processes and profile are tracked until it quits. */
+    public static ChromeDriver launch(ChromeOptions options) {
+        if (STARTED.compareAndSet(false, true)) {
+            sweep();
+            Runtime.getRuntime().addShutdownHook(new Thread(ResourceGuard::reapOnExit, "resource-guard"));
+        }
+        Session session;
+        ChromeDriverService service = ChromeDriverService.createDefaultService();
+        try {
+            Path profile = Files.createTempDirectory("evershop-chrome-");
+            options.addArguments("--user-data-dir=" + profile);
+            service.start();
+            session = new Session(IDS.incrementAndGet(), ownerOf(TestContext.current()), profile,
+                    driverProcess(service.getUrl().getPort()));
+        } catch (IOException e) {
+            service.stop();
+            throw new WebDriverException("Could not start chromedriver", e);
+        }
+        OPEN.put(session.id, session);
+        ledger("launch", session.id, session.owner, session.profile.toString(), pidAndStart(session.driver));
+        try {
+            ChromeDriver driver = new GuardedChromeDriver(service, options, session);
+            LAUNCHED.increment();
+            session.driver.ifPresent(d -> d.descendants().forEach(p -> {
+                session.browsers.add(p);
+                ledger("browser", session.id, pidAndStart(Optional.of(p)));
+            }));
+            return driver;
+        } catch (RuntimeException e) {
+            service.stop();
+            session.close(false);
+            throw e;
+        }
+    }
+
+    /** The chromedriver child of this JVM started with --port=&lt;port&gt;. */
+    private static Optional<ProcessHandle> driverProcess(int port) {
+        String flag = "--port=" + port;
+        return SELF.children().filter(p -> commandLine(p).contains(flag)).findFirst();
+    }
+
+    private static String ownerOf(TestContext context) {
+        if (context == null) return NO_TEST;
+        String testId = context.getTestId();
+        int dot = testId.lastIndexOf('.');
+        return dot > 0 ? testId.substring(0, dot) : testId;
+    }
+
+    private static final class GuardedChromeDriver extends ChromeDriver {
+        private final Session session;
+
+        GuardedChromeDriver(ChromeDriverService service, ChromeOptions options, Session session) {
+            super(service, options);
+            this.session = session;
+        }
+
+        @Override
+        public void quit() {
+            boolean quit = false;
+            try {
+                super.quit();
+                quit = true;
+            } finally {
+                session.close(quit);
+            }
+        }
+    }
+
+    /** One browser session: chromedriver, the Chrome processes it started and the profile folder. */
+    private static final class Session {
+        final int id;
+        final String owner;
+        final Path profile;
+        final Optional<ProcessHandle> driver;
+        final List<ProcessHandle> browsers = new ArrayList<>();
+        final AtomicBoolean closed = new AtomicBoolean();
+
+        Session(int id, String owner, Path profile, Optional<ProcessHandle> driver) {
+            this.id = id;
+            this.owner = owner;
+            this.profile = profile;
+            this.driver = driver;
+        }
+
+        /**
+         * After quit (or instead of it): waits for the processes, kills the rest, deletes the
+         * profile. Anything that had to be killed is a leak of the owner test class.
+         */
+        void close(boolean quit) {
+            if (!closed.compareAndSet(false, true)) return;
+            OPEN.remove(id);
+            boolean orphans = driver.map(d -> !d.isAlive()).orElse(true); // its Chrome children are no descendants now
+            List<ProcessHandle> processes = new ArrayList<>();
+            driver.ifPresent(d -> {
+                d.descendants().forEach(processes::add);
+                processes.add(d);
+            });
+            for (ProcessHandle browser : browsers) {
+                if (!processes.contains(browser)) processes.add(browser);
+            }
+
+            int killed = quit ? waitOrKill(processes) : kill(processes);
+            if (orphans || killed > 0) {
+                // something did not go away cleanly: look for Chrome processes of this profile we do not know
+                // (the process table scan is too slow to do on every quit)
+                killed += kill(byProfile(profile.toString(), processes));
+            }
+            deleteProfile(profile);
+            ledger("released", id);
+            if (!quit || killed > 0) {
+                leak(owner, (quit ? "quit() left " + killed + " processes" : "never quit, killed " + killed + " processes")
+                        + " (session " + id + ", profile " + profile.getFileName() + ")");
+            }
+        }
+    }
+
+    /* -----------------------------
+       Leaks
+       ----------------------------- */
+
+    private static void leak(String owner, String what) {
+        LEAKS.computeIfAbsent(owner, k -> new CopyOnWriteArrayList<>()).add(what);
+        LOG.warn("Leaked browser session of " + owner + ": " + what);
+    }
+
+    /**
+     * Reaps the sessions a test class (simple name, as in its test ids) still has open, since its
+     * tests are over, and reports what the class leaked; returns the report, empty when nothing leaked.
+     */
+    public static String reapClass(String testClass) {
+        for (Session session : new ArrayList<>(OPEN.values())) {
+            if (session.owner.equals(testClass)) session.close(false);
+        }
+        List<String> leaks = LEAKS.get(testClass);
+        if (leaks == null || leaks.isEmpty()) return "";
+
+        StringBuilder report = new StringBuilder("Resource guard: " + testClass + " leaked " + leaks.size()
+                + " browser sessions\n");
+        for (String leak : leaks) report.append("    ").append(leak).append('\n');
+        LOG.warn(report.toString());
+        return report.toString();
+    }
+
+    /**
+     * Reaps the sessions still open (their tests are over) and reports every leak of the run per
+     * test class, also as CSV; returns the report, empty when nothing leaked.
+     */
+    public static String reportLeaks(Path csv) {
+        for (Session session : new ArrayList<>(OPEN.values())) session.close(false);
+        if (LEAKS.isEmpty()) return "";
+
+        StringBuilder report = new StringBuilder("Resource guard: browser sessions leaked by " + LEAKS.size()
+                + " test classes (" + LAUNCHED.sum() + " launched)\n");
+        StringBuilder rows = new StringBuilder("test_class,leak\n");
+        new TreeMap<>(LEAKS).forEach((owner, leaks) -> {
+            report.append("  ").append(owner).append(": ").append(leaks.size()).append('\n');
+            for (String leak : leaks) {
+                report.append("    ").append(leak).append('\n');
+                rows.append('"').append(owner).append("\",\"").append(leak.replace("\"", "\"\"")).append("\"\n");
+            }
+        });
+        try {
+            Artifacts.write("resource-leaks", csv, rows.toString().getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            LOG.warn("Failed to write " + csv + ": " + e.getMessage());
+        }
+        LOG.warn(report.toString());
+        return report.toString();
+    }
+
+    private static void reapOnExit() {
+        for (Session session : new ArrayList<>(OPEN.values())) session.close(false);
+        try {
+            Files.deleteIfExists(LEDGER); // everything released: nothing for the next run to sweep
+        } catch (IOException e) {
+            // the next startup sweep finds only released sessions and removes it
+        }
+        Log.flush();
+    }
+
+    /* -----------------------------
+       Startup sweep
+       ----------------------------- */
+
+    /** Reaps what the ledgers of dead JVMs still list as open. */
+    private static void sweep() {
+        if (!Files.isDirectory(DIR)) return;
+        int runs = 0, killed = 0, profiles = 0;
+        try (DirectoryStream<Path> ledgers = Files.newDirectoryStream(DIR, "*.ledger")) {
+            for (Path ledger : ledgers) {
+                if (ledger.equals(LEDGER) || ownerAlive(ledger)) continue;
+                Map<String, List<String[]>> open = openSessions(ledger);
+                for (List<String[]> entries : open.values()) {
+                    List<ProcessHandle> processes = new ArrayList<>();
+                    String profile = null;
+                    for (String[] entry : entries) {
+                        if ("launch".equals(entry[0])) {
+                            profile = entry[3];
+                            alive(entry[4]).ifPresent(d -> {
+                                d.descendants().forEach(processes::add);
+                                processes.add(d);
+                            });
+                        } else {
+                            alive(entry[2]).ifPresent(processes::add);
+                        }
+                    }
+                    if (profile != null) {
+                        processes.addAll(byProfile(profile, processes));
+                        if (deleteProfile(Paths.get(profile))) profiles++;
+                    }
+                    killed += kill(processes);
+                }
+                Files.deleteIfExists(ledger);
+                runs++;
+            }
+        } catch (IOException e) {
+            LOG.warn("Resource guard sweep incomplete: " + e.getMessage());
+        }
+        if (killed > 0 || profiles > 0) {
+            LOG.warn("Resource guard: removed " + killed + " processes and " + profiles + " browser profiles left by "
+                    + runs + " earlier runs");
+        }
+    }
+
+    /**
+     * Ledger file names are &lt;pid&gt;-&lt;start millis&gt;.ledger. Without a start time the owner
+     * cannot be told from a reused pid, so the ledger is kept while any process has that pid.
+     */
+    private static boolean ownerAlive(Path ledger) {
+        String name = ledger.getFileName().toString();
+        String[] parts = name.substring(0, name.length() - ".ledger".length()).split("-");
+        try {
+            if (Long.parseLong(parts[1]) == UNKNOWN_START) return ProcessHandle.of(Long.parseLong(parts[0])).isPresent();
+            return alive(parts[0] + ":" + parts[1]).isPresent();
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    /** Session id -> launch and browser entries, for sessions without a "released" line. */
+    private static Map<String, List<String[]>> openSessions(Path ledger) throws IOException {
+        Map<String, List<String[]>> sessions = new LinkedHashMap<>();
+        for (String line : Files.readAllLines(ledger, StandardCharsets.UTF_8)) {
+            String[] entry = line.split("\t");
+            if (entry.length < 2) continue;
+            if ("released".equals(entry[0])) {
+                sessions.remove(entry[1]);
+            } else if (("launch".equals(entry[0]) && entry.length >= 5) || ("browser".equals(entry[0]) && entry.length >= 3)) {
+                sessions.computeIfAbsent(entry[1], k -> new ArrayList<>()).add(entry);
+            }
+        }
+        return sessions;
+    }
+
+    /* -----------------------------
+       Processes and files
+       ----------------------------- */
+
+    /** Appends "&lt;type&gt; &lt;session&gt; &lt;fields...&gt;", tab separated. */
+    private static void ledger(String type, int session, String... fields) {
+        LEDGER_LOCK.lock();
+        try {
+            Files.createDirectories(DIR);
+            String line = type + "\t" + session + (fields.length > 0 ? "\t" + String.join("\t", fields) : "") + "\n";
+            Files.write(LEDGER, line.getBytes(StandardCharsets.UTF_8),
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            LOG.warn("Resource guard ledger not written: " + e.getMessage());
+        } finally {
+            LEDGER_LOCK.unlock();
+        }
+    }
+
+    /** Processes (not yet in {@code known}) whose command line names the profile folder. */
+    private static List<ProcessHandle> byProfile(String profile, List<ProcessHandle> known) {
+        String flag = "--user-data-dir=" + profile;
+        List<ProcessHandle> found = new ArrayList<>();
+        try (Stream<ProcessHandle> all = ProcessHandle.allProcesses()) {
+            all.filter(p -> !known.contains(p) && commandLine(p).contains(flag)).forEach(found::add);
+        }
+        return found;
+    }
+
+    /**
+     * "pid:startMillis" -> the process, if it still runs and started at that time. A start time of 0
+     * (unknown, when recorded or now) proves nothing: no match, so nothing is killed on a bare pid.
+     */
+    private static Optional<ProcessHandle> alive(String pidAndStart) {
+        String[] parts = pidAndStart.split(":");
+        if (parts.length != 2 || parts[0].equals("-")) return Optional.empty();
+        long start = Long.parseLong(parts[1]);
+        if (start == UNKNOWN_START) return Optional.empty();
+        return ProcessHandle.of(Long.parseLong(parts[0]))
+                .filter(p -> startMillis(p) != UNKNOWN_START && Math.abs(startMillis(p) - start) <= START_TOLERANCE_MILLIS);
+    }
+
+    private static String pidAndStart(Optional<ProcessHandle> process) {
+        return process.map(p -> p.pid() + ":" + startMillis(p)).orElse("-:0");
+    }
+
+    private static long startMillis(ProcessHandle process) {
+        return process.info().startInstant().map(Instant::toEpochMilli).orElse(UNKNOWN_START);
+    }
+
+    private static String commandLine(ProcessHandle process) {
+        ProcessHandle.Info info = process.info();
+        return info.arguments().map(args -> String.join(" ", args)).orElseGet(() -> info.commandLine().orElse(""));
+    }
+
+    /** Waits for the processes to exit on their own; kills the ones still running after KILL_WAIT. */
+    private static int waitOrKill(List<ProcessHandle> processes) {
+        CompletableFuture<?>[] exits = processes.stream().map(ProcessHandle::onExit).toArray(CompletableFuture[]::new);
+        try {
+            CompletableFuture.allOf(exits).get(KILL_WAIT.toMillis(), TimeUnit.MILLISECONDS);
+            return 0;
+        } catch (TimeoutException | ExecutionException e) {
+            return kill(processes);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return kill(processes);
+        }
+    }
+
+    /** Terminates the live ones (children first), forcibly after KILL_WAIT; returns how many were running. */
+    private static int kill(List<ProcessHandle> processes) {
+        List<ProcessHandle> running = new ArrayList<>();
+        for (ProcessHandle p : processes) {
+            if (p.isAlive()) running.add(p);
+        }
+        running.forEach(ProcessHandle::destroy);
+        for (ProcessHandle p : running) {
+            try {
+                p.onExit().get(KILL_WAIT.toMillis(), TimeUnit.MILLISECONDS);
+            } catch (TimeoutException | ExecutionException e) {
+                p.destroyForcibly();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                p.destroyForcibly();
+            }
+        }
+        return running.size();
+    }
+
+    private static boolean deleteProfile(Path profile) {
+        if (!Files.exists(profile)) return false;
+        try (Stream<Path> files = Files.walk(profile)) {
+            files.sorted(Comparator.reverseOrder()).forEach(f -> f.toFile().delete());
+        } catch (IOException | RuntimeException e) {
+            LOG.debug(() -> "Profile " + profile + " not fully deleted: " + e.getMessage());
+        }
+        return true;
+    }
+}
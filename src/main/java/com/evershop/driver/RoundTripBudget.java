@@ -0,0 +1,18 @@
+package com.evershop.driver;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Maximum number of WebDriver commands (HTTP round trips to the driver) a test may send.
+ *
+ * On a test method or test class; the method wins. Without the annotation the suite-wide
+ * -Dwebdriver.roundTrips.max applies (unset or 0 = no budget). Setup in @BeforeMethod counts too.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.METHOD, ElementType.TYPE})
+public @interface RoundTripBudget {
+    int value();
+}
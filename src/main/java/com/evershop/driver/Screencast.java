@@ -0,0 +1,234 @@
+package com.evershop.driver;
+
+import com.evershop.utils.Artifacts;
+import com.evershop.utils.Log;
+import com.evershop.utils.TestConfig;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.devtools.Command;
+import org.openqa.selenium.devtools.DevTools;
+import org.openqa.selenium.devtools.Event;
+import org.openqa.selenium.devtools.HasDevTools;
+import org.openqa.selenium.json.Json;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.ImageWriter;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.metadata.IIOMetadataNode;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Screencast - the last few seconds of a browser's screen, kept in memory and saved only when a
+ * test fails.
+ *
+ * Provides:
+ *  - {@link #start(WebDriver)}: CDP Page.startScreencast at low resolution; every frame goes into
+ *    a ring buffer bounded by -Dscreencast.seconds (default 10) and -Dscreencast.maxKb (default 4096)
+ *  - {@link #save(Path)}: the buffered frames as an animated GIF (-Dscreencast.format=gif, shown
+ *    inline by Allure and Extent) or as raw MJPEG (-Dscreencast.format=mjpeg, the JPEG frames back to back)
+ *  - {@link #stop()}: stops the screencast and drops the frames
+ *
+ * Notes:
+ *  - enabled with -Dscreencast.enabled=true; needs a driver with DevTools (local Chrome), otherwise
+ *    start returns null
+ *  - frame size -Dscreencast.maxWidth / maxHeight (default 640x400), JPEG -Dscreencast.quality (default 40)
+ *  - the protocol calls go through generic Command/Event by name, so no versioned devtools package is needed
+ */
+public final class Screencast {
+
+    private static final Log LOG = Log.get(Screencast.class);
+
+    private static final long WINDOW_MILLIS = TestConfig.getLong("screencast.seconds", 10) * 1000;
+    private static final long MAX_BYTES = TestConfig.getLong("screencast.maxKb", 4096) * 1024;
+
+    private final DevTools devTools;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Deque<Frame> frames = new ArrayDeque<>();
+    private long bufferedBytes;
+    private volatile boolean stopped;
+
+    private Screencast(DevTools devTools) {
+        this.devTools = devTools;
+    }
+
+    public static boolean isEnabled() {
+        return TestConfig.getBoolean("screencast.enabled", false);
+    }
+
+    /** Starts buffering frames of the driver's current tab, or returns null (disabled / no DevTools). */
+    public static Screencast start(WebDriver driver) {
+        if (!isEnabled()) return null;
+        HasDevTools hasDevTools = DriverFactory.unwrap(driver, HasDevTools.class);
+        if (hasDevTools == null) {
+            LOG.info("Screencast needs a local Chrome driver with DevTools, not recording");
+            return null;
+        }
+        try {
+            DevTools devTools = hasDevTools.getDevTools();
+            devTools.createSessionIfThereIsNotOne();
+            Screencast screencast = new Screencast(devTools);
+            devTools.addListener(new Event<>("Page.screencastFrame", input -> input.<Map<String, Object>>read(Json.MAP_TYPE)),
+                    screencast::onFrame);
+            devTools.send(new Command<Void>("Page.startScreencast", Map.of(
+                    "format", "jpeg",
+                    "quality", TestConfig.getInt("screencast.quality", 40),
+                    "maxWidth", TestConfig.getInt("screencast.maxWidth", 640),
+                    "maxHeight", TestConfig.getInt("screencast.maxHeight", 400))));
+            return screencast;
+        } catch (RuntimeException e) {
+            LOG.warn("Screencast could not start: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /** On the DevTools connection thread: buffer the frame, drop what is too old, ack so Chrome sends the next one. */
+    private void onFrame(Map<String, Object> event) {
+        Object sessionId = event.get("sessionId");
+        if (stopped) return;
+        byte[] jpeg = Base64.getDecoder().decode(String.valueOf(event.get("data")));
+        long now = System.currentTimeMillis();
+        lock.lock();
+        try {
+            frames.addLast(new Frame(now, jpeg));
+            bufferedBytes += jpeg.length;
+            while (frames.size() > 1 && (now - frames.peekFirst().millis > WINDOW_MILLIS || bufferedBytes > MAX_BYTES)) {
+                bufferedBytes -= frames.removeFirst().jpeg.length;
+            }
+        } finally {
+            lock.unlock();
+        }
+        try {
+            devTools.send(new Command<Void>("Page.screencastFrameAck", Map.of("sessionId", sessionId)).doesNotSendResponse());
+        } catch (RuntimeException e) {
+            LOG.debug(() -> "screencast ack failed: " + e.getMessage());
+        }
+    }
+
+    /** Stops the screencast and drops the buffered frames. */
+    public void stop() {
+        if (stopped) return;
+        stopped = true;
+        try {
+            devTools.send(new Command<Void>("Page.stopScreencast", Map.of()));
+        } catch (RuntimeException e) {
+            LOG.debug(() -> "stopScreencast failed: " + e.getMessage());
+        }
+        lock.lock();
+        try {
+            frames.clear();
+            bufferedBytes = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /* -----------------------------
+       Save
+       ----------------------------- */
+
+    /**
+     * Writes the buffered frames to {@code file} with the extension of -Dscreencast.format added
+     * (.gif or .mjpeg), and returns that path, or null when no frame was captured.
+     */
+    public Path save(Path file) throws IOException {
+        List<Frame> snapshot;
+        lock.lock();
+        try {
+            snapshot = new ArrayList<>(frames);
+        } finally {
+            lock.unlock();
+        }
+        if (snapshot.isEmpty()) return null;
+
+        boolean mjpeg = "mjpeg".equalsIgnoreCase(TestConfig.getString("screencast.format", "gif"));
+        Path target = file.resolveSibling(file.getFileName() + (mjpeg ? ".mjpeg" : ".gif"));
+        byte[] bytes = mjpeg ? mjpeg(snapshot) : gif(snapshot);
+        Artifacts.write("screencast", target, bytes);
+        LOG.info(String.format(Locale.ROOT, "Screencast: %d frames, %.1f s -> %s", snapshot.size(),
+                (snapshot.get(snapshot.size() - 1).millis - snapshot.get(0).millis) / 1000.0, target));
+        return target;
+    }
+
+    static byte[] mjpeg(List<Frame> frames) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (Frame f : frames) out.write(f.jpeg, 0, f.jpeg.length);
+        return out.toByteArray();
+    }
+
+    /** Animated GIF, each frame shown for as long as it was on screen (last one 1 s), looping. */
+    static byte[] gif(List<Frame> frames) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("gif").next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ImageOutputStream stream = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(stream);
+            writer.prepareWriteSequence(null);
+            for (int i = 0; i < frames.size(); i++) {
+                BufferedImage image = ImageIO.read(new ByteArrayInputStream(frames.get(i).jpeg));
+                if (image == null) continue;
+                long shownMillis = i + 1 < frames.size() ? frames.get(i + 1).millis - frames.get(i).millis : 1000;
+                writer.writeToSequence(new IIOImage(image, null, gifFrameMetadata(writer, image, shownMillis, i == 0)), null);
+            }
+            writer.endWriteSequence();
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    private static IIOMetadata gifFrameMetadata(ImageWriter writer, BufferedImage image, long shownMillis, boolean first)
+            throws IOException {
+        IIOMetadata metadata = writer.getDefaultImageMetadata(ImageTypeSpecifier.createFromRenderedImage(image), null);
+        String format = metadata.getNativeMetadataFormatName();
+        IIOMetadataNode root = (IIOMetadataNode) metadata.getAsTree(format);
+
+        IIOMetadataNode control = child(root, "GraphicControlExtension");
+        control.setAttribute("disposalMethod", "none");
+        control.setAttribute("userInputFlag", "FALSE");
+        control.setAttribute("transparentColorFlag", "FALSE");
+        control.setAttribute("transparentColorIndex", "0");
+        control.setAttribute("delayTime", String.valueOf(Math.max(2, Math.min(65535, shownMillis / 10))));
+
+        if (first) {
+            IIOMetadataNode loop = new IIOMetadataNode("ApplicationExtension");
+            loop.setAttribute("applicationID", "NETSCAPE");
+            loop.setAttribute("authenticationCode", "2.0");
+            loop.setUserObject(new byte[] {1, 0, 0}); // loop forever
+            child(root, "ApplicationExtensions").appendChild(loop);
+        }
+        metadata.setFromTree(format, root);
+        return metadata;
+    }
+
+    private static IIOMetadataNode child(IIOMetadataNode parent, String name) {
+        for (int i = 0; i < parent.getLength(); i++) {
+            if (parent.item(i).getNodeName().equalsIgnoreCase(name)) return (IIOMetadataNode) parent.item(i);
+        }
+        IIOMetadataNode node = new IIOMetadataNode(name);
+        parent.appendChild(node);
+        return node;
+    }
+
+    static final class Frame {
+        final long millis;
+        final byte[] jpeg;
+
+        Frame(long millis, byte[] jpeg) {
+            this.millis = millis;
+            this.jpeg = jpeg;
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package com.evershop.http;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * HtmlTokenizer - streaming HTML tokenizer: start tags, end tags and text, read from a Reader.
+ *
+ * Enough HTML for server-rendered pages: attributes (quoted or not), comments, doctype, script and
+ * style contents skipped, common entities decoded. There is no DOM and no tree repair: the handler
+ * sees tokens as they arrive, so a response is processed while it is still downloading, in
+ * constant memory.
+ */
+public final class HtmlTokenizer {
+
+    /** Receives tokens in document order. */
+    public interface Handler {
+        default void startTag(String name, Map<String, String> attributes, boolean selfClosing) {
+        }
+
+        default void endTag(String name) {
+        }
+
+        default void text(String text) {
+        }
+    }
+
+    /** Elements that never have content or an end tag. */
+    public static final Set<String> VOID_ELEMENTS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+            "area", "base", "br", "col", "embed", "hr", "img", "input", "link", "meta", "source", "track", "wbr")));
+
+    private static final Set<String> RAW_TEXT = new HashSet<>(Arrays.asList("script", "style", "textarea", "title"));
+
+    private final Reader in;
+    private final Handler handler;
+    private int pushedBack = -2;
+
+    public HtmlTokenizer(Reader in, Handler handler) {
+        this.in = in instanceof BufferedReader ? in : new BufferedReader(in, 16 * 1024);
+        this.handler = handler;
+    }
+
+    /** Reads to the end of the input, calling the handler for every token. */
+    public void run() throws IOException {
+        StringBuilder text = new StringBuilder();
+        int c;
+        while ((c = read()) != -1) {
+            if (c != '<') {
+                text.append((char) c);
+                continue;
+            }
+            int next = peek();
+            if (next == '!') {
+                flushText(text);
+                read();
+                skipDeclarationOrComment();
+            } else if (next == '?') {
+                flushText(text);
+                skipPast(">");
+            } else if (next == '/') {
+                flushText(text);
+                read();
+                String name = readName();
+                skipPast(">");
+                if (!name.isEmpty()) handler.endTag(name);
+            } else if (Character.isLetter(next)) {
+                flushText(text);
+                startTag();
+            } else {
+                text.append('<');
+            }
+        }
+        flushText(text);
+    }
+
+    private void startTag() throws IOException {
+        String name = readName();
+        Map<String, String> attributes = new LinkedHashMap<>();
+        boolean selfClosing = false;
+        while (true) {
+            skipWhitespace();
+            int c = read();
+            if (c == -1 || c == '>') break;
+            if (c == '/') {
+                if (peek() == '>') {
+                    read();
+                    selfClosing = true;
+                    break;
+                }
+                continue;
+            }
+            StringBuilder attr = new StringBuilder().append((char) c);
+            while ((c = peek()) != -1 && !Character.isWhitespace(c) && c != '=' && c != '>' && c != '/') {
+                attr.append((char) read());
+            }
+            skipWhitespace();
+            String value = "";
+            if (peek() == '=') {
+                read();
+                skipWhitespace();
+                value = readAttributeValue();
+            }
+            attributes.putIfAbsent(attr.toString().toLowerCase(Locale.ROOT), decode(value));
+        }
+        handler.startTag(name, attributes, selfClosing);
+        if (RAW_TEXT.contains(name) && !selfClosing) {
+            String content = readRawText(name);
+            if (!"script".equals(name) && !"style".equals(name) && !content.isEmpty()) handler.text(decode(content));
+            handler.endTag(name);
+        }
+    }
+
+    private String readAttributeValue() throws IOException {
+        int quote = peek();
+        StringBuilder value = new StringBuilder();
+        if (quote == '"' || quote == '\'') {
+            read();
+            int c;
+            while ((c = read()) != -1 && c != quote) value.append((char) c);
+            return value.toString();
+        }
+        int c;
+        while ((c = peek()) != -1 && !Character.isWhitespace(c) && c != '>') value.append((char) read());
+        return value.toString();
+    }
+
+    /** Content up to the matching end tag (which is consumed). */
+    private String readRawText(String name) throws IOException {
+        String end = "</" + name;
+        StringBuilder content = new StringBuilder();
+        int c;
+        while ((c = read()) != -1) {
+            content.append((char) c);
+            if (c == '>' || content.length() < end.length()) continue;
+            int from = content.length() - end.length();
+            if (content.substring(from).equalsIgnoreCase(end)) {
+                content.setLength(from);
+                skipPast(">");
+                return content.toString();
+            }
+        }
+        return content.toString();
+    }
+
+    private void skipDeclarationOrComment() throws IOException {
+        if (peek() == '-') {
+            read();
+            if (peek() == '-') {
+                read();
+                skipPast("-->");
+                return;
+            }
+        }
+        skipPast(">");
+    }
+
+    private String readName() throws IOException {
+        StringBuilder name = new StringBuilder();
+        int c;
+        while ((c = peek()) != -1 && (Character.isLetterOrDigit(c) || c == '-' || c == ':' || c == '_')) {
+            name.append((char) Character.toLowerCase(read()));
+        }
+        return name.toString();
+    }
+
+    private void skipPast(String terminator) throws IOException {
+        int matched = 0;
+        int c;
+        while ((c = read()) != -1) {
+            if (c == terminator.charAt(matched)) {
+                if (++matched == terminator.length()) return;
+            } else {
+                matched = c == terminator.charAt(0) ? 1 : 0;
+            }
+        }
+    }
+
+    private void skipWhitespace() throws IOException {
+        while (Character.isWhitespace(peek())) read();
+    }
+
+    private void flushText(StringBuilder text) {
+        if (text.length() == 0) return;
+        handler.text(decode(text.toString()));
+        text.setLength(0);
+    }
+
+    private int read() throws IOException {
+        if (pushedBack != -2) {
+            int c = pushedBack;
+            pushedBack = -2;
+            return c;
+        }
+        return in.read();
+    }
+
+    private int peek() throws IOException {
+        if (pushedBack == -2) pushedBack = in.read();
+        return pushedBack;
+    }
+
+    /* -----------------------------
+       Entities
+       ----------------------------- */
+
+    private static final Map<String, String> ENTITIES = new LinkedHashMap<>();
+
+    static {
+        ENTITIES.put("amp", "&");
+        ENTITIES.put("lt", "<");
+        ENTITIES.put("gt", ">");
+        ENTITIES.put("quot", "\"");
+        ENTITIES.put("apos", "'");
+        ENTITIES.put("nbsp", " ");
+    }
+
+    static String decode(String s) {
+        int amp = s.indexOf('&');
+        if (amp < 0) return s;
+        StringBuilder out = new StringBuilder(s.length());
+        int i = 0;
+        while (amp >= 0) {
+            out.append(s, i, amp);
+            int semi = s.indexOf(';', amp);
+            String replacement = semi > amp && semi - amp <= 10 ? entity(s.substring(amp + 1, semi)) : null;
+            if (replacement != null) {
+                out.append(replacement);
+                i = semi + 1;
+            } else {
+                out.append('&');
+                i = amp + 1;
+            }
+            amp = s.indexOf('&', i);
+        }
+        return out.append(s, i, s.length()).toString();
+    }
+
+    private static String entity(String name) {
+        try {
+            if (name.startsWith("#x") || name.startsWith("#X")) return new String(Character.toChars(Integer.parseInt(name.substring(2), 16)));
+            if (name.startsWith("#")) return new String(Character.toChars(Integer.parseInt(name.substring(1))));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        return ENTITIES.get(name);
+    }
+}
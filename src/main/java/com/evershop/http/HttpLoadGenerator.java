@@ -0,0 +1,369 @@
+package com.evershop.http;
+
+import com.evershop.perf.LatencyHistogram;
+import com.evershop.testdata.AddressData;
+import com.evershop.testdata.SearchData;
+import com.evershop.utils.Artifacts;
+import com.evershop.utils.TestConfig;
+import org.openqa.selenium.json.Json;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongFunction;
+
+/**
+ * HttpLoadGenerator - open-loop HTTP load on the endpoints behind the page objects.
+ *
+ * Provides:
+ *  - a fixed arrival rate (-Dhttpload.rate, requests/s): request i is due at start + i / rate and is
+ *    sent then, whether or not earlier responses have come back, so a slow server gets the same
+ *    offered load instead of a politely reduced one
+ *  - coordinated-omission-corrected latency: measured from the time a request was due, not from
+ *    when it could be sent; the uncorrected service time (from send) is reported next to it
+ *  - a weighted endpoint mix (-Dhttpload.mix=search:70,login-page:10,login:10,address:10)
+ *  - CSV and JSON export per endpoint: counts, status codes, achieved rate, p50/p90/p99/p99.9/max
+ *
+ * Notes:
+ *  - payloads come from SearchData (keywords) and AddressData (address bodies)
+ *  - requests over -Dhttpload.maxInFlight are not sent and count as "overload" errors, so a stuck
+ *    server cannot exhaust the generator; the schedule keeps going
+ *  - neither those nor requests still unanswered when the run gives up (-Dhttpload.timeout + 5 s after
+ *    the last send) drop out of the corrected histogram: both are recorded as waiting from their due
+ *    time until the end of the run, so overload shows in p99/p99.9 instead of vanishing from them
+ *  - -Dhttpload.warmup (ms) is run but left out of the statistics
+ */
+public final class HttpLoadGenerator {
+
+    /** One endpoint: builds the n-th request to it. */
+    public static final class Endpoint {
+        private final String name;
+        private final LongFunction<HttpRequest> requests;
+
+        public Endpoint(String name, LongFunction<HttpRequest> requests) {
+            this.name = name;
+            this.requests = requests;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    private static final Json JSON = new Json();
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .followRedirects(HttpClient.Redirect.NEVER)
+            .build();
+    private final Endpoint[] schedule;
+    private final double ratePerSecond;
+    private final Duration duration;
+    private final Duration warmup;
+    private final int maxInFlight;
+
+    private final Map<String, EndpointStats> stats = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Set<Sent> outstanding = ConcurrentHashMap.newKeySet(); // measured requests without a response yet
+    private volatile double measuredSeconds;
+
+    public HttpLoadGenerator(Map<Endpoint, Integer> mix, double ratePerSecond, Duration duration,
+                             Duration warmup, int maxInFlight) {
+        if (mix.isEmpty() || ratePerSecond <= 0) throw new IllegalArgumentException("HTTP load needs a mix and a rate > 0");
+        this.schedule = interleave(mix);
+        this.ratePerSecond = ratePerSecond;
+        this.duration = duration;
+        this.warmup = warmup;
+        this.maxInFlight = maxInFlight;
+        mix.keySet().forEach(e -> stats.put(e.getName(), new EndpointStats()));
+    }
+
+    /** Generator from -Dhttpload.* properties against {@code baseUrl}. */
+    public static HttpLoadGenerator fromConfig(String baseUrl) {
+        Map<Endpoint, Integer> mix = TestConfig.getMix("httpload.mix", "search:70,login-page:10,login:10,address:10",
+                evershopEndpoints(baseUrl), Endpoint::getName);
+        return new HttpLoadGenerator(mix,
+                Double.parseDouble(TestConfig.getString("httpload.rate", "200")),
+                TestConfig.getMillis("httpload.duration", Duration.ofSeconds(30)),
+                TestConfig.getMillis("httpload.warmup", Duration.ofSeconds(5)),
+                TestConfig.getInt("httpload.maxInFlight", 5000));
+    }
+
+    /**
+     * search, login-page, login and address endpoints. Login and address paths default to the
+     * stand-in's ({@link StandInServer#LOGIN_PATH}, {@link StandInServer#ADDRESS_PATH}) and can be
+     * set with -Dhttpload.loginPath / -Dhttpload.addressPath; -Dhttpload.cookie is sent when given
+     * (a signed-in session for the address endpoint on a real shop).
+     */
+    public static List<Endpoint> evershopEndpoints(String baseUrl) {
+        String base = baseUrl.replaceAll("/+$", "");
+        String cookie = TestConfig.getString("httpload.cookie", null);
+        Duration timeout = TestConfig.getMillis("httpload.timeout", Duration.ofSeconds(10));
+        List<String> keywords = SearchData.getAllKeywords();
+        List<AddressData> addresses = Arrays.asList(AddressData.getValidUSAddress(), AddressData.getSomeAddress());
+        String login = JSON.toJson(Map.of(
+                "email", TestConfig.getString("load.email", "kimanh61224@gmail.com"),
+                "password", TestConfig.getString("load.password", "123456")));
+
+        return Arrays.asList(
+                new Endpoint("search", n -> request(base + "/search?keyword="
+                        + URLEncoder.encode(keywords.get((int) (n % keywords.size())), StandardCharsets.UTF_8), cookie, timeout).GET().build()),
+                new Endpoint("login-page", n -> request(base + "/account/login", cookie, timeout).GET().build()),
+                new Endpoint("login", n -> request(base + TestConfig.getString("httpload.loginPath", StandInServer.LOGIN_PATH), cookie, timeout)
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(login)).build()),
+                new Endpoint("address", n -> request(base + TestConfig.getString("httpload.addressPath", StandInServer.ADDRESS_PATH), cookie, timeout)
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(addressJson(addresses.get((int) (n % addresses.size()))))).build()));
+    }
+
+    private static HttpRequest.Builder request(String url, String cookie, Duration timeout) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(url)).timeout(timeout);
+        if (cookie != null) builder.header("Cookie", cookie);
+        return builder;
+    }
+
+    static String addressJson(AddressData a) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("full_name", a.getFullName());
+        body.put("telephone", a.getTelephone());
+        body.put("address_1", a.getAddress());
+        body.put("city", a.getCity());
+        body.put("country", a.getCountry());
+        body.put("province", a.getProvince());
+        body.put("postcode", a.getPostcode());
+        return JSON.toJson(body);
+    }
+
+    /** Weighted mix spread evenly: weights 70/30 give 70 and 30 slots interleaved in a 100-slot cycle. */
+    private static Endpoint[] interleave(Map<Endpoint, Integer> mix) {
+        int total = mix.values().stream().mapToInt(Integer::intValue).sum();
+        Endpoint[] cycle = new Endpoint[total];
+        Map<Endpoint, Double> credit = new LinkedHashMap<>();
+        for (int slot = 0; slot < total; slot++) {
+            Endpoint best = null;
+            for (Map.Entry<Endpoint, Integer> e : mix.entrySet()) {
+                double c = credit.merge(e.getKey(), (double) e.getValue() / total, Double::sum);
+                if (best == null || c > credit.get(best)) best = e.getKey();
+            }
+            credit.merge(best, -1.0, Double::sum);
+            cycle[slot] = best;
+        }
+        return cycle;
+    }
+
+    /* -----------------------------
+       Run
+       ----------------------------- */
+
+    /** Sends the whole schedule, then waits for the requests still in flight. */
+    public void run() {
+        long total = (long) (ratePerSecond * (warmup.toMillis() + duration.toMillis()) / 1000.0);
+        long measureFrom = warmup.toNanos();
+        long start = System.nanoTime();
+        for (long i = 0; i < total && !Thread.currentThread().isInterrupted(); i++) {
+            long dueOffset = (long) (i * 1e9 / ratePerSecond);
+            long due = start + dueOffset;
+            long wait = due - System.nanoTime();
+            if (wait > 0) LockSupport.parkNanos(wait);
+
+            Endpoint endpoint = schedule[(int) (i % schedule.length)];
+            EndpointStats endpointStats = dueOffset >= measureFrom ? stats.get(endpoint.getName()) : null;
+            if (inFlight.get() >= maxInFlight) {
+                if (endpointStats != null) endpointStats.overloadDue.add(due); // recorded when the run ends
+                continue;
+            }
+            send(endpoint.requests.apply(i), due, endpointStats);
+        }
+        awaitInFlight();
+        recordUnanswered(System.nanoTime());
+        measuredSeconds = duration.toMillis() / 1000.0;
+    }
+
+    private void send(HttpRequest request, long due, EndpointStats endpointStats) {
+        inFlight.incrementAndGet();
+        Sent sent = new Sent(due, System.nanoTime(), endpointStats);
+        if (endpointStats != null) outstanding.add(sent);
+        client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, error) -> {
+            long done = System.nanoTime();
+            inFlight.decrementAndGet();
+            if (endpointStats == null || !sent.settle()) return; // warmup, or already recorded as unanswered
+            outstanding.remove(sent);
+            endpointStats.corrected.recordNanos(done - due);
+            endpointStats.service.recordNanos(done - sent.at);
+            if (error != null) {
+                endpointStats.status("error:" + rootCause(error).getClass().getSimpleName());
+                endpointStats.errors.increment();
+            } else {
+                endpointStats.status(String.valueOf(response.statusCode()));
+                if (response.statusCode() >= 400) endpointStats.errors.increment();
+            }
+        });
+    }
+
+    private void awaitInFlight() {
+        long deadline = System.nanoTime() + TestConfig.getMillis("httpload.timeout", Duration.ofSeconds(10)).toNanos()
+                + Duration.ofSeconds(5).toNanos();
+        while (inFlight.get() > 0 && System.nanoTime() < deadline) {
+            LockSupport.parkNanos(10_000_000);
+        }
+    }
+
+    /**
+     * Requests dropped at maxInFlight, and those still without a response, waited at least from their
+     * due time until now: recorded so, as errors, rather than left out of the percentiles.
+     */
+    private void recordUnanswered(long end) {
+        for (Sent sent : outstanding) {
+            if (!sent.settle()) continue; // answered meanwhile
+            outstanding.remove(sent);
+            sent.stats.corrected.recordNanos(end - sent.due);
+            sent.stats.service.recordNanos(end - sent.at);
+            sent.stats.status("no response");
+            sent.stats.errors.increment();
+            sent.stats.unanswered.increment();
+        }
+        for (EndpointStats endpointStats : stats.values()) {
+            for (long due : endpointStats.overloadDue) endpointStats.corrected.recordNanos(end - due);
+            endpointStats.overload.add(endpointStats.overloadDue.size());
+            endpointStats.overloadDue.clear();
+        }
+    }
+
+    private static Throwable rootCause(Throwable t) {
+        while (t.getCause() != null && t.getCause() != t) t = t.getCause();
+        return t;
+    }
+
+    /* -----------------------------
+       Results
+       ----------------------------- */
+
+    public long getRequests() {
+        return stats.values().stream().mapToLong(s -> s.corrected.getCount()).sum();
+    }
+
+    public long getErrors() {
+        return stats.values().stream().mapToLong(s -> s.errors.sum() + s.overload.sum()).sum();
+    }
+
+    /** Corrected latency at a percentile over all endpoints, in ms. */
+    public double correctedPercentileMillis(double percentile) {
+        LatencyHistogram all = new LatencyHistogram();
+        stats.values().forEach(s -> all.merge(s.corrected));
+        return all.percentile(percentile) / 1000.0;
+    }
+
+    private static final String[] COLUMNS = {"endpoint", "requests", "errors", "overload", "unanswered", "achieved_per_s",
+            "p50_ms", "p90_ms", "p99_ms", "p999_ms", "max_ms", "service_p50_ms", "service_p99_ms", "service_max_ms", "status"};
+
+    public List<Map<String, Object>> rows() {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        new TreeMap<>(stats).forEach((name, s) -> {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put(COLUMNS[0], name);
+            long answered = s.corrected.getCount() - s.overload.sum() - s.unanswered.sum();
+            row.put(COLUMNS[1], s.corrected.getCount());
+            row.put(COLUMNS[2], s.errors.sum());
+            row.put(COLUMNS[3], s.overload.sum());
+            row.put(COLUMNS[4], s.unanswered.sum());
+            row.put(COLUMNS[5], round(answered / Math.max(measuredSeconds, 1e-9)));
+            row.put(COLUMNS[6], ms(s.corrected.percentile(50)));
+            row.put(COLUMNS[7], ms(s.corrected.percentile(90)));
+            row.put(COLUMNS[8], ms(s.corrected.percentile(99)));
+            row.put(COLUMNS[9], ms(s.corrected.percentile(99.9)));
+            row.put(COLUMNS[10], ms(s.corrected.getMax()));
+            row.put(COLUMNS[11], ms(s.service.percentile(50)));
+            row.put(COLUMNS[12], ms(s.service.percentile(99)));
+            row.put(COLUMNS[13], ms(s.service.getMax()));
+            Map<String, Long> codes = new TreeMap<>();
+            s.statuses.forEach((code, n) -> codes.put(code, n.sum()));
+            row.put(COLUMNS[14], codes);
+            rows.add(row);
+        });
+        return rows;
+    }
+
+    /** http-load.csv and http-load.json (with the run settings) for the same rows. */
+    public void writeReport(Path csv, Path json) throws IOException {
+        List<Map<String, Object>> rows = rows();
+        StringBuilder sb = new StringBuilder(String.join(",", COLUMNS)).append('\n');
+        for (Map<String, Object> row : rows) {
+            List<String> cells = new ArrayList<>();
+            for (String column : COLUMNS) {
+                Object v = row.get(column);
+                cells.add(v instanceof Map ? "\"" + v.toString().replace("\"", "'") + "\"" : String.valueOf(v));
+            }
+            sb.append(String.join(",", cells)).append('\n');
+        }
+        Artifacts.write("http-load", csv, sb.toString().getBytes(StandardCharsets.UTF_8));
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("ratePerSecond", ratePerSecond);
+        report.put("durationMs", duration.toMillis());
+        report.put("warmupMs", warmup.toMillis());
+        report.put("latency", "corrected from scheduled send time (p*_ms), overload and unanswered requests until the end"
+                + " of the run; service_* from actual send");
+        report.put("endpoints", rows);
+        Artifacts.write("http-load", json, JSON.toJson(report).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static double ms(long micros) {
+        return round(micros / 1000.0);
+    }
+
+    private static double round(double v) {
+        return Double.parseDouble(String.format(Locale.ROOT, "%.2f", v));
+    }
+
+    /** A measured request on the wire; settled once, by its response or by the end of the run. */
+    private static final class Sent {
+        final long due;
+        final long at;
+        final EndpointStats stats;
+        private final AtomicBoolean settled = new AtomicBoolean();
+
+        Sent(long due, long at, EndpointStats stats) {
+            this.due = due;
+            this.at = at;
+            this.stats = stats;
+        }
+
+        boolean settle() {
+            return settled.compareAndSet(false, true);
+        }
+    }
+
+    private static final class EndpointStats {
+        final LatencyHistogram corrected = new LatencyHistogram();
+        final LatencyHistogram service = new LatencyHistogram();
+        final LongAdder errors = new LongAdder();
+        final LongAdder overload = new LongAdder();
+        final LongAdder unanswered = new LongAdder();
+        final List<Long> overloadDue = new ArrayList<>(); // run thread only, until recordUnanswered
+        final Map<String, LongAdder> statuses = new ConcurrentHashMap<>();
+
+        void status(String code) {
+            statuses.computeIfAbsent(code, k -> new LongAdder()).increment();
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package com.evershop.http;
+
+import com.evershop.pages.SearchResults;
+import com.evershop.testdata.SearchData;
+import com.evershop.utils.TestConfig;
+import com.evershop.utils.VirtualThreads;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * SearchProbe - search results without a browser: GET /search?keyword=... and read the HTML.
+ *
+ * Provides:
+ *  - {@link #search(String)}: async request (java.net.http), the body is tokenized while it streams
+ *    in; product names come from the same elements SearchResultPage reads
+ *    (.listing-tem .product-name.product-list-name a span), plus the title and the
+ *    "no product" message, as a {@link SearchResults}
+ *  - {@link #sweep(Collection)}: many keywords with at most -Dprobe.concurrency requests in flight
+ *
+ * Notes:
+ *  - only server-rendered content is seen; focus, styling and keyboard behaviour stay browser tests
+ *  - the base URL is SearchData.getBaseUrl() (-Dbase.url) unless given
+ */
+public final class SearchProbe implements AutoCloseable {
+
+    private static final Pattern CHARSET = Pattern.compile("charset=\"?([\\w-]+)", Pattern.CASE_INSENSITIVE);
+
+    private final String baseUrl;
+    private final HttpClient client;
+    private final ExecutorService parsers = VirtualThreads.newThreadPerTaskExecutor("search-probe");
+    private final Duration timeout = TestConfig.getMillis("probe.timeout", Duration.ofSeconds(20));
+
+    public SearchProbe() {
+        this(SearchData.getBaseUrl());
+    }
+
+    public SearchProbe(String baseUrl) {
+        this.baseUrl = baseUrl.replaceAll("/+$", "");
+        this.client = HttpClient.newBuilder()
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+    }
+
+    public CompletableFuture<SearchResults> search(String keyword) {
+        HttpRequest request = HttpRequest.newBuilder(searchUri(keyword))
+                .timeout(timeout)
+                .header("Accept", "text/html")
+                .GET()
+                .build();
+        // the body stream blocks while downloading, so it is read on our own threads, not the client's
+        return client.sendAsync(request, HttpResponse.BodyHandlers.ofInputStream())
+                .thenApplyAsync(response -> read(keyword, response), parsers);
+    }
+
+    /** Results per keyword, in the order given. */
+    public Map<String, SearchResults> sweep(Collection<String> keywords) {
+        Semaphore inFlight = new Semaphore(Math.max(1, TestConfig.getInt("probe.concurrency", 16)));
+        Map<String, CompletableFuture<SearchResults>> pending = new LinkedHashMap<>();
+        for (String keyword : keywords) {
+            inFlight.acquireUninterruptibly();
+            pending.put(keyword, search(keyword).whenComplete((r, e) -> inFlight.release()));
+        }
+        Map<String, SearchResults> results = new LinkedHashMap<>();
+        pending.forEach((keyword, future) -> results.put(keyword, future.join()));
+        return results;
+    }
+
+    URI searchUri(String keyword) {
+        return URI.create(baseUrl + "/search?keyword=" + URLEncoder.encode(keyword, StandardCharsets.UTF_8));
+    }
+
+    private static SearchResults read(String keyword, HttpResponse<InputStream> response) {
+        try (InputStream body = response.body()) {
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("Search for '" + keyword + "' returned HTTP " + response.statusCode());
+            }
+            Charset charset = response.headers().firstValue("Content-Type")
+                    .map(CHARSET::matcher).filter(Matcher::find)
+                    .map(m -> Charset.forName(m.group(1))).orElse(StandardCharsets.UTF_8);
+            return parse(new InputStreamReader(body, charset));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Reading search results for '" + keyword + "'", e);
+        }
+    }
+
+    /** Search results from a results page's HTML. */
+    public static SearchResults parse(Reader html) throws IOException {
+        ResultsHandler handler = new ResultsHandler();
+        new HtmlTokenizer(html, handler).run();
+        return handler.results();
+    }
+
+    @Override
+    public void close() {
+        parsers.shutdown();
+    }
+
+    /* -----------------------------
+       Extraction
+       ----------------------------- */
+
+    /** Follows the open elements to find the title, products and product names. */
+    private static final class ResultsHandler implements HtmlTokenizer.Handler {
+        private final Deque<Element> open = new ArrayDeque<>();
+        private final List<String> names = new ArrayList<>();
+        private final StringBuilder title = new StringBuilder();
+        private boolean noResult;
+
+        private int productDepth = -1;  // depth of the open .listing-tem, -1 outside a product
+        private boolean productNamed;
+        private int nameBlockDepth = -1; // depth of the open .product-name.product-list-name
+        private int linkDepth = -1;      // depth of the open <a> inside it
+        private int spanDepth = -1;      // depth of the span whose text is the name
+        private StringBuilder name;
+
+        @Override
+        public void startTag(String tag, Map<String, String> attributes, boolean selfClosing) {
+            if (HtmlTokenizer.VOID_ELEMENTS.contains(tag) || selfClosing) return;
+            Element element = new Element(tag, attributes.get("class"));
+            open.push(element);
+            int depth = open.size();
+
+            if (productDepth < 0 && element.hasClass("listing-tem")) {
+                productDepth = depth;
+                productNamed = false;
+            } else if (productDepth > 0 && !productNamed) {
+                if (nameBlockDepth < 0 && element.hasClass("product-name") && element.hasClass("product-list-name")) {
+                    nameBlockDepth = depth;
+                } else if (nameBlockDepth > 0 && linkDepth < 0 && "a".equals(tag)) {
+                    linkDepth = depth;
+                } else if (linkDepth > 0 && spanDepth < 0 && "span".equals(tag)) {
+                    spanDepth = depth;
+                    name = new StringBuilder();
+                }
+            }
+        }
+
+        @Override
+        public void endTag(String tag) {
+            if (open.stream().noneMatch(e -> e.tag.equals(tag))) return; // stray end tag
+            Element closed;
+            do {
+                closed = open.pop();
+                closedAt(open.size() + 1);
+            } while (!closed.tag.equals(tag));
+        }
+
+        private void closedAt(int depth) {
+            if (depth == spanDepth) {
+                names.add(name.toString().replaceAll("\\s+", " ").trim());
+                productNamed = true;
+                spanDepth = -1;
+                name = null;
+            }
+            if (depth == linkDepth) linkDepth = -1;
+            if (depth == nameBlockDepth) nameBlockDepth = -1;
+            if (depth == productDepth) {
+                if (!productNamed) names.add(""); // a product without a readable name still counts
+                productDepth = -1;
+                nameBlockDepth = linkDepth = spanDepth = -1;
+            }
+        }
+
+        @Override
+        public void text(String text) {
+            Element current = open.peek();
+            if (current != null && "title".equals(current.tag)) title.append(text);
+            if (name != null) name.append(text);
+            if (!noResult && text.contains(SearchResults.NO_RESULT_TEXT)) noResult = true;
+        }
+
+        SearchResults results() {
+            return new SearchResults(title.toString().replaceAll("\\s+", " ").trim(), names, noResult);
+        }
+    }
+
+    private static final class Element {
+        final String tag;
+        final Set<String> classes;
+
+        Element(String tag, String classAttribute) {
+            this.tag = tag;
+            this.classes = classAttribute == null || classAttribute.isEmpty()
+                    ? Set.of() : new HashSet<>(Arrays.asList(classAttribute.trim().split("\\s+")));
+        }
+
+        boolean hasClass(String name) {
+            return classes.contains(name);
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package com.evershop.http;
+
+import com.evershop.testdata.SearchData;
+import com.evershop.utils.Log;
+import com.evershop.utils.TestConfig;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.json.Json;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.URI;
+import java.net.UnknownHostException;
+import java.net.http.HttpClient;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * SiteHealth - pre-flight check of the shop and a circuit breaker for infrastructure outages.
+ *
+ * Provides:
+ *  - {@link #admit()}: called before a test launches its browser; null to go ahead, or the reason
+ *    to skip. The first call runs the pre-flight probe (base URL answers, login page has its form;
+ *    with -Dhealth.loginPath also a login POST with -Dload.email / -Dload.password)
+ *  - {@link #record(Throwable)}: test outcome; -Dhealth.failures (default 3) infrastructure failures
+ *    in a row open the breaker. {@link #record(String, Throwable)} for a failed navigation to the shop,
+ *    where a page-load timeout counts as well
+ *  - while open, tests are skipped at once; after -Dhealth.cooldown (ms, default 30000) the next
+ *    test probes again (half-open) and the suite resumes if the shop answers
+ *
+ * Notes:
+ *  - infrastructure failures are the browser's net::ERR_* navigation errors and connection / DNS
+ *    errors whose message names the shop's host ({@link #isInfrastructureFailure(Throwable)}); a
+ *    lost chromedriver or Grid connection, assertion failures and element waits do not count; a
+ *    TimeoutException only counts when it comes from driver.get of a shop URL ({@link #isNavigationFailure})
+ *  - -Dhealth.enabled=false turns the pre-flight and the breaker off
+ */
+public final class SiteHealth {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private static final Log LOG = Log.get(SiteHealth.class);
+    private static final Json JSON = new Json();
+
+    /** Chrome navigation errors (in the WebDriverException of driver.get) that mean the site could not be reached. */
+    private static final List<String> NAVIGATION_ERRORS = Arrays.asList(
+            "net::err_connection_refused", "net::err_connection_reset", "net::err_connection_timed_out",
+            "net::err_name_not_resolved", "net::err_internet_disconnected", "net::err_address_unreachable",
+            "net::err_timed_out", "net::err_empty_response");
+
+    private static final SiteHealth INSTANCE = new SiteHealth(SearchData.getBaseUrl());
+
+    private final String baseUrl;
+    private final String host;
+    private final int port; // -1 when the base URL has none
+    private final boolean enabled = TestConfig.getBoolean("health.enabled", true);
+    private final int threshold = Math.max(1, TestConfig.getInt("health.failures", 3));
+    private final Duration cooldown = TestConfig.getMillis("health.cooldown", Duration.ofSeconds(30));
+    private final Duration timeout = TestConfig.getMillis("health.timeout", Duration.ofSeconds(10));
+    private final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .build();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final LongAdder skipped = new LongAdder();
+    private volatile State state = State.CLOSED;
+    private volatile boolean preflightDone;
+    private volatile long openedAtNanos;
+    private volatile String openReason;
+
+    /** {@link #get()} checks the configured shop; another instance only classifies (and breaks) for its own base URL. */
+    public SiteHealth(String baseUrl) {
+        this.baseUrl = baseUrl.replaceAll("/+$", "");
+        URI uri = URI.create(this.baseUrl);
+        this.host = uri.getHost() != null ? uri.getHost().toLowerCase(Locale.ROOT) : "";
+        this.port = uri.getPort();
+    }
+
+    public static SiteHealth get() {
+        return INSTANCE;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    /* -----------------------------
+       Admission
+       ----------------------------- */
+
+    /** Null if the test may run, otherwise why it should be skipped. */
+    public String admit() {
+        if (!enabled) return null;
+        if (preflightDone && state == State.CLOSED) return null;
+
+        lock.lock();
+        try {
+            if (!preflightDone) {
+                preflightDone = true;
+                String failure = probe();
+                if (failure == null) {
+                    LOG.info("Pre-flight OK: " + baseUrl);
+                } else {
+                    open("pre-flight failed: " + failure);
+                }
+            }
+            if (state == State.OPEN && System.nanoTime() - openedAtNanos >= cooldown.toNanos()) {
+                state = State.HALF_OPEN;
+                String failure = probe();
+                if (failure == null) {
+                    LOG.info("Site recovered, circuit closed after " + skipped.sum() + " skipped tests: " + baseUrl);
+                    consecutiveFailures.set(0);
+                    state = State.CLOSED;
+                } else {
+                    open("still unreachable: " + failure);
+                }
+            }
+            if (state == State.CLOSED) return null;
+            skipped.increment();
+            return "Site unavailable (circuit open), " + openReason;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Outcome of a test (null when it passed); opens the breaker on repeated infrastructure failures. */
+    public void record(Throwable failure) {
+        record(failure, failure != null && isInfrastructureFailure(failure));
+    }
+
+    /** Outcome of driver.get(url) (null when it loaded); a page-load timeout on the shop counts too. */
+    public void record(String url, Throwable failure) {
+        record(failure, failure != null && isNavigationFailure(url, failure));
+    }
+
+    private void record(Throwable failure, boolean infrastructure) {
+        if (!enabled) return;
+        if (!infrastructure) {
+            consecutiveFailures.set(0);
+            return;
+        }
+        int failures = consecutiveFailures.incrementAndGet();
+        LOG.warn("Infrastructure failure " + failures + "/" + threshold + ": " + firstLine(failure));
+        if (failures < threshold) return;
+        lock.lock();
+        try {
+            if (state == State.CLOSED) open(failures + " infrastructure failures in a row, last: " + firstLine(failure));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Called with the lock held. */
+    private void open(String reason) {
+        state = State.OPEN;
+        openedAtNanos = System.nanoTime();
+        openReason = reason + " (" + baseUrl + ", next probe in " + cooldown.toMillis() + " ms)";
+        LOG.warn("Circuit open: " + openReason);
+    }
+
+    public String describe() {
+        return "Site health " + baseUrl + ": " + state + ", " + skipped.sum() + " tests skipped by the circuit breaker"
+                + (state == State.CLOSED ? "" : " - " + openReason);
+    }
+
+    /* -----------------------------
+       Probe
+       ----------------------------- */
+
+    /** Null if the shop answers, otherwise what failed. */
+    String probe() {
+        try {
+            HttpResponse<String> home = client.send(get(baseUrl + "/"), HttpResponse.BodyHandlers.ofString());
+            if (home.statusCode() >= 500) return "GET / returned HTTP " + home.statusCode();
+
+            HttpResponse<String> login = client.send(get(baseUrl + "/account/login"), HttpResponse.BodyHandlers.ofString());
+            if (login.statusCode() >= 400) return "GET /account/login returned HTTP " + login.statusCode();
+            String page = login.body().toLowerCase(Locale.ROOT);
+            if (!page.contains("email") || !page.contains("password")) return "login page has no login form";
+
+            String loginPath = TestConfig.getString("health.loginPath", null);
+            if (loginPath != null) {
+                String credentials = JSON.toJson(Map.of(
+                        "email", TestConfig.getString("load.email", "kimanh61224@gmail.com"),
+                        "password", TestConfig.getString("load.password", "123456")));
+                HttpRequest post = HttpRequest.newBuilder(URI.create(baseUrl + loginPath)).timeout(timeout)
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(credentials)).build();
+                HttpResponse<Void> response = client.send(post, HttpResponse.BodyHandlers.discarding());
+                if (response.statusCode() >= 400) return "POST " + loginPath + " returned HTTP " + response.statusCode();
+            }
+            return null;
+        } catch (IOException e) {
+            return e.getClass().getSimpleName() + (e.getMessage() != null ? ": " + e.getMessage() : "");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "interrupted";
+        }
+    }
+
+    private HttpRequest get(String url) {
+        return HttpRequest.newBuilder(URI.create(url)).timeout(timeout).header("Accept", "text/html").GET().build();
+    }
+
+    /* -----------------------------
+       Classification
+       ----------------------------- */
+
+    /**
+     * The shop could not be reached: a net::ERR_* navigation error from the browser, or a connection /
+     * DNS / connect-timeout error anywhere in the cause chain whose messages name the shop's host (and
+     * port, when the base URL has one). The same exceptions towards chromedriver, the Grid or another
+     * host say nothing about the shop and do not count.
+     */
+    public boolean isInfrastructureFailure(Throwable failure) {
+        boolean networkError = false;
+        boolean namesShop = false;
+        for (Throwable t = failure; t != null; t = t.getCause() == t ? null : t.getCause()) {
+            networkError |= t instanceof ConnectException || t instanceof UnknownHostException
+                    || t instanceof HttpConnectTimeoutException || t instanceof HttpTimeoutException;
+            String message = t.getMessage();
+            if (message == null) continue;
+            String lower = message.toLowerCase(Locale.ROOT);
+            for (String fragment : NAVIGATION_ERRORS) {
+                if (lower.contains(fragment)) return true;
+            }
+            if (t instanceof UnknownHostException && !host.isEmpty() && lower.contains(host)) return true; // names no port
+            namesShop |= namesShop(lower);
+        }
+        return networkError && namesShop;
+    }
+
+    /**
+     * {@link #isInfrastructureFailure} for a failure of driver.get(url), where a page-load timeout
+     * (TimeoutException anywhere in the cause chain) also means the shop did not answer, provided
+     * the URL is on the shop's host and port. Element waits throw the same exception and are only
+     * ever passed to {@link #record(Throwable)}.
+     */
+    public boolean isNavigationFailure(String url, Throwable failure) {
+        if (isInfrastructureFailure(failure)) return true;
+        if (!isShopUrl(url)) return false;
+        for (Throwable t = failure; t != null; t = t.getCause() == t ? null : t.getCause()) {
+            if (t instanceof TimeoutException) return true;
+        }
+        return false;
+    }
+
+    private boolean isShopUrl(String url) {
+        try {
+            URI uri = URI.create(url);
+            return uri.getHost() != null && uri.getHost().toLowerCase(Locale.ROOT).equals(host) && uri.getPort() == port;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private boolean namesShop(String lowerMessage) {
+        if (host.isEmpty() || !lowerMessage.contains(host)) return false;
+        return port < 0 || lowerMessage.contains(":" + port);
+    }
+
+    private static String firstLine(Throwable t) {
+        String message = String.valueOf(t.getMessage());
+        int newline = message.indexOf('\n');
+        return t.getClass().getSimpleName() + ": " + (newline < 0 ? message : message.substring(0, newline));
+    }
+}
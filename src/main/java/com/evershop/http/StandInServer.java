@@ -0,0 +1,225 @@
+package com.evershop.http;
+
+import com.evershop.pages.SearchResults;
+import com.evershop.utils.Log;
+import com.evershop.utils.TestConfig;
+import com.evershop.utils.VirtualThreads;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.openqa.selenium.json.Json;
+import org.openqa.selenium.json.JsonException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * StandInServer - local stand-in for the EverShop endpoints the suites use, on localhost.
+ *
+ * Serves:
+ *  - GET / and GET /account/login: minimal pages with the search box and login form markup
+ *  - GET /search?keyword=: results with the same markup as the shop (.listing-tem, product-name,
+ *    title, "no product" message), filtered from a small catalog with the SearchResults matching
+ *  - POST {@link #LOGIN_PATH} (JSON email/password) and POST {@link #ADDRESS_PATH} (JSON address,
+ *    400 when a required field is empty)
+ *
+ * Notes:
+ *  - -Dstandin.latencyMs adds server time (uniform 0.5x to 1.5x) to every response, to see how a
+ *    load generator reports a slow server
+ *  - no network access needed: for HTTP load runs and for -Dbase.url in offline runs
+ */
+public final class StandInServer implements AutoCloseable {
+
+    public static final String LOGIN_PATH = "/customer/login";
+    public static final String ADDRESS_PATH = "/api/customer/addresses";
+
+    private static final Log LOG = Log.get(StandInServer.class);
+
+    private static final List<String> CATALOG = Collections.unmodifiableList(Arrays.asList(
+            "Nike zoom fly", "Nike air zoom pegasus", "Zoom freak 4", "Nike revolution 6",
+            "Adidas ultraboost", "Puma velocity nitro", "Converse chuck 70", "Nike air max"));
+
+    private static final List<String> REQUIRED_ADDRESS_FIELDS =
+            Arrays.asList("full_name", "telephone", "address_1", "city", "country", "postcode");
+
+    private static final Json JSON = new Json();
+
+    private final HttpServer server;
+    private final ExecutorService executor = VirtualThreads.newThreadPerTaskExecutor("stand-in");
+    private final long latencyMillis = TestConfig.getLong("standin.latencyMs", 0);
+    private final AtomicLong addressIds = new AtomicLong();
+
+    private StandInServer(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 1024);
+        server.setExecutor(executor);
+        server.createContext("/", this::home);
+        server.createContext("/search", this::search);
+        server.createContext("/account/login", this::loginPage);
+        server.createContext(LOGIN_PATH, this::login);
+        server.createContext(ADDRESS_PATH, this::saveAddress);
+    }
+
+    /** Starts on a free port (or -Dstandin.port). */
+    public static StandInServer start() throws IOException {
+        StandInServer standIn = new StandInServer(TestConfig.getInt("standin.port", 0));
+        standIn.server.start();
+        return standIn;
+    }
+
+    public String getBaseUrl() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    /** Runs the stand-in until the JVM is stopped, e.g. for -Dbase.url in a browser run. */
+    public static void main(String[] args) throws IOException {
+        StandInServer standIn = start();
+        LOG.info("EverShop stand-in at " + standIn.getBaseUrl());
+    }
+
+    /* -----------------------------
+       Handlers
+       ----------------------------- */
+
+    private void home(HttpExchange exchange) throws IOException {
+        if (!"/".equals(exchange.getRequestURI().getPath())) {
+            respond(exchange, 404, "text/plain", "Not found");
+            return;
+        }
+        respond(exchange, 200, "text/html", page("EverShop stand-in", SEARCH_BOX
+                + listing(CATALOG.subList(0, 4))));
+    }
+
+    private void search(HttpExchange exchange) throws IOException {
+        String keyword = queryParameter(exchange.getRequestURI().getRawQuery(), "keyword").trim();
+        String[] tokens = keyword.split("\\s+");
+        List<String> found = keyword.isEmpty() ? Collections.emptyList() : CATALOG.stream()
+                .filter(name -> SearchResults.containsAllKeywords(name, tokens))
+                .collect(Collectors.toList());
+        String body = found.isEmpty()
+                ? "<div class=\"product-list\"><div>" + SearchResults.NO_RESULT_TEXT + "</div></div>"
+                : listing(found);
+        respond(exchange, 200, "text/html", page("Search results for \"" + escape(keyword) + "\"", SEARCH_BOX + body));
+    }
+
+    private void loginPage(HttpExchange exchange) throws IOException {
+        respond(exchange, 200, "text/html", page("Login", "<form id=\"loginForm\" action=\"" + LOGIN_PATH + "\">"
+                + "<input name=\"email\" type=\"email\"><input name=\"password\" type=\"password\">"
+                + "<button type=\"submit\">SIGN IN</button></form>"));
+    }
+
+    private void login(HttpExchange exchange) throws IOException {
+        if (!"POST".equals(exchange.getRequestMethod())) {
+            respond(exchange, 405, "text/plain", "POST only");
+            return;
+        }
+        Map<String, Object> body = jsonBody(exchange);
+        boolean ok = body != null && notEmpty(body.get("email")) && notEmpty(body.get("password"));
+        if (ok) exchange.getResponseHeaders().add("Set-Cookie", "sid=stand-in; Path=/; HttpOnly");
+        respond(exchange, ok ? 200 : 401, "application/json",
+                ok ? "{\"success\":true}" : "{\"success\":false,\"message\":\"Invalid email or password\"}");
+    }
+
+    private void saveAddress(HttpExchange exchange) throws IOException {
+        if (!"POST".equals(exchange.getRequestMethod())) {
+            respond(exchange, 405, "text/plain", "POST only");
+            return;
+        }
+        Map<String, Object> body = jsonBody(exchange);
+        List<String> missing = body == null ? REQUIRED_ADDRESS_FIELDS : REQUIRED_ADDRESS_FIELDS.stream()
+                .filter(field -> !notEmpty(body.get(field))).collect(Collectors.toList());
+        if (!missing.isEmpty()) {
+            respond(exchange, 400, "application/json", JSON.toJson(Map.of("success", false, "missing", missing)));
+            return;
+        }
+        respond(exchange, 200, "application/json",
+                JSON.toJson(Map.of("success", true, "data", Map.of("id", addressIds.incrementAndGet()))));
+    }
+
+    /* -----------------------------
+       Helpers
+       ----------------------------- */
+
+    private static final String SEARCH_BOX = "<div class=\"search-box\"><a class=\"search-icon\" href=\"#\">Search</a>"
+            + "<form action=\"/search\"><input name=\"keyword\" placeholder=\"Search\" required></form></div>";
+
+    private static String listing(List<String> names) {
+        StringBuilder sb = new StringBuilder("<div class=\"product-list\"><div class=\"grid\">");
+        for (String name : names) {
+            String slug = name.toLowerCase().replace(' ', '-');
+            sb.append("<div class=\"listing-tem\"><div class=\"product-thumbnail-listing\"><a href=\"/")
+                    .append(slug).append("\"><img src=\"/").append(slug).append(".png\" alt=\"\"></a></div>")
+                    .append("<div class=\"product-name product-list-name mt-4 mb-1\"><a href=\"/").append(slug)
+                    .append("\"><span>").append(escape(name)).append("</span></a></div>")
+                    .append("<div class=\"product-price-listing\"><span class=\"sale-price\">$100.00</span></div></div>");
+        }
+        return sb.append("</div></div>").toString();
+    }
+
+    private static String page(String title, String body) {
+        return "<!DOCTYPE html><html><head><meta charset=\"utf-8\"><title>" + title + "</title></head><body>"
+                + body + "</body></html>";
+    }
+
+    private void respond(HttpExchange exchange, int status, String contentType, String body) throws IOException {
+        simulateServerTime();
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType + "; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private void simulateServerTime() {
+        if (latencyMillis <= 0) return;
+        try {
+            Thread.sleep((long) (latencyMillis * (0.5 + ThreadLocalRandom.current().nextDouble())));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Map<String, Object> jsonBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            return JSON.toType(new String(in.readAllBytes(), StandardCharsets.UTF_8), Json.MAP_TYPE);
+        } catch (JsonException e) {
+            return null;
+        }
+    }
+
+    private static String queryParameter(String rawQuery, String name) {
+        if (rawQuery == null) return "";
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = eq < 0 ? pair : pair.substring(0, eq);
+            if (name.equals(key)) return eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+        }
+        return "";
+    }
+
+    private static boolean notEmpty(Object value) {
+        return value != null && !value.toString().trim().isEmpty();
+    }
+
+    private static String escape(String s) {
+        return s.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+    }
+}
@@ -1,16 +1,22 @@
 package com.evershop.pages;
 
+import com.evershop.driver.DomSnapshot;
+import com.evershop.perf.JfrEvents;
+import com.evershop.perf.PageTelemetry;
+import com.evershop.testdata.SearchData;
+import com.evershop.utils.Deadline;
+import com.evershop.utils.Log;
 import org.openqa.selenium.*;
 import org.openqa.selenium.support.ui.ExpectedConditions;
-import org.openqa.selenium.support.ui.WebDriverWait;
 
 import java.io.IOException;
-import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.text.Normalizer;
 import java.time.Duration;
 import java.util.*;
 import java.util.NoSuchElementException;
+import java.util.function.Supplier;
 
 /**
  * AccountPage - helpers for Address Book page
@@ -26,19 +32,29 @@ import java.util.NoSuchElementException;
  *
  * Notes:
  *  - selectors are conservative / multi-pattern to tolerate small HTML changes.
- *  - methods swallow transient exceptions (StaleElementReference) and retry where reasonable.
+ *  - cards are read through ElementHandles: a stale card is re-placed among the cards still attached,
+ *    and a scan that loses a card to a re-render reads the list again instead of skipping it.
  */
 public class AccountPage extends BasePage {
+
+    private static final Log LOG = Log.get(AccountPage.class);
+    private static final int MAX_LIST_SCANS = 3;
+
     // Locators (few multi-patterns)
     private By userIcon = By.cssSelector("a[href='/account'], a[href*='/account']");
     private By addNewAddressLink = By.linkText("Add new address");
     private By editAddressLink = By.linkText("Edit");
     private By deleteAddressLink = By.linkText("Delete");
     private By makeDefaultLink = By.linkText("Make default");
-    private By addressCard = By.cssSelector(".address-card, .address-item, .border.rounded");
+    private By makeDefaultInCard = By.xpath(".//a[contains(normalize-space(.),'Make default')]");
+    private By addressCard = LocatorSet.css("AccountPage.addressCard", ".address-card", ".address-item", ".border.rounded");
     private By addressSummary = By.cssSelector(".address__summary");
-    private By fullNameSel = By.cssSelector(".address__summary .full-name, .full-name");
-    private By telephoneSel = By.cssSelector(".address__summary .telephone, .telephone");
+    private By fullNameSel = LocatorSet.css("AccountPage.fullName", ".address__summary .full-name", ".full-name");
+    private By telephoneSel = LocatorSet.css("AccountPage.telephone", ".address__summary .telephone", ".telephone");
+    // a union: an empty live region matched by one selector must not hide the toast another one matches
+    private By toastSel = By.cssSelector(".Toastify__toast--success .Toastify__toast-body, "
+            + ".Toastify__toast .Toastify__toast-body, [role='alert'], [aria-live='polite'], [aria-live='assertive'], "
+            + ".toast, .toast-message, .notification, .notification-message, .alert-success");
 
     public AccountPage(WebDriver driver) {
         super(driver);
@@ -61,17 +77,20 @@ public class AccountPage extends BasePage {
        ----------------------------- */
 
     public void navigateToAccount() {
-        driver.get("https://demo.evershop.io/account");
+        navigateTo(SearchData.getBaseUrl() + "/account");
     }
 
     public void clickUserIcon() {
         waitForClickable(userIcon).click();
         sleep(800);
+        domChanged();
+        pageChanged(PageTelemetry.pageTypeOf(driver.getCurrentUrl())); // account, or login when signed out
     }
 
     public void clickAddNewAddress() {
         waitForClickable(addNewAddressLink).click();
         sleep(700);
+        domChanged();
     }
 
     /* -----------------------------
@@ -95,18 +114,29 @@ public class AccountPage extends BasePage {
     }
 
     public List<String> getAllVisibleFullNames() {
-        List<String> names = new ArrayList<>();
         try {
-            List<WebElement> els = driver.findElements(fullNameSel);
-            for (WebElement e : els) {
-                try {
-                    if (!e.isDisplayed()) continue;
-                    String t = e.getText();
+            return rescanning("getAllVisibleFullNames", () -> {
+                List<String> names = new ArrayList<>();
+                for (ElementHandle e : handles(fullNameSel)) {
+                    String t = e.call(el -> el.isDisplayed() ? el.getText() : null);
                     if (t != null && !t.trim().isEmpty()) names.add(t.trim());
-                } catch (StaleElementReferenceException ignored) {}
-            }
-        } catch (Exception ignored) {}
-        return names;
+                }
+                return names;
+            });
+        } catch (Exception ignored) {
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Waits until the list has more cards than before or a card shows the expected name.
+     * One script evaluation per poll; throws BrowserCondition.ConditionTimeoutException with
+     * the card count and names seen in the last poll.
+     */
+    public void waitForAddressAdded(String expectedFullName, int beforeCount) {
+        waitFor("AccountPage.addressAdded", "list", BrowserCondition.anyOf(
+                BrowserCondition.count(addressSummary).greaterThan(beforeCount),
+                BrowserCondition.textContains(fullNameSel, expectedFullName)));
     }
 
     /**
@@ -114,9 +144,8 @@ public class AccountPage extends BasePage {
      */
     public boolean isAddressInList(String expectedFullName, int timeoutSeconds) {
         final String expectedNorm = normalizeForCompare(expectedFullName);
-        WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(Math.max(1, timeoutSeconds)));
         try {
-            return wait.until(d -> {
+            return waits.until("AccountPage.isAddressInList", Duration.ofSeconds(Math.max(1, timeoutSeconds)), d -> {
                 List<String> names = getAllVisibleFullNames();
                 for (String n : names) {
                     String norm = normalizeForCompare(n);
@@ -136,33 +165,31 @@ public class AccountPage extends BasePage {
      */
     public boolean isAddressInListRobust(String expectedFullName, int timeoutSeconds) {
         final String expectedNorm = normalizeForCompare(expectedFullName);
-        WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(Math.max(1, timeoutSeconds)));
         try {
-            return wait.until(d -> {
-                List<WebElement> cards = d.findElements(addressSummary);
+            return waits.until("AccountPage.isAddressInListRobust", Duration.ofSeconds(Math.max(1, timeoutSeconds)), d -> {
                 List<String> visible = new ArrayList<>();
-                for (WebElement card : cards) {
-                    try {
-                        WebElement nameEl = card.findElement(By.cssSelector(".full-name"));
-                        if (!nameEl.isDisplayed()) continue;
-                        String name = nameEl.getText().trim();
-                        visible.add(name);
-                        String nameNorm = normalizeForCompare(name);
-
-                        if (nameNorm.equals(expectedNorm)) return true;
-                        if (nameNorm.contains(expectedNorm) || expectedNorm.contains(nameNorm)) return true;
-
-                        Set<String> expectedTokens = new HashSet<>(Arrays.asList(expectedNorm.split(" ")));
-                        Set<String> nameTokens = new HashSet<>(Arrays.asList(nameNorm.split(" ")));
-                        if (!expectedTokens.isEmpty() && nameTokens.containsAll(expectedTokens)) return true;
-
-                        int matchCount = 0;
-                        for (String tkn : expectedTokens) if (nameTokens.contains(tkn)) matchCount++;
-                        if (matchCount >= Math.min(2, expectedTokens.size())) return true;
-                    } catch (StaleElementReferenceException | NoSuchElementException ignored) {}
+                for (ElementHandle card : handles(addressSummary)) {
+                    // a card re-rendered past placing fails the poll (GoneException) and the next poll reads the list again
+                    List<ElementHandle> nameEls = card.findAll(By.cssSelector(".full-name"));
+                    if (nameEls.isEmpty()) continue; // card without a name element
+                    String name = nameEls.get(0).call(el -> el.isDisplayed() ? el.getText().trim() : null);
+                    if (name == null) continue;
+                    visible.add(name);
+                    String nameNorm = normalizeForCompare(name);
+
+                    if (nameNorm.equals(expectedNorm)) return true;
+                    if (nameNorm.contains(expectedNorm) || expectedNorm.contains(nameNorm)) return true;
+
+                    Set<String> expectedTokens = new HashSet<>(Arrays.asList(expectedNorm.split(" ")));
+                    Set<String> nameTokens = new HashSet<>(Arrays.asList(nameNorm.split(" ")));
+                    if (!expectedTokens.isEmpty() && nameTokens.containsAll(expectedTokens)) return true;
+
+                    int matchCount = 0;
+                    for (String tkn : expectedTokens) if (nameTokens.contains(tkn)) matchCount++;
+                    if (matchCount >= Math.min(2, expectedTokens.size())) return true;
                 }
                 // small debug
-                System.out.println("DEBUG visible names: " + visible);
+                LOG.debug(() -> "visible names: " + visible);
                 return false;
             });
         } catch (Exception e) {
@@ -170,6 +197,21 @@ public class AccountPage extends BasePage {
         }
     }
 
+    /**
+     * Runs a scan over the card list. When a card cannot be placed again after a re-render
+     * (ElementHandle.GoneException) the scan starts over on a fresh list instead of skipping it.
+     */
+    private <T> T rescanning(String what, Supplier<T> scan) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return scan.get();
+            } catch (ElementHandle.GoneException e) {
+                if (attempt >= MAX_LIST_SCANS) throw e;
+                LOG.debug(() -> what + ": card list re-rendered during the scan, reading it again");
+            }
+        }
+    }
+
     /* -----------------------------
        Default card detection / manipulation
        ----------------------------- */
@@ -183,27 +225,25 @@ public class AccountPage extends BasePage {
      */
     public WebElement findDefaultAddressCard() {
         try {
-            List<WebElement> containers = driver.findElements(addressCard);
-            // 1. check class flag
-            for (WebElement c : containers) {
-                try {
+            return rescanning("findDefaultAddressCard", () -> {
+                List<ElementHandle> containers = handles(addressCard);
+                // 1. check class flag
+                for (ElementHandle c : containers) {
                     String cls = c.getAttribute("class");
                     if (cls != null && (cls.contains("border-green-700") || cls.contains("default") || cls.contains("data-default"))) {
                         // ensure it's an address card (has address__summary)
-                        if (!c.findElements(addressSummary).isEmpty()) return c;
+                        if (!c.findAll(addressSummary).isEmpty()) return c.get();
                     }
-                } catch (StaleElementReferenceException ignored) {}
-            }
-            // 2. fallback: card that has address summary but no "Make default" link inside -> likely default
-            for (WebElement c : containers) {
-                try {
-                    if (c.findElements(addressSummary).isEmpty()) continue;
-                    List<WebElement> makeLinks = c.findElements(By.xpath(".//a[contains(normalize-space(.),'Make default')]"));
-                    if (makeLinks.isEmpty()) return c;
-                } catch (StaleElementReferenceException ignored) {}
-            }
+                }
+                // 2. fallback: card that has address summary but no "Make default" link inside -> likely default
+                for (ElementHandle c : containers) {
+                    if (c.findAll(addressSummary).isEmpty()) continue;
+                    if (c.findAll(makeDefaultInCard).isEmpty()) return c.get();
+                }
+                return null;
+            });
         } catch (Exception e) {
-            System.out.println("findDefaultAddressCard error: " + e.getMessage());
+            LOG.warn("findDefaultAddressCard error: " + e.getMessage());
         }
         return null;
     }
@@ -221,9 +261,10 @@ public class AccountPage extends BasePage {
             if (makeLinks.isEmpty()) return false;
             makeLinks.get(0).click();
             sleep(600);
+            domChanged();
             return true;
         } catch (Exception e) {
-            System.out.println("makeCardDefaultByIndex error: " + e.getMessage());
+            LOG.warn("makeCardDefaultByIndex error: " + e.getMessage());
             return false;
         }
     }
@@ -235,28 +276,27 @@ public class AccountPage extends BasePage {
     public boolean makeCardDefaultByName(String expectedFullName) {
         final String expectedNorm = normalizeForCompare(expectedFullName);
         try {
-            List<WebElement> containers = driver.findElements(addressCard);
-            for (WebElement c : containers) {
-                try {
-                    WebElement nameEl = null;
-                    List<WebElement> nameEls = c.findElements(By.cssSelector(".full-name"));
-                    if (!nameEls.isEmpty()) nameEl = nameEls.get(0);
-                    if (nameEl == null) continue;
-                    String name = nameEl.getText();
+            return rescanning("makeCardDefaultByName", () -> {
+                for (ElementHandle c : handles(addressCard)) {
+                    List<ElementHandle> nameEls = c.findAll(By.cssSelector(".full-name"));
+                    if (nameEls.isEmpty()) continue;
+                    String name = nameEls.get(0).getText();
                     if (name == null) continue;
                     String norm = normalizeForCompare(name);
                     if (norm.contains(expectedNorm) || expectedNorm.contains(norm)) {
-                        List<WebElement> makeLinks = c.findElements(By.xpath(".//a[contains(normalize-space(.),'Make default')]"));
+                        List<ElementHandle> makeLinks = c.findAll(makeDefaultInCard);
                         if (!makeLinks.isEmpty()) {
                             makeLinks.get(0).click();
                             sleep(600);
+                            domChanged();
                             return true;
                         }
                     }
-                } catch (StaleElementReferenceException ignored) {}
-            }
+                }
+                return false;
+            });
         } catch (Exception e) {
-            System.out.println("makeCardDefaultByName error: " + e.getMessage());
+            LOG.warn("makeCardDefaultByName error: " + e.getMessage());
         }
         return false;
     }
@@ -277,45 +317,23 @@ public class AccountPage extends BasePage {
 
         // 2) find first card that has Make default link and click it
         try {
-            List<WebElement> containers = driver.findElements(By.cssSelector(".border.rounded, .address-card, .address-item"));
-            for (int i = 0; i < containers.size(); i++) {
-                WebElement c = containers.get(i);
-                try {
-                    List<WebElement> makeLinks = c.findElements(By.xpath(".//a[contains(normalize-space(.),'Make default')]"));
-                    if (!makeLinks.isEmpty()) {
-                        // copy loop index into an effectively-final variable for use inside lambda
-                        final int idx = i;
-                        makeLinks.get(0).click();
-
-                        // wait until findDefaultAddressCard returns non-null or the clicked card lost the "Make default" link
-                        WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(Math.max(1, timeoutSeconds)));
-                        boolean ok = wait.until(d -> {
-                            try {
-                                // re-evaluate default presence
-                                WebElement found = findDefaultAddressCard();
-                                if (found != null) return true;
-                                // fallback: re-find the same card by index and check it no longer has the Make default link
-                                List<WebElement> updatedContainers = d.findElements(By.cssSelector(".border.rounded, .address-card, .address-item"));
-                                if (idx < updatedContainers.size()) {
-                                    WebElement same = updatedContainers.get(idx);
-                                    List<WebElement> nowMakeLinks = same.findElements(By.xpath(".//a[contains(normalize-space(.),'Make default')]"));
-                                    if (nowMakeLinks.isEmpty()) return true; // link removed -> became default
-                                }
-                                return false;
-                            } catch (Exception ex) {
-                                return false;
-                            }
-                        });
-                        if (ok) return findDefaultAddressCard();
-                        else {
-                            // if not ok, continue to next container (rare)
-                            continue;
-                        }
-                    }
-                } catch (StaleElementReferenceException ignored) {}
-            }
+            return rescanning("ensureDefaultAddressExists", () -> {
+                for (ElementHandle c : handles(addressCard)) {
+                    List<ElementHandle> makeLinks = c.findAll(makeDefaultInCard);
+                    if (makeLinks.isEmpty()) continue;
+                    makeLinks.get(0).click();
+                    domChanged();
+
+                    // wait until a default shows up or the clicked card (re-placed by its handle, not its text)
+                    // lost the "Make default" link; a card not placed yet just fails this poll
+                    waits.until("AccountPage.defaultAppears", Duration.ofSeconds(Math.max(1, timeoutSeconds)),
+                            d -> findDefaultAddressCard() != null || c.findAll(makeDefaultInCard).isEmpty());
+                    return findDefaultAddressCard();
+                }
+                return null;
+            });
         } catch (Exception e) {
-            System.out.println("ensureDefaultAddressExists error: " + e.getMessage());
+            LOG.warn("ensureDefaultAddressExists error: " + e.getMessage());
         }
         return null;
     }
@@ -346,6 +364,7 @@ public class AccountPage extends BasePage {
             if (!edits.isEmpty()) {
                 edits.get(0).click();
                 sleep(600);
+                domChanged();
                 return;
             }
             // fallback: global first Edit
@@ -353,6 +372,7 @@ public class AccountPage extends BasePage {
             if (!global.isEmpty()) {
                 global.get(0).click();
                 sleep(600);
+                domChanged();
                 return;
             }
             throw new RuntimeException("Edit link not found");
@@ -366,6 +386,7 @@ public class AccountPage extends BasePage {
         if (!edits.isEmpty() && index >= 0 && index < edits.size()) {
             edits.get(index).click();
             sleep(700);
+            domChanged();
         }
     }
 
@@ -374,6 +395,7 @@ public class AccountPage extends BasePage {
         if (!deletes.isEmpty() && index >= 0 && index < deletes.size()) {
             deletes.get(index).click();
             sleep(700);
+            domChanged();
         }
     }
 
@@ -382,6 +404,7 @@ public class AccountPage extends BasePage {
         if (!makes.isEmpty() && index >= 0 && index < makes.size()) {
             makes.get(index).click();
             sleep(700);
+            domChanged();
         }
     }
 
@@ -392,8 +415,7 @@ public class AccountPage extends BasePage {
     public boolean waitForCardTelephoneToMatch(WebElement card, String telephone, int timeoutSeconds) {
         if (card == null) return false;
         try {
-            WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(Math.max(1, timeoutSeconds)));
-            return wait.until(d -> {
+            return waits.until("AccountPage.cardTelephone", Duration.ofSeconds(Math.max(1, timeoutSeconds)), d -> {
                 try {
                     WebElement telEl = card.findElement(By.cssSelector(".telephone"));
                     String t = telEl.getText().trim();
@@ -403,7 +425,7 @@ public class AccountPage extends BasePage {
                 }
             });
         } catch (Exception e) {
-            System.out.println("waitForCardTelephoneToMatch error: " + e.getMessage());
+            LOG.warn("waitForCardTelephoneToMatch error: " + e.getMessage());
             return false;
         }
     }
@@ -413,6 +435,17 @@ public class AccountPage extends BasePage {
        ----------------------------- */
 
     public String waitForToastUsingObserver(long timeoutMillis) {
+        long clippedMillis = Deadline.clip(Duration.ofMillis(timeoutMillis)).toMillis();
+        if (clippedMillis <= 0) return null; // test deadline already spent (0 would mean the script's 5 s default)
+        long from = System.nanoTime();
+        try {
+            return JfrEvents.toastWait("AccountPage.toastObserver", clippedMillis, () -> observeToast(clippedMillis));
+        } finally {
+            Deadline.recordWait("AccountPage.toastObserver", System.nanoTime() - from, clippedMillis < timeoutMillis);
+        }
+    }
+
+    private String observeToast(long timeoutMillis) {
         try {
             JavascriptExecutor js = (JavascriptExecutor) driver;
             String script =
@@ -443,90 +476,90 @@ public class AccountPage extends BasePage {
             Object result = js.executeAsyncScript(script, timeoutMillis);
             if (result != null) return result.toString();
         } catch (Exception e) {
-            System.out.println("waitForToastUsingObserver error: " + e.getMessage());
+            LOG.warn("waitForToastUsingObserver error: " + e.getMessage());
         }
         return null;
     }
 
     public String waitForToastifySuccessAndGetText() {
-        int perLocatorTimeoutSeconds = 2;    // each locator short wait
-        int bodyScanTimeoutSeconds = 4;      // bounded body scan
-
-        By[] locators = new By[] {
-                By.cssSelector(".Toastify__toast--success .Toastify__toast-body"),
-                By.cssSelector(".Toastify__toast .Toastify__toast-body"),
-                By.cssSelector("[role='alert']"),
-                By.cssSelector("[aria-live='polite']"),
-                By.cssSelector("[aria-live='assertive']"),
-                By.cssSelector(".toast, .toast-message, .notification, .notification-message, .alert-success")
-        };
-
-        System.out.println("[ToastCheck] Start looking for toast (fast mode).");
-
-        // 1) quick visibility checks
-        for (By loc : locators) {
-            try {
-                System.out.println("[ToastCheck] Trying locator: " + loc);
-                WebDriverWait shortWait = new WebDriverWait(driver, Duration.ofSeconds(perLocatorTimeoutSeconds));
-                WebElement el = shortWait.until(ExpectedConditions.visibilityOfElementLocated(loc));
-                String text = safeGetText(el);
-                if (text != null && !text.trim().isEmpty()) {
-                    System.out.println("[ToastCheck] Found toast with locator: " + loc + " -> " + text.trim());
-                    return text.trim();
-                } else {
-                    System.out.println("[ToastCheck] Element found but text empty for locator: " + loc);
+        long budget = WaitPolicy.timeout("toast").plus(WaitPolicy.timeout("probe")).plus(WaitPolicy.timeout("scan")).toMillis();
+        return JfrEvents.toastWait("AccountPage.toastifyScan", budget, this::findToastifySuccessText);
+    }
+
+    private String findToastifySuccessText() {
+        // timeout classes: "toast" for visibility, "probe" for presence, "scan" for the bounded body scan
+        LOG.debug(() -> "[ToastCheck] Start looking for toast (fast mode).");
+
+        // 1) visibility check over all toast locators at once
+        try {
+            String text = waits.until("toast visible", "toast", d -> {
+                for (WebElement el : d.findElements(toastSel)) {
+                    try {
+                        if (!el.isDisplayed()) continue;
+                    } catch (StaleElementReferenceException | NotFoundException e) {
+                        continue; // toast removed mid-scan: check the others, poll again
+                    }
+                    String t = safeGetText(el);
+                    if (t != null && !t.trim().isEmpty()) return t.trim();
                 }
-            } catch (TimeoutException te) {
-                System.out.println("[ToastCheck] Locator timed out (no visible element): " + loc);
-            } catch (Exception e) {
-                System.out.println("[ToastCheck] Exception for locator " + loc + ": " + e.getMessage());
-            }
+                return null;
+            });
+            LOG.info("[ToastCheck] Found toast with " + toastSel + " -> " + text);
+            return text;
+        } catch (TimeoutException te) {
+            LOG.debug(() -> "[ToastCheck] No visible toast within " + WaitPolicy.timeout("toast").toMillis() + " ms");
+        } catch (Exception e) {
+            LOG.warn("[ToastCheck] Exception during visibility check: " + e.getMessage());
         }
 
-        // 2) presence checks (in case toast present but not visible)
-        for (By loc : locators) {
-            try {
-                System.out.println("[ToastCheck] Trying presence for locator: " + loc);
-                WebDriverWait presenceWait = new WebDriverWait(driver, Duration.ofSeconds(1));
-                WebElement el = presenceWait.until(ExpectedConditions.presenceOfElementLocated(loc));
-                String text = safeGetText(el);
-                if (text != null && !text.trim().isEmpty()) {
-                    System.out.println("[ToastCheck] Found (presence) toast: " + text.trim());
-                    return text.trim();
-                } else {
-                    System.out.println("[ToastCheck] Presence found but no text: " + loc);
+        // 2) presence check (in case toast present but not visible)
+        try {
+            String text = waits.until("toast present", "probe", d -> {
+                for (WebElement el : d.findElements(toastSel)) {
+                    String t = safeGetText(el);
+                    if (t != null && !t.trim().isEmpty()) return t.trim();
                 }
-            } catch (TimeoutException te) {
-                // ignore
-            } catch (Exception e) {
-                System.out.println("[ToastCheck] Exception during presence check " + loc + ": " + e.getMessage());
-            }
+                return null;
+            });
+            LOG.info("[ToastCheck] Found (presence) toast: " + text);
+            return text;
+        } catch (TimeoutException te) {
+            // ignore
+        } catch (Exception e) {
+            LOG.warn("[ToastCheck] Exception during presence check: " + e.getMessage());
         }
 
         // 3) bounded body scan
-        System.out.println("[ToastCheck] Scanning body text for keywords (up to " + bodyScanTimeoutSeconds + "s)");
+        LOG.debug(() -> "[ToastCheck] Scanning body text for keywords (up to " + WaitPolicy.timeout("scan").getSeconds() + "s)");
         String[] keywords = new String[] {"success", "successfully", "thành công", "đã thêm", "saved"};
-        long end = System.currentTimeMillis() + (bodyScanTimeoutSeconds * 1000L);
-        while (System.currentTimeMillis() < end) {
-            try {
-                String body = driver.findElement(By.tagName("body")).getText().toLowerCase();
+        try {
+            String snippet = waits.until("toast body scan", "scan", d -> {
+                String body;
+                try {
+                    body = d.findElement(By.tagName("body")).getText();
+                } catch (WebDriverException e) {
+                    return null; // body re-rendered or navigating: scan again on the next poll
+                }
+                String lower = body.toLowerCase();
                 for (String k : keywords) {
-                    if (body.contains(k)) {
-                        int idx = body.indexOf(k);
+                    int idx = lower.indexOf(k);
+                    if (idx >= 0) {
                         int start = Math.max(0, idx - 40);
                         int finish = Math.min(body.length(), idx + 80);
-                        String snippet = driver.findElement(By.tagName("body")).getText().substring(start, finish).trim();
-                        System.out.println("[ToastCheck] Found keyword in body: " + snippet);
-                        return snippet;
+                        return body.substring(start, finish).trim();
                     }
                 }
-            } catch (Exception e) {
-                System.out.println("[ToastCheck] Exception scanning body: " + e.getMessage());
-            }
-            try { Thread.sleep(300); } catch (InterruptedException ignored) {}
+                return null;
+            });
+            LOG.info("[ToastCheck] Found keyword in body: " + snippet);
+            return snippet;
+        } catch (TimeoutException te) {
+            // fall through
+        } catch (Exception e) {
+            LOG.warn("[ToastCheck] Exception scanning body: " + e.getMessage());
         }
 
-        System.out.println("[ToastCheck] No toast found (fast mode).");
+        LOG.warn("[ToastCheck] No toast found (fast mode).");
         return null;
     }
 
@@ -548,7 +581,7 @@ public class AccountPage extends BasePage {
             if (obs != null && !obs.trim().isEmpty()) return obs.trim();
             return waitForToastifySuccessAndGetText();
         } catch (Exception e) {
-            System.out.println("getToastMessage error: " + e.getMessage());
+            LOG.warn("getToastMessage error: " + e.getMessage());
             return null;
         }
     }
@@ -557,17 +590,23 @@ public class AccountPage extends BasePage {
        Debug helpers
        ----------------------------- */
 
-    public void dumpVisibleAddressesToConsoleAndFile(String filename) {
+    /**
+     * Logs the visible address names and writes a DOM snapshot of the page (visibility, styles and
+     * bounds included, see DomSnapshot). Returns the snapshot file, or null if it could not be written.
+     */
+    public Path dumpVisibleAddressesToConsoleAndFile(String filename) {
         List<String> names = getAllVisibleFullNames();
-        System.out.println("Visible addresses (" + names.size() + "):");
+        LOG.info("Visible addresses (" + names.size() + "):");
         for (int i = 0; i < names.size(); i++) {
-            System.out.println(i + ": '" + names.get(i) + "'");
+            LOG.info(i + ": '" + names.get(i) + "'");
         }
         try {
-            Files.write(Paths.get(filename), driver.getPageSource().getBytes(java.nio.charset.StandardCharsets.UTF_8));
-            System.out.println("Wrote page snapshot: " + filename);
-        } catch (IOException e) {
-            System.out.println("Failed to write snapshot: " + e.getMessage());
+            Path snapshot = DomSnapshot.capture(driver, Paths.get(filename));
+            LOG.info("Wrote DOM snapshot: " + snapshot);
+            return snapshot;
+        } catch (IOException | RuntimeException e) {
+            LOG.warn("Failed to write snapshot: " + e.getMessage());
+            return null;
         }
     }
 
@@ -577,8 +616,6 @@ public class AccountPage extends BasePage {
 
     // sleep helper reusing BasePage.sleep if exists
     private void sleep(long ms) {
-        try {
-            Thread.sleep(ms);
-        } catch (InterruptedException ignored) {}
+        super.sleep((int) ms); // counted as wait time in timing spans
     }
 }
@@ -1,12 +1,14 @@
 package com.evershop.pages;
 
+import com.evershop.perf.JfrEvents;
+import com.evershop.testdata.AddressData;
+import com.evershop.utils.Log;
 import org.openqa.selenium.By;
 import org.openqa.selenium.JavascriptExecutor;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
 import org.openqa.selenium.support.ui.ExpectedConditions;
 import org.openqa.selenium.support.ui.Select;
-import org.openqa.selenium.support.ui.WebDriverWait;
 
 import java.time.Duration;
 import java.util.ArrayList;
@@ -14,6 +16,10 @@ import java.util.List;
 
 public class AddressPopup extends BasePage {
 
+    private static final Log LOG = Log.get(AddressPopup.class);
+
+    private static final String FORM_SELECTOR = "#customerAddressForm";
+
     // Locators
     private By fullNameInput = By.name("address[full_name]");
     private By telephoneInput = By.name("address[telephone]");
@@ -27,34 +33,30 @@ public class AddressPopup extends BasePage {
     private By popupTitle = By.cssSelector("h2");
     private By popupContainer = By.cssSelector("div.bg-white.p-8");
     private By formElement = By.id("customerAddressForm");
-    private By errorMessage = By.cssSelector(".error-message, .field-error, .text-danger, .pl025.text-critical");
+    private By errorMessage = LocatorSet.css("AddressPopup.errorMessage",
+            ".error-message", ".field-error", ".text-danger", ".pl025.text-critical");
 
     public AddressPopup(WebDriver driver) {
         super(driver);
     }
 
     public void fillFullName(String fullName) {
-        waitForElement(fullNameInput).clear();
-        waitForElement(fullNameInput).sendKeys(fullName);
+        waitForHandle(fullNameInput).clearAndType(fullName);
     }
 
     public void fillTelephone(String telephone) {
-        waitForElement(telephoneInput).clear();
-        waitForElement(telephoneInput).sendKeys(telephone);
+        waitForHandle(telephoneInput).clearAndType(telephone);
     }
 
     public void fillAddress(String address) {
-        waitForElement(addressInput).clear();
-        waitForElement(addressInput).sendKeys(address);
+        waitForHandle(addressInput).clearAndType(address);
     }
 
     public void fillCity(String city) {
-        WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(10));
-        WebElement cityField = wait.until(ExpectedConditions.visibilityOfElementLocated(cityInput));
-        ((JavascriptExecutor) driver).executeScript("arguments[0].scrollIntoView(true);", cityField);
-        wait.until(ExpectedConditions.elementToBeClickable(cityField));
-        cityField.clear();
-        cityField.sendKeys(city);
+        ElementHandle cityField = waitForHandle(cityInput);
+        cityField.call(el -> ((JavascriptExecutor) driver).executeScript("arguments[0].scrollIntoView(true);", el));
+        waits.until("AddressPopup.cityClickable", "default", d -> cityField.call(el -> el.isDisplayed() && el.isEnabled()));
+        cityField.clearAndType(city);
     }
 
 
@@ -70,19 +72,55 @@ public class AddressPopup extends BasePage {
     }
 
     public void fillPostcode(String postcode) {
-        waitForElement(postcodeInput).clear();
-        waitForElement(postcodeInput).sendKeys(postcode);
+        waitForHandle(postcodeInput).clearAndType(postcode);
     }
 
     public void fillAddressForm(String fullName, String telephone, String address,
                                 String city, String country, String province, String postcode) {
-        fillFullName(fullName);
-        fillTelephone(telephone);
-        fillAddress(address);
-        fillCity(city);
-        selectCountry(country);
-        selectProvince(province);
-        fillPostcode(postcode);
+        fillAddressForm(new AddressData(fullName, telephone, address, city, country, province, postcode),
+                FormFiller.configuredMode());
+    }
+
+    public void fillAddressForm(AddressData data) {
+        fillAddressForm(data, FormFiller.configuredMode());
+    }
+
+    /**
+     * Types the form field by field whatever -Dform.fill.mode says: for validation tests that check
+     * what real typing does (maxlength truncation, per-key validation).
+     */
+    public void typeAddressForm(String fullName, String telephone, String address,
+                                String city, String country, String province, String postcode) {
+        fillAddressForm(new AddressData(fullName, telephone, address, city, country, province, postcode),
+                FormFiller.Mode.KEYSTROKES);
+    }
+
+    /**
+     * Fill the whole address form.
+     * SCRIPTED sets every field in one in-page pass (province waits for its options after the country change);
+     * KEYSTROKES types field by field like a user, for tests that need real key events.
+     */
+    public void fillAddressForm(AddressData data, FormFiller.Mode mode) {
+        if (mode == FormFiller.Mode.KEYSTROKES) {
+            fillFullName(data.getFullName());
+            fillTelephone(data.getTelephone());
+            fillAddress(data.getAddress());
+            fillCity(data.getCity());
+            selectCountry(data.getCountry());
+            selectProvince(data.getProvince());
+            fillPostcode(data.getPostcode());
+            return;
+        }
+        waitForElement(fullNameInput);
+        new FormFiller(driver, FORM_SELECTOR)
+                .input("address[full_name]", data.getFullName())
+                .input("address[telephone]", data.getTelephone())
+                .input("address[address_1]", data.getAddress())
+                .input("address[city]", data.getCity())
+                .select("address[country]", data.getCountry())
+                .dependentSelect("address[province]", data.getProvince())
+                .input("address[postcode]", data.getPostcode())
+                .apply(WaitPolicy.timeout("default"));
     }
 
 
@@ -126,17 +164,24 @@ public class AddressPopup extends BasePage {
                         "  return true;" +
                         "} catch(e) { return 'ERROR:' + (e && e.message ? e.message : e); }";
         Object res = js.executeScript(script);
-        System.out.println("setupToastCapture executeScript returned: " + res);
+        LOG.debug(() -> "setupToastCapture executeScript returned: " + res);
     }
 
     /**
      * Wait for the captured toast to appear (returns message or null)
      */
     public String waitForCapturedToast(int timeoutSeconds) {
+        return waitForCapturedToast(Duration.ofSeconds(timeoutSeconds));
+    }
+
+    private String waitForCapturedToast(Duration timeout) {
+        return JfrEvents.toastWait("AddressPopup.capturedToast", timeout.toMillis(), () -> readCapturedToast(timeout));
+    }
+
+    private String readCapturedToast(Duration timeout) {
         JavascriptExecutor js = (JavascriptExecutor) driver;
-        WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(timeoutSeconds));
         try {
-            Boolean ready = wait.until(d -> {
+            Boolean ready = waits.until("AddressPopup.capturedToast", timeout, d -> {
                 Object res = js.executeScript("return (!!window.toastCaptured) || (!!window.capturedToast);");
                 return Boolean.TRUE.equals(res);
             });
@@ -154,12 +199,23 @@ public class AddressPopup extends BasePage {
         return null;
     }
 
+    /**
+     * Click Save and wait for toast (timeout class "toast"). Returns toast text or null if timeout.
+     */
+    public String clickSaveAndWaitToast() {
+        setupToastCapture();
+        waitForClickable(saveButton).click();
+        domChanged();
+        return waitForCapturedToast(WaitPolicy.timeout("toast"));
+    }
+
     /**
      * Click Save and wait for toast. Returns toast text or null if timeout.
      */
     public String clickSaveAndWaitToast(int timeoutSeconds) {
         setupToastCapture();
         waitForClickable(saveButton).click();
+        domChanged();
         return waitForCapturedToast(timeoutSeconds);
     }
 
@@ -171,14 +227,14 @@ public class AddressPopup extends BasePage {
             setupToastCapture();
         } catch (Exception e) {
             // nếu setup toast capture lỗi, ghi log nhưng vẫn cố click để test không dừng ngay
-            System.err.println("setupToastCapture failed: " + e.getMessage());
+            LOG.warn("setupToastCapture failed: " + e.getMessage());
         }
         waitForClickable(saveButton).click();
+        domChanged();
         // đợi toast được set hoặc chờ popup thay đổi: tăng robust
         try {
-            WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(5));
             // ưu tiên chờ toast (window.toastCaptured true) bằng polling JS:
-            wait.until(d -> {
+            waits.until("AddressPopup.saveToast", "save", d -> {
                 try {
                     Object val = ((JavascriptExecutor) d).executeScript("return window.toastCaptured === true || !!window.capturedToast;");
                     return Boolean.TRUE.equals(val);
@@ -195,6 +251,7 @@ public class AddressPopup extends BasePage {
 
 
     // --- thêm 2 locator hỗ trợ (nếu muốn cụ thể) ---
+    // every error of the form, whichever class each field renders it with: a union, not a LocatorSet
     private By allFieldErrors = By.cssSelector(".pl025.text-critical, .field-error, .error-message, .text-danger, .text-critical");
 
     public List<String> getAllErrorMessages() {
@@ -227,8 +284,7 @@ public class AddressPopup extends BasePage {
      */
     public boolean waitForAtLeastErrorCount(int expectedCount, int timeoutSeconds) {
         try {
-            WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(timeoutSeconds));
-            return wait.until(d -> {
+            return waits.until("AddressPopup.errorCount", Duration.ofSeconds(timeoutSeconds), d -> {
                 List<String> msgs = getAllErrorMessages();
                 return msgs.size() >= expectedCount;
             });
@@ -242,8 +298,7 @@ public class AddressPopup extends BasePage {
      */
     public boolean waitForAnyFieldError(int timeoutSeconds) {
         try {
-            WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(timeoutSeconds));
-            return wait.until(d -> {
+            return waits.until("AddressPopup.anyFieldError", Duration.ofSeconds(timeoutSeconds), d -> {
                 List<String> msgs = getAllErrorMessages();
                 return msgs.size() > 0;
             });
@@ -269,13 +324,14 @@ public class AddressPopup extends BasePage {
 
             return captured != null ? captured.toString().trim() : null;
         } catch (Exception e) {
-            System.out.println("Error getting captured toast: " + e.getMessage());
+            LOG.warn("Error getting captured toast: " + e.getMessage());
             return null;
         }
     }
 
     public void clickClose() {
         waitForClickable(closeButton).click();
+        domChanged();
         sleep(1000);
     }
 
@@ -307,11 +363,11 @@ public class AddressPopup extends BasePage {
      */
     public boolean waitForPopupToClose(int timeoutSeconds) {
         try {
-            WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(timeoutSeconds));
-            wait.until(ExpectedConditions.invisibilityOfElementLocated(popupContainer));
+            waits.until("AddressPopup.popupClosed", Duration.ofSeconds(timeoutSeconds),
+                    ExpectedConditions.invisibilityOfElementLocated(popupContainer));
             return true;
         } catch (Exception e) {
-            System.out.println("Popup did not close within " + timeoutSeconds + " seconds");
+            LOG.warn("Popup did not close within " + timeoutSeconds + " seconds");
             return false;
         }
     }
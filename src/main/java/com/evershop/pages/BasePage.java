@@ -1,42 +1,107 @@
 package com.evershop.pages;
 
+import com.evershop.perf.PageTelemetry;
+import com.evershop.perf.Spans;
+import com.evershop.utils.Deadline;
 import org.openqa.selenium.By;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
 import org.openqa.selenium.support.ui.ExpectedConditions;
-import org.openqa.selenium.support.ui.WebDriverWait;
+
 import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 public class BasePage {
     protected WebDriver driver;
-    protected WebDriverWait wait;
+    protected WaitPolicy waits;
+    private final Map<By, ElementHandle> handles = new HashMap<>();
 
     public BasePage(WebDriver driver) {
         this.driver = driver;
-        this.wait = new WebDriverWait(driver, Duration.ofSeconds(10));
+        this.waits = new WaitPolicy(driver);
     }
 
     protected WebElement waitForElement(By locator) {
-        return wait.until(ExpectedConditions.presenceOfElementLocated(locator));
+        return waits.until("presence " + locator, "default", ExpectedConditions.presenceOfElementLocated(locator));
     }
 
     protected WebElement waitForClickable(By locator) {
-        return wait.until(ExpectedConditions.elementToBeClickable(locator));
+        return waits.until("clickable " + locator, "default", ExpectedConditions.elementToBeClickable(locator));
     }
 
     protected void waitForInvisible(By locator) {
-        wait.until(ExpectedConditions.invisibilityOfElementLocated(locator));
+        waits.until("invisible " + locator, "default", ExpectedConditions.invisibilityOfElementLocated(locator));
     }
 
     protected void waitForUrl(String urlFragment) {
-        wait.until(ExpectedConditions.urlContains(urlFragment));
+        waits.until("url contains " + urlFragment, "default", ExpectedConditions.urlContains(urlFragment));
+    }
+
+    /**
+     * Cached, stale-aware handle for a locator; the same handle is returned for the same locator.
+     */
+    protected ElementHandle handle(By locator) {
+        return handles.computeIfAbsent(locator, l -> ElementHandle.of(driver, l));
+    }
+
+    /** Wait for presence, then hand out the cached handle (the found element primes its cache). */
+    protected ElementHandle waitForHandle(By locator) {
+        ElementHandle handle = handle(locator);
+        waits.until("presence " + locator, "default", d -> {
+            try {
+                return handle.get();
+            } catch (org.openqa.selenium.NoSuchElementException e) {
+                return null;
+            }
+        });
+        return handle;
+    }
+
+    /** Waits for a compound condition; each poll is one script evaluation in the page. */
+    protected BrowserCondition.Result waitFor(String conditionName, String timeoutClass, BrowserCondition condition) {
+        return waits.until(conditionName, timeoutClass, condition);
+    }
+
+    /** Evaluates a compound condition once (one round trip, no waiting). */
+    protected boolean check(BrowserCondition condition) {
+        return condition.evaluate(driver).isSatisfied();
+    }
+
+    /** Handles for every element currently matching the locator (one findElements call). */
+    protected List<ElementHandle> handles(By locator) {
+        return ElementHandle.allOf(driver, locator);
+    }
+
+    /** driver.get plus invalidation of every cached element handle. */
+    protected void navigateTo(String url) {
+        driver.get(url);
+        domChanged();
+        pageChanged(PageTelemetry.pageTypeOf(url));
+    }
+
+    /** Call once a new page or SPA route is shown; records its page telemetry (-Dtelemetry.enabled). */
+    protected void pageChanged(String pageType) {
+        PageTelemetry.capture(driver, pageType);
+    }
+
+    /** Call after actions that re-render the page (save, make default, popup open/close). */
+    protected void domChanged() {
+        ElementHandle.invalidateAll(driver);
     }
 
+    /** Fixed pause, cut short by the test's Deadline. */
     protected void sleep(int milliseconds) {
+        long clippedMs = Deadline.clip(Duration.ofMillis(milliseconds)).toMillis();
+        long from = System.nanoTime();
         try {
-            Thread.sleep(milliseconds);
+            Thread.sleep(clippedMs);
         } catch (InterruptedException e) {
-            e.printStackTrace();
+            Thread.currentThread().interrupt(); // keep the interrupt so a cancelled test thread stops
+        } finally {
+            Spans.recordWait(System.nanoTime() - from);
+            Deadline.recordWait("sleep", System.nanoTime() - from, clippedMs < milliseconds);
         }
     }
 }
@@ -0,0 +1,336 @@
+package com.evershop.pages;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriver;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * BrowserCondition - a condition on the page that is checked with one executeScript per poll.
+ *
+ * Conditions are small trees built from primitives and combinators:
+ * <pre>
+ *   anyOf(count(addressSummary).greaterThan(before),
+ *         textContains(".address__summary .full-name", "John Doe"))
+ * </pre>
+ * The tree is sent as data to a fixed in-page evaluator, so a poll costs one round trip no matter
+ * how many primitives it has, and no condition ever waits inside another one. Every evaluation
+ * returns per-node diagnostics (actual count, texts seen, active element, attribute values) that
+ * end up in the timeout message.
+ *
+ * Selectors are CSS strings or {@link By} locators that can run in the page (css, xpath, id, name,
+ * className, tagName); a {@link LocatorSet} uses the first alternative that matches, like its lookups do.
+ */
+public class BrowserCondition {
+
+    private static final String EVALUATOR =
+            "function query(q) {" +
+            "  for (var i = 0; i < q.length; i++) {" +
+            "    var found = [];" +
+            "    if (q[i].type === 'css') {" +
+            "      found = Array.prototype.slice.call(document.querySelectorAll(q[i].value));" +
+            "    } else {" +
+            "      var r = document.evaluate(q[i].value, document, null, XPathResult.ORDERED_NODE_SNAPSHOT_TYPE, null);" +
+            "      for (var k = 0; k < r.snapshotLength; k++) found.push(r.snapshotItem(k));" +
+            "    }" +
+            "    if (found.length || i === q.length - 1) return found;" +
+            "  }" +
+            "  return [];" +
+            "}" +
+            "function visible(e) { return !!(e.offsetWidth || e.offsetHeight || e.getClientRects().length); }" +
+            "function text(e) { return (e.innerText || e.textContent || '').replace(/\\s+/g, ' ').trim(); }" +
+            "function describe(e) {" +
+            "  if (!e) return null;" +
+            "  var s = e.tagName.toLowerCase();" +
+            "  if (e.id) s += '#' + e.id;" +
+            "  if (typeof e.className === 'string' && e.className.trim()) s += '.' + e.className.trim().split(/\\s+/).join('.');" +
+            "  if (e.getAttribute('name')) s += '[name=' + e.getAttribute('name') + ']';" +
+            "  return s;" +
+            "}" +
+            "function ev(n) {" +
+            "  var r = {op: n.op, label: n.label, ok: false};" +
+            "  try {" +
+            "    if (n.op === 'count') {" +
+            "      var c = query(n.q).length;" +
+            "      r.actual = c;" +
+            "      r.ok = n.cmp === '>' ? c > n.n : n.cmp === '>=' ? c >= n.n : n.cmp === '<' ? c < n.n : c === n.n;" +
+            "    } else if (n.op === 'text') {" +
+            "      var re = new RegExp(n.pattern, n.flags), seen = [], els = query(n.q);" +
+            "      for (var i = 0; i < els.length && !r.ok; i++) {" +
+            "        if (!visible(els[i])) continue;" +
+            "        var t = text(els[i]);" +
+            "        if (n.fold) t = t.normalize('NFD').replace(/[\\u0300-\\u036f]/g, '');" +
+            "        if (seen.length < 10) seen.push(t);" +
+            "        if (re.test(t)) { r.ok = true; seen = [t]; }" +
+            "      }" +
+            "      r.actual = seen;" +
+            "    } else if (n.op === 'active') {" +
+            "      var a = document.activeElement;" +
+            "      r.ok = !!a && query(n.q).indexOf(a) >= 0;" +
+            "      r.actual = describe(a);" +
+            "    } else if (n.op === 'attr') {" +
+            "      var values = query(n.q).map(function (e) { return e.getAttribute(n.name); });" +
+            "      r.ok = values.indexOf(n.value) >= 0;" +
+            "      r.actual = values.slice(0, 10);" +
+            "    } else {" +
+            "      r.children = n.children.map(ev);" +
+            "      var oks = r.children.filter(function (c) { return c.ok; }).length;" +
+            "      r.ok = n.op === 'any' ? oks > 0 : n.op === 'all' ? oks === r.children.length : oks === 0;" +
+            "    }" +
+            "  } catch (e) {" +
+            "    r.error = String(e);" +
+            "  }" +
+            "  return r;" +
+            "}" +
+            "return ev(arguments[0]);";
+
+    private final Map<String, Object> node;
+
+    private BrowserCondition(Map<String, Object> node) {
+        this.node = node;
+    }
+
+    /* -----------------------------
+       Primitives
+       ----------------------------- */
+
+    /** Number of elements matching the selector; finish with greaterThan / atLeast / atMost / is. */
+    public static Count count(String cssSelector) {
+        return new Count(cssSelector, queries(By.cssSelector(cssSelector)));
+    }
+
+    public static Count count(By locator) {
+        return new Count(String.valueOf(locator), queries(locator));
+    }
+
+    /** Some visible element matching the selector has (whitespace-collapsed) text matching a JavaScript regex. */
+    public static BrowserCondition textMatches(String cssSelector, String jsRegex) {
+        return textNode("textMatches(" + cssSelector + ", /" + jsRegex + "/)", queries(By.cssSelector(cssSelector)),
+                jsRegex, "", false);
+    }
+
+    /**
+     * Some visible element matching the locator contains the text, ignoring case, spacing and diacritics.
+     */
+    public static BrowserCondition textContains(By locator, String text) {
+        String folded = Normalizer.normalize(text.trim().replaceAll("\\s+", " "), Normalizer.Form.NFD)
+                .replaceAll("\\p{InCombiningDiacriticalMarks}+", "");
+        return textNode("textContains(" + locator + ", '" + text + "')", queries(locator), escapeRegex(folded), "i", true);
+    }
+
+    public static BrowserCondition textContains(String cssSelector, String text) {
+        return textContains(By.cssSelector(cssSelector), text);
+    }
+
+    /** document.activeElement is one of the elements matching the locator. */
+    public static BrowserCondition isActive(By locator) {
+        Map<String, Object> n = node("active", "isActive(" + locator + ")");
+        n.put("q", queries(locator));
+        return new BrowserCondition(n);
+    }
+
+    public static BrowserCondition isActive(String cssSelector) {
+        return isActive(By.cssSelector(cssSelector));
+    }
+
+    /** Some element matching the locator has the attribute with exactly this value. */
+    public static BrowserCondition attributeEquals(By locator, String attribute, String value) {
+        Map<String, Object> n = node("attr", "attributeEquals(" + locator + ", " + attribute + "='" + value + "')");
+        n.put("q", queries(locator));
+        n.put("name", attribute);
+        n.put("value", value);
+        return new BrowserCondition(n);
+    }
+
+    public static BrowserCondition attributeEquals(String cssSelector, String attribute, String value) {
+        return attributeEquals(By.cssSelector(cssSelector), attribute, value);
+    }
+
+    /* -----------------------------
+       Combinators
+       ----------------------------- */
+
+    public static BrowserCondition anyOf(BrowserCondition... conditions) {
+        return combine("any", "anyOf", conditions);
+    }
+
+    public static BrowserCondition allOf(BrowserCondition... conditions) {
+        return combine("all", "allOf", conditions);
+    }
+
+    public static BrowserCondition not(BrowserCondition condition) {
+        return combine("none", "not", condition);
+    }
+
+    /** Count primitive waiting for its comparison. */
+    public static final class Count {
+        private final String label;
+        private final List<Map<String, Object>> queries;
+
+        private Count(String label, List<Map<String, Object>> queries) {
+            this.label = label;
+            this.queries = queries;
+        }
+
+        public BrowserCondition greaterThan(int n) {
+            return compare(">", n);
+        }
+
+        public BrowserCondition atLeast(int n) {
+            return compare(">=", n);
+        }
+
+        public BrowserCondition atMost(int n) {
+            return compare("<", n + 1);
+        }
+
+        public BrowserCondition is(int n) {
+            return compare("==", n);
+        }
+
+        private BrowserCondition compare(String cmp, int n) {
+            Map<String, Object> node = node("count", "count(" + label + ") " + cmp + " " + n);
+            node.put("q", queries);
+            node.put("cmp", cmp);
+            node.put("n", n);
+            return new BrowserCondition(node);
+        }
+    }
+
+    /* -----------------------------
+       Evaluation
+       ----------------------------- */
+
+    /** Evaluates the whole tree in one round trip. */
+    @SuppressWarnings("unchecked")
+    public Result evaluate(WebDriver driver) {
+        Object raw = ((JavascriptExecutor) driver).executeScript(EVALUATOR, node);
+        return new Result(raw instanceof Map ? (Map<String, Object>) raw : Collections.emptyMap());
+    }
+
+    @Override
+    public String toString() {
+        return String.valueOf(node.get("label"));
+    }
+
+    /** Outcome of one evaluation with the per-node diagnostics reported by the page. */
+    public static final class Result {
+        private final Map<String, Object> diagnostics;
+
+        Result(Map<String, Object> diagnostics) {
+            this.diagnostics = diagnostics;
+        }
+
+        public boolean isSatisfied() {
+            return Boolean.TRUE.equals(diagnostics.get("ok"));
+        }
+
+        /** Tree of {op, label, ok, actual, error, children} as returned by the page. */
+        public Map<String, Object> getDiagnostics() {
+            return diagnostics;
+        }
+
+        /** Indented one-line-per-node rendering of the diagnostics. */
+        public String describe() {
+            StringBuilder sb = new StringBuilder();
+            describe(diagnostics, 0, sb);
+            return sb.toString();
+        }
+
+        @SuppressWarnings("unchecked")
+        private static void describe(Map<String, Object> n, int depth, StringBuilder sb) {
+            for (int i = 0; i < depth; i++) sb.append("  ");
+            sb.append(Boolean.TRUE.equals(n.get("ok")) ? "[ok] " : "[--] ").append(n.get("label"));
+            if (n.containsKey("actual")) sb.append(" -> actual ").append(n.get("actual"));
+            if (n.get("error") != null) sb.append(" -> error ").append(n.get("error"));
+            sb.append('\n');
+            Object children = n.get("children");
+            if (children instanceof List) {
+                for (Object child : (List<Object>) children) {
+                    if (child instanceof Map) describe((Map<String, Object>) child, depth + 1, sb);
+                }
+            }
+        }
+    }
+
+    /** Timeout of a BrowserCondition wait; carries the diagnostics of the last poll. */
+    public static final class ConditionTimeoutException extends TimeoutException {
+        private static final long serialVersionUID = 1L;
+
+        private final transient Result lastResult;
+
+        ConditionTimeoutException(String message, Result lastResult, Throwable cause) {
+            super(message, cause);
+            this.lastResult = lastResult;
+        }
+
+        /** Diagnostics of the last evaluation, null when the page never answered. */
+        public Result getLastResult() {
+            return lastResult;
+        }
+    }
+
+    /* -----------------------------
+       Tree building
+       ----------------------------- */
+
+    private static Map<String, Object> node(String op, String label) {
+        Map<String, Object> n = new LinkedHashMap<>();
+        n.put("op", op);
+        n.put("label", label);
+        return n;
+    }
+
+    private static BrowserCondition textNode(String label, List<Map<String, Object>> queries,
+                                             String pattern, String flags, boolean fold) {
+        Map<String, Object> n = node("text", label);
+        n.put("q", queries);
+        n.put("pattern", pattern);
+        n.put("flags", flags);
+        n.put("fold", fold);
+        return new BrowserCondition(n);
+    }
+
+    private static BrowserCondition combine(String op, String name, BrowserCondition... conditions) {
+        List<Map<String, Object>> children = new ArrayList<>();
+        List<String> labels = new ArrayList<>();
+        for (BrowserCondition c : conditions) {
+            children.add(c.node);
+            labels.add(c.toString());
+        }
+        Map<String, Object> n = node(op, name + "(" + String.join(", ", labels) + ")");
+        n.put("children", children);
+        return new BrowserCondition(n);
+    }
+
+    /** In-page queries for a locator; a LocatorSet contributes all its alternatives in order. */
+    private static List<Map<String, Object>> queries(By locator) {
+        List<By> alternatives = locator instanceof LocatorSet
+                ? ((LocatorSet) locator).getAlternatives()
+                : Arrays.asList(locator);
+        List<Map<String, Object>> queries = new ArrayList<>();
+        for (By by : alternatives) {
+            String[] typeAndValue = LocatorSet.toInPage(by);
+            if (typeAndValue == null) {
+                throw new IllegalArgumentException("Locator cannot be evaluated in the page: " + by);
+            }
+            Map<String, Object> q = new LinkedHashMap<>();
+            q.put("type", typeAndValue[0]);
+            q.put("value", typeAndValue[1]);
+            queries.add(q);
+        }
+        return queries;
+    }
+
+    private static String escapeRegex(String literal) {
+        return literal.replaceAll("[.*+?^${}()|\\[\\]\\\\/]", "\\\\$0");
+    }
+}
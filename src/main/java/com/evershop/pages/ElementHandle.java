@@ -0,0 +1,228 @@
+package com.evershop.pages;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.SearchContext;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * ElementHandle - a WebElement that knows how to find itself again.
+ *
+ * A handle remembers its locator chain (parent handle + locator + optional index in a list)
+ * and caches the resolved WebElement until:
+ *  - the page navigates or the DOM is re-rendered ({@link #invalidateAll(WebDriver)} bumps a per-driver generation)
+ *  - the element turns out to be stale, in which case the chain is re-resolved and the action retried
+ *
+ * So repeated use of the same locator costs one findElement, and a StaleElementReferenceException
+ * becomes a retry instead of a silently skipped element.
+ *
+ * A handle from a list also remembers the siblings it was collected with, at no extra cost. A stale
+ * one is placed by structure, never by text: between the nearest siblings still attached, where as
+ * many elements now sit as were replaced, it takes the same offset (a card inserted or removed
+ * elsewhere does not shift it, and a card whose text changed keeps its handle). When that gap has
+ * changed size it fails with {@link GoneException}, so callers re-read the list instead of acting
+ * on a different element.
+ */
+public class ElementHandle {
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    private static final ReentrantLock GENERATIONS_LOCK = new ReentrantLock();
+    private static final Map<WebDriver, AtomicLong> GENERATIONS = new WeakHashMap<>();
+
+    private final WebDriver driver;
+    private final ElementHandle parent;
+    private final By locator;
+    private final int index;
+    private final List<WebElement> siblings; // list handles only: the list as collected
+
+    private WebElement cached;
+    private long cachedGeneration = -1;
+
+    ElementHandle(WebDriver driver, ElementHandle parent, By locator, int index, List<WebElement> siblings) {
+        this.driver = driver;
+        this.parent = parent;
+        this.locator = locator;
+        this.index = index;
+        this.siblings = siblings;
+    }
+
+    public static ElementHandle of(WebDriver driver, By locator) {
+        return new ElementHandle(driver, null, locator, -1, null);
+    }
+
+    /** One handle per element currently matching the locator (one findElements call). */
+    public static List<ElementHandle> allOf(WebDriver driver, By locator) {
+        return collect(driver, null, driver, locator);
+    }
+
+    /** Signal that the DOM changed (navigation, re-render): every handle on this driver re-resolves on next use. */
+    public static void invalidateAll(WebDriver driver) {
+        generation(driver).incrementAndGet();
+    }
+
+    /* -----------------------------
+       Resolution
+       ----------------------------- */
+
+    /** Resolved element (from cache when still valid). Throws NoSuchElementException if it is gone. */
+    public WebElement get() {
+        long current = generation(driver).get();
+        if (cached == null || cachedGeneration != current) {
+            cached = resolve();
+            cachedGeneration = current;
+        }
+        return cached;
+    }
+
+    public ElementHandle find(By child) {
+        return new ElementHandle(driver, this, child, -1, null);
+    }
+
+    public List<ElementHandle> findAll(By child) {
+        return call(el -> collect(driver, this, el, child));
+    }
+
+    public void invalidate() {
+        cached = null;
+        if (parent != null) parent.invalidate();
+    }
+
+    /**
+     * Run an action on the element; on StaleElementReferenceException re-resolve the chain and retry.
+     * Actions should be idempotent (e.g. clear before sendKeys).
+     */
+    public <T> T call(Function<WebElement, T> action) {
+        StaleElementReferenceException last = null;
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            try {
+                return action.apply(get());
+            } catch (StaleElementReferenceException e) {
+                last = e;
+                invalidate();
+            }
+        }
+        throw last;
+    }
+
+    public void click() {
+        call(el -> {
+            el.click();
+            return null;
+        });
+    }
+
+    public String getText() {
+        return call(WebElement::getText);
+    }
+
+    public String getAttribute(String name) {
+        return call(el -> el.getAttribute(name));
+    }
+
+    public boolean isDisplayed() {
+        return call(WebElement::isDisplayed);
+    }
+
+    public void clearAndType(CharSequence... keys) {
+        call(el -> {
+            el.clear();
+            el.sendKeys(keys);
+            return null;
+        });
+    }
+
+    @Override
+    public String toString() {
+        String self = locator + (index >= 0 ? "[" + index + "]" : "");
+        return parent == null ? self : parent + " > " + self;
+    }
+
+    private WebElement resolve() {
+        SearchContext context = parent == null ? driver : parent.get();
+        if (index < 0) {
+            return context.findElement(locator);
+        }
+        List<WebElement> all = context.findElements(locator);
+        int match = siblings == null ? index : relocate(siblings, index, all);
+        if (match < 0 || match >= all.size()) {
+            throw new GoneException("Element " + this + " is gone after a re-render; " + all.size()
+                    + " elements match the locator now, " + (siblings == null ? "none at that index" : siblings.size() + " did before"));
+        }
+        return all.get(match);
+    }
+
+    /**
+     * Where the element at {@code index} of {@code before} is in {@code after}, or -1 when that cannot
+     * be told. Element references compare locally (no round trip); the element itself, or the nearest
+     * siblings on each side that are still attached, anchor it.
+     */
+    static int relocate(List<WebElement> before, int index, List<WebElement> after) {
+        int same = after.indexOf(before.get(index));
+        if (same >= 0) return same; // not replaced, only invalidated or moved
+
+        int lo = index - 1;
+        int loAt = -1;
+        for (; lo >= 0; lo--) {
+            loAt = after.indexOf(before.get(lo));
+            if (loAt >= 0) break;
+        }
+        if (lo < 0) loAt = -1;
+        int hi = index + 1;
+        int hiAt = after.size();
+        for (; hi < before.size(); hi++) {
+            hiAt = after.indexOf(before.get(hi));
+            if (hiAt >= 0) break;
+        }
+        if (hi >= before.size()) hiAt = after.size();
+
+        // as many elements between the anchors as were replaced: each took the place of one
+        if (hiAt <= loAt || hi - lo != hiAt - loAt) return -1;
+        return loAt + (index - lo);
+    }
+
+    private static List<ElementHandle> collect(WebDriver driver, ElementHandle parent, SearchContext context, By locator) {
+        List<WebElement> found = Collections.unmodifiableList(new ArrayList<>(context.findElements(locator)));
+        long current = generation(driver).get();
+        List<ElementHandle> handles = new ArrayList<>(found.size());
+        for (int i = 0; i < found.size(); i++) {
+            ElementHandle h = new ElementHandle(driver, parent, locator, i, found);
+            h.cached = found.get(i);
+            h.cachedGeneration = current;
+            handles.add(h);
+        }
+        return handles;
+    }
+
+    private static AtomicLong generation(WebDriver driver) {
+        GENERATIONS_LOCK.lock();
+        try {
+            return GENERATIONS.computeIfAbsent(driver, d -> new AtomicLong());
+        } finally {
+            GENERATIONS_LOCK.unlock();
+        }
+    }
+
+    /**
+     * A list element that cannot be placed again after a re-render. Scans over a list should read
+     * the list again; it is a NoSuchElementException, so waits keep polling.
+     */
+    public static class GoneException extends NoSuchElementException {
+        private static final long serialVersionUID = 1L;
+
+        public GoneException(String message) {
+            super(message);
+        }
+    }
+}
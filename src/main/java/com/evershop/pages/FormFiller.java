@@ -0,0 +1,137 @@
+package com.evershop.pages;
+
+import com.evershop.utils.Deadline;
+import com.evershop.utils.TestConfig;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.WebDriver;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * FormFiller - sets a whole form in one in-page script instead of one WebDriver call per keystroke.
+ *
+ * Provides:
+ *  - native value setters (HTMLInputElement / HTMLSelectElement prototype) followed by bubbling
+ *    "input" and "change" events, so React picks the new values up as if the user had typed them
+ *  - selects matched by visible option text (same contract as Select.selectByVisibleText)
+ *  - dependent selects (province after country) that wait in the page for their options to load,
+ *    polling every 25 ms, instead of a fixed sleep
+ *
+ * Notes:
+ *  - fields are applied in the order they were added; one executeAsyncScript round trip in total.
+ *  - scripted values skip maxlength and per-key handlers, so it is for setup data only; tests that
+ *    check typing behaviour ask for Mode.KEYSTROKES explicitly (-Dform.fill.mode=keystrokes types
+ *    everywhere).
+ */
+public class FormFiller {
+
+    public enum Mode { SCRIPTED, KEYSTROKES }
+
+    private static final String FILL_SCRIPT =
+            "var formSelector = arguments[0], steps = arguments[1], timeoutMs = arguments[2];" +
+            "var done = arguments[arguments.length - 1];" +
+            "var root = (formSelector && document.querySelector(formSelector)) || document;" +
+            "function setNative(el, value) {" +
+            "  var proto = el instanceof HTMLSelectElement ? HTMLSelectElement.prototype" +
+            "            : el instanceof HTMLTextAreaElement ? HTMLTextAreaElement.prototype : HTMLInputElement.prototype;" +
+            "  Object.getOwnPropertyDescriptor(proto, 'value').set.call(el, value);" +
+            "  el.dispatchEvent(new Event('input', { bubbles: true }));" +
+            "  el.dispatchEvent(new Event('change', { bubbles: true }));" +
+            "}" +
+            "function findOption(select, text) {" +
+            "  for (var k = 0; k < select.options.length; k++) {" +
+            "    if (select.options[k].text.trim() === text) return select.options[k];" +
+            "  }" +
+            "  return null;" +
+            "}" +
+            "var i = 0, stepStart = Date.now();" +
+            "function retryOrFail(step, error) {" +
+            "  if (step.waitForOptions && Date.now() - stepStart < timeoutMs) { setTimeout(next, 25); return; }" +
+            "  done({ ok: false, error: error });" +
+            "}" +
+            "function next() {" +
+            "  try {" +
+            "    while (i < steps.length) {" +
+            "      var step = steps[i];" +
+            "      var el = root.querySelector('[name=\"' + step.name.replace(/\"/g, '\\\\\"') + '\"]');" +
+            "      if (!el) { retryOrFail(step, 'Cannot locate field: ' + step.name); return; }" +
+            "      if (step.select) {" +
+            "        var option = findOption(el, step.value);" +
+            "        if (!option) { retryOrFail(step, 'Cannot locate option with text: ' + step.value + ' in ' + step.name); return; }" +
+            "        setNative(el, option.value);" +
+            "      } else {" +
+            "        setNative(el, step.value);" +
+            "      }" +
+            "      i++; stepStart = Date.now();" +
+            "    }" +
+            "    done({ ok: true });" +
+            "  } catch (e) { done({ ok: false, error: String(e && e.message ? e.message : e) }); }" +
+            "}" +
+            "next();";
+
+    private final WebDriver driver;
+    private final String formSelector;
+    private final List<Map<String, Object>> steps = new ArrayList<>();
+
+    public FormFiller(WebDriver driver, String formSelector) {
+        this.driver = driver;
+        this.formSelector = formSelector;
+    }
+
+    public static Mode configuredMode() {
+        return "keystrokes".equalsIgnoreCase(TestConfig.getString("form.fill.mode", "scripted"))
+                ? Mode.KEYSTROKES : Mode.SCRIPTED;
+    }
+
+    public FormFiller input(String name, String value) {
+        return step(name, value, false, false);
+    }
+
+    public FormFiller select(String name, String visibleText) {
+        return step(name, visibleText, true, false);
+    }
+
+    /** Select whose options are loaded after an earlier field changed (e.g. province after country). */
+    public FormFiller dependentSelect(String name, String visibleText) {
+        return step(name, visibleText, true, true);
+    }
+
+    /**
+     * Apply all fields in a single async script.
+     * Throws NoSuchElementException when a field or option is missing (like Select does).
+     */
+    public void apply(Duration optionsTimeout) {
+        Duration clipped = Deadline.clip(optionsTimeout);
+        long from = System.nanoTime();
+        Object result;
+        try {
+            result = ((JavascriptExecutor) driver)
+                    .executeAsyncScript(FILL_SCRIPT, formSelector, steps, clipped.toMillis());
+        } finally {
+            Deadline.recordWait("FormFiller.apply", System.nanoTime() - from, clipped.compareTo(optionsTimeout) < 0);
+        }
+        steps.clear();
+        if (!(result instanceof Map)) {
+            throw new IllegalStateException("Form fill script returned unexpected result: " + result);
+        }
+        Map<?, ?> outcome = (Map<?, ?>) result;
+        if (!Boolean.TRUE.equals(outcome.get("ok"))) {
+            throw new NoSuchElementException(String.valueOf(outcome.get("error")));
+        }
+    }
+
+    private FormFiller step(String name, String value, boolean select, boolean waitForOptions) {
+        Map<String, Object> step = new LinkedHashMap<>();
+        step.put("name", name);
+        step.put("value", value == null ? "" : value);
+        step.put("select", select);
+        step.put("waitForOptions", waitForOptions);
+        steps.add(step);
+        return this;
+    }
+}
@@ -37,9 +37,7 @@ public class HomePage extends BasePage {
     }
 
     public boolean isSearchInputFocused() {
-        WebElement activeElement = driver.switchTo().activeElement();
-        WebElement searchBox = driver.findElement(searchInput);
-        return activeElement.equals(searchBox);
+        return check(BrowserCondition.isActive(searchInput));
     }
 
     public void enterSearchKeyword(String keyword) {
@@ -0,0 +1,322 @@
+package com.evershop.pages;
+
+import com.evershop.utils.Log;
+import com.evershop.utils.TestConfig;
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.SearchContext;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.WrapsDriver;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * LocatorSet - a fallback list of locators that learns which alternative this app version uses.
+ *
+ * It is a {@link By}, so it drops in wherever a single locator was used (findElements,
+ * ExpectedConditions, ElementHandle chains). On each lookup:
+ *  - the best ranked alternative (for -Dapp.version) is tried first with one findElements
+ *  - if that finds nothing, the remaining alternatives run in rank order as one combined in-page
+ *    query; the first alternative with a match wins
+ *  - the winner scores a hit; every alternative tried before it scores a miss, which also halves
+ *    its hits, so a locator that stopped matching drops behind the one that replaced it within a
+ *    few lookups (a lookup where nothing matches scores nothing: the element is just not there yet)
+ *
+ * Only the winner's elements are returned, so it is for alternatives of the same element across
+ * app versions; to find everything any of several selectors match, use a comma-union CSS selector.
+ *
+ * Hits and misses are exported to .test-history/locator-ranking.properties (-Dlocator.ranking)
+ * at suite end, so the next run starts warm.
+ */
+public class LocatorSet extends By {
+
+    private static final Log LOG = Log.get(LocatorSet.class);
+
+    private static final String APP_VERSION = TestConfig.getString("app.version", "demo");
+    private static final Path RANKING_FILE =
+            Paths.get(TestConfig.getString("locator.ranking", ".test-history/locator-ranking.properties"));
+    private static final Map<String, String> LOADED = load(RANKING_FILE); // key -> "hits/misses,..." from the last run
+    private static final Map<String, Ranking> RANKINGS = new ConcurrentHashMap<>();
+
+    private static final String COMBINED_QUERY =
+            "var root = arguments[0] || document, alts = arguments[1];" +
+            "for (var i = 0; i < alts.length; i++) {" +
+            "  var a = alts[i], found = [];" +
+            "  try {" +
+            "    if (a.type === 'css') {" +
+            "      found = Array.prototype.slice.call(root.querySelectorAll(a.value));" +
+            "    } else {" +
+            "      var r = document.evaluate(a.value, root, null, XPathResult.ORDERED_NODE_SNAPSHOT_TYPE, null);" +
+            "      for (var k = 0; k < r.snapshotLength; k++) found.push(r.snapshotItem(k));" +
+            "    }" +
+            "  } catch (e) { }" +
+            "  if (found.length) return [a.index, found];" +
+            "}" +
+            "return [-1, []];";
+
+    private final String name;
+    private final List<By> alternatives;
+
+    private LocatorSet(String name, List<By> alternatives) {
+        if (alternatives.isEmpty()) throw new IllegalArgumentException("LocatorSet " + name + " has no alternatives");
+        this.name = name;
+        this.alternatives = Collections.unmodifiableList(new ArrayList<>(alternatives));
+    }
+
+    public static LocatorSet of(String name, By... alternatives) {
+        return new LocatorSet(name, Arrays.asList(alternatives));
+    }
+
+    public static LocatorSet css(String name, String... selectors) {
+        List<By> bys = new ArrayList<>();
+        for (String selector : selectors) bys.add(By.cssSelector(selector));
+        return new LocatorSet(name, bys);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public List<By> getAlternatives() {
+        return alternatives;
+    }
+
+    /** Alternative currently ranked first for this app version (declaration order until one matched). */
+    public By preferred() {
+        return alternatives.get(ranking().order()[0]);
+    }
+
+    @Override
+    public List<WebElement> findElements(SearchContext context) {
+        Ranking ranking = ranking();
+        int[] order = ranking.order();
+        List<WebElement> first = context.findElements(alternatives.get(order[0]));
+        if (!first.isEmpty()) {
+            ranking.hit(order[0]);
+            return first;
+        }
+
+        List<Integer> remaining = new ArrayList<>();
+        for (int i = 1; i < order.length; i++) remaining.add(order[i]);
+
+        JavascriptExecutor js = executorFor(context);
+        List<Map<String, Object>> queries = js == null ? null : toQueries(remaining);
+        if (queries == null) {
+            // an alternative cannot run in-page (e.g. linkText): fall back to one findElements each
+            for (int i : remaining) {
+                List<WebElement> found = context.findElements(alternatives.get(i));
+                if (!found.isEmpty()) {
+                    ranking.won(order, i);
+                    return found;
+                }
+            }
+            return new ArrayList<>();
+        }
+
+        Object root = context instanceof WebElement ? context : null;
+        Object result = js.executeScript(COMBINED_QUERY, root, queries);
+        if (result instanceof List && ((List<?>) result).size() == 2) {
+            List<?> pair = (List<?>) result;
+            int winner = ((Number) pair.get(0)).intValue();
+            if (winner >= 0) {
+                ranking.won(order, winner);
+                List<WebElement> elements = new ArrayList<>();
+                for (Object o : (List<?>) pair.get(1)) {
+                    if (o instanceof WebElement) elements.add((WebElement) o);
+                }
+                return elements;
+            }
+        }
+        return new ArrayList<>();
+    }
+
+    @Override
+    public String toString() {
+        return "LocatorSet(" + name + "): " + alternatives;
+    }
+
+    /* -----------------------------
+       Ranking
+       ----------------------------- */
+
+    private Ranking ranking() {
+        return RANKINGS.computeIfAbsent(rankingKey(), k -> Ranking.parse(LOADED.get(k), alternatives.size()));
+    }
+
+    private String rankingKey() {
+        return APP_VERSION + "|" + name;
+    }
+
+    /** Hits and misses per alternative of one set, for one app version. */
+    private static final class Ranking {
+        final AtomicIntegerArray hits;
+        final AtomicIntegerArray misses;
+
+        Ranking(int size) {
+            hits = new AtomicIntegerArray(size);
+            misses = new AtomicIntegerArray(size);
+        }
+
+        /** Alternative indexes, most hits first; declaration order breaks ties. */
+        int[] order() {
+            Integer[] order = new Integer[hits.length()];
+            for (int i = 0; i < order.length; i++) order[i] = i;
+            Arrays.sort(order, (a, b) -> Integer.compare(hits.get(b), hits.get(a)));
+            int[] result = new int[order.length];
+            for (int i = 0; i < order.length; i++) result[i] = order[i];
+            return result;
+        }
+
+        void hit(int index) {
+            hits.incrementAndGet(index);
+        }
+
+        /** {@code winner} matched after the alternatives before it in {@code order} found nothing. */
+        void won(int[] order, int winner) {
+            for (int index : order) {
+                if (index == winner) break;
+                misses.incrementAndGet(index);
+                hits.updateAndGet(index, h -> h / 2);
+            }
+            hit(winner);
+        }
+
+        String format() {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < hits.length(); i++) {
+                if (i > 0) sb.append(',');
+                sb.append(hits.get(i)).append('/').append(misses.get(i));
+            }
+            return sb.toString();
+        }
+
+        /** "hits/misses,..." per alternative; a bare index (older files) counts as one hit for it. */
+        static Ranking parse(String value, int size) {
+            Ranking ranking = new Ranking(size);
+            if (value == null) return ranking;
+            try {
+                if (!value.contains("/")) {
+                    int winner = Integer.parseInt(value.trim());
+                    if (winner < size) ranking.hits.set(winner, 1);
+                    return ranking;
+                }
+                String[] entries = value.split(",");
+                for (int i = 0; i < entries.length && i < size; i++) {
+                    String[] hitsAndMisses = entries[i].trim().split("/");
+                    ranking.hits.set(i, Integer.parseInt(hitsAndMisses[0]));
+                    ranking.misses.set(i, Integer.parseInt(hitsAndMisses[1]));
+                }
+            } catch (RuntimeException e) {
+                return new Ranking(size); // corrupt entry, relearn it
+            }
+            return ranking;
+        }
+    }
+
+    /* -----------------------------
+       Ranking persistence
+       ----------------------------- */
+
+    /** Write the learned ranking (all app versions seen) so the next run starts warm. */
+    public static void exportRanking() {
+        exportRanking(RANKING_FILE);
+    }
+
+    public static void exportRanking(Path file) {
+        if (RANKINGS.isEmpty()) return;
+        Map<String, String> merged = new TreeMap<>(LOADED); // keep the sets and versions not used in this run
+        RANKINGS.forEach((k, ranking) -> merged.put(k, ranking.format()));
+        Properties props = new Properties();
+        merged.forEach(props::setProperty);
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) Files.createDirectories(parent);
+            try (Writer w = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                props.store(w, "Hits/misses per LocatorSet alternative, key = <app.version>|<set name>");
+            }
+        } catch (IOException e) {
+            LOG.warn("Failed to export locator ranking: " + e.getMessage());
+        }
+    }
+
+    private static Map<String, String> load(Path file) {
+        Map<String, String> loaded = new LinkedHashMap<>();
+        if (!Files.exists(file)) return loaded;
+        Properties props = new Properties();
+        try (Reader r = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            props.load(r);
+        } catch (IOException e) {
+            LOG.warn("Failed to read locator ranking: " + e.getMessage());
+            return loaded;
+        }
+        for (String key : props.stringPropertyNames()) loaded.put(key, props.getProperty(key));
+        return loaded;
+    }
+
+    /* -----------------------------
+       In-page query helpers
+       ----------------------------- */
+
+    private List<Map<String, Object>> toQueries(List<Integer> indexes) {
+        List<Map<String, Object>> queries = new ArrayList<>();
+        for (int i : indexes) {
+            String[] typeAndValue = toInPage(alternatives.get(i));
+            if (typeAndValue == null) return null;
+            Map<String, Object> q = new LinkedHashMap<>();
+            q.put("index", i);
+            q.put("type", typeAndValue[0]);
+            q.put("value", typeAndValue[1]);
+            queries.add(q);
+        }
+        return queries;
+    }
+
+    /** {type, value} for locators that can be evaluated in the page, null otherwise. */
+    static String[] toInPage(By by) {
+        String s = by.toString();
+        int colon = s.indexOf(": ");
+        if (colon < 0) return null;
+        String kind = s.substring(0, colon);
+        String value = s.substring(colon + 2);
+        switch (kind) {
+            case "By.cssSelector":
+                return new String[] {"css", value};
+            case "By.xpath":
+                return new String[] {"xpath", value};
+            case "By.id":
+                return new String[] {"css", "[id=\"" + value.replace("\"", "\\\"") + "\"]"};
+            case "By.name":
+                return new String[] {"css", "[name=\"" + value.replace("\"", "\\\"") + "\"]"};
+            case "By.className":
+                return new String[] {"css", "." + value};
+            case "By.tagName":
+                return new String[] {"css", value};
+            default:
+                return null;
+        }
+    }
+
+    private static JavascriptExecutor executorFor(SearchContext context) {
+        SearchContext candidate = context;
+        if (candidate instanceof WebElement && candidate instanceof WrapsDriver) {
+            candidate = ((WrapsDriver) candidate).getWrappedDriver();
+        }
+        return candidate instanceof JavascriptExecutor ? (JavascriptExecutor) candidate : null;
+    }
+}
@@ -1,5 +1,7 @@
 package com.evershop.pages;
 
+import com.evershop.perf.PageTelemetry;
+import com.evershop.testdata.SearchData;
 import org.openqa.selenium.By;
 import org.openqa.selenium.WebDriver;
 
@@ -15,7 +17,7 @@ public class LoginPage extends BasePage {
     }
 
     public void navigateToLoginPage() {
-        driver.get("https://demo.evershop.io/account/login");
+        navigateTo(SearchData.getBaseUrl() + "/account/login");
     }
 
     public void login(String email, String password) {
@@ -24,5 +26,7 @@ public class LoginPage extends BasePage {
         waitForElement(passwordInput).sendKeys(password);
         waitForClickable(loginButton).click();
         sleep(2000); // Wait for redirect
+        domChanged();
+        pageChanged(PageTelemetry.pageTypeOf(driver.getCurrentUrl()));
     }
 }
\ No newline at end of file
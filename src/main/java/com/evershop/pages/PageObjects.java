@@ -0,0 +1,105 @@
+package com.evershop.pages;
+
+import com.evershop.perf.JfrEvents;
+import com.evershop.perf.Span;
+import com.evershop.perf.Spans;
+import net.bytebuddy.ByteBuddy;
+import net.bytebuddy.dynamic.loading.ClassLoadingStrategy;
+import net.bytebuddy.dynamic.scaffold.subclass.ConstructorStrategy;
+import net.bytebuddy.implementation.MethodDelegation;
+import net.bytebuddy.implementation.bind.annotation.Origin;
+import net.bytebuddy.implementation.bind.annotation.RuntimeType;
+import net.bytebuddy.implementation.bind.annotation.SuperCall;
+import org.openqa.selenium.WebDriver;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static net.bytebuddy.matcher.ElementMatchers.isDeclaredBy;
+import static net.bytebuddy.matcher.ElementMatchers.isPublic;
+import static net.bytebuddy.matcher.ElementMatchers.isStatic;
+import static net.bytebuddy.matcher.ElementMatchers.not;
+
+/**
+ * PageObjects - creates page objects, instrumented when -Dspans.enabled=true or -Djfr.events=true.
+ *
+ * Instrumented, each page class gets a generated subclass whose public methods run inside a
+ * span named "Page.method" (calls between public methods of the same or another page nest) and
+ * emit a JFR PageAction event. Otherwise the page is created with its constructor, so there is
+ * no proxy at all.
+ */
+public final class PageObjects {
+
+    private static final Map<Class<?>, Class<?>> INSTRUMENTED = new ConcurrentHashMap<>();
+
+    private PageObjects() {
+    }
+
+    public static <T extends BasePage> T create(Class<T> pageClass, WebDriver driver) {
+        if (!Spans.isEnabled() && !JfrEvents.isEnabled()) {
+            return instantiate(pageClass, driver);
+        }
+        @SuppressWarnings("unchecked")
+        Class<? extends T> type = (Class<? extends T>) INSTRUMENTED.computeIfAbsent(pageClass, PageObjects::instrument);
+        try (Span span = Spans.start(pageClass.getSimpleName() + ".<init>")) {
+            try {
+                return instantiate(type, driver);
+            } catch (RuntimeException e) {
+                span.fail(e);
+                throw e;
+            }
+        }
+    }
+
+    private static Class<?> instrument(Class<?> pageClass) {
+        return new ByteBuddy()
+                .subclass(pageClass, ConstructorStrategy.Default.IMITATE_SUPER_CLASS)
+                .method(isPublic().and(not(isStatic())).and(isDeclaredBy(pageClass)))
+                .intercept(MethodDelegation.to(SpanInterceptor.class))
+                .make()
+                .load(pageClass.getClassLoader(), ClassLoadingStrategy.Default.WRAPPER)
+                .getLoaded();
+    }
+
+    private static <T> T instantiate(Class<T> type, WebDriver driver) {
+        try {
+            return type.getConstructor(WebDriver.class).newInstance(driver);
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw new IllegalStateException("Cannot create " + type.getSimpleName(), cause);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Page object needs a public (WebDriver) constructor: " + type.getName(), e);
+        }
+    }
+
+    /** Target of the generated subclasses; public so the generated classes can bind to it. */
+    public static final class SpanInterceptor {
+
+        private SpanInterceptor() {
+        }
+
+        @RuntimeType
+        public static Object intercept(@Origin Method method, @SuperCall Callable<?> original) throws Exception {
+            String action = method.getDeclaringClass().getSimpleName() + "." + method.getName();
+            Span span = Spans.start(action);
+            JfrEvents.PageAction event = new JfrEvents.PageAction();
+            event.begin();
+            boolean failed = false;
+            try {
+                return original.call();
+            } catch (Exception | Error e) {
+                failed = true;
+                span.fail(e);
+                throw e;
+            } finally {
+                span.close();
+                event.end(action, failed);
+            }
+        }
+    }
+}
@@ -16,6 +16,7 @@ public class SearchResultPage extends BasePage {
         waitForUrl("search");
         // Wait for products to load
         sleep(1000);
+        pageChanged("search"); // route change from the home page search box
     }
 
     public String getPageTitle() {
@@ -43,26 +44,16 @@ public class SearchResultPage extends BasePage {
     }
 
     public boolean allProductsContainKeyword(String keyword) {
-        List<String> productNames = getProductNames();
-        for (String productName : productNames) {
-            if (!productName.toLowerCase().contains(keyword.toLowerCase())) {
-                return false;
-            }
-        }
-        return true;
+        return SearchResults.allContainAllKeywords(getProductNames(), new String[] {keyword});
     }
 
     public boolean allProductsContainAllKeywords(String[] keywords) {
-        List<String> productNames = getProductNames();
-        for (String productName : productNames) {
-            String lowerName = productName.toLowerCase();
-            for (String keyword : keywords) {
-                if (!lowerName.contains(keyword.toLowerCase())) {
-                    return false;
-                }
-            }
-        }
-        return true;
+        return SearchResults.allContainAllKeywords(getProductNames(), keywords);
+    }
+
+    /** Title, product names and "no product" message as shown now (no waiting). */
+    public SearchResults getResults() {
+        return new SearchResults(getPageTitle(), getProductNames(), !driver.findElements(noResultMessage).isEmpty());
     }
 
     public List<String> getProductNames() {
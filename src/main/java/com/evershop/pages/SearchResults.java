@@ -0,0 +1,92 @@
+package com.evershop.pages;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * SearchResults - what a search results page shows: title, product names, "no product" message.
+ *
+ * Read from the browser by {@link SearchResultPage#getResults()} or from the server-rendered HTML
+ * by {@code SearchProbe}; both use the keyword matching below, so a probe sweep and a browser
+ * test judge the same results the same way.
+ */
+public final class SearchResults {
+
+    public static final String NO_RESULT_TEXT = "There is no product to display";
+
+    private final String title;
+    private final List<String> productNames;
+    private final boolean noResultMessage;
+
+    public SearchResults(String title, List<String> productNames, boolean noResultMessage) {
+        this.title = title == null ? "" : title;
+        this.productNames = Collections.unmodifiableList(new ArrayList<>(productNames));
+        this.noResultMessage = noResultMessage;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public List<String> getProductNames() {
+        return productNames;
+    }
+
+    public int getProductCount() {
+        return productNames.size();
+    }
+
+    public boolean isNoResultMessageDisplayed() {
+        return noResultMessage;
+    }
+
+    /** Title check as in SearchTests: "search results for" plus the keyword, case-insensitive. */
+    public boolean titleMatches(String keyword) {
+        String lowerTitle = title.toLowerCase();
+        return lowerTitle.contains("search results for") && lowerTitle.contains(keyword.trim().toLowerCase());
+    }
+
+    public boolean allContainKeyword(String keyword) {
+        return allContainAllKeywords(productNames, new String[] {keyword});
+    }
+
+    public boolean allContainAllKeywords(String[] keywords) {
+        return allContainAllKeywords(productNames, keywords);
+    }
+
+    /* -----------------------------
+       Matching
+       ----------------------------- */
+
+    public static boolean containsAllKeywords(String productName, String[] keywords) {
+        String lowerName = productName.toLowerCase();
+        for (String keyword : keywords) {
+            if (!lowerName.contains(keyword.toLowerCase())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public static boolean allContainAllKeywords(List<String> productNames, String[] keywords) {
+        for (String productName : productNames) {
+            if (!containsAllKeywords(productName, keywords)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Share of products whose name contains every keyword; NaN when there are no products. */
+    public static double fractionContainingAllKeywords(List<String> productNames, String[] keywords) {
+        if (productNames.isEmpty()) return Double.NaN;
+        long matching = productNames.stream().filter(name -> containsAllKeywords(name, keywords)).count();
+        return (double) matching / productNames.size();
+    }
+
+    @Override
+    public String toString() {
+        return "'" + title + "': " + (noResultMessage ? "no products" : productNames.size() + " products " + productNames);
+    }
+}
@@ -0,0 +1,204 @@
+package com.evershop.pages;
+
+import com.evershop.perf.JfrEvents;
+import com.evershop.perf.Spans;
+import com.evershop.utils.Artifacts;
+import com.evershop.utils.Deadline;
+import com.evershop.utils.Log;
+import com.evershop.utils.TestConfig;
+import org.openqa.selenium.NotFoundException;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriver;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * WaitPolicy - the one place page objects and tests get their waits from.
+ *
+ * Provides:
+ *  - adaptive polling: first poll after 25 ms, then the interval grows x1.5 up to 500 ms,
+ *    so fast conditions are seen almost immediately and slow ones do not hammer the driver
+ *  - named timeout classes ("default", "save", "popup", "toast", "list", "scan", "probe"),
+ *    each overridable with -Dwait.timeout.&lt;name&gt;=millis
+ *  - per-condition metrics (calls, time to satisfy, polls, timeouts), written at suite end
+ *  - every timeout is clipped to what is left of the test's Deadline, and the time spent is
+ *    recorded against it
+ *
+ * Semantics match WebDriverWait: the condition is satisfied by a non-null, non-FALSE value,
+ * NotFound/StaleElement exceptions are ignored while polling and a TimeoutException is thrown at the end.
+ */
+public class WaitPolicy {
+
+    private static final Log LOG = Log.get(WaitPolicy.class);
+
+    private static final Map<String, Duration> DEFAULT_TIMEOUTS = new LinkedHashMap<>();
+
+    static {
+        DEFAULT_TIMEOUTS.put("default", Duration.ofSeconds(10));
+        DEFAULT_TIMEOUTS.put("save", Duration.ofSeconds(5));
+        DEFAULT_TIMEOUTS.put("popup", Duration.ofSeconds(5));
+        DEFAULT_TIMEOUTS.put("scan", Duration.ofSeconds(4));
+        DEFAULT_TIMEOUTS.put("toast", Duration.ofSeconds(2));
+        DEFAULT_TIMEOUTS.put("list", Duration.ofSeconds(2));
+        DEFAULT_TIMEOUTS.put("probe", Duration.ofSeconds(1));
+    }
+
+    private static final long INITIAL_POLL_MS = TestConfig.getLong("wait.poll.initialMs", 25);
+    private static final long MAX_POLL_MS = TestConfig.getLong("wait.poll.maxMs", 500);
+    private static final double BACKOFF = 1.5;
+
+    private static final Map<String, ConditionStats> STATS = new ConcurrentHashMap<>();
+
+    private final WebDriver driver;
+
+    public WaitPolicy(WebDriver driver) {
+        this.driver = driver;
+    }
+
+    /** Timeout of a named class, from -Dwait.timeout.&lt;name&gt; or the built-in default. */
+    public static Duration timeout(String timeoutClass) {
+        Duration fallback = DEFAULT_TIMEOUTS.get(timeoutClass);
+        if (fallback == null) {
+            throw new IllegalArgumentException("Unknown wait timeout class: " + timeoutClass
+                    + " (known: " + DEFAULT_TIMEOUTS.keySet() + ")");
+        }
+        return TestConfig.getMillis("wait.timeout." + timeoutClass, fallback);
+    }
+
+    public <T> T until(String conditionName, String timeoutClass, Function<? super WebDriver, T> condition) {
+        return until(conditionName, timeout(timeoutClass), condition);
+    }
+
+    public <T> T until(String conditionName, Duration requested, Function<? super WebDriver, T> condition) {
+        ConditionStats stats = STATS.computeIfAbsent(conditionName, k -> new ConditionStats());
+        Duration timeout = Deadline.clip(requested);
+        boolean clipped = timeout.compareTo(requested) < 0;
+        long start = System.nanoTime();
+        long end = start + timeout.toNanos();
+        long interval = INITIAL_POLL_MS;
+        int polls = 0;
+        RuntimeException lastIgnored = null;
+        JfrEvents.WaitCondition event = new JfrEvents.WaitCondition();
+        event.begin();
+        String outcome = "error";
+
+        try {
+            while (true) {
+                polls++;
+                try {
+                    T value = condition.apply(driver);
+                    if (value != null && !Boolean.FALSE.equals(value)) {
+                        stats.satisfied(System.nanoTime() - start, polls);
+                        outcome = "satisfied";
+                        return value;
+                    }
+                } catch (NotFoundException | StaleElementReferenceException e) {
+                    lastIgnored = e;
+                }
+
+                long now = System.nanoTime();
+                if (now >= end) {
+                    stats.timedOut(now - start, polls);
+                    outcome = "timeout";
+                    throw new TimeoutException("Expected condition failed: " + conditionName + " (tried for "
+                            + timeout.toMillis() + " ms with " + polls + " polls"
+                            + (clipped ? ", clipped from " + requested.toMillis() + " ms by the test deadline" : "") + ")", lastIgnored);
+                }
+                long sleepMs = Math.min(interval, Math.max(1, (end - now) / 1_000_000));
+                try {
+                    Thread.sleep(sleepMs);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    outcome = "interrupted";
+                    throw new TimeoutException("Interrupted while waiting for " + conditionName, e);
+                } finally {
+                    Spans.recordWait(System.nanoTime() - now);
+                }
+                interval = Math.min(MAX_POLL_MS, (long) (interval * BACKOFF));
+            }
+        } finally {
+            event.end(conditionName, timeout.toMillis(), polls, outcome);
+            Deadline.recordWait(conditionName, System.nanoTime() - start, clipped);
+        }
+    }
+
+    public BrowserCondition.Result until(String conditionName, String timeoutClass, BrowserCondition condition) {
+        return until(conditionName, timeout(timeoutClass), condition);
+    }
+
+    /**
+     * Polls a BrowserCondition (one executeScript per poll); on timeout the exception message
+     * lists the per-node diagnostics of the last poll.
+     */
+    public BrowserCondition.Result until(String conditionName, Duration timeout, BrowserCondition condition) {
+        AtomicReference<BrowserCondition.Result> last = new AtomicReference<>();
+        try {
+            return until(conditionName, timeout, d -> {
+                BrowserCondition.Result result = condition.evaluate(d);
+                last.set(result);
+                return result.isSatisfied() ? result : null;
+            });
+        } catch (TimeoutException e) {
+            BrowserCondition.Result result = last.get();
+            throw new BrowserCondition.ConditionTimeoutException(e.getMessage() + "\n"
+                    + (result == null ? "no evaluation completed" : result.describe()), result, e);
+        }
+    }
+
+    /* -----------------------------
+       Metrics
+       ----------------------------- */
+
+    /** One CSV line per condition name, sorted by name. */
+    public static void writeMetrics(Path file) {
+        StringBuilder sb = new StringBuilder("condition,calls,satisfied,timeouts,avg_satisfy_ms,max_satisfy_ms,avg_polls\n");
+        new TreeMap<>(STATS).forEach((name, s) -> sb.append('"').append(name.replace("\"", "'")).append('"')
+                .append(',').append(s.calls.sum())
+                .append(',').append(s.satisfied.sum())
+                .append(',').append(s.timeouts.sum())
+                .append(',').append(s.satisfied.sum() == 0 ? 0 : s.satisfyNanos.sum() / s.satisfied.sum() / 1_000_000)
+                .append(',').append(s.maxSatisfyNanos.get() / 1_000_000)
+                .append(',').append(s.calls.sum() == 0 ? 0 : s.polls.sum() / s.calls.sum())
+                .append('\n'));
+        try {
+            Artifacts.write("wait-metrics", file, sb.toString().getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            LOG.warn("Failed to write wait metrics: " + e.getMessage());
+        }
+    }
+
+    private static final class ConditionStats {
+        final LongAdder calls = new LongAdder();
+        final LongAdder satisfied = new LongAdder();
+        final LongAdder timeouts = new LongAdder();
+        final LongAdder polls = new LongAdder();
+        final LongAdder satisfyNanos = new LongAdder();
+        final AtomicLong maxSatisfyNanos = new AtomicLong();
+
+        void satisfied(long nanos, int pollCount) {
+            calls.increment();
+            satisfied.increment();
+            polls.add(pollCount);
+            satisfyNanos.add(nanos);
+            maxSatisfyNanos.accumulateAndGet(nanos, Math::max);
+        }
+
+        void timedOut(long nanos, int pollCount) {
+            calls.increment();
+            timeouts.increment();
+            polls.add(pollCount);
+        }
+    }
+}
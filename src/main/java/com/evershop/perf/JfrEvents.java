@@ -0,0 +1,188 @@
+package com.evershop.perf;
+
+import com.evershop.utils.TestConfig;
+import com.evershop.utils.TestContext;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+import java.util.function.Supplier;
+
+/**
+ * JfrEvents - JDK Flight Recorder event types for test activity (-Djfr.events=true, set by -Pjfr).
+ *
+ * Provides:
+ *  - PageAction: every public page-object method (through {@code PageObjects})
+ *  - WaitCondition: every WaitPolicy wait with timeout, polls and outcome
+ *  - DriverCommand: every WebDriver command with its page-object caller (through {@code CommandProfiler})
+ *  - ToastWait: toast observer/scan waits with the text found
+ *  - ArtifactWrite: snapshots, screenshots and metric files written by the run
+ *
+ * Notes:
+ *  - every event carries the test id; JFR adds the thread and stack trace, so a recording opened in
+ *    JDK Mission Control shows per test thread where the time went, next to the built-in monitor
+ *    (jdk.JavaMonitorEnter) and park (jdk.ThreadPark) events that expose contention in the reporters
+ *  - with the switch off no page proxy or driver decorator is installed for these events; the
+ *    remaining events cost a disabled-event check when no recording is running
+ */
+public final class JfrEvents {
+
+    private static final boolean ENABLED = TestConfig.getBoolean("jfr.events", false);
+
+    private JfrEvents() {
+    }
+
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    static String testId() {
+        TestContext context = TestContext.current();
+        return context != null ? context.getTestId() : null;
+    }
+
+    /** Times a toast wait and records what it found. */
+    public static String toastWait(String source, long timeoutMillis, Supplier<String> wait) {
+        ToastWait event = new ToastWait();
+        event.begin();
+        String text = null;
+        try {
+            text = wait.get();
+            return text;
+        } finally {
+            if (event.shouldCommit()) {
+                event.testId = testId();
+                event.source = source;
+                event.timeoutMillis = timeoutMillis;
+                event.found = text != null && !text.trim().isEmpty();
+                event.text = text;
+                event.commit();
+            }
+        }
+    }
+
+    /* -----------------------------
+       Event types
+       ----------------------------- */
+
+    @Name("com.evershop.PageAction")
+    @Label("Page Action")
+    @Category({"EverShop", "Page Objects"})
+    @Description("A public page-object method call")
+    public static final class PageAction extends Event {
+        @Label("Test")
+        public String testId;
+        @Label("Action")
+        public String action;
+        @Label("Failed")
+        public boolean failed;
+
+        public void end(String action, boolean failed) {
+            if (!shouldCommit()) return;
+            this.testId = JfrEvents.testId();
+            this.action = action;
+            this.failed = failed;
+            commit();
+        }
+    }
+
+    @Name("com.evershop.WaitCondition")
+    @Label("Wait Condition")
+    @Category({"EverShop", "Waits"})
+    @Description("A WaitPolicy wait from first poll to outcome")
+    public static final class WaitCondition extends Event {
+        @Label("Test")
+        public String testId;
+        @Label("Condition")
+        public String condition;
+        @Label("Timeout")
+        @Timespan(Timespan.MILLISECONDS)
+        public long timeoutMillis;
+        @Label("Polls")
+        public int polls;
+        @Label("Outcome")
+        @Description("satisfied, timeout, interrupted or error")
+        public String outcome;
+
+        public void end(String condition, long timeoutMillis, int polls, String outcome) {
+            if (!shouldCommit()) return;
+            this.testId = JfrEvents.testId();
+            this.condition = condition;
+            this.timeoutMillis = timeoutMillis;
+            this.polls = polls;
+            this.outcome = outcome;
+            commit();
+        }
+    }
+
+    @Name("com.evershop.DriverCommand")
+    @Label("WebDriver Command")
+    @Category({"EverShop", "WebDriver"})
+    @Description("One command sent to the browser driver")
+    public static final class DriverCommand extends Event {
+        @Label("Test")
+        public String testId;
+        @Label("Command")
+        public String command;
+        @Label("Caller")
+        public String caller;
+        @Label("Failed")
+        public boolean failed;
+
+        public void end(String command, String caller, boolean failed) {
+            if (!shouldCommit()) return;
+            this.testId = JfrEvents.testId();
+            this.command = command;
+            this.caller = caller;
+            this.failed = failed;
+            commit();
+        }
+    }
+
+    @Name("com.evershop.ToastWait")
+    @Label("Toast Wait")
+    @Category({"EverShop", "Waits"})
+    @Description("Waiting for a toast notification after save")
+    public static final class ToastWait extends Event {
+        @Label("Test")
+        public String testId;
+        @Label("Source")
+        public String source;
+        @Label("Timeout")
+        @Timespan(Timespan.MILLISECONDS)
+        public long timeoutMillis;
+        @Label("Found")
+        public boolean found;
+        @Label("Text")
+        public String text;
+    }
+
+    @Name("com.evershop.ArtifactWrite")
+    @Label("Artifact Write")
+    @Category({"EverShop", "Artifacts"})
+    @Description("A report, snapshot or screenshot file written by the run")
+    public static final class ArtifactWrite extends Event {
+        @Label("Test")
+        public String testId;
+        @Label("Kind")
+        public String kind;
+        @Label("Path")
+        public String path;
+        @Label("Size")
+        @DataAmount
+        public long bytes;
+
+        public void end(String kind, String path, long bytes) {
+            if (!shouldCommit()) return;
+            this.testId = JfrEvents.testId();
+            this.kind = kind;
+            this.path = path;
+            this.bytes = bytes;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.evershop.perf;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * LatencyHistogram - lock-free log-linear histogram of latencies in microseconds.
+ *
+ * Provides:
+ *  - exact buckets below 64 us, then 32 sub-buckets per power of two (about 3% relative error)
+ *  - concurrent {@link #record(long)} from any thread without locks
+ *  - percentiles, max, mean and merge/copy for windowed or per-test aggregation
+ *
+ * Notes:
+ *  - values are clamped to [0, 2^40) us (about 12 days)
+ *  - a percentile is reported as the upper bound of its bucket, capped by the recorded max
+ */
+public final class LatencyHistogram {
+
+    private static final int EXACT = 64;
+    private static final int SUB_BUCKETS = 32;
+    private static final int MAX_SHIFT = 35;
+    private static final long MAX_VALUE = (1L << 40) - 1;
+    private static final int BUCKETS = EXACT + MAX_SHIFT * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder total = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long micros) {
+        long v = Math.max(0, Math.min(MAX_VALUE, micros));
+        counts.incrementAndGet(bucketOf(v));
+        total.increment();
+        sum.add(v);
+        max.accumulateAndGet(v, Math::max);
+    }
+
+    public void recordNanos(long nanos) {
+        record(nanos / 1_000);
+    }
+
+    public long getCount() {
+        return total.sum();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    public double getMean() {
+        long n = total.sum();
+        return n == 0 ? 0 : (double) sum.sum() / n;
+    }
+
+    /** Value at the given percentile (0-100), 0 when empty. */
+    public long percentile(double percentile) {
+        long n = total.sum();
+        if (n == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * n));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) return Math.min(upperBound(i), max.get());
+        }
+        return max.get();
+    }
+
+    /** Adds all values recorded in other to this histogram. */
+    public void merge(LatencyHistogram other) {
+        for (int i = 0; i < BUCKETS; i++) {
+            long c = other.counts.get(i);
+            if (c != 0) counts.addAndGet(i, c);
+        }
+        total.add(other.total.sum());
+        sum.add(other.sum.sum());
+        max.accumulateAndGet(other.max.get(), Math::max);
+    }
+
+    public LatencyHistogram copy() {
+        LatencyHistogram copy = new LatencyHistogram();
+        copy.merge(this);
+        return copy;
+    }
+
+    /** "n=.. p50=.. p90=.. p99=.. max=.." in milliseconds. */
+    public String summary() {
+        return String.format(Locale.ROOT, "n=%d p50=%.1fms p90=%.1fms p99=%.1fms max=%.1fms",
+                getCount(), percentile(50) / 1000.0, percentile(90) / 1000.0, percentile(99) / 1000.0, getMax() / 1000.0);
+    }
+
+    /* -----------------------------
+       Bucketing
+       ----------------------------- */
+
+    private static int bucketOf(long v) {
+        if (v < EXACT) return (int) v;
+        int msb = 63 - Long.numberOfLeadingZeros(v);
+        int shift = msb - 5;                      // keep the top 6 bits: sub in [32, 63]
+        int sub = (int) (v >>> shift);
+        return EXACT + (shift - 1) * SUB_BUCKETS + (sub - SUB_BUCKETS);
+    }
+
+    private static long upperBound(int bucket) {
+        if (bucket < EXACT) return bucket;
+        int shift = (bucket - EXACT) / SUB_BUCKETS + 1;
+        int sub = (bucket - EXACT) % SUB_BUCKETS + SUB_BUCKETS;
+        return ((long) (sub + 1) << shift) - 1;
+    }
+}
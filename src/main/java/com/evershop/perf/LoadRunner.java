@@ -0,0 +1,357 @@
+package com.evershop.perf;
+
+import com.evershop.driver.BrowserSlots;
+import com.evershop.driver.DriverFactory;
+import com.evershop.utils.Artifacts;
+import com.evershop.utils.Log;
+import com.evershop.utils.TestConfig;
+import com.evershop.utils.VirtualThreads;
+import org.openqa.selenium.NoSuchSessionException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * LoadRunner - browser-level synthetic users running the page-object flows as a load profile.
+ *
+ * Provides:
+ *  - phases: ramp-up (users added linearly), steady state, ramp-down (newest users stop first)
+ *  - a weighted scenario mix (-Dload.mix=search:80,address:20), picked per iteration
+ *  - per time window (-Dload.window, ms): iterations/s, errors and p50/p90/p99/max of every
+ *    scenario and step, plus a steady-state summary
+ *
+ * Notes:
+ *  - every user holds a {@link BrowserSlots} slot for its browser, so -Dbrowsers.max (or the grid
+ *    slots in -Ddriver.mode=grid) limits concurrency; users beyond it wait for a slot
+ *  - the pages take their URLs from -Dbase.url, so the same flows run against staging or a local
+ *    stand-in
+ *  - a user whose browser session died gets a new browser; the iteration counts as an error
+ */
+public final class LoadRunner {
+
+    private static final Log LOG = Log.get(LoadRunner.class);
+
+    /** One user flow; record its parts with {@link Steps#step}. */
+    public interface Scenario {
+        String getName();
+
+        void iterate(WebDriver driver, Steps steps);
+    }
+
+    private static final String HEADER = "name,count,errors,per_s,p50_ms,p90_ms,p99_ms,max_ms";
+
+    private final Duration rampUp;
+    private final Duration steady;
+    private final Duration rampDown;
+    private final int users;
+    private final Duration window;
+    private final Duration thinkTime;
+    private final Map<Scenario, Integer> mix;
+
+    private final Map<Long, Window> windows = new ConcurrentHashMap<>();
+    private final AtomicInteger targetUsers = new AtomicInteger();
+    private final Set<Integer> runningUsers = ConcurrentHashMap.newKeySet();
+    private volatile boolean running;
+    private long startNanos;
+
+    public LoadRunner(Duration rampUp, Duration steady, Duration rampDown, int users,
+                      Duration window, Duration thinkTime, Map<Scenario, Integer> mix) {
+        if (mix.isEmpty()) throw new IllegalArgumentException("Load mix has no scenario");
+        this.rampUp = rampUp;
+        this.steady = steady;
+        this.rampDown = rampDown;
+        this.users = Math.max(1, users);
+        this.window = window;
+        this.thinkTime = thinkTime;
+        this.mix = new LinkedHashMap<>(mix);
+    }
+
+    /**
+     * Runner configured from -Dload.* properties: rampUp/steady/rampDown/window/thinkTime (ms),
+     * users (default -Dbrowsers.max or the CPU count) and mix ("name:weight,..." over {@code scenarios}).
+     */
+    public static LoadRunner fromConfig(List<Scenario> scenarios) {
+        return new LoadRunner(
+                TestConfig.getMillis("load.rampUp", Duration.ofSeconds(30)),
+                TestConfig.getMillis("load.steady", Duration.ofMinutes(2)),
+                TestConfig.getMillis("load.rampDown", Duration.ofSeconds(30)),
+                TestConfig.getInt("load.users", TestConfig.getInt("browsers.max", Runtime.getRuntime().availableProcessors())),
+                TestConfig.getMillis("load.window", Duration.ofSeconds(10)),
+                TestConfig.getMillis("load.thinkTime", Duration.ofSeconds(1)),
+                TestConfig.getMix("load.mix", "search:100", scenarios, Scenario::getName));
+    }
+
+    /* -----------------------------
+       Run
+       ----------------------------- */
+
+    /** Runs all phases; blocks until the last user has stopped. */
+    public Result run() {
+        long totalMillis = rampUp.toMillis() + steady.toMillis() + rampDown.toMillis();
+        if (users > BrowserSlots.available()) {
+            LOG.warn("Load: " + users + " users but " + BrowserSlots.available()
+                    + " free browser slots, users above that wait for a slot (-Dbrowsers.max)");
+        }
+        ExecutorService pool = VirtualThreads.newThreadPerTaskExecutor("load-user");
+        running = true;
+        startNanos = System.nanoTime();
+        try {
+            long elapsed;
+            while ((elapsed = elapsedMillis()) < totalMillis) {
+                int target = targetUsersAt(elapsed);
+                targetUsers.set(target);
+                windowAt(elapsed).observeUsers(runningUsers.size());
+                for (int id = 0; id < target; id++) {
+                    if (runningUsers.add(id)) {
+                        int userId = id;
+                        pool.submit(() -> user(userId));
+                    }
+                }
+                Thread.sleep(200);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            running = false;
+            targetUsers.set(0);
+            pool.shutdown();
+            try {
+                if (!pool.awaitTermination(2, TimeUnit.MINUTES)) pool.shutdownNow();
+            } catch (InterruptedException e) {
+                pool.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+        return new Result();
+    }
+
+    /** Users wanted at a point of the run: linear ramp-up, flat, linear ramp-down. */
+    int targetUsersAt(long elapsedMillis) {
+        long up = rampUp.toMillis();
+        long steadyEnd = up + steady.toMillis();
+        long end = steadyEnd + rampDown.toMillis();
+        if (elapsedMillis < up) return (int) Math.max(1, Math.ceil(users * (double) elapsedMillis / up));
+        if (elapsedMillis < steadyEnd) return users;
+        if (elapsedMillis < end) return (int) Math.ceil(users * (double) (end - elapsedMillis) / rampDown.toMillis());
+        return 0;
+    }
+
+    String phaseAt(long elapsedMillis) {
+        if (elapsedMillis < rampUp.toMillis()) return "ramp-up";
+        if (elapsedMillis < rampUp.toMillis() + steady.toMillis()) return "steady";
+        return "ramp-down";
+    }
+
+    private void user(int id) {
+        BrowserSlots.acquire();
+        WebDriver driver = null;
+        try {
+            while (running && id < targetUsers.get() && !Thread.currentThread().isInterrupted()) {
+                if (driver == null) driver = DriverFactory.createDriver(DriverFactory.headlessOptions());
+                Scenario scenario = pick();
+                long from = System.nanoTime();
+                boolean failed = false;
+                try {
+                    scenario.iterate(driver, new Steps(scenario.getName()));
+                } catch (RuntimeException e) {
+                    failed = true;
+                    if (e instanceof NoSuchSessionException) {
+                        DriverFactory.quitQuietly(driver, "load");
+                        driver = null;
+                    }
+                }
+                record(scenario.getName(), System.nanoTime() - from, failed);
+                think();
+            }
+        } catch (WebDriverException e) {
+            LOG.warn("Load user " + id + " could not start a browser: " + e.getMessage());
+        } finally {
+            DriverFactory.quitQuietly(driver, "load");
+            BrowserSlots.release();
+            runningUsers.remove(id);
+        }
+    }
+
+    private Scenario pick() {
+        int total = mix.values().stream().mapToInt(Integer::intValue).sum();
+        int r = ThreadLocalRandom.current().nextInt(total);
+        for (Map.Entry<Scenario, Integer> e : mix.entrySet()) {
+            r -= e.getValue();
+            if (r < 0) return e.getKey();
+        }
+        return mix.keySet().iterator().next();
+    }
+
+    private void think() {
+        if (thinkTime.isZero()) return;
+        try {
+            Thread.sleep(thinkTime.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private long elapsedMillis() {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+    private Window windowAt(long elapsedMillis) {
+        return windows.computeIfAbsent(elapsedMillis / window.toMillis(), k -> new Window());
+    }
+
+    private void record(String name, long nanos, boolean failed) {
+        windowAt(elapsedMillis()).stats(name).record(nanos, failed);
+    }
+
+    /** Times the steps of one scenario iteration ("search/results", ...). */
+    public final class Steps {
+        private final String scenario;
+
+        Steps(String scenario) {
+            this.scenario = scenario;
+        }
+
+        public <T> T step(String name, Supplier<T> action) {
+            long from = System.nanoTime();
+            boolean failed = true;
+            try {
+                T value = action.get();
+                failed = false;
+                return value;
+            } finally {
+                record(scenario + "/" + name, System.nanoTime() - from, failed);
+            }
+        }
+
+        public void step(String name, Runnable action) {
+            step(name, () -> {
+                action.run();
+                return null;
+            });
+        }
+    }
+
+    /* -----------------------------
+       Windows and report
+       ----------------------------- */
+
+    private static final class Window {
+        final Map<String, Stats> byName = new ConcurrentHashMap<>();
+        final AtomicInteger maxUsers = new AtomicInteger();
+
+        Stats stats(String name) {
+            return byName.computeIfAbsent(name, k -> new Stats());
+        }
+
+        void observeUsers(int running) {
+            maxUsers.accumulateAndGet(running, Math::max);
+        }
+    }
+
+    private static final class Stats {
+        final LatencyHistogram latency = new LatencyHistogram();
+        final LongAdder errors = new LongAdder();
+
+        void record(long nanos, boolean failed) {
+            latency.recordNanos(nanos);
+            if (failed) errors.increment();
+        }
+    }
+
+    /** Outcome of a run: per-window timeline and steady-state summary. */
+    public final class Result {
+
+        private Result() {
+        }
+
+        /** Steady-state rows: name, count, errors, per_s, p50_ms, p90_ms, p99_ms, max_ms. */
+        public List<String[]> steadyState() {
+            Map<String, Stats> merged = new TreeMap<>();
+            long steadyWindows = 0;
+            for (Map.Entry<Long, Window> w : windows.entrySet()) {
+                if (!"steady".equals(phaseAt(w.getKey() * window.toMillis()))) continue;
+                steadyWindows++;
+                w.getValue().byName.forEach((name, s) -> {
+                    Stats into = merged.computeIfAbsent(name, k -> new Stats());
+                    into.latency.merge(s.latency);
+                    into.errors.add(s.errors.sum());
+                });
+            }
+            double seconds = Math.max(1, steadyWindows) * window.toMillis() / 1000.0;
+            List<String[]> rows = new ArrayList<>();
+            merged.forEach((name, s) -> rows.add(row(name, s, seconds)));
+            return rows;
+        }
+
+        public long getIterations() {
+            return total(false);
+        }
+
+        public long getErrors() {
+            return total(true);
+        }
+
+        private long total(boolean errors) {
+            long sum = 0;
+            for (Window w : windows.values()) {
+                for (Map.Entry<String, Stats> e : w.byName.entrySet()) {
+                    if (e.getKey().contains("/")) continue; // steps are part of their iteration
+                    sum += errors ? e.getValue().errors.sum() : e.getValue().latency.getCount();
+                }
+            }
+            return sum;
+        }
+
+        /** load-timeline.csv (one row per window and name) and load-summary.csv (steady state). */
+        public void writeReport(Path timeline, Path summary) throws IOException {
+            StringBuilder sb = new StringBuilder("window_start_s,phase,users," + HEADER + "\n");
+            double seconds = window.toMillis() / 1000.0;
+            new TreeMap<>(windows).forEach((index, w) -> new TreeMap<>(w.byName).forEach((name, s) -> {
+                long startMillis = index * window.toMillis();
+                sb.append(startMillis / 1000).append(',').append(phaseAt(startMillis)).append(',')
+                        .append(w.maxUsers.get()).append(',').append(String.join(",", row(name, s, seconds))).append('\n');
+            }));
+            Artifacts.write("load-timeline", timeline, sb.toString().getBytes(StandardCharsets.UTF_8));
+
+            StringBuilder steadySb = new StringBuilder(HEADER).append('\n');
+            for (String[] row : steadyState()) steadySb.append(String.join(",", row)).append('\n');
+            Artifacts.write("load-summary", summary, steadySb.toString().getBytes(StandardCharsets.UTF_8));
+        }
+
+        private String[] row(String name, Stats s, double seconds) {
+            LatencyHistogram h = s.latency;
+            return new String[] {
+                    "\"" + name + "\"",
+                    String.valueOf(h.getCount()),
+                    String.valueOf(s.errors.sum()),
+                    String.format(Locale.ROOT, "%.2f", h.getCount() / seconds),
+                    ms(h.percentile(50)),
+                    ms(h.percentile(90)),
+                    ms(h.percentile(99)),
+                    ms(h.getMax())
+            };
+        }
+
+        private String ms(long micros) {
+            return String.format(Locale.ROOT, "%.1f", micros / 1000.0);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.evershop.perf;
+
+import com.evershop.pages.AccountPage;
+import com.evershop.pages.AddressPopup;
+import com.evershop.pages.HomePage;
+import com.evershop.pages.LoginPage;
+import com.evershop.pages.PageObjects;
+import com.evershop.pages.SearchResultPage;
+import com.evershop.testdata.AddressData;
+import com.evershop.testdata.SearchData;
+import com.evershop.utils.TestConfig;
+import org.openqa.selenium.WebDriver;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * LoadScenarios - the functional flows as {@link LoadRunner} scenarios.
+ *
+ *  - "search": home page, search box, results (HomePage, SearchResultPage) with the SearchData keywords
+ *  - "address": login, account page, new address form, save and wait for the toast
+ *    (LoginPage, AccountPage, AddressPopup) with AddressData; the account comes from
+ *    -Dload.email / -Dload.password and every iteration adds an address to it
+ */
+public final class LoadScenarios {
+
+    private static final List<String> KEYWORDS = SearchData.getAllKeywords();
+
+    private LoadScenarios() {
+    }
+
+    public static List<LoadRunner.Scenario> all() {
+        return Arrays.asList(search(), address());
+    }
+
+    public static LoadRunner.Scenario search() {
+        return new LoadRunner.Scenario() {
+            @Override
+            public String getName() {
+                return "search";
+            }
+
+            @Override
+            public void iterate(WebDriver driver, LoadRunner.Steps steps) {
+                String keyword = KEYWORDS.get(ThreadLocalRandom.current().nextInt(KEYWORDS.size()));
+                steps.step("home", () -> driver.get(SearchData.getBaseUrl()));
+                HomePage home = PageObjects.create(HomePage.class, driver);
+                steps.step("submit", () -> {
+                    home.clickSearchIcon();
+                    home.enterSearchKeyword(keyword);
+                    home.pressEnter();
+                });
+                SearchResultPage results = steps.step("results", () -> PageObjects.create(SearchResultPage.class, driver));
+                steps.step("read", results::getProductNames);
+            }
+        };
+    }
+
+    public static LoadRunner.Scenario address() {
+        return new LoadRunner.Scenario() {
+            @Override
+            public String getName() {
+                return "address";
+            }
+
+            @Override
+            public void iterate(WebDriver driver, LoadRunner.Steps steps) {
+                LoginPage login = PageObjects.create(LoginPage.class, driver);
+                AccountPage account = PageObjects.create(AccountPage.class, driver);
+                AddressPopup popup = PageObjects.create(AddressPopup.class, driver);
+
+                driver.manage().deleteAllCookies(); // every iteration is a fresh sign-in
+                steps.step("login", () -> login.login(
+                        TestConfig.getString("load.email", "kimanh61224@gmail.com"),
+                        TestConfig.getString("load.password", "123456")));
+                steps.step("account", account::navigateToAccount);
+                steps.step("open-form", account::clickAddNewAddress);
+                steps.step("fill", () -> popup.fillAddressForm(AddressData.getValidUSAddress()));
+                String toast = steps.step("save", () -> popup.clickSaveAndWaitToast());
+                if (toast == null || !toast.toLowerCase().contains("success")) {
+                    throw new IllegalStateException("Address save not confirmed, toast: " + toast);
+                }
+            }
+        };
+    }
+}
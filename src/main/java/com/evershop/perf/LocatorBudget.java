@@ -0,0 +1,108 @@
+package com.evershop.perf;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * LocatorBudget - per-locator evaluation budget checked against {@link LocatorCostAnalyzer} results.
+ *
+ * Budgets are in document passes (the counted work, see LocatorCostAnalyzer), not time, so the
+ * check does not depend on how busy the build machine is.
+ *
+ * File format (one entry per line, '#' starts a comment):
+ * <pre>
+ *   default 3
+ *   &lt;passes&gt; &lt;Owner&gt; &lt;kind&gt; &lt;value&gt;
+ *   *        &lt;Owner&gt; &lt;kind&gt; &lt;value&gt;
+ * </pre>
+ * Locators without an entry must stay under the default; listed ones get their own allowance,
+ * '*' means report-only (existing locators that are known to be expensive). A locator that fails
+ * to evaluate (invalid selector) is a violation whatever its allowance.
+ */
+public final class LocatorBudget {
+
+    private static final double UNLIMITED = Double.POSITIVE_INFINITY;
+
+    private final double defaultPasses;
+    private final Map<String, Double> allowances;
+
+    private LocatorBudget(double defaultPasses, Map<String, Double> allowances) {
+        this.defaultPasses = defaultPasses;
+        this.allowances = allowances;
+    }
+
+    public static LocatorBudget load(Path file, double fallbackDefaultPasses) throws IOException {
+        double defaultPasses = fallbackDefaultPasses;
+        Map<String, Double> allowances = new LinkedHashMap<>();
+        if (!Files.exists(file)) return new LocatorBudget(defaultPasses, allowances);
+
+        for (String raw : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            String line = raw.trim();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            int space = line.indexOf(' ');
+            if (space < 0) continue;
+            String head = line.substring(0, space);
+            String rest = line.substring(space + 1).trim();
+            if ("default".equals(head)) {
+                defaultPasses = Double.parseDouble(rest);
+            } else {
+                allowances.put(rest, "*".equals(head) ? UNLIMITED : Double.parseDouble(head));
+            }
+        }
+        return new LocatorBudget(defaultPasses, allowances);
+    }
+
+    public double allowanceFor(LocatorCostAnalyzer.Locator locator) {
+        return allowances.getOrDefault(locator.id(), defaultPasses);
+    }
+
+    /** One line per locator whose worst-case cost exceeds its allowance; empty when within budget. */
+    public List<String> violations(Map<LocatorCostAnalyzer.Locator, LocatorCostAnalyzer.Cost> worst) {
+        List<String> violations = new ArrayList<>();
+        for (LocatorCostAnalyzer.Cost cost : worst.values()) {
+            LocatorCostAnalyzer.Locator locator = cost.getLocator();
+            double allowance = allowanceFor(locator);
+            if (!cost.isEvaluated()) {
+                violations.add(locator.getFirstSite() + " " + locator.getValue() + ": failed to evaluate on " + cost.getDom());
+            } else if (cost.getPasses() > allowance) {
+                violations.add(String.format(Locale.ROOT, "%s %s: %.2f document passes on %s > budget %.2f%s",
+                        locator.getFirstSite(), locator.getValue(), cost.getPasses(), cost.getDom(), allowance,
+                        cost.getSuggestion() != null ? " (try " + cost.getSuggestion() + ")" : ""));
+            }
+        }
+        return violations;
+    }
+
+    /**
+     * Rewrites the budget file from measured costs: every locator above the default gets an
+     * allowance of 1.5x its current worst case, existing report-only entries are kept.
+     */
+    public void writeBaseline(Map<LocatorCostAnalyzer.Locator, LocatorCostAnalyzer.Cost> worst, Path file) throws IOException {
+        List<String> lines = new ArrayList<>();
+        lines.add("# Locator evaluation budget in document passes (see LocatorBudget).");
+        lines.add("# Regenerate with: mvn test -Plocator-budget -Dlocator.budget.update=true");
+        lines.add("default " + format(defaultPasses));
+        for (LocatorCostAnalyzer.Cost cost : worst.values()) {
+            String id = cost.getLocator().id();
+            Double current = allowances.get(id);
+            if (current != null && current == UNLIMITED) {
+                lines.add("* " + id);
+            } else if (cost.getPasses() > defaultPasses) {
+                lines.add(format(Math.ceil(cost.getPasses() * 15) / 10) + " " + id);
+            }
+        }
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        Files.write(file, lines, StandardCharsets.UTF_8);
+    }
+
+    private static String format(double passes) {
+        return passes == Math.rint(passes) ? Long.toString((long) passes) : String.format(Locale.ROOT, "%.1f", passes);
+    }
+}
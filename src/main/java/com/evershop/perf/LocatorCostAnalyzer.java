@@ -0,0 +1,441 @@
+package com.evershop.perf;
+
+import com.evershop.utils.TestConfig;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * LocatorCostAnalyzer - measures what each page-object locator costs the browser.
+ *
+ * Provides:
+ *  - {@link #scan(Path)}: every locator literal in the page-object sources (fields, inline
+ *    findElements calls and LocatorSet alternatives), with file/line and number of call sites
+ *  - {@link #measure(WebDriver, Path, List)}: on a recorded DOM, the work each locator makes the
+ *    browser do, counted (not timed) so the budget check gives the same answer on any machine, plus
+ *    the in-page evaluation time for the report (performance.now() loop, one script per DOM)
+ *  - static flags for the patterns that make the browser walk the whole document: unscoped
+ *    XPaths (//...) and text matching (text(), contains(), normalize-space(), link text)
+ *  - for flagged locators, a scoped CSS selector that selects exactly the same nodes on the recorded DOM
+ *
+ * Work is counted in document passes (1.0 = every element examined once), the way the engines
+ * evaluate each kind:
+ *  - CSS (matched right to left): one pass per selector in the list, plus an ancestor walk for every
+ *    element matching the rightmost compound of a selector with combinators; a lone id is 1 element
+ *  - XPath: one pass over all nodes per // step, plus every text character when it matches text
+ *  - link text: innerText of every anchor, i.e. a layout pass plus every anchor text character
+ *
+ * Notes:
+ *  - link text is measured the way the WebDriver atom evaluates it (innerText of every anchor),
+ *    relative XPaths (.//...) from the document root, i.e. the cost of one call over all scopes
+ *  - a suggested CSS rewrite is only valid for the recorded state; text-matching locators often
+ *    rely on the element existing only when the text is shown, so check before applying
+ */
+public final class LocatorCostAnalyzer {
+
+    public static final String UNSCOPED_XPATH = "UNSCOPED_XPATH";
+    public static final String TEXT_MATCH = "TEXT_MATCH";
+
+    private static final String STRING = "\"((?:[^\"\\\\]|\\\\.)*)\"";
+    private static final Pattern BY_LITERAL = Pattern.compile(
+            "By\\.(cssSelector|xpath|id|name|className|tagName|linkText|partialLinkText)\\(\\s*" + STRING + "\\s*\\)");
+    private static final Pattern LOCATOR_SET_CSS = Pattern.compile(
+            "LocatorSet\\.css\\(\\s*" + STRING + "((?:\\s*,\\s*" + STRING + ")+)\\s*\\)");
+    private static final Pattern STRING_LITERAL = Pattern.compile(STRING);
+
+    private static final String MEASURE_SCRIPT =
+            "var locs = arguments[0], iterations = arguments[1], out = [];" +
+            "var ELEMENTS = document.getElementsByTagName('*').length;" +
+            "var NODES = document.evaluate('count(//node())', document, null, XPathResult.NUMBER_TYPE, null).numberValue;" +
+            "var TEXT = 0, walker = document.createTreeWalker(document, NodeFilter.SHOW_TEXT);" +
+            "while (walker.nextNode()) TEXT += walker.currentNode.nodeValue.length;" +
+            "function split(sel, atCombinator) {" +
+            "  var parts = [], depth = 0, from = 0;" +
+            "  for (var k = 0; k < sel.length; k++) {" +
+            "    var c = sel.charAt(k);" +
+            "    if (c === '[' || c === '(') depth++;" +
+            "    else if (c === ']' || c === ')') depth--;" +
+            "    else if (depth === 0 && (atCombinator ? ' >+~'.indexOf(c) >= 0 : c === ',')) {" +
+            "      parts.push(sel.substring(from, k)); from = k + 1;" +
+            "    }" +
+            "  }" +
+            "  parts.push(sel.substring(from));" +
+            "  return parts.map(function (p) { return p.trim(); }).filter(function (p) { return p.length; });" +
+            "}" +
+            "function ancestors(e) { var d = 0; while (e.parentElement) { d++; e = e.parentElement; } return d; }" +
+            "function work(l) {" +
+            "  var ops = 0;" +
+            "  if (l.type === 'css') {" +
+            "    split(l.value, false).forEach(function (sel) {" +
+            "      if (/^#[A-Za-z][\\w-]*$/.test(sel) || /^\\[id=\"[^\"]*\"\\]$/.test(sel)) { ops += 1; return; }" +
+            "      ops += ELEMENTS;" +
+            "      var compounds = split(sel, true);" +
+            "      if (compounds.length < 2) return;" +
+            "      var right = document.querySelectorAll(compounds[compounds.length - 1]);" +
+            "      for (var k = 0; k < right.length; k++) ops += ancestors(right[k]);" +
+            "    });" +
+            "  } else if (l.type === 'xpath') {" +
+            "    ops = Math.max(1, (l.value.match(/\\/\\//g) || []).length) * NODES;" +
+            "    if (/text\\(\\)|contains\\(|normalize-space\\(|starts-with\\(/.test(l.value)) ops += TEXT;" +
+            "  } else {" +
+            "    ops = ELEMENTS;" +
+            "    var anchors = document.getElementsByTagName('a');" +
+            "    for (var k = 0; k < anchors.length; k++) ops += (anchors[k].textContent || '').length;" +
+            "  }" +
+            "  return ops / Math.max(1, ELEMENTS);" +
+            "}" +
+            "function run(l) {" +
+            "  if (l.type === 'css') return document.querySelectorAll(l.value).length;" +
+            "  if (l.type === 'xpath') return document.evaluate(l.value, document, null, XPathResult.ORDERED_NODE_SNAPSHOT_TYPE, null).snapshotLength;" +
+            "  var n = 0, anchors = document.getElementsByTagName('a');" +
+            "  for (var k = 0; k < anchors.length; k++) {" +
+            "    var t = (anchors[k].innerText || '').trim();" +
+            "    if (l.type === 'linkText' ? t === l.value : t.indexOf(l.value) >= 0) n++;" +
+            "  }" +
+            "  return n;" +
+            "}" +
+            "function nodes(l) {" +
+            "  if (l.type === 'css') return Array.prototype.slice.call(document.querySelectorAll(l.value));" +
+            "  if (l.type === 'xpath') {" +
+            "    var r = document.evaluate(l.value, document, null, XPathResult.ORDERED_NODE_SNAPSHOT_TYPE, null), a = [];" +
+            "    for (var k = 0; k < r.snapshotLength; k++) a.push(r.snapshotItem(k));" +
+            "    return a;" +
+            "  }" +
+            "  return Array.prototype.filter.call(document.getElementsByTagName('a'), function (e) {" +
+            "    var t = (e.innerText || '').trim();" +
+            "    return l.type === 'linkText' ? t === l.value : t.indexOf(l.value) >= 0;" +
+            "  });" +
+            "}" +
+            "function seg(e) {" +
+            "  var s = e.tagName.toLowerCase();" +
+            "  if (e.id && /^[A-Za-z][\\w-]*$/.test(e.id)) return s + '#' + e.id;" +
+            "  var cls = Array.prototype.filter.call(e.classList, function (c) { return /^[A-Za-z_-][\\w-]*$/.test(c); });" +
+            "  return s + cls.slice(0, 3).map(function (c) { return '.' + c; }).join('');" +
+            "}" +
+            "function sameSet(sel, wanted) {" +
+            "  var got = document.querySelectorAll(sel);" +
+            "  if (got.length !== wanted.length) return false;" +
+            "  for (var k = 0; k < got.length; k++) if (wanted.indexOf(got[k]) < 0) return false;" +
+            "  return true;" +
+            "}" +
+            "function suggest(l) {" +
+            "  var wanted = nodes(l);" +
+            "  if (!wanted.length || wanted.length > 50 || wanted[0].nodeType !== 1) return null;" +
+            "  var parts = [], cur = wanted[0];" +
+            "  for (var depth = 0; cur && cur.nodeType === 1 && depth < 6; depth++, cur = cur.parentElement) {" +
+            "    parts.unshift(seg(cur));" +
+            "    var sel = parts.join(' > ');" +
+            "    if (sameSet(sel, wanted)) return sel;" +
+            "    if (cur.id) break;" +
+            "  }" +
+            "  return null;" +
+            "}" +
+            "for (var i = 0; i < locs.length; i++) {" +
+            "  var l = locs[i], n = -1, micros = -1, passes = -1, s = null;" +
+            "  try {" +
+            "    n = run(l);" +
+            "    passes = work(l);" +
+            "    var done = 0, t0 = performance.now();" +
+            "    while (done < iterations) { run(l); done++; if (performance.now() - t0 > 250) break; }" +
+            "    micros = (performance.now() - t0) * 1000 / done;" +
+            "    if (l.suggest) s = suggest(l);" +
+            "  } catch (e) { }" +
+            "  out.push([micros, n, s, passes]);" +
+            "}" +
+            "return out;";
+
+    private final int iterations = TestConfig.getInt("locator.cost.iterations", 50);
+
+    /* -----------------------------
+       Source scan
+       ----------------------------- */
+
+    /** One locator literal found in the page-object sources. */
+    public static final class Locator {
+        private final String owner;
+        private final String kind;
+        private final String value;
+        private final String firstSite;
+        private int sites = 1;
+
+        Locator(String owner, String kind, String value, String firstSite) {
+            this.owner = owner;
+            this.kind = kind;
+            this.value = value;
+            this.firstSite = firstSite;
+        }
+
+        public String getOwner() {
+            return owner;
+        }
+
+        public String getKind() {
+            return kind;
+        }
+
+        public String getValue() {
+            return value;
+        }
+
+        /** File:line of the first occurrence. */
+        public String getFirstSite() {
+            return firstSite;
+        }
+
+        public int getSites() {
+            return sites;
+        }
+
+        /** Stable key used by the budget file: owner, kind and value separated by single spaces. */
+        public String id() {
+            return owner + " " + kind + " " + value;
+        }
+
+        public List<String> flags() {
+            List<String> flags = new ArrayList<>();
+            if ("xpath".equals(kind)) {
+                String v = value.trim();
+                if (v.startsWith("//") || v.startsWith("(//")) flags.add(UNSCOPED_XPATH);
+                if (v.contains("text()") || v.contains("contains(") || v.contains("normalize-space(")
+                        || v.contains("starts-with(")) {
+                    flags.add(TEXT_MATCH);
+                }
+            } else if ("linkText".equals(kind) || "partialLinkText".equals(kind)) {
+                flags.add(TEXT_MATCH);
+            }
+            return flags;
+        }
+
+        /** {type, value} for the measuring script; link text keeps its own type. */
+        String[] inPage() {
+            switch (kind) {
+                case "cssSelector":
+                    return new String[] {"css", value};
+                case "id":
+                    return new String[] {"css", "[id=\"" + value.replace("\"", "\\\"") + "\"]"};
+                case "name":
+                    return new String[] {"css", "[name=\"" + value.replace("\"", "\\\"") + "\"]"};
+                case "className":
+                    return new String[] {"css", "." + value};
+                case "tagName":
+                    return new String[] {"css", value};
+                default:
+                    return new String[] {kind, value};
+            }
+        }
+    }
+
+    /**
+     * All locator literals under sourceDir (recursively), deduplicated per owner class.
+     */
+    public static List<Locator> scan(Path sourceDir) throws IOException {
+        Map<String, Locator> found = new LinkedHashMap<>();
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(sourceDir)) {
+            files = walk.filter(p -> p.toString().endsWith(".java")).sorted().collect(Collectors.toList());
+        }
+        for (Path file : files) {
+            String source = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+            String owner = file.getFileName().toString().replace(".java", "");
+
+            Matcher by = BY_LITERAL.matcher(source);
+            while (by.find()) {
+                add(found, owner, by.group(1), unescape(by.group(2)), file, lineOf(source, by.start()));
+            }
+            Matcher set = LOCATOR_SET_CSS.matcher(source);
+            while (set.find()) {
+                Matcher alt = STRING_LITERAL.matcher(set.group(2));
+                while (alt.find()) {
+                    add(found, owner, "cssSelector", unescape(alt.group(1)), file, lineOf(source, set.start()));
+                }
+            }
+        }
+        return new ArrayList<>(found.values());
+    }
+
+    private static void add(Map<String, Locator> found, String owner, String kind, String value, Path file, int line) {
+        Locator locator = new Locator(owner, kind, value, file.getFileName() + ":" + line);
+        Locator existing = found.putIfAbsent(locator.id(), locator);
+        if (existing != null) existing.sites++;
+    }
+
+    private static int lineOf(String source, int offset) {
+        int line = 1;
+        for (int i = 0; i < offset; i++) {
+            if (source.charAt(i) == '\n') line++;
+        }
+        return line;
+    }
+
+    private static String unescape(String literal) {
+        return literal.replace("\\\"", "\"").replace("\\\\", "\\");
+    }
+
+    /* -----------------------------
+       In-browser measurement
+       ----------------------------- */
+
+    /** Cost of one locator on one recorded DOM. */
+    public static final class Cost {
+        private final Locator locator;
+        private final String dom;
+        private final double micros;
+        private final double passes;
+        private final int matches;
+        private final String suggestion;
+
+        Cost(Locator locator, String dom, double micros, double passes, int matches, String suggestion) {
+            this.locator = locator;
+            this.dom = dom;
+            this.micros = micros;
+            this.passes = passes;
+            this.matches = matches;
+            this.suggestion = suggestion;
+        }
+
+        public Locator getLocator() {
+            return locator;
+        }
+
+        public String getDom() {
+            return dom;
+        }
+
+        /** Mean evaluation time in microseconds (report only: it depends on the machine), -1 when not measured. */
+        public double getMicros() {
+            return micros;
+        }
+
+        /** Evaluation work in document passes (see class notes), -1 when the locator failed to evaluate. */
+        public double getPasses() {
+            return passes;
+        }
+
+        public boolean isEvaluated() {
+            return passes >= 0 && matches >= 0;
+        }
+
+        public int getMatches() {
+            return matches;
+        }
+
+        /** Scoped CSS that selects the same nodes on this DOM, or null. */
+        public String getSuggestion() {
+            return suggestion;
+        }
+    }
+
+    /**
+     * Loads the recorded DOM into the browser and evaluates every locator in one script.
+     */
+    @SuppressWarnings("unchecked")
+    public List<Cost> measure(WebDriver driver, Path domFile, List<Locator> locators) {
+        driver.get(domFile.toAbsolutePath().toUri().toString());
+
+        List<Map<String, Object>> queries = new ArrayList<>();
+        for (Locator locator : locators) {
+            String[] typeAndValue = locator.inPage();
+            Map<String, Object> q = new LinkedHashMap<>();
+            q.put("type", typeAndValue[0]);
+            q.put("value", typeAndValue[1]);
+            q.put("suggest", !locator.flags().isEmpty());
+            queries.add(q);
+        }
+        List<Object> rows = (List<Object>) ((JavascriptExecutor) driver).executeScript(MEASURE_SCRIPT, queries, iterations);
+
+        List<Cost> costs = new ArrayList<>();
+        String dom = domFile.getFileName().toString();
+        for (int i = 0; i < locators.size(); i++) {
+            List<Object> row = (List<Object>) rows.get(i);
+            costs.add(new Cost(locators.get(i), dom,
+                    ((Number) row.get(0)).doubleValue(),
+                    ((Number) row.get(3)).doubleValue(),
+                    ((Number) row.get(1)).intValue(),
+                    (String) row.get(2)));
+        }
+        return costs;
+    }
+
+    /**
+     * Highest work of each locator over all measured DOMs (a locator is as slow as its worst page);
+     * a DOM where it failed to evaluate wins, so the failure is not hidden by the others.
+     */
+    public static Map<Locator, Cost> worstCase(List<Cost> costs) {
+        Map<Locator, Cost> worst = new LinkedHashMap<>();
+        for (Cost cost : costs) {
+            worst.merge(cost.getLocator(), cost, (a, b) -> {
+                if (!a.isEvaluated()) return a;
+                if (!b.isEvaluated()) return b;
+                Cost slower = b.getPasses() > a.getPasses() ? b : a;
+                if (slower.getSuggestion() != null) return slower;
+                String suggestion = a.getSuggestion() != null ? a.getSuggestion() : b.getSuggestion();
+                return new Cost(slower.getLocator(), slower.getDom(), slower.getMicros(), slower.getPasses(),
+                        slower.getMatches(), suggestion);
+            });
+        }
+        return worst;
+    }
+
+    /* -----------------------------
+       Reports
+       ----------------------------- */
+
+    /** CSV with one row per locator and DOM: dom, owner, kind, value, sites, passes, micros, matches, flags, suggestion. */
+    public static void writeCsv(List<Cost> costs, Path file) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        List<Cost> sorted = new ArrayList<>(costs);
+        sorted.sort((a, b) -> Double.compare(b.getPasses(), a.getPasses()));
+        try (Writer w = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            w.write("dom,owner,kind,value,sites,passes,micros,matches,flags,suggestion\n");
+            for (Cost c : sorted) {
+                Locator l = c.getLocator();
+                w.write(String.join(",",
+                        csv(c.getDom()), csv(l.getOwner()), csv(l.getKind()), csv(l.getValue()),
+                        String.valueOf(l.getSites()), String.format(Locale.ROOT, "%.2f", c.getPasses()),
+                        String.format(Locale.ROOT, "%.1f", c.getMicros()),
+                        String.valueOf(c.getMatches()), csv(String.join(" ", l.flags())),
+                        csv(c.getSuggestion() == null ? "" : c.getSuggestion())));
+                w.write("\n");
+            }
+        }
+    }
+
+    /** Human-readable list of flagged locators with their scoped CSS rewrites. */
+    public static void writeSuggestions(Map<Locator, Cost> worst, Path file) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        List<String> lines = new ArrayList<>();
+        for (Cost c : worst.values()) {
+            Locator l = c.getLocator();
+            if (l.flags().isEmpty()) continue;
+            lines.add(l.getFirstSite() + " (" + l.getSites() + " call site(s)) " + l.flags());
+            lines.add("    " + l.getKind() + ": " + l.getValue());
+            lines.add(String.format(Locale.ROOT, "    worst %.2f document passes (%.1f us) on %s, %d match(es)",
+                    c.getPasses(), c.getMicros(), c.getDom(), c.getMatches()));
+            lines.add(c.getSuggestion() != null
+                    ? "    suggest By.cssSelector(\"" + c.getSuggestion() + "\")"
+                    : "    no equivalent CSS on the recorded DOM; scope the lookup to its container and match text in Java");
+            lines.add("");
+        }
+        if (lines.isEmpty()) lines = Collections.singletonList("no flagged locators");
+        Files.write(file, lines, StandardCharsets.UTF_8);
+    }
+
+    private static String csv(String s) {
+        return "\"" + s.replace("\"", "\"\"") + "\"";
+    }
+}
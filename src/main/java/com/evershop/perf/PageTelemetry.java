@@ -0,0 +1,398 @@
+package com.evershop.perf;
+
+import com.evershop.driver.DriverFactory;
+import com.evershop.utils.Artifacts;
+import com.evershop.utils.Log;
+import com.evershop.utils.ReportBus;
+import com.evershop.utils.TestConfig;
+import com.evershop.utils.TestContext;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.chromium.HasCdp;
+import org.openqa.selenium.json.Json;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * PageTelemetry - browser performance data for every page the tests visit (-Dtelemetry.enabled=true).
+ *
+ * Provides:
+ *  - {@link #capture(WebDriver, String)}: called after driver.get and after SPA route changes; one
+ *    script reads Navigation/Resource Timing and (re)arms buffered PerformanceObservers for LCP,
+ *    CLS and INP, plus one CDP Performance.getMetrics call (JS heap, layout count, script duration)
+ *  - per page type ("home", "search", "account", ...) percentiles of every metric
+ *  - {@link #violations()}: thresholds such as {@code search.lcp.p90=2500} from
+ *    telemetry-thresholds.properties, overridable with -Dtelemetry.threshold.search.lcp.p90=...
+ *  - {@link #writeReport(Path)}: per page type and metric count, p50, p90, p99, max (plus raw JSONL)
+ *
+ * Notes:
+ *  - LCP, CLS and INP are only final when a page is left; the observers save them to sessionStorage
+ *    on pagehide (full navigation) and the next capture picks them up, a route change reads them
+ *    directly, and {@link #finish(WebDriver)} reads the last page before the browser quits
+ *  - a route change reports "route": time from the last click/keypress to the new URL being seen
+ *  - CDP values need a Chromium driver (a decorated driver is unwrapped); on Grid without CDP they are
+ *    left out. Timings are in ms, heap in MB, CLS unitless
+ *  - CDP counters (layouts, style recalcs, script and task time) run for the whole browser session,
+ *    so each page records the growth since the previous capture on the same driver; a counter that
+ *    went down (new renderer process) counts from zero. The JS heap is recorded as is
+ */
+public final class PageTelemetry {
+
+    private static final boolean ENABLED = TestConfig.getBoolean("telemetry.enabled", false);
+    private static final String THRESHOLDS_RESOURCE = "telemetry-thresholds.properties";
+    private static final Pattern THRESHOLD_KEY = Pattern.compile("([\\w-]+)\\.(\\w+)\\.p(\\d{1,2})");
+
+    private static final String CAPTURE_SCRIPT =
+            "var KEY = '__evershopVitals', T = window.__evershopTelemetry, out = {};"
+            + "function vitals() { return {url: T.url, lcp: T.lcp, cls: T.cls, inp: T.inp}; }"
+            + "if (!T) {"
+            + "  try { var saved = sessionStorage.getItem(KEY);"
+            + "        if (saved) { out.previous = JSON.parse(saved); sessionStorage.removeItem(KEY); } } catch (e) {}"
+            + "  T = window.__evershopTelemetry = {lcp: null, cls: 0, inp: 0, lastInput: null, url: null, resourceMark: 0};"
+            + "  try { performance.setResourceTimingBufferSize(2000); } catch (e) {}"
+            + "  var observe = function (type, opts, fn) {"
+            + "    try { var o = {type: type, buffered: true}; for (var k in opts) o[k] = opts[k];"
+            + "          new PerformanceObserver(function (list) { list.getEntries().forEach(fn); }).observe(o); } catch (e) {}"
+            + "  };"
+            + "  observe('largest-contentful-paint', {}, function (e) { T.lcp = e.renderTime || e.loadTime || e.startTime; });"
+            + "  observe('layout-shift', {}, function (e) { if (!e.hadRecentInput) T.cls += e.value; });"
+            + "  observe('event', {durationThreshold: 16}, function (e) { if (e.interactionId) T.inp = Math.max(T.inp, e.duration); });"
+            + "  observe('first-input', {}, function (e) { T.inp = Math.max(T.inp, e.duration); });"
+            + "  ['pointerdown', 'keydown'].forEach(function (t) {"
+            + "    addEventListener(t, function () { T.lastInput = performance.now(); }, true); });"
+            + "  addEventListener('pagehide', function () {"
+            + "    try { sessionStorage.setItem(KEY, JSON.stringify(vitals())); } catch (e) {} });"
+            + "  var n = performance.getEntriesByType('navigation')[0];"
+            + "  out.kind = 'navigation';"
+            + "  out.timing = n ? {ttfb: n.responseStart, domContentLoaded: n.domContentLoadedEventEnd,"
+            + "                    load: n.loadEventEnd, documentKb: n.transferSize / 1024} : {};"
+            + "} else if (T.url !== location.href) {"
+            + "  out.kind = 'route'; out.previous = vitals();"
+            + "  out.timing = T.lastInput != null ? {route: performance.now() - T.lastInput} : {};"
+            + "  T.lcp = null; T.cls = 0; T.inp = 0;"
+            + "} else { out.kind = 'same'; }"
+            + "var res = performance.getEntriesByType('resource').slice(T.resourceMark), bytes = 0, slowest = 0;"
+            + "res.forEach(function (r) { bytes += r.transferSize || 0; slowest = Math.max(slowest, r.duration); });"
+            + "out.resources = {resources: res.length, resourceKb: bytes / 1024, slowestResource: slowest};"
+            + "T.resourceMark += res.length; T.url = location.href; out.url = location.href;"
+            + "return JSON.stringify(out);";
+
+    private static final String FLUSH_SCRIPT =
+            "var T = window.__evershopTelemetry;"
+            + "return T ? JSON.stringify({url: T.url, lcp: T.lcp, cls: T.cls, inp: T.inp}) : null;";
+
+    // CDP Performance.getMetrics name -> reported metric, scale, cumulative counter
+    private static final Map<String, Object[]> CDP_METRICS = new LinkedHashMap<>();
+
+    static {
+        CDP_METRICS.put("JSHeapUsedSize", new Object[] {"jsHeapMb", 1.0 / (1024 * 1024), false});
+        CDP_METRICS.put("LayoutCount", new Object[] {"layoutCount", 1.0, true});
+        CDP_METRICS.put("RecalcStyleCount", new Object[] {"recalcStyleCount", 1.0, true});
+        CDP_METRICS.put("ScriptDuration", new Object[] {"scriptMs", 1000.0, true});
+        CDP_METRICS.put("TaskDuration", new Object[] {"taskMs", 1000.0, true});
+    }
+
+    private static final Log LOG = Log.get(PageTelemetry.class);
+
+    private static final Json JSON = new Json();
+    private static final ReentrantLock LOCK = new ReentrantLock();
+    private static final Map<WebDriver, DriverState> STATES = new WeakHashMap<>(); // guarded by LOCK
+    private static final Map<String, Map<String, ConcurrentLinkedQueue<Double>>> SAMPLES = new ConcurrentHashMap<>();
+    private static final ConcurrentLinkedQueue<Navigation> FINISHED = new ConcurrentLinkedQueue<>();
+
+    private PageTelemetry() {
+    }
+
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    /** Page type of a URL: home, search, login, account or other. */
+    public static String pageTypeOf(String url) {
+        String path = url == null ? "" : url.replaceFirst("^\\w+://[^/]+", "").replaceFirst("[?#].*$", "");
+        if (path.isEmpty() || "/".equals(path)) return "home";
+        if (path.startsWith("/search")) return "search";
+        if (path.startsWith("/account/login")) return "login";
+        if (path.startsWith("/account")) return "account";
+        return "other";
+    }
+
+    /**
+     * Records the page the browser is on now (after driver.get or a route change). The vitals of the
+     * page that was left are completed first. Never throws: telemetry must not fail a test.
+     */
+    public static void capture(WebDriver driver, String pageType) {
+        if (!ENABLED || driver == null) return;
+        try {
+            Object raw = ((JavascriptExecutor) driver).executeScript(CAPTURE_SCRIPT);
+            if (raw == null) return;
+            Map<String, Object> out = JSON.toType(raw.toString(), Json.MAP_TYPE);
+            DriverState state = stateOf(driver);
+            Navigation left = state.current;
+            if (left != null && out.get("previous") instanceof Map) {
+                left.addVitals(asMap(out.get("previous")));
+            }
+            if ("same".equals(out.get("kind"))) {
+                if (left != null) left.addAll(asMap(out.get("resources")));
+                return;
+            }
+            if (left != null) finishNavigation(left);
+
+            Navigation now = new Navigation(pageType, String.valueOf(out.get("url")), String.valueOf(out.get("kind")));
+            now.addAll(asMap(out.get("timing")));
+            now.addAll(asMap(out.get("resources")));
+            now.addAll(cdpMetrics(driver, state));
+            state.current = now;
+        } catch (WebDriverException | ClassCastException e) {
+            LOG.warn("Page telemetry skipped (" + pageType + "): " + e.getMessage());
+        }
+    }
+
+    /** Completes the page the browser is on; call before quitting the driver. */
+    public static void finish(WebDriver driver) {
+        if (!ENABLED || driver == null) return;
+        DriverState state;
+        LOCK.lock();
+        try {
+            state = STATES.remove(driver);
+        } finally {
+            LOCK.unlock();
+        }
+        if (state == null || state.current == null) return;
+        try {
+            Object raw = ((JavascriptExecutor) driver).executeScript(FLUSH_SCRIPT);
+            if (raw != null) state.current.addVitals(JSON.toType(raw.toString(), Json.MAP_TYPE));
+        } catch (WebDriverException e) {
+            LOG.warn("Page telemetry: last page vitals unavailable: " + e.getMessage());
+        }
+        finishNavigation(state.current);
+    }
+
+    private static void finishNavigation(Navigation navigation) {
+        FINISHED.add(navigation);
+        Map<String, ConcurrentLinkedQueue<Double>> byMetric =
+                SAMPLES.computeIfAbsent(navigation.pageType, k -> new ConcurrentHashMap<>());
+        navigation.metrics.forEach((metric, value) -> {
+            byMetric.computeIfAbsent(metric, k -> new ConcurrentLinkedQueue<>()).add(value);
+            ReportBus.metric(navigation.testId, "page." + navigation.pageType + "." + metric, value, "");
+        });
+    }
+
+    private static DriverState stateOf(WebDriver driver) {
+        LOCK.lock();
+        try {
+            return STATES.computeIfAbsent(driver, d -> new DriverState());
+        } finally {
+            LOCK.unlock();
+        }
+    }
+
+    /* -----------------------------
+       CDP Performance domain
+       ----------------------------- */
+
+    private static Map<String, Double> cdpMetrics(WebDriver driver, DriverState state) {
+        if (state.cdpUnavailable) return Collections.emptyMap();
+        HasCdp cdp = DriverFactory.unwrap(driver, HasCdp.class);
+        if (cdp == null) {
+            state.cdpUnavailable = true;
+            return Collections.emptyMap();
+        }
+        try {
+            if (!state.cdpEnabled) {
+                cdp.executeCdpCommand("Performance.enable", Collections.emptyMap());
+                state.cdpEnabled = true;
+            }
+            Object metrics = cdp.executeCdpCommand("Performance.getMetrics", Collections.emptyMap()).get("metrics");
+            Map<String, Double> values = new LinkedHashMap<>();
+            if (metrics instanceof List) {
+                for (Object m : (List<?>) metrics) {
+                    Map<String, Object> metric = asMap(m);
+                    Object[] mapping = CDP_METRICS.get(String.valueOf(metric.get("name")));
+                    if (mapping == null || !(metric.get("value") instanceof Number)) continue;
+                    String name = (String) mapping[0];
+                    double value = ((Number) metric.get("value")).doubleValue() * (Double) mapping[1];
+                    if ((Boolean) mapping[2]) {
+                        Double previous = state.cdpLast.put(name, value);
+                        if (previous != null && value >= previous) value -= previous;
+                    }
+                    values.put(name, value);
+                }
+            }
+            return values;
+        } catch (WebDriverException e) {
+            state.cdpUnavailable = true;
+            LOG.warn("Page telemetry: CDP metrics unavailable: " + e.getMessage());
+            return Collections.emptyMap();
+        }
+    }
+
+    /* -----------------------------
+       Aggregates and thresholds
+       ----------------------------- */
+
+    /** Value at percentile p (nearest rank) of a metric for a page type, or NaN without samples. */
+    public static double percentile(String pageType, String metric, double p) {
+        Map<String, ConcurrentLinkedQueue<Double>> byMetric = SAMPLES.get(pageType);
+        ConcurrentLinkedQueue<Double> samples = byMetric == null ? null : byMetric.get(metric);
+        return samples == null ? Double.NaN : percentile(new ArrayList<>(samples), p);
+    }
+
+    private static double percentile(List<Double> values, double p) {
+        if (values.isEmpty()) return Double.NaN;
+        Collections.sort(values);
+        int rank = (int) Math.ceil(p / 100.0 * values.size());
+        return values.get(Math.max(0, Math.min(values.size() - 1, rank - 1)));
+    }
+
+    /**
+     * Thresholds from telemetry-thresholds.properties on the classpath, then system properties
+     * {@code telemetry.threshold.<page>.<metric>.p<n>} (which win).
+     */
+    public static Map<String, Double> thresholds() {
+        Map<String, String> raw = new TreeMap<>();
+        try (InputStream in = PageTelemetry.class.getClassLoader().getResourceAsStream(THRESHOLDS_RESOURCE)) {
+            if (in != null) {
+                Properties file = new Properties();
+                file.load(in);
+                file.stringPropertyNames().forEach(k -> raw.put(k, file.getProperty(k)));
+            }
+        } catch (IOException e) {
+            LOG.warn("Cannot read " + THRESHOLDS_RESOURCE + ": " + e.getMessage());
+        }
+        String prefix = "telemetry.threshold.";
+        System.getProperties().stringPropertyNames().stream()
+                .filter(k -> k.startsWith(prefix))
+                .forEach(k -> raw.put(k.substring(prefix.length()), System.getProperty(k)));
+
+        Map<String, Double> thresholds = new TreeMap<>();
+        raw.forEach((key, value) -> {
+            try {
+                if (THRESHOLD_KEY.matcher(key).matches()) thresholds.put(key, Double.parseDouble(value.trim()));
+                else LOG.warn("Ignoring telemetry threshold with unexpected key: " + key);
+            } catch (NumberFormatException e) {
+                LOG.warn("Ignoring invalid telemetry threshold " + key + "=" + value);
+            }
+        });
+        return thresholds;
+    }
+
+    /**
+     * Thresholds exceeded by the run, e.g. "search.lcp.p90 = 3120.0 > 2500.0 (14 samples)".
+     * Page types or metrics without samples are not violations.
+     */
+    public static List<String> violations() {
+        List<String> violations = new ArrayList<>();
+        if (!ENABLED) return violations;
+        thresholds().forEach((key, limit) -> {
+            Matcher m = THRESHOLD_KEY.matcher(key);
+            if (!m.matches()) return;
+            double actual = percentile(m.group(1), m.group(2), Integer.parseInt(m.group(3)));
+            if (!Double.isNaN(actual) && actual > limit) {
+                violations.add(String.format(Locale.ROOT, "%s = %.1f > %.1f (%d samples)",
+                        key, actual, limit, SAMPLES.get(m.group(1)).get(m.group(2)).size()));
+            }
+        });
+        return violations;
+    }
+
+    /** page-telemetry.csv (page_type, metric, count, p50, p90, p99, max) and page-telemetry.jsonl next to it. */
+    public static void writeReport(Path file) {
+        if (!ENABLED || FINISHED.isEmpty()) return;
+        StringBuilder csv = new StringBuilder("page_type,metric,count,p50,p90,p99,max\n");
+        new TreeMap<>(SAMPLES).forEach((pageType, byMetric) -> new TreeMap<>(byMetric).forEach((metric, samples) -> {
+            List<Double> values = new ArrayList<>(samples);
+            csv.append(String.format(Locale.ROOT, "%s,%s,%d,%.2f,%.2f,%.2f,%.2f%n", pageType, metric, values.size(),
+                    percentile(values, 50), percentile(values, 90), percentile(values, 99), percentile(values, 100)));
+        }));
+        StringBuilder jsonl = new StringBuilder();
+        for (Navigation n : FINISHED) jsonl.append(JSON.toJson(n.toMap()).replaceAll("\\s*\\n\\s*", " ")).append('\n');
+        try {
+            Artifacts.write("page-telemetry", file, csv.toString().getBytes(StandardCharsets.UTF_8));
+            Path raw = file.resolveSibling(file.getFileName().toString().replaceFirst("\\.csv$", "") + ".jsonl");
+            Artifacts.write("page-telemetry", raw, jsonl.toString().getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            LOG.warn("Failed to write page telemetry: " + e.getMessage());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> asMap(Object value) {
+        return value instanceof Map ? (Map<String, Object>) value : Collections.emptyMap();
+    }
+
+    /* -----------------------------
+       Records
+       ----------------------------- */
+
+    private static final class DriverState {
+        Navigation current;
+        boolean cdpEnabled;
+        boolean cdpUnavailable;
+        final Map<String, Double> cdpLast = new HashMap<>(); // last raw sample of each cumulative counter
+    }
+
+    /** One visited page: a full navigation or an SPA route change. */
+    private static final class Navigation {
+        final String testId;
+        final String pageType;
+        final String url;
+        final String kind;
+        final Map<String, Double> metrics = new LinkedHashMap<>();
+
+        Navigation(String pageType, String url, String kind) {
+            TestContext context = TestContext.current();
+            this.testId = context != null ? context.getTestId() : null;
+            this.pageType = pageType;
+            this.url = url;
+            this.kind = kind;
+        }
+
+        void addAll(Map<String, ?> values) {
+            values.forEach((k, v) -> {
+                if (v instanceof Number) metrics.merge(k, ((Number) v).doubleValue(), Double::sum);
+            });
+        }
+
+        /** Final LCP/CLS/INP, if the saved vitals belong to this page. */
+        void addVitals(Map<String, Object> vitals) {
+            if (vitals.get("url") != null && !url.equals(vitals.get("url"))) return;
+            for (String k : new String[] {"lcp", "cls", "inp"}) {
+                Object v = vitals.get(k);
+                // no interaction on the page: no INP sample rather than a 0 that flatters the percentiles
+                if (v instanceof Number && !("inp".equals(k) && ((Number) v).doubleValue() == 0)) {
+                    metrics.put(k, ((Number) v).doubleValue());
+                }
+            }
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("test", testId);
+            map.put("pageType", pageType);
+            map.put("kind", kind);
+            map.put("url", url);
+            map.putAll(metrics);
+            return map;
+        }
+    }
+}
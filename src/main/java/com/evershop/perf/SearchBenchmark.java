@@ -0,0 +1,304 @@
+package com.evershop.perf;
+
+import com.evershop.driver.BrowserSlots;
+import com.evershop.driver.DriverFactory;
+import com.evershop.pages.HomePage;
+import com.evershop.pages.PageObjects;
+import com.evershop.pages.SearchResultPage;
+import com.evershop.pages.SearchResults;
+import com.evershop.testdata.SearchCorpus;
+import com.evershop.utils.Artifacts;
+import com.evershop.utils.Log;
+import com.evershop.utils.VirtualThreads;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.NoSuchSessionException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * SearchBenchmark - search latency and relevance over a keyword corpus, on a pool of headless browsers.
+ *
+ * Each browser takes the next query from the shared corpus stream and searches like a user:
+ * home page, search icon, keyword, Enter ({@link HomePage}), then reads the results
+ * ({@link SearchResultPage}). Per query:
+ *  - time to results: from the Enter key press to the results being painted, both taken in the page
+ *    (performance.timeOrigin based); a full navigation uses the buffered LCP/FCP PerformanceObserver
+ *    entries of the results document, an SPA route change the first DOM mutation showing results
+ *  - relevance: whether all products contain all tokens ({@link SearchResults}, as allProductsContainAllKeywords),
+ *    the fraction that does, and the expected hit count from the corpus
+ *
+ * Notes:
+ *  - browsers are taken from {@link BrowserSlots}, so -Dbrowsers.max caps the pool
+ *  - a browser whose session died is replaced; the failed query counts as an error
+ */
+public final class SearchBenchmark {
+
+    private static final Log LOG = Log.get(SearchBenchmark.class);
+
+    // on the home page, just before Enter: submit timestamp, plus a watcher for SPA route changes
+    private static final String ARM_SCRIPT =
+            "var now = performance.timeOrigin + performance.now();"
+            + "var shown = function () { return location.pathname.indexOf('/search') === 0"
+            + "  && (document.querySelector('.listing-tem')"
+            + "      || document.body.textContent.indexOf('There is no product to display') >= 0); };"
+            + "new MutationObserver(function (m, o) {"
+            + "  if (shown()) { window.__benchResults = performance.timeOrigin + performance.now(); o.disconnect(); }"
+            + "}).observe(document.body, {childList: true, subtree: true});"
+            + "return now;";
+
+    // on the results page: when were the results painted
+    private static final String RESULTS_SCRIPT =
+            "var done = arguments[arguments.length - 1], origin = performance.timeOrigin, out = {}, sent = false;"
+            + "if (window.__benchResults) { done({results: window.__benchResults, kind: 'route'}); return; }"
+            + "out.kind = 'navigation';"
+            + "var fcp = performance.getEntriesByName('first-contentful-paint')[0];"
+            + "if (fcp) out.fcp = origin + fcp.startTime;"
+            + "var finish = function () {"
+            + "  if (sent) return; sent = true; out.results = out.lcp || out.fcp || null; done(out); };"
+            + "try { new PerformanceObserver(function (list) {"
+            + "  var e = list.getEntries(), last = e[e.length - 1];"
+            + "  out.lcp = origin + (last.renderTime || last.loadTime || last.startTime); finish();"
+            + "}).observe({type: 'largest-contentful-paint', buffered: true}); } catch (e) {}"
+            + "setTimeout(finish, 100);";
+
+    private final String baseUrl;
+    private final int browsers;
+    private final ReentrantLock corpusLock = new ReentrantLock();
+    private final ConcurrentLinkedQueue<QueryResult> results = new ConcurrentLinkedQueue<>();
+
+    public SearchBenchmark(String baseUrl, int browsers) {
+        this.baseUrl = baseUrl;
+        this.browsers = Math.max(1, browsers);
+    }
+
+    /** Runs up to {@code limit} queries (0 = the whole corpus) and returns one result per query. */
+    public List<QueryResult> run(Iterator<SearchCorpus.Query> corpus, int limit) {
+        AtomicInteger remaining = new AtomicInteger(limit > 0 ? limit : Integer.MAX_VALUE);
+        ExecutorService workers = VirtualThreads.newThreadPerTaskExecutor("search-bench");
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < browsers; i++) {
+            futures.add(workers.submit(() -> worker(corpus, remaining)));
+        }
+        try {
+            for (Future<?> f : futures) f.get();
+        } catch (InterruptedException e) {
+            futures.forEach(f -> f.cancel(true));
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Search benchmark worker failed", e.getCause());
+        } finally {
+            workers.shutdownNow();
+        }
+        return new ArrayList<>(results);
+    }
+
+    private void worker(Iterator<SearchCorpus.Query> corpus, AtomicInteger remaining) {
+        BrowserSlots.acquire();
+        WebDriver driver = null;
+        try {
+            SearchCorpus.Query query;
+            while (!Thread.currentThread().isInterrupted() && (query = next(corpus, remaining)) != null) {
+                if (driver == null) driver = DriverFactory.createDriver(DriverFactory.headlessOptions());
+                try {
+                    results.add(search(driver, query));
+                } catch (WebDriverException e) {
+                    results.add(QueryResult.failed(query, e));
+                    if (e instanceof NoSuchSessionException) {
+                        DriverFactory.quitQuietly(driver, "benchmark");
+                        driver = null;
+                    }
+                }
+            }
+        } finally {
+            DriverFactory.quitQuietly(driver, "benchmark");
+            BrowserSlots.release();
+        }
+    }
+
+    private SearchCorpus.Query next(Iterator<SearchCorpus.Query> corpus, AtomicInteger remaining) {
+        corpusLock.lock(); // the corpus stream is read lazily and is not thread-safe
+        try {
+            if (remaining.get() <= 0 || !corpus.hasNext()) return null;
+            remaining.decrementAndGet();
+            return corpus.next();
+        } finally {
+            corpusLock.unlock();
+        }
+    }
+
+    private QueryResult search(WebDriver driver, SearchCorpus.Query query) {
+        JavascriptExecutor js = (JavascriptExecutor) driver;
+        driver.get(baseUrl);
+        HomePage home = PageObjects.create(HomePage.class, driver);
+        home.clickSearchIcon();
+        home.enterSearchKeyword(query.getKeyword());
+        double submitted = ((Number) js.executeScript(ARM_SCRIPT)).doubleValue();
+        home.pressEnter();
+
+        SearchResultPage page = PageObjects.create(SearchResultPage.class, driver);
+        @SuppressWarnings("unchecked")
+        Map<String, Object> painted = (Map<String, Object>) js.executeAsyncScript(RESULTS_SCRIPT);
+        Object resultsAt = painted.get("results");
+        double latencyMs = resultsAt instanceof Number ? ((Number) resultsAt).doubleValue() - submitted : Double.NaN;
+
+        List<String> names = page.getProductNames();
+        String[] tokens = query.tokens();
+        return new QueryResult(query, latencyMs, String.valueOf(painted.get("kind")), names.size(),
+                SearchResults.allContainAllKeywords(names, tokens),
+                SearchResults.fractionContainingAllKeywords(names, tokens),
+                query.hitsAsExpected(names.size()), null);
+    }
+
+    /* -----------------------------
+       Report
+       ----------------------------- */
+
+    /**
+     * Per keyword class: latency percentiles and relevance averages, one row per class plus "all".
+     * Relevance columns only count queries that returned products.
+     */
+    public static List<String[]> summarize(List<QueryResult> results) {
+        Map<String, ClassStats> byClass = new TreeMap<>();
+        for (QueryResult r : results) {
+            byClass.computeIfAbsent(r.query.getKeywordClass(), k -> new ClassStats()).add(r);
+            byClass.computeIfAbsent("all", k -> new ClassStats()).add(r);
+        }
+        List<String[]> rows = new ArrayList<>();
+        byClass.forEach((cls, s) -> rows.add(s.row(cls)));
+        return rows;
+    }
+
+    public static String[] summaryHeader() {
+        return new String[] {"class", "queries", "errors", "p50_ms", "p99_ms", "max_ms",
+                "all_match_rate", "avg_all_tokens_fraction", "expected_hits_rate"};
+    }
+
+    /** Writes the per-class summary to {@code summary} and every query to {@code queries}. */
+    public static void writeReport(List<QueryResult> results, Path summary, Path queries) throws IOException {
+        StringBuilder sb = new StringBuilder(String.join(",", summaryHeader())).append('\n');
+        for (String[] row : summarize(results)) sb.append(String.join(",", row)).append('\n');
+        Artifacts.write("search-benchmark", summary, sb.toString().getBytes(StandardCharsets.UTF_8));
+
+        StringBuilder q = new StringBuilder("keyword,class,latency_ms,paint,products,all_match,all_tokens_fraction,expected_hits,error\n");
+        for (QueryResult r : results) q.append(r.csv());
+        Artifacts.write("search-benchmark", queries, q.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static final class ClassStats {
+        final LatencyHistogram latency = new LatencyHistogram();
+        int queries;
+        int errors;
+        int allMatch;
+        int relevanceSamples; // queries that returned products
+        double fractionSum;
+        int hitsChecked;
+        int hitsMet;
+
+        void add(QueryResult r) {
+            queries++;
+            if (r.error != null) {
+                errors++;
+                return;
+            }
+            if (!Double.isNaN(r.latencyMs)) latency.record(Math.round(r.latencyMs * 1000));
+            if (r.products > 0) {
+                relevanceSamples++;
+                fractionSum += r.allTokensFraction;
+                if (r.allMatch) allMatch++;
+            }
+            if (r.hitsAsExpected != null) {
+                hitsChecked++;
+                if (r.hitsAsExpected) hitsMet++;
+            }
+        }
+
+        String[] row(String cls) {
+            return new String[] {
+                    cls,
+                    String.valueOf(queries),
+                    String.valueOf(errors),
+                    ms(latency.percentile(50)),
+                    ms(latency.percentile(99)),
+                    ms(latency.getMax()),
+                    ratio(allMatch, relevanceSamples),
+                    relevanceSamples == 0 ? "" : String.format(Locale.ROOT, "%.3f", fractionSum / relevanceSamples),
+                    ratio(hitsMet, hitsChecked)
+            };
+        }
+
+        private String ms(long micros) {
+            return latency.getCount() == 0 ? "" : String.format(Locale.ROOT, "%.1f", micros / 1000.0);
+        }
+
+        private static String ratio(int part, int whole) {
+            return whole == 0 ? "" : String.format(Locale.ROOT, "%.3f", (double) part / whole);
+        }
+    }
+
+    /** Outcome of one corpus query. */
+    public static final class QueryResult {
+        private final SearchCorpus.Query query;
+        private final double latencyMs;
+        private final String paint;
+        private final int products;
+        private final boolean allMatch;
+        private final double allTokensFraction;
+        private final Boolean hitsAsExpected;
+        private final String error;
+
+        QueryResult(SearchCorpus.Query query, double latencyMs, String paint, int products, boolean allMatch,
+                    double allTokensFraction, Boolean hitsAsExpected, String error) {
+            this.query = query;
+            this.latencyMs = latencyMs;
+            this.paint = paint;
+            this.products = products;
+            this.allMatch = allMatch;
+            this.allTokensFraction = allTokensFraction;
+            this.hitsAsExpected = hitsAsExpected;
+            this.error = error;
+        }
+
+        static QueryResult failed(SearchCorpus.Query query, WebDriverException e) {
+            String message = e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage().split("\n", 2)[0];
+            return new QueryResult(query, Double.NaN, null, 0, false, Double.NaN, null, message);
+        }
+
+        public SearchCorpus.Query getQuery() {
+            return query;
+        }
+
+        public double getLatencyMs() {
+            return latencyMs;
+        }
+
+        public boolean isError() {
+            return error != null;
+        }
+
+        String csv() {
+            return String.format(Locale.ROOT, "\"%s\",%s,%s,%s,%d,%s,%s,%s,\"%s\"%n",
+                    query.getKeyword().replace("\"", "\"\""), query.getKeywordClass(),
+                    Double.isNaN(latencyMs) ? "" : String.format(Locale.ROOT, "%.1f", latencyMs),
+                    paint == null ? "" : paint, products, error == null ? allMatch : "",
+                    Double.isNaN(allTokensFraction) ? "" : String.format(Locale.ROOT, "%.3f", allTokensFraction),
+                    hitsAsExpected == null ? "" : hitsAsExpected,
+                    error == null ? "" : error.replace("\"", "'"));
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.evershop.perf;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Span - one timed page-object action, possibly containing nested actions.
+ *
+ * Wall time is split into wait time (sleeps and wait polling, reported through
+ * {@link Spans#recordWait(long)}) and active time (everything else: driver round trips,
+ * scripts, Java work). Child wait time counts towards the parent.
+ */
+public final class Span implements AutoCloseable {
+
+    static final Span NOOP = new Span(null, null);
+
+    private final String name;
+    private final Span parent;
+    private final long startMillis;
+    private final long startNanos;
+    private final List<Span> children = new ArrayList<>();
+    private long wallNanos;
+    private long waitNanos;
+    private Throwable failure;
+    private boolean closed;
+
+    Span(String name, Span parent) {
+        this.name = name;
+        this.parent = parent;
+        this.startMillis = System.currentTimeMillis();
+        this.startNanos = System.nanoTime();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /** Epoch millis when the span started. */
+    public long getStartMillis() {
+        return startMillis;
+    }
+
+    public long getWallNanos() {
+        return wallNanos;
+    }
+
+    public long getWaitNanos() {
+        return waitNanos;
+    }
+
+    public long getActiveNanos() {
+        return Math.max(0, wallNanos - waitNanos);
+    }
+
+    public List<Span> getChildren() {
+        return Collections.unmodifiableList(children);
+    }
+
+    public boolean isFailed() {
+        return failure != null;
+    }
+
+    public Throwable getFailure() {
+        return failure;
+    }
+
+    public void fail(Throwable t) {
+        if (this != NOOP) failure = t;
+    }
+
+    @Override
+    public void close() {
+        if (this == NOOP || closed) return;
+        closed = true;
+        wallNanos = System.nanoTime() - startNanos;
+        Spans.closed(this);
+    }
+
+    Span getParent() {
+        return parent;
+    }
+
+    void addChild(Span child) {
+        children.add(child);
+    }
+
+    void addWait(long nanos) {
+        waitNanos += nanos;
+    }
+}
@@ -0,0 +1,147 @@
+package com.evershop.perf;
+
+import com.evershop.utils.Artifacts;
+import com.evershop.utils.Log;
+import com.evershop.utils.TestConfig;
+import com.evershop.utils.TestContext;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Spans - per-thread timing spans around page-object actions (-Dspans.enabled=true).
+ *
+ * Provides:
+ *  - {@link #start(String)}: opens a span nested in the current one on this thread
+ *  - {@link #recordWait(long)}: sleeps and wait polling report their idle time here
+ *  - per-action latency histograms (wall, active, wait) across the whole run, written at suite end
+ *  - the finished root spans of each test ({@link #drain(String)}) for report attachments
+ *
+ * Notes:
+ *  - disabled by default; then start() returns a shared no-op span and recordWait() returns
+ *    immediately, and {@code PageObjects} hands out plain page objects (unless -Djfr.events=true)
+ *  - spans are attributed to the test of the current {@link TestContext}
+ */
+public final class Spans {
+
+    private static final Log LOG = Log.get(Spans.class);
+
+    private static final boolean ENABLED = TestConfig.getBoolean("spans.enabled", false);
+    private static final String UNATTRIBUTED = "(no test)";
+
+    private static final ThreadLocal<Span> CURRENT = new ThreadLocal<>();
+    private static final Map<String, ActionStats> ACTIONS = new ConcurrentHashMap<>();
+    private static final Map<String, List<Span>> ROOTS_BY_TEST = new ConcurrentHashMap<>();
+
+    private Spans() {
+    }
+
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    public static Span start(String name) {
+        if (!ENABLED) return Span.NOOP;
+        Span span = new Span(name, CURRENT.get());
+        CURRENT.set(span);
+        return span;
+    }
+
+    /** Idle time (sleep, poll interval) spent inside the current span. */
+    public static void recordWait(long nanos) {
+        if (!ENABLED) return;
+        Span current = CURRENT.get();
+        if (current != null) current.addWait(nanos);
+    }
+
+    /** Finished root spans of a test, removed from the collector. */
+    public static List<Span> drain(String testId) {
+        List<Span> roots = ROOTS_BY_TEST.remove(testId == null ? UNATTRIBUTED : testId);
+        return roots == null ? Collections.emptyList() : roots;
+    }
+
+    static void closed(Span span) {
+        Span parent = span.getParent();
+        CURRENT.set(parent);
+        if (parent != null) {
+            parent.addChild(span);
+            parent.addWait(span.getWaitNanos());
+        } else {
+            String testId = TestContext.current() != null ? TestContext.current().getTestId() : UNATTRIBUTED;
+            ROOTS_BY_TEST.computeIfAbsent(testId, k -> Collections.synchronizedList(new ArrayList<>())).add(span);
+        }
+        ACTIONS.computeIfAbsent(span.getName(), k -> new ActionStats()).record(span);
+    }
+
+    /* -----------------------------
+       Suite-end histograms
+       ----------------------------- */
+
+    /** Per-action summary rows, slowest p90 first. */
+    public static List<String[]> summaryRows() {
+        List<Map.Entry<String, ActionStats>> entries = new ArrayList<>(new TreeMap<>(ACTIONS).entrySet());
+        entries.sort((a, b) -> Long.compare(b.getValue().wall.percentile(90), a.getValue().wall.percentile(90)));
+        List<String[]> rows = new ArrayList<>();
+        for (Map.Entry<String, ActionStats> e : entries) {
+            ActionStats s = e.getValue();
+            rows.add(new String[] {
+                    e.getKey(),
+                    String.valueOf(s.wall.getCount()),
+                    ms(s.wall.percentile(50)),
+                    ms(s.wall.percentile(90)),
+                    ms(s.wall.percentile(99)),
+                    ms(s.wall.getMax()),
+                    ms((long) s.active.getMean()),
+                    ms((long) s.waiting.getMean()),
+                    String.valueOf(s.failures.sum())
+            });
+        }
+        return rows;
+    }
+
+    public static String[] summaryHeader() {
+        return new String[] {"action", "count", "p50_ms", "p90_ms", "p99_ms", "max_ms", "avg_active_ms", "avg_wait_ms", "failures"};
+    }
+
+    public static void writeReport(Path file) {
+        if (!ENABLED || ACTIONS.isEmpty()) return;
+        StringBuilder sb = new StringBuilder(String.join(",", summaryHeader())).append('\n');
+        for (String[] row : summaryRows()) {
+            sb.append('"').append(row[0]).append('"');
+            for (int i = 1; i < row.length; i++) sb.append(',').append(row[i]);
+            sb.append('\n');
+        }
+        try {
+            Artifacts.write("span-histograms", file, sb.toString().getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            LOG.warn("Failed to write span report: " + e.getMessage());
+        }
+    }
+
+    private static String ms(long micros) {
+        return String.format(Locale.ROOT, "%.1f", micros / 1000.0);
+    }
+
+    private static final class ActionStats {
+        final LatencyHistogram wall = new LatencyHistogram();
+        final LatencyHistogram active = new LatencyHistogram();
+        final LatencyHistogram waiting = new LatencyHistogram();
+        final LongAdder failures = new LongAdder();
+
+        void record(Span span) {
+            wall.recordNanos(span.getWallNanos());
+            active.recordNanos(span.getActiveNanos());
+            waiting.recordNanos(span.getWaitNanos());
+            if (span.isFailed()) failures.increment();
+        }
+    }
+}
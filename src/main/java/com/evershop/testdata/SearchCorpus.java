@@ -0,0 +1,141 @@
+package com.evershop.testdata;
+
+import org.openqa.selenium.json.Json;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * Keyword corpus for the search benchmark, read line by line (the file is never loaded whole).
+ *
+ * Formats, chosen by file extension:
+ *  - CSV: {@code keyword,class,expected_hits} (header line optional, "#" lines are comments,
+ *    fields with commas or significant spaces in double quotes)
+ *  - JSONL (.jsonl/.ndjson): {@code {"keyword": "nike zoom", "class": "multi-word", "expectedHits": 2}}
+ *
+ * expected_hits: 0 = the search must show no products, N = at least N products, empty = not checked.
+ */
+public final class SearchCorpus {
+
+    private static final Json JSON = new Json();
+
+    private SearchCorpus() {
+    }
+
+    /** Streams the queries of a corpus file; close the stream to close the file. */
+    public static Stream<Query> open(Path file) throws IOException {
+        String name = file.getFileName().toString().toLowerCase();
+        boolean jsonLines = name.endsWith(".jsonl") || name.endsWith(".ndjson");
+        Stream<String> lines = Files.lines(file, StandardCharsets.UTF_8);
+        return lines
+                .map(String::trim)
+                .filter(line -> !line.isEmpty() && !line.startsWith("#"))
+                .map(line -> jsonLines ? fromJson(line) : fromCsv(line))
+                .filter(Objects::nonNull);
+    }
+
+    private static Query fromJson(String line) {
+        Map<String, Object> row = JSON.toType(line, Json.MAP_TYPE);
+        Object keyword = row.get("keyword");
+        if (keyword == null) return null;
+        Object cls = row.get("class");
+        Object hits = row.get("expectedHits");
+        return new Query(keyword.toString(), cls == null ? "default" : cls.toString(),
+                hits instanceof Number ? ((Number) hits).intValue() : Query.UNCHECKED);
+    }
+
+    private static Query fromCsv(String line) {
+        List<String> fields = splitCsv(line);
+        String keyword = fields.get(0);
+        if (keyword.trim().isEmpty() || "keyword".equalsIgnoreCase(keyword)) return null; // header
+        String cls = fields.size() > 1 && !fields.get(1).isEmpty() ? fields.get(1) : "default";
+        int hits = Query.UNCHECKED;
+        if (fields.size() > 2 && !fields.get(2).isEmpty()) {
+            try {
+                hits = Integer.parseInt(fields.get(2));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid expected_hits in corpus line: " + line, e);
+            }
+        }
+        return new Query(keyword, cls, hits);
+    }
+
+    /** Splits one CSV line; unquoted fields are trimmed, quoted ones (e.g. " zoom ") are kept as written. */
+    private static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean wasQuoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                if (quoted && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    if (!quoted && !wasQuoted) field.setLength(0); // drop blanks before the opening quote
+                    quoted = !quoted;
+                    wasQuoted = true;
+                }
+            } else if (c == ',' && !quoted) {
+                fields.add(wasQuoted ? field.toString() : field.toString().trim());
+                field.setLength(0);
+                wasQuoted = false;
+            } else if (quoted || !wasQuoted) {
+                field.append(c);
+            }
+        }
+        fields.add(wasQuoted ? field.toString() : field.toString().trim());
+        return fields;
+    }
+
+    /** One corpus line. */
+    public static final class Query {
+        public static final int UNCHECKED = -1;
+
+        private final String keyword;
+        private final String keywordClass;
+        private final int expectedHits;
+
+        public Query(String keyword, String keywordClass, int expectedHits) {
+            this.keyword = keyword;
+            this.keywordClass = keywordClass;
+            this.expectedHits = expectedHits;
+        }
+
+        public String getKeyword() {
+            return keyword;
+        }
+
+        public String getKeywordClass() {
+            return keywordClass;
+        }
+
+        public int getExpectedHits() {
+            return expectedHits;
+        }
+
+        /** The keyword split on whitespace, as matched against product names. */
+        public String[] tokens() {
+            return keyword.trim().split("\\s+");
+        }
+
+        /** null when not checked. */
+        public Boolean hitsAsExpected(int productCount) {
+            if (expectedHits == UNCHECKED) return null;
+            return expectedHits == 0 ? productCount == 0 : productCount >= expectedHits;
+        }
+
+        @Override
+        public String toString() {
+            return keywordClass + ":'" + keyword + "'";
+        }
+    }
+}
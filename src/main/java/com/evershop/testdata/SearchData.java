@@ -1,5 +1,10 @@
 package com.evershop.testdata;
 
+import com.evershop.utils.TestConfig;
+
+import java.util.Arrays;
+import java.util.List;
+
 /**
  * Test data class for SearchTests.
  * Contains search keywords and URLs used in search functionality testing.
@@ -68,8 +73,14 @@ public class SearchData {
         return SINGLE_CHARACTER;
     }
 
-    /** Get base URL for the application */
+    /** Keywords of the search tests, for load generators and sweeps */
+    public static List<String> getAllKeywords() {
+        return Arrays.asList(EXACT_PRODUCT_NAME, VALID_KEYWORD, NON_EXISTENT_PRODUCT, KEYWORD_WITH_SPACES,
+                MULTIPLE_WORDS, SINGLE_CHARACTER);
+    }
+
+    /** Get base URL for the application (-Dbase.url points the suites at staging or a local stand-in) */
     public static String getBaseUrl() {
-        return BASE_URL;
+        return TestConfig.getString("base.url", BASE_URL).replaceAll("/+$", "");
     }
 }
@@ -0,0 +1,56 @@
+package com.evershop.utils;
+
+import com.evershop.perf.JfrEvents;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Artifacts - writes run artifacts (snapshots, screenshots, metric files).
+ *
+ * Creates missing parent folders and records each write as a JFR ArtifactWrite event,
+ * so slow disk I/O shows up next to the test that caused it.
+ */
+public final class Artifacts {
+
+    private Artifacts() {
+    }
+
+    /** Writes an artifact piece by piece, without holding all of it in memory. */
+    public interface Content {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    public static Path write(String kind, Path file, byte[] bytes) throws IOException {
+        JfrEvents.ArtifactWrite event = new JfrEvents.ArtifactWrite();
+        event.begin();
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) Files.createDirectories(parent);
+            return Files.write(file, bytes);
+        } finally {
+            event.end(kind, file.toString(), bytes.length);
+        }
+    }
+
+    /** Streams {@code content} to the file; the event records the size on disk. */
+    public static Path write(String kind, Path file, Content content) throws IOException {
+        JfrEvents.ArtifactWrite event = new JfrEvents.ArtifactWrite();
+        event.begin();
+        long size = 0;
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) Files.createDirectories(parent);
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file), 64 * 1024)) {
+                content.writeTo(out);
+            }
+            size = Files.size(file);
+            return file;
+        } finally {
+            event.end(kind, file.toString(), size);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.evershop.utils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Deadline - time budget of one test invocation, shared by every wait inside it.
+ *
+ * Provides:
+ *  - {@link #clip(Duration)}: a wait's own timeout cut down to what is left of the current test's
+ *    budget, so nested waits and fallbacks cannot add up past it
+ *  - {@link #record(String, long, boolean)}: time spent per wait name (and how often it was clipped)
+ *  - {@link #describe()}: the per-wait breakdown against the budget, for a missed deadline
+ *
+ * Notes:
+ *  - the budget is -Dtest.deadline (ms, default 180000; 0 = no deadline), started in BaseTest
+ *    setup and carried by TestContext, so forked tasks see it too
+ *  - outside a test (no TestContext or no deadline) clip returns the timeout unchanged
+ */
+public final class Deadline {
+
+    private final Duration budget;
+    private final long startNanos = System.nanoTime();
+    private final long endNanos;
+    private final Map<String, WaitTime> waits = new ConcurrentHashMap<>();
+
+    public Deadline(Duration budget) {
+        this.budget = budget;
+        this.endNanos = startNanos + budget.toNanos();
+    }
+
+    /** Deadline for a new test from -Dtest.deadline, or null when disabled. */
+    public static Deadline fromConfig() {
+        Duration budget = TestConfig.getMillis("test.deadline", Duration.ofMinutes(3));
+        return budget.isZero() || budget.isNegative() ? null : new Deadline(budget);
+    }
+
+    /** Deadline of the test running on this thread, or null. */
+    public static Deadline current() {
+        TestContext context = TestContext.current();
+        return context != null ? context.getDeadline() : null;
+    }
+
+    /** The timeout, or what is left of the current test's budget if that is shorter (never negative). */
+    public static Duration clip(Duration timeout) {
+        Deadline deadline = current();
+        if (deadline == null) return timeout;
+        Duration remaining = deadline.remaining();
+        return remaining.compareTo(timeout) < 0 ? remaining : timeout;
+    }
+
+    /** Records time spent in a wait against the current test's deadline, if any. */
+    public static void recordWait(String waitName, long nanos, boolean clipped) {
+        Deadline deadline = current();
+        if (deadline != null) deadline.record(waitName, nanos, clipped);
+    }
+
+    public Duration getBudget() {
+        return budget;
+    }
+
+    public Duration remaining() {
+        return Duration.ofNanos(Math.max(0, endNanos - System.nanoTime()));
+    }
+
+    public Duration elapsed() {
+        return Duration.ofNanos(System.nanoTime() - startNanos);
+    }
+
+    public boolean isMissed() {
+        return System.nanoTime() > endNanos;
+    }
+
+    public void record(String waitName, long nanos, boolean clipped) {
+        WaitTime time = waits.computeIfAbsent(waitName, k -> new WaitTime());
+        time.calls.increment();
+        time.nanos.add(nanos);
+        if (clipped) time.clipped.increment();
+    }
+
+    /** Budget, elapsed time and the waits sorted by total time, largest first. */
+    public String describe() {
+        long budgetMs = budget.toMillis();
+        long elapsedMs = elapsed().toMillis();
+        StringBuilder sb = new StringBuilder(String.format(Locale.ROOT,
+                "Test deadline %d ms, elapsed %d ms (%s)%n", budgetMs, elapsedMs,
+                isMissed() ? "missed by " + (elapsedMs - budgetMs) + " ms" : "within budget"));
+        List<Map.Entry<String, WaitTime>> sorted = new ArrayList<>(waits.entrySet());
+        sorted.sort((a, b) -> Long.compare(b.getValue().nanos.sum(), a.getValue().nanos.sum()));
+        long waited = 0;
+        for (Map.Entry<String, WaitTime> e : sorted) {
+            WaitTime t = e.getValue();
+            long ms = t.nanos.sum() / 1_000_000;
+            waited += ms;
+            sb.append(String.format(Locale.ROOT, "  %7d ms %5.1f%%  %3d x  %s%s%n", ms,
+                    budgetMs == 0 ? 0.0 : 100.0 * ms / budgetMs, t.calls.sum(), e.getKey(),
+                    t.clipped.sum() > 0 ? "  (clipped " + t.clipped.sum() + "x)" : ""));
+        }
+        sb.append(String.format(Locale.ROOT, "  %7d ms in waits, %d ms elsewhere%n", waited, Math.max(0, elapsedMs - waited)));
+        return sb.toString();
+    }
+
+    private static final class WaitTime {
+        final LongAdder calls = new LongAdder();
+        final LongAdder nanos = new LongAdder();
+        final LongAdder clipped = new LongAdder();
+    }
+}
@@ -0,0 +1,118 @@
+package com.evershop.utils;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * DurationHistory - wall time per test method, persisted between runs.
+ *
+ * Provides:
+ *  - estimates for scheduling (smoothed over previous runs, default for unknown tests)
+ *  - recording of the durations observed in the current run
+ *  - save back to a small properties file (key = "ClassName#method", value = millis)
+ *
+ * Notes:
+ *  - the file lives outside target/ so "mvn clean" does not wipe it; CI can cache it
+ *    and share it between machines so every shard computes the same plan.
+ *  - new observations are blended with the old value so one slow run does not reorder everything.
+ */
+public class DurationHistory {
+
+    public static final String DEFAULT_FILE = ".test-history/durations.properties";
+
+    private static final Log LOG = Log.get(DurationHistory.class);
+
+    private static final double SMOOTHING = 0.3;
+
+    private final Path file;
+    private final long defaultEstimateMillis;
+    private final Map<String, Long> known = new ConcurrentHashMap<>();
+    private final Map<String, Long> observed = new ConcurrentHashMap<>();
+
+    public DurationHistory(Path file, long defaultEstimateMillis) {
+        this.file = file;
+        this.defaultEstimateMillis = defaultEstimateMillis;
+        load();
+    }
+
+    /** History configured by -Dschedule.history / -Dschedule.defaultEstimateMs. */
+    public static DurationHistory fromConfig() {
+        return new DurationHistory(
+                Paths.get(TestConfig.getString("schedule.history", DEFAULT_FILE)),
+                TestConfig.getLong("schedule.defaultEstimateMs", 30_000L));
+    }
+
+    public static String key(String className, String methodName) {
+        return className + "#" + methodName;
+    }
+
+    public long estimate(String key) {
+        Long value = known.get(key);
+        return value != null ? value : defaultEstimateMillis;
+    }
+
+    public boolean isKnown(String key) {
+        return known.containsKey(key);
+    }
+
+    public void record(String key, long wallMillis) {
+        if (wallMillis < 0) return;
+        // keep the longest invocation if a method runs more than once in the same run
+        observed.merge(key, wallMillis, Math::max);
+    }
+
+    /** Blend this run's observations into the history and write the file. */
+    public void save() {
+        Map<String, Long> merged = new TreeMap<>(known);
+        for (Map.Entry<String, Long> e : observed.entrySet()) {
+            Long old = merged.get(e.getKey());
+            long blended = old == null
+                    ? e.getValue()
+                    : Math.round(old * (1 - SMOOTHING) + e.getValue() * SMOOTHING);
+            merged.put(e.getKey(), blended);
+        }
+
+        Properties props = new Properties();
+        merged.forEach((k, v) -> props.setProperty(k, Long.toString(v)));
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) Files.createDirectories(parent);
+            Path tmp = Files.createTempFile(parent, "durations", ".tmp");
+            try (Writer w = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+                props.store(w, "Test wall time in ms (smoothed), written by DurationScheduler");
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            known.putAll(merged);
+        } catch (IOException e) {
+            LOG.warn("Failed to write duration history " + file + ": " + e.getMessage());
+        }
+    }
+
+    private void load() {
+        if (!Files.exists(file)) return;
+        Properties props = new Properties();
+        try (Reader r = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            props.load(r);
+        } catch (IOException e) {
+            LOG.warn("Failed to read duration history " + file + ": " + e.getMessage());
+            return;
+        }
+        for (String name : props.stringPropertyNames()) {
+            try {
+                known.put(name, Long.parseLong(props.getProperty(name).trim()));
+            } catch (NumberFormatException ignored) {
+                // hand-edited or corrupt line, treat as unknown test
+            }
+        }
+    }
+}
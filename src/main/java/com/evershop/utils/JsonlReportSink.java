@@ -0,0 +1,98 @@
+package com.evershop.utils;
+
+import org.openqa.selenium.json.Json;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * JsonlReportSink - the report event stream (ReportBus) as one JSON object per line.
+ *
+ * Attachments published as bytes are written next to it (one file per attachment, named after its
+ * sequence number) and referenced by path, so the JSONL stays small and greppable. The file is
+ * created on the first event and flushed at every ReportBus flush.
+ */
+public final class JsonlReportSink implements ReportBus.Sink {
+
+    private static final Json JSON = new Json();
+
+    private final Path file;
+    private final Path attachmentDir;
+    private Writer out;
+
+    public JsonlReportSink(Path file, Path attachmentDir) {
+        this.file = file;
+        this.attachmentDir = attachmentDir;
+    }
+
+    @Override
+    public String name() {
+        return "jsonl";
+    }
+
+    @Override
+    public void accept(ReportBus.Event event) throws IOException {
+        if (event.getKind() == ReportBus.Kind.FLUSH) {
+            if (out != null) out.flush();
+            return;
+        }
+        if (out == null) {
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) Files.createDirectories(parent);
+            out = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+        }
+        JSON.newOutput(out).setPrettyPrint(false).write(toMap(event)); // not closed: that would close the file
+        out.write('\n');
+    }
+
+    private Map<String, Object> toMap(ReportBus.Event event) throws IOException {
+        Map<String, Object> line = new LinkedHashMap<>();
+        line.put("seq", event.getSeq());
+        line.put("time", event.getMillis());
+        line.put("kind", event.getKind().name());
+        if (event.getTestId() != null) line.put("test", event.getTestId());
+        line.put("thread", event.getThread());
+        if (event.getName() != null) line.put(event.getKind() == ReportBus.Kind.LOG ? "message" : "name", event.getName());
+        switch (event.getKind()) {
+            case STEP_START:
+                line.put("step", event.getStepId());
+                break;
+            case STEP_END:
+                line.put("step", event.getStepId());
+                line.put("status", event.getError() == null ? "passed" : "failed");
+                if (event.getError() != null) line.put("error", String.valueOf(event.getError()));
+                break;
+            case ATTACHMENT:
+                line.put("contentType", event.getContentType());
+                line.put("path", attachmentPath(event).toString());
+                break;
+            case LOG:
+                line.put("level", event.getLevel().name());
+                break;
+            case METRIC:
+                line.put("value", event.getValue());
+                if (event.getUnit() != null && !event.getUnit().isEmpty()) line.put("unit", event.getUnit());
+                break;
+            default:
+                break;
+        }
+        return line;
+    }
+
+    private Path attachmentPath(ReportBus.Event event) throws IOException {
+        if (event.getFile() != null) return event.getFile();
+        String name = event.getName().replaceAll("[^A-Za-z0-9._-]+", "_");
+        Path target = attachmentDir.resolve(event.getSeq() + "-" + name + event.getExtension());
+        return Artifacts.write("report-attachment", target, event.readContent());
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (out != null) out.close();
+    }
+}
@@ -0,0 +1,300 @@
+package com.evershop.utils;
+
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Log - low-overhead logger for tests and page objects, in place of System.out.println.
+ *
+ * Provides:
+ *  - {@code Log.get(Owner.class)} per class; debug/info/warn/error with a String or a Supplier
+ *    (the Supplier only runs when the level is enabled, so poll loops pay nothing for debug lines)
+ *  - every line tagged with time, level, test id (TestContext) and thread
+ *  - {@link #takeTestLog(String)}: the lines of one test, for the Allure/Extent attachment
+ *
+ * Levels:
+ *  - -Dlog.level (default INFO) for everything, -Dlog.level.&lt;package or class&gt;=DEBUG for part of
+ *    it (longest prefix wins), e.g. -Dlog.level.com.evershop.pages=DEBUG for the poll chatter
+ *  - an unknown level name is reported once on stderr; -Dlog.level then falls back to INFO and a
+ *    per-package setting to -Dlog.level
+ *
+ * Notes:
+ *  - a logging thread only appends to its own ring buffer (-Dlog.ringSize entries, no lock, no
+ *    I/O); one background thread drains all rings every -Dlog.drainMs, orders the batch by time
+ *    and writes it to the console in one call
+ *  - a full ring drops the new line instead of blocking the test; drops are reported on the next drain
+ *  - per-test text is capped at -Dlog.testBufferKb; WARN and ERROR lines of a test also go to the
+ *    ReportBus from the drain thread, so they show up in the report steps
+ */
+public final class Log {
+
+    public enum Level { DEBUG, INFO, WARN, ERROR }
+
+    private static final Map<String, Boolean> BAD_LEVELS = new ConcurrentHashMap<>(); // warned once per key
+    private static final Level ROOT_LEVEL = parseLevel("log.level", TestConfig.getString("log.level", "INFO"), Level.INFO);
+    private static final int RING_SIZE = Integer.highestOneBit(Math.max(16, TestConfig.getInt("log.ringSize", 1024)));
+    private static final long DRAIN_NANOS = TimeUnit.MILLISECONDS.toNanos(TestConfig.getLong("log.drainMs", 20));
+    private static final int TEST_BUFFER_CHARS = TestConfig.getInt("log.testBufferKb", 512) * 1024;
+    private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("HH:mm:ss.SSS").withZone(ZoneId.systemDefault());
+
+    private static final PrintStream CONSOLE = System.out;
+    private static final Queue<Ring> RINGS = new ConcurrentLinkedQueue<>();
+    private static final ThreadLocal<Ring> RING = ThreadLocal.withInitial(Log::newRing);
+    private static final Map<String, StringBuilder> TEST_LOGS = new ConcurrentHashMap<>();
+    private static final ReentrantLock DRAIN_LOCK = new ReentrantLock();
+    private static final LongAdder DROPPED = new LongAdder();
+    private static final Thread DRAINER = startDrainer();
+    private static final boolean READY = DRAINER != null; // not a constant: reads false until set here
+
+    private final String name;
+    private final Level level;
+
+    private Log(Class<?> owner) {
+        this.name = owner.getSimpleName();
+        this.level = levelFor(owner.getName());
+    }
+
+    /** False only while Log's own static setup runs (TestConfig warnings during it must not log). */
+    static boolean isReady() {
+        return READY;
+    }
+
+    public static Log get(Class<?> owner) {
+        return new Log(owner);
+    }
+
+    public boolean isEnabled(Level at) {
+        return at.compareTo(level) >= 0;
+    }
+
+    public boolean isDebugEnabled() {
+        return isEnabled(Level.DEBUG);
+    }
+
+    public void debug(Supplier<String> message) {
+        if (isEnabled(Level.DEBUG)) append(Level.DEBUG, message.get(), null);
+    }
+
+    public void info(String message) {
+        if (isEnabled(Level.INFO)) append(Level.INFO, message, null);
+    }
+
+    public void info(Supplier<String> message) {
+        if (isEnabled(Level.INFO)) append(Level.INFO, message.get(), null);
+    }
+
+    public void warn(String message) {
+        if (isEnabled(Level.WARN)) append(Level.WARN, message, null);
+    }
+
+    public void warn(String message, Throwable error) {
+        if (isEnabled(Level.WARN)) append(Level.WARN, message, error);
+    }
+
+    public void error(String message, Throwable error) {
+        if (isEnabled(Level.ERROR)) append(Level.ERROR, message, error);
+    }
+
+    private void append(Level at, String message, Throwable error) {
+        TestContext context = TestContext.current();
+        if (!RING.get().offer(System.currentTimeMillis(), at, name, context != null ? context.getTestId() : null, message, error)) {
+            DROPPED.increment();
+            LockSupport.unpark(DRAINER);
+        }
+    }
+
+    /* -----------------------------
+       Per-test logs
+       ----------------------------- */
+
+    /** Drains everything logged so far, on the calling thread. */
+    public static void flush() {
+        DRAIN_LOCK.lock();
+        try {
+            drain();
+        } finally {
+            DRAIN_LOCK.unlock();
+        }
+    }
+
+    /** Lines logged under the test id so far (empty if none); the buffer is released. */
+    public static String takeTestLog(String testId) {
+        flush();
+        StringBuilder lines = TEST_LOGS.remove(testId);
+        return lines != null ? lines.toString() : "";
+    }
+
+    /* -----------------------------
+       Drain
+       ----------------------------- */
+
+    private static Thread startDrainer() {
+        Thread drainer = new Thread(() -> {
+            while (true) {
+                LockSupport.parkNanos(DRAIN_NANOS);
+                flush();
+            }
+        }, "log-drain");
+        drainer.setDaemon(true);
+        drainer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(Log::flush, "log-flush"));
+        return drainer;
+    }
+
+    /** Called with DRAIN_LOCK held. */
+    private static void drain() {
+        List<Entry> batch = new ArrayList<>();
+        for (Ring ring : RINGS) {
+            ring.drainTo(batch);
+            if (!ring.owner.isAlive() && ring.isEmpty()) RINGS.remove(ring);
+        }
+        long dropped = DROPPED.sumThenReset();
+        if (batch.isEmpty() && dropped == 0) return;
+
+        batch.sort(Comparator.comparingLong(e -> e.millis));
+        StringBuilder out = new StringBuilder();
+        if (dropped > 0) out.append("[log] ").append(dropped).append(" lines dropped (ring full, see -Dlog.ringSize)\n");
+        for (Entry e : batch) {
+            int from = out.length();
+            format(e, out);
+            if (e.testId != null) {
+                appendToTest(e.testId, out, from);
+                if (e.level.compareTo(Level.WARN) >= 0) {
+                    ReportBus.log(e.testId, e.millis, e.level, e.error != null ? e.message + ": " + e.error : e.message);
+                }
+            }
+        }
+        CONSOLE.print(out);
+        CONSOLE.flush();
+    }
+
+    private static void format(Entry e, StringBuilder out) {
+        out.append(TIME.format(Instant.ofEpochMilli(e.millis))).append(' ')
+                .append(String.format(Locale.ROOT, "%-5s", e.level)).append(" [");
+        if (e.testId != null) out.append(e.testId).append('|');
+        out.append(e.thread).append("] ").append(e.logger).append(" - ").append(e.message).append('\n');
+        if (e.error != null) {
+            StringWriter trace = new StringWriter();
+            e.error.printStackTrace(new PrintWriter(trace));
+            out.append(trace);
+        }
+    }
+
+    private static void appendToTest(String testId, StringBuilder out, int from) {
+        StringBuilder lines = TEST_LOGS.computeIfAbsent(testId, k -> new StringBuilder());
+        if (lines.length() >= TEST_BUFFER_CHARS) return;
+        lines.append(out, from, out.length());
+        if (lines.length() >= TEST_BUFFER_CHARS) lines.append("... truncated at -Dlog.testBufferKb\n");
+    }
+
+    private static Level levelFor(String className) {
+        Level found = ROOT_LEVEL;
+        int longest = -1;
+        for (String key : System.getProperties().stringPropertyNames()) {
+            if (!key.startsWith("log.level.")) continue;
+            String prefix = key.substring("log.level.".length());
+            boolean matches = className.equals(prefix) || className.startsWith(prefix + ".");
+            if (matches && prefix.length() > longest) {
+                longest = prefix.length();
+                found = parseLevel(key, System.getProperty(key), ROOT_LEVEL);
+            }
+        }
+        return found;
+    }
+
+    /** A typo in -Dlog.level* must not break every class that logs: warn on stderr and use the fallback. */
+    private static Level parseLevel(String key, String value, Level fallback) {
+        try {
+            return Level.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            if (BAD_LEVELS.putIfAbsent(key, Boolean.TRUE) == null) {
+                System.err.println("Ignoring invalid log level for " + key + ": " + value + " (using " + fallback + ")");
+            }
+            return fallback;
+        }
+    }
+
+    private static Ring newRing() {
+        Ring ring = new Ring(Thread.currentThread());
+        RINGS.add(ring);
+        return ring;
+    }
+
+    /* -----------------------------
+       Ring buffer (one writer: the owner thread, one reader: the drain)
+       ----------------------------- */
+
+    private static final class Entry {
+        final long millis;
+        final Level level;
+        final String logger;
+        final String testId;
+        final String thread;
+        final String message;
+        final Throwable error;
+
+        Entry(long millis, Level level, String logger, String testId, String thread, String message, Throwable error) {
+            this.millis = millis;
+            this.level = level;
+            this.logger = logger;
+            this.testId = testId;
+            this.thread = thread;
+            this.message = message;
+            this.error = error;
+        }
+    }
+
+    private static final class Ring {
+        final Thread owner;
+        final String threadName;
+        final Entry[] slots = new Entry[RING_SIZE];
+        final AtomicLong head = new AtomicLong(); // next slot to drain
+        final AtomicLong tail = new AtomicLong(); // next slot to write
+
+        Ring(Thread owner) {
+            this.owner = owner;
+            this.threadName = owner.getName().isEmpty() ? "virtual-" + owner.getId() : owner.getName();
+        }
+
+        boolean offer(long millis, Level level, String logger, String testId, String message, Throwable error) {
+            long t = tail.get();
+            if (t - head.get() >= slots.length) return false;
+            slots[(int) (t & (slots.length - 1))] = new Entry(millis, level, logger, testId, threadName, message, error);
+            tail.lazySet(t + 1);
+            return true;
+        }
+
+        void drainTo(List<Entry> batch) {
+            long h = head.get();
+            long t = tail.get();
+            for (; h < t; h++) {
+                int slot = (int) (h & (slots.length - 1));
+                batch.add(slots[slot]);
+                slots[slot] = null;
+            }
+            head.lazySet(h);
+        }
+
+        boolean isEmpty() {
+            return head.get() == tail.get();
+        }
+    }
+}
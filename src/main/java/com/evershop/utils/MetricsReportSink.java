@@ -0,0 +1,83 @@
+package com.evershop.utils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * MetricsReportSink - run-wide summary of the METRIC events on the report stream (ReportBus).
+ *
+ * Per metric name: count, min, mean, p50, p95 and max across all tests, written as CSV at every
+ * ReportBus flush and at the end of the run.
+ */
+public final class MetricsReportSink implements ReportBus.Sink {
+
+    private final Path file;
+    private final Map<String, Samples> metrics = new TreeMap<>();
+    private boolean changed;
+
+    public MetricsReportSink(Path file) {
+        this.file = file;
+    }
+
+    @Override
+    public String name() {
+        return "metrics";
+    }
+
+    @Override
+    public void accept(ReportBus.Event event) throws IOException {
+        if (event.getKind() == ReportBus.Kind.METRIC) {
+            metrics.computeIfAbsent(event.getName(), k -> new Samples(event.getUnit())).add(event.getValue());
+            changed = true;
+        } else if (event.getKind() == ReportBus.Kind.FLUSH) {
+            write();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        write();
+    }
+
+    private void write() throws IOException {
+        if (!changed) return;
+        changed = false;
+        StringBuilder sb = new StringBuilder("metric,unit,count,min,mean,p50,p95,max\n");
+        metrics.forEach((name, samples) -> {
+            double[] sorted = Arrays.copyOf(samples.values, samples.count);
+            Arrays.sort(sorted);
+            sb.append('"').append(name).append("\",").append(samples.unit == null ? "" : samples.unit).append(',')
+                    .append(samples.count)
+                    .append(String.format(Locale.ROOT, ",%.3f,%.3f,%.3f,%.3f,%.3f%n", sorted[0], samples.sum / samples.count,
+                            percentile(sorted, 50), percentile(sorted, 95), sorted[sorted.length - 1]));
+        });
+        Artifacts.write("report-metrics", file, sb.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static double percentile(double[] sorted, double p) {
+        int index = (int) Math.ceil(p / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    private static final class Samples {
+        final String unit;
+        double[] values = new double[16];
+        int count;
+        double sum;
+
+        Samples(String unit) {
+            this.unit = unit;
+        }
+
+        void add(double value) {
+            if (count == values.length) values = Arrays.copyOf(values, count * 2);
+            values[count++] = value;
+            sum += value;
+        }
+    }
+}
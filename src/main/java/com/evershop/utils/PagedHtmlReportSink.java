@@ -0,0 +1,273 @@
+package com.evershop.utils;
+
+import org.openqa.selenium.json.Json;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * PagedHtmlReportSink - an HTML report written test by test, for runs too big for one ExtentReport.html.
+ *
+ * Provides:
+ *  - tests/&lt;n/1000&gt;/&lt;n&gt;.js: one file per finished test (steps, log lines, metrics,
+ *    attachment links), written when the test ends and then forgotten
+ *  - pages/&lt;p&gt;.js: the summary rows of -Dreport.html.pageSize (default 200) tests each
+ *  - manifest.js: totals and per-page pass/fail/skip counts, rewritten when a page fills up and
+ *    at every ReportBus flush
+ *  - index.html: a static page that loads the manifest, then one page of rows and one test's
+ *    details at a time, on demand; attachments stay separate files (images load lazily)
+ *
+ * Notes:
+ *  - every data file is a script calling EvershopReport.xxx(...), so the report works from file://
+ *    without a web server
+ *  - heap holds only the running tests and the page being filled; a test keeps at most
+ *    -Dreport.html.maxEntries (default 2000) steps, log lines and attachments, the rest is counted
+ */
+public final class PagedHtmlReportSink implements ReportBus.Sink {
+
+    /** TEST_START handle: the invocation label, e.g. the data provider parameters. */
+    public static final String HANDLE = "html";
+
+    private static final String INDEX_RESOURCE = "paged-report/index.html";
+    private static final Json JSON = new Json();
+    private static final int ERROR_CHARS = 300;
+
+    private final Path dir;
+    private final int pageSize = Math.max(1, TestConfig.getInt("report.html.pageSize", 200));
+    private final int maxEntries = TestConfig.getInt("report.html.maxEntries", 2000);
+    private final Map<String, TestState> running = new HashMap<>();
+    private final List<Object[]> page = new ArrayList<>();
+    private final List<int[]> pageCounts = new ArrayList<>(); // passed, failed, skipped of every page
+    private int tests;
+    private int finished;
+    private long startedMillis;
+    private boolean dirty;
+
+    public PagedHtmlReportSink(Path dir) {
+        this.dir = dir.toAbsolutePath().normalize();
+    }
+
+    @Override
+    public String name() {
+        return "html";
+    }
+
+    @Override
+    public void accept(ReportBus.Event event) throws IOException {
+        switch (event.getKind()) {
+            case TEST_START:
+                if (startedMillis == 0) start(event.getMillis());
+                Object label = event.getHandle(HANDLE);
+                running.put(event.getTestId(), new TestState(++tests, event, label != null ? label.toString() : null));
+                return;
+            case FLUSH:
+                writeIndex();
+                return;
+            default:
+                break;
+        }
+        TestState test = event.getTestId() != null ? running.get(event.getTestId()) : null;
+        if (test == null) return;
+
+        switch (event.getKind()) {
+            case STEP_START: {
+                Map<String, Object> step = test.add(entry("step", event));
+                if (step == null) break;
+                step.put("items", new ArrayList<>());
+                test.open.push(step);
+                test.steps.put(event.getStepId(), step);
+                break;
+            }
+            case STEP_END: {
+                Map<String, Object> step = test.steps.remove(event.getStepId());
+                if (step == null) break;
+                test.open.remove(step);
+                step.put("ms", event.getMillis() - (Long) step.get("time"));
+                step.put("status", event.getError() == null ? "passed" : "failed");
+                if (event.getError() != null) step.put("error", String.valueOf(event.getError()));
+                break;
+            }
+            case ATTACHMENT: {
+                Map<String, Object> attachment = test.add(entry("attachment", event));
+                if (attachment == null) break;
+                attachment.put("contentType", event.getContentType());
+                attachment.put("path", attachmentPath(test, event));
+                break;
+            }
+            case LOG: {
+                Map<String, Object> log = test.add(entry("log", event));
+                if (log != null) log.put("level", event.getLevel().name());
+                break;
+            }
+            case METRIC:
+                test.metrics.add(new Object[] {event.getName(), event.getValue(), event.getUnit()});
+                break;
+            case TEST_END:
+                running.remove(event.getTestId());
+                finish(test, event);
+                break;
+            default:
+                break;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        writeIndex();
+    }
+
+    /* -----------------------------
+       Tests
+       ----------------------------- */
+
+    private void finish(TestState test, ReportBus.Event end) throws IOException {
+        String status = end.getStatus() != null ? end.getStatus() : "passed";
+        long ms = end.getMillis() - test.startMillis;
+        String error = end.getError() != null ? String.valueOf(end.getError()) : null;
+
+        Map<String, Object> details = new LinkedHashMap<>();
+        details.put("n", test.number);
+        details.put("test", test.testId);
+        if (test.label != null) details.put("label", test.label);
+        details.put("status", status);
+        details.put("start", test.startMillis);
+        details.put("ms", ms);
+        if (error != null) details.put("error", error);
+        details.put("items", test.items);
+        details.put("metrics", test.metrics);
+        if (test.dropped > 0) details.put("dropped", test.dropped);
+        writeScript("report-test", dir.resolve("tests").resolve(String.valueOf(test.number / 1000)).resolve(test.number + ".js"),
+                "test(" + test.number + ", ", details);
+
+        page.add(new Object[] {test.number, test.testId, test.label, status, ms, test.startMillis,
+                error == null ? null : error.length() > ERROR_CHARS ? error.substring(0, ERROR_CHARS) + "..." : error});
+        int pageNumber = finished++ / pageSize;
+        if (pageCounts.size() <= pageNumber) pageCounts.add(new int[3]);
+        pageCounts.get(pageNumber)["passed".equals(status) ? 0 : "skipped".equals(status) ? 2 : 1]++;
+        dirty = true;
+        if (page.size() == pageSize) {
+            writeIndex();
+            page.clear();
+        }
+    }
+
+    private Map<String, Object> entry(String type, ReportBus.Event event) {
+        Map<String, Object> entry = new LinkedHashMap<>();
+        entry.put("type", type);
+        entry.put("time", event.getMillis());
+        entry.put("name", event.getName());
+        return entry;
+    }
+
+    /** Relative to the report folder; bytes are written to attachments/, files are linked where they are. */
+    private String attachmentPath(TestState test, ReportBus.Event event) throws IOException {
+        Path file = event.getFile();
+        if (file == null) {
+            String name = (test.number + "-" + event.getSeq() + "-" + event.getName()).replaceAll("[^A-Za-z0-9._-]+", "_");
+            file = Artifacts.write("report-attachment", dir.resolve("attachments").resolve(name + event.getExtension()),
+                    event.readContent());
+        }
+        try {
+            return dir.relativize(file.toAbsolutePath().normalize()).toString().replace('\\', '/');
+        } catch (IllegalArgumentException e) { // another drive
+            return file.toUri().toString();
+        }
+    }
+
+    /* -----------------------------
+       Index
+       ----------------------------- */
+
+    private void start(long millis) throws IOException {
+        startedMillis = millis;
+        try (InputStream in = PagedHtmlReportSink.class.getClassLoader().getResourceAsStream(INDEX_RESOURCE)) {
+            if (in == null) throw new IOException("Missing resource " + INDEX_RESOURCE);
+            Artifacts.write("report-index", dir.resolve("index.html"), in.readAllBytes());
+        }
+    }
+
+    /** The page being filled and the manifest. */
+    private void writeIndex() throws IOException {
+        if (!dirty) return;
+        dirty = false;
+        int number = pageCounts.size() - 1;
+        writeScript("report-page", dir.resolve("pages").resolve(String.format(Locale.ROOT, "%05d.js", number)),
+                "page(" + number + ", ", page);
+
+        int[] totals = new int[3];
+        List<List<Integer>> pages = new ArrayList<>();
+        for (int[] counts : pageCounts) {
+            for (int i = 0; i < 3; i++) totals[i] += counts[i];
+            pages.add(Arrays.asList(counts[0], counts[1], counts[2]));
+        }
+        Map<String, Object> manifest = new LinkedHashMap<>();
+        manifest.put("started", startedMillis);
+        manifest.put("updated", System.currentTimeMillis());
+        manifest.put("running", running.size());
+        manifest.put("total", totals[0] + totals[1] + totals[2]);
+        manifest.put("passed", totals[0]);
+        manifest.put("failed", totals[1]);
+        manifest.put("skipped", totals[2]);
+        manifest.put("pageSize", pageSize);
+        manifest.put("pages", pages);
+        writeScript("report-manifest", dir.resolve("manifest.js"), "manifest(", manifest);
+    }
+
+    /** {@code EvershopReport.<call><json>);} streamed to the file. */
+    private static void writeScript(String kind, Path file, String call, Object data) throws IOException {
+        Artifacts.write(kind, file, out -> {
+            Writer w = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+            w.write("EvershopReport.");
+            w.write(call);
+            JSON.newOutput(w).setPrettyPrint(false).write(data); // not closed: that would close the file
+            w.write(");\n");
+            w.flush();
+        });
+    }
+
+    private final class TestState {
+        final int number;
+        final String testId;
+        final String label;
+        final long startMillis;
+        final List<Object> items = new ArrayList<>();
+        final List<Object[]> metrics = new ArrayList<>();
+        final Deque<Map<String, Object>> open = new ArrayDeque<>();
+        final Map<Long, Map<String, Object>> steps = new HashMap<>();
+        int entries;
+        int dropped;
+
+        TestState(int number, ReportBus.Event start, String label) {
+            this.number = number;
+            this.testId = start.getTestId();
+            this.label = label;
+            this.startMillis = start.getMillis();
+        }
+
+        /** Adds the entry under the innermost open step; null (counted, not kept) past the cap. */
+        @SuppressWarnings("unchecked")
+        Map<String, Object> add(Map<String, Object> entry) {
+            if (entries >= maxEntries) {
+                dropped++;
+                return null;
+            }
+            entries++;
+            List<Object> parent = open.isEmpty() ? items : (List<Object>) open.peek().get("items");
+            parent.add(entry);
+            return entry;
+        }
+    }
+}
@@ -0,0 +1,454 @@
+package com.evershop.utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * ReportBus - one stream of report events (steps, attachments, log lines, metrics) feeding every
+ * report sink.
+ *
+ * Provides:
+ *  - publishing, for tests and page objects: {@link #step(String)}, {@link #attach}, {@link #log},
+ *    {@link #metric}; a call stamps the event with time, test id (TestContext) and thread and
+ *    appends it to a lock-free queue, nothing else runs on the caller
+ *  - {@link #register(Sink)}: every sink (Allure, Extent, paged HTML, JSONL, metrics) gets all events, in
+ *    queue order, on its own thread, so a slow or failing sink holds up neither the test nor the
+ *    other sinks
+ *  - {@link #endTest(String, String, Throwable)}: barrier at the end of a test, returns once the sinks
+ *    that write into the test's own report entry ({@link Sink#needsOpenTest()}: Allure, Extent) have
+ *    handled the test's events, since TestNG writes the result right after; the other sinks catch up
+ *    in the background
+ *  - {@link #flush()}: barrier for the whole run and every sink; file sinks write out what they have
+ *
+ * Notes:
+ *  - a test's report handles (Allure test case uuid, Extent test) travel in its TEST_START event
+ *    ({@link #testStarted(String, Map)}), so sinks never read the publishing thread's ThreadLocals
+ *  - one dispatcher thread moves events to the sinks every -Dreport.pollMs (default 10); a barrier
+ *    wakes it at once and waits at most -Dreport.timeout (ms, default 30000)
+ *  - a sink that throws is reported once and keeps receiving events
+ */
+public final class ReportBus {
+
+    public enum Kind { TEST_START, STEP_START, STEP_END, ATTACHMENT, LOG, METRIC, TEST_END, FLUSH }
+
+    /** Consumer of the event stream; called on its own thread only, never concurrently. */
+    public interface Sink {
+        String name();
+
+        void accept(Event event) throws Exception;
+
+        /**
+         * True when the sink adds to the test's own report entry (Allure test case, Extent test), so it
+         * must have the test's events before the test is closed; {@link #endTest} waits only for these.
+         */
+        default boolean needsOpenTest() {
+            return false;
+        }
+
+        /** End of the run, after the last event has been handled. */
+        default void close() throws Exception {
+        }
+    }
+
+    private static final Log LOG = Log.get(ReportBus.class);
+    private static final long POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(TestConfig.getLong("report.pollMs", 10));
+    private static final Duration TIMEOUT = TestConfig.getMillis("report.timeout", Duration.ofSeconds(30));
+
+    private static final Queue<Event> QUEUE = new ConcurrentLinkedQueue<>();
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+    private static final AtomicLong STEP_IDS = new AtomicLong();
+    private static final List<Worker> WORKERS = new CopyOnWriteArrayList<>();
+    private static final Thread DISPATCHER = startDispatcher();
+
+    private ReportBus() {
+    }
+
+    public static void register(Sink sink) {
+        Worker worker = new Worker(sink);
+        WORKERS.add(worker);
+        worker.thread.start();
+    }
+
+    /* -----------------------------
+       Publishing
+       ----------------------------- */
+
+    /** Start of a test body; {@code handles} are the report objects of the test, by sink name. */
+    public static void testStarted(String testId, Map<String, Object> handles) {
+        Event event = new Event(Kind.TEST_START, testId, System.currentTimeMillis(), testId);
+        event.handles = handles;
+        publish(event);
+    }
+
+    /** A step that ends when closed: {@code try (ReportBus.Step step = ReportBus.step("Save address")) { ... }}. */
+    public static Step step(String name) {
+        String testId = currentTestId();
+        return new Step(testId, startStep(testId, name, System.currentTimeMillis()));
+    }
+
+    /** Start of a step at {@code millis}, for steps replayed after the fact; returns the id for {@link #endStep}. */
+    public static long startStep(String testId, String name, long millis) {
+        Event event = new Event(Kind.STEP_START, testId, millis, name);
+        event.stepId = STEP_IDS.incrementAndGet();
+        publish(event);
+        return event.stepId;
+    }
+
+    public static void endStep(String testId, long stepId, long millis, Throwable failure) {
+        Event event = new Event(Kind.STEP_END, testId, millis, null);
+        event.stepId = stepId;
+        event.error = failure;
+        publish(event);
+    }
+
+    public static void attach(String name, String text) {
+        attach(name, "text/plain", ".txt", text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static void attach(String name, String contentType, String extension, byte[] content) {
+        Event event = new Event(Kind.ATTACHMENT, currentTestId(), System.currentTimeMillis(), name);
+        event.contentType = contentType;
+        event.extension = extension;
+        event.content = content;
+        publish(event);
+    }
+
+    /** An attachment already on disk; sinks read or link the file, it must stay in place. */
+    public static void attach(String name, String contentType, String extension, Path file) {
+        Event event = new Event(Kind.ATTACHMENT, currentTestId(), System.currentTimeMillis(), name);
+        event.contentType = contentType;
+        event.extension = extension;
+        event.file = file;
+        publish(event);
+    }
+
+    public static void log(Log.Level level, String message) {
+        log(currentTestId(), System.currentTimeMillis(), level, message);
+    }
+
+    public static void log(String testId, long millis, Log.Level level, String message) {
+        Event event = new Event(Kind.LOG, testId, millis, message);
+        event.level = level;
+        publish(event);
+    }
+
+    public static void metric(String name, double value, String unit) {
+        metric(currentTestId(), name, value, unit);
+    }
+
+    public static void metric(String testId, String name, double value, String unit) {
+        Event event = new Event(Kind.METRIC, testId, System.currentTimeMillis(), name);
+        event.value = value;
+        event.unit = unit;
+        publish(event);
+    }
+
+    private static void publish(Event event) {
+        event.seq = SEQUENCE.incrementAndGet();
+        QUEUE.offer(event);
+    }
+
+    private static String currentTestId() {
+        TestContext context = TestContext.current();
+        return context != null ? context.getTestId() : null;
+    }
+
+    /* -----------------------------
+       Barriers
+       ----------------------------- */
+
+    /**
+     * Ends the test with its outcome ("passed", "failed", "skipped") and waits until the sinks that
+     * need the test open have handled its events; false on timeout.
+     */
+    public static boolean endTest(String testId, String status, Throwable failure) {
+        Event event = new Event(Kind.TEST_END, testId, System.currentTimeMillis(), testId);
+        event.status = status;
+        event.error = failure;
+        return await(event, true);
+    }
+
+    /** Waits until every sink has handled everything published so far and written out its files. */
+    public static boolean flush() {
+        return await(new Event(Kind.FLUSH, null, System.currentTimeMillis(), null), false);
+    }
+
+    private static boolean await(Event event, boolean openTestSinksOnly) {
+        event.barrier = new Barrier(openTestSinksOnly);
+        publish(event);
+        LockSupport.unpark(DISPATCHER);
+        try {
+            event.barrier.done.get(TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+            return true;
+        } catch (TimeoutException e) {
+            LOG.warn("Report sinks still busy after " + TIMEOUT.toMillis() + " ms (" + event.kind
+                    + (event.testId != null ? " " + event.testId : "") + "), continuing");
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /* -----------------------------
+       Dispatch
+       ----------------------------- */
+
+    private static Thread startDispatcher() {
+        Thread dispatcher = new Thread(null, () -> {
+            while (true) {
+                if (!dispatch()) LockSupport.parkNanos(POLL_NANOS);
+            }
+        }, "report-bus", 0, false); // no inherited TestContext: the bus belongs to no test
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(ReportBus::shutdown, "report-bus-close"));
+        return dispatcher;
+    }
+
+    /** Moves everything queued to the sinks; false if the queue was empty. */
+    private static boolean dispatch() {
+        Event event = QUEUE.poll();
+        if (event == null) return false;
+        List<Worker> workers = new ArrayList<>(WORKERS);
+        for (; event != null; event = QUEUE.poll()) {
+            if (event.barrier != null) event.barrier.expect(workers);
+            for (Worker worker : workers) worker.queue.offer(event);
+        }
+        for (Worker worker : workers) LockSupport.unpark(worker.thread);
+        return true;
+    }
+
+    private static void shutdown() {
+        flush();
+        for (Worker worker : WORKERS) {
+            try {
+                worker.sink.close();
+            } catch (Exception e) {
+                LOG.warn("Report sink " + worker.sink.name() + " did not close: " + e.getMessage());
+            }
+        }
+        Log.flush();
+    }
+
+    private static final class Worker implements Runnable {
+        final Sink sink;
+        final Queue<Event> queue = new ConcurrentLinkedQueue<>();
+        final LongAdder failures = new LongAdder();
+        final Thread thread;
+
+        Worker(Sink sink) {
+            this.sink = sink;
+            this.thread = new Thread(null, this, "report-" + sink.name(), 0, false);
+            this.thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                Event event = queue.poll();
+                if (event == null) {
+                    LockSupport.park(this);
+                    continue;
+                }
+                try {
+                    sink.accept(event);
+                } catch (Exception | LinkageError e) {
+                    failures.increment();
+                    if (failures.sum() == 1) LOG.warn("Report sink " + sink.name() + " failed on " + event.kind
+                            + " (further failures are counted, not logged)", e);
+                } finally {
+                    if (event.barrier != null && event.barrier.waitsFor(sink)) event.barrier.arrive();
+                }
+            }
+        }
+    }
+
+    private static final class Barrier {
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+        final AtomicInteger remaining = new AtomicInteger();
+        final boolean openTestSinksOnly;
+
+        Barrier(boolean openTestSinksOnly) {
+            this.openTestSinksOnly = openTestSinksOnly;
+        }
+
+        boolean waitsFor(Sink sink) {
+            return !openTestSinksOnly || sink.needsOpenTest();
+        }
+
+        void expect(List<Worker> workers) {
+            int sinks = 0;
+            for (Worker worker : workers) if (waitsFor(worker.sink)) sinks++;
+            if (remaining.addAndGet(sinks) == 0) done.complete(null);
+        }
+
+        void arrive() {
+            if (remaining.decrementAndGet() == 0) done.complete(null);
+        }
+    }
+
+    /* -----------------------------
+       Events
+       ----------------------------- */
+
+    /** A step opened by {@link #step(String)}; mark it failed before closing if the action threw. */
+    public static final class Step implements AutoCloseable {
+        private final String testId;
+        private final long id;
+        private Throwable failure;
+        private boolean closed;
+
+        private Step(String testId, long id) {
+            this.testId = testId;
+            this.id = id;
+        }
+
+        public void fail(Throwable t) {
+            this.failure = t;
+        }
+
+        @Override
+        public void close() {
+            if (closed) return;
+            closed = true;
+            endStep(testId, id, System.currentTimeMillis(), failure);
+        }
+    }
+
+    /**
+     * One published event. Fields are set before it is queued and never change afterwards; which
+     * ones are present depends on the kind.
+     */
+    public static final class Event {
+        private final Kind kind;
+        private final String testId;
+        private final String thread;
+        private final long millis;
+        private final String name;
+        private long seq;
+        private long stepId;
+        private Throwable error;
+        private String status;
+        private Log.Level level;
+        private String contentType;
+        private String extension;
+        private byte[] content;
+        private Path file;
+        private double value;
+        private String unit;
+        private Map<String, Object> handles;
+        private Barrier barrier;
+
+        private Event(Kind kind, String testId, long millis, String name) {
+            this.kind = kind;
+            this.testId = testId;
+            this.thread = Thread.currentThread().getName();
+            this.millis = millis;
+            this.name = name;
+        }
+
+        public Kind getKind() {
+            return kind;
+        }
+
+        /** Publish order, unique per run. */
+        public long getSeq() {
+            return seq;
+        }
+
+        /** Test the event belongs to, or null outside a test. */
+        public String getTestId() {
+            return testId;
+        }
+
+        public String getThread() {
+            return thread;
+        }
+
+        public long getMillis() {
+            return millis;
+        }
+
+        /** Step, attachment or metric name; the message of a LOG event. */
+        public String getName() {
+            return name;
+        }
+
+        /** Pairs a STEP_END with its STEP_START. */
+        public long getStepId() {
+            return stepId;
+        }
+
+        /** Why a step (STEP_END) or the test (TEST_END) failed, or null. */
+        public Throwable getError() {
+            return error;
+        }
+
+        /** Outcome of the test (TEST_END): passed, failed or skipped. */
+        public String getStatus() {
+            return status;
+        }
+
+        public Log.Level getLevel() {
+            return level;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        /** File extension of an attachment, with the dot. */
+        public String getExtension() {
+            return extension;
+        }
+
+        /** The attachment's file when it was published as one, otherwise null. */
+        public Path getFile() {
+            return file;
+        }
+
+        /** The attachment's bytes, from memory or from its file. */
+        public InputStream openContent() throws IOException {
+            return file != null ? Files.newInputStream(file) : new ByteArrayInputStream(content);
+        }
+
+        public byte[] readContent() throws IOException {
+            return file != null ? Files.readAllBytes(file) : content;
+        }
+
+        public double getValue() {
+            return value;
+        }
+
+        public String getUnit() {
+            return unit;
+        }
+
+        /** The report object a sink registered under {@code key} for this test (TEST_START), or null. */
+        public Object getHandle(String key) {
+            return handles != null ? handles.get(key) : null;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.evershop.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ShardPlan - splits tests over N machines so they finish at about the same time.
+ *
+ * Uses "longest processing time first": tests are sorted by estimated duration (longest first)
+ * and each one goes to the shard with the smallest total so far. Ties are broken by test key and
+ * shard index, so every machine computes the same plan from the same history file.
+ */
+public class ShardPlan {
+
+    private final int shardCount;
+    private final List<List<String>> shards = new ArrayList<>();
+    private final long[] totals;
+
+    private ShardPlan(int shardCount) {
+        this.shardCount = shardCount;
+        this.totals = new long[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards.add(new ArrayList<>());
+        }
+    }
+
+    public static ShardPlan build(Map<String, Long> estimates, int shardCount) {
+        if (shardCount < 1) throw new IllegalArgumentException("shardCount must be >= 1 but was " + shardCount);
+        ShardPlan plan = new ShardPlan(shardCount);
+
+        List<Map.Entry<String, Long>> ordered = new ArrayList<>(estimates.entrySet());
+        ordered.sort(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder())
+                .thenComparing(Map.Entry.comparingByKey()));
+
+        for (Map.Entry<String, Long> e : ordered) {
+            int target = 0;
+            for (int i = 1; i < shardCount; i++) {
+                if (plan.totals[i] < plan.totals[target]) target = i;
+            }
+            plan.shards.get(target).add(e.getKey());
+            plan.totals[target] += e.getValue();
+        }
+        return plan;
+    }
+
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    public List<String> getShard(int index) {
+        return Collections.unmodifiableList(shards.get(index));
+    }
+
+    public long getEstimatedMillis(int index) {
+        return totals[index];
+    }
+
+    public int shardOf(String key) {
+        for (int i = 0; i < shardCount; i++) {
+            if (shards.get(i).contains(key)) return i;
+        }
+        return -1;
+    }
+
+    /** Human readable plan, one block per shard. */
+    public String describe() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < shardCount; i++) {
+            sb.append("shard ").append(i).append('/').append(shardCount)
+                    .append(" (~").append(totals[i] / 1000).append("s)").append(System.lineSeparator());
+            for (String key : shards.get(i)) {
+                sb.append("  ").append(key).append(System.lineSeparator());
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,105 @@
+package com.evershop.utils;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Central access to run-time switches passed as JVM system properties
+ * (e.g. {@code mvn test -Psearch -Dshard.total=3 -Dshard.index=0}).
+ *
+ * Every lookup takes a default so the suites keep working with no flags at all.
+ *
+ * Invalid values are logged through {@link Log}. Log reads its own switches here while it
+ * initialises, so the logger is looked up lazily and a bad log.* value goes to stderr instead.
+ */
+public final class TestConfig {
+
+    private TestConfig() {
+    }
+
+    public static String getString(String key, String defaultValue) {
+        String value = System.getProperty(key);
+        if (value == null || value.trim().isEmpty()) {
+            return defaultValue;
+        }
+        return value.trim();
+    }
+
+    public static int getInt(String key, int defaultValue) {
+        String value = getString(key, null);
+        if (value == null) return defaultValue;
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            ignoringInvalid("int", key, value);
+            return defaultValue;
+        }
+    }
+
+    public static long getLong(String key, long defaultValue) {
+        String value = getString(key, null);
+        if (value == null) return defaultValue;
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            ignoringInvalid("long", key, value);
+            return defaultValue;
+        }
+    }
+
+    public static boolean getBoolean(String key, boolean defaultValue) {
+        String value = getString(key, null);
+        if (value == null) return defaultValue;
+        return Boolean.parseBoolean(value);
+    }
+
+    /** Duration given in milliseconds, e.g. {@code -Dwait.timeout.toast=2000}. */
+    public static Duration getMillis(String key, Duration defaultValue) {
+        String value = getString(key, null);
+        if (value == null) return defaultValue;
+        try {
+            return Duration.ofMillis(Long.parseLong(value));
+        } catch (NumberFormatException e) {
+            ignoringInvalid("duration", key, value);
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Weighted mix "name:weight,..." over {@code choices} (weight 1 when left out, 0 drops the entry),
+     * e.g. {@code -Dload.mix=search:80,address:20}. An unknown name or a bad weight is an
+     * IllegalArgumentException: a mix is the whole point of the run, so it is not defaulted.
+     */
+    public static <T> Map<T, Integer> getMix(String key, String defaultSpec, Collection<T> choices, Function<T, String> nameOf) {
+        String spec = getString(key, defaultSpec);
+        Map<T, Integer> mix = new LinkedHashMap<>();
+        for (String part : spec.split(",")) {
+            String[] nameWeight = part.trim().split(":");
+            String name = nameWeight[0].trim();
+            T choice = choices.stream().filter(c -> nameOf.apply(c).equals(name)).findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException("Unknown name '" + name + "' in " + key + "=" + spec));
+            int weight;
+            try {
+                weight = nameWeight.length > 1 ? Integer.parseInt(nameWeight[1].trim()) : 1;
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid weight for '" + name + "' in " + key + "=" + spec, e);
+            }
+            if (weight > 0) mix.put(choice, weight);
+        }
+        return mix;
+    }
+
+    private static void ignoringInvalid(String type, String key, String value) {
+        String message = "Ignoring invalid " + type + " for " + key + ": " + value;
+        if (Log.isReady()) Warnings.LOG.warn(message);
+        else System.err.println(message); // Log is still reading its own settings
+    }
+
+    /** Created on the first warning, never while Log itself initialises. */
+    private static final class Warnings {
+        static final Log LOG = Log.get(TestConfig.class);
+    }
+}
@@ -0,0 +1,105 @@
+package com.evershop.utils;
+
+import org.openqa.selenium.WebDriver;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * TestContext - state of the test invocation running on the current thread.
+ *
+ * Any helper task started with {@link #fork(Callable)} sees the same test id and driver as the
+ * thread that started the invocation (the TestNG worker, or its virtual thread with
+ * -Dexecution.mode=virtual).
+ * Plain fields only - no synchronized blocks, so virtual threads never pin here.
+ */
+public final class TestContext {
+
+    private static final InheritableThreadLocal<TestContext> CURRENT = new InheritableThreadLocal<>();
+    private static final ExecutorService FORK_EXECUTOR = VirtualThreads.newThreadPerTaskExecutor("test-fork");
+
+    private final String testId;
+    private volatile WebDriver driver;
+    private volatile Deadline deadline;
+
+    private TestContext(String testId) {
+        this.testId = testId;
+    }
+
+    public static TestContext start(String testId) {
+        TestContext context = new TestContext(testId);
+        CURRENT.set(context);
+        return context;
+    }
+
+    /** Context of the current thread, or null outside a test invocation. */
+    public static TestContext current() {
+        return CURRENT.get();
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    public String getTestId() {
+        return testId;
+    }
+
+    public WebDriver getDriver() {
+        return driver;
+    }
+
+    public void setDriver(WebDriver driver) {
+        this.driver = driver;
+    }
+
+    /** Time budget of this invocation (see Deadline), or null. */
+    public Deadline getDeadline() {
+        return deadline;
+    }
+
+    public void setDeadline(Deadline deadline) {
+        this.deadline = deadline;
+    }
+
+    /**
+     * Run side work (e.g. seeding data over HTTP) concurrently with the browser steps.
+     * The task inherits this thread's context; join it with {@link #await(CompletableFuture)}.
+     */
+    public static <T> CompletableFuture<T> fork(Callable<T> task) {
+        TestContext context = current();
+        return CompletableFuture.supplyAsync(() -> callWith(context, task), FORK_EXECUTOR);
+    }
+
+    /**
+     * Run the task with the given context installed on the current thread
+     * (pooled platform threads do not inherit it, so it is passed explicitly).
+     */
+    public static <T> T callWith(TestContext context, Callable<T> task) {
+        TestContext previous = CURRENT.get();
+        CURRENT.set(context);
+        try {
+            return task.call();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new CompletionException(e);
+        } finally {
+            if (previous == null) CURRENT.remove();
+            else CURRENT.set(previous);
+        }
+    }
+
+    public static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw e;
+        }
+    }
+}
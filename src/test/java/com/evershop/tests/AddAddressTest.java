@@ -1,69 +1,84 @@
 package com.evershop.tests;
 
+import com.evershop.driver.DomSnapshot;
+import com.evershop.pages.BrowserCondition;
 import com.evershop.testdata.AddressData;
+import com.evershop.utils.Artifacts;
+import com.evershop.utils.Log;
+import com.evershop.utils.TestConfig;
 import org.openqa.selenium.By;
 import org.openqa.selenium.WebElement;
-import org.openqa.selenium.support.ui.WebDriverWait;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
-import java.nio.file.Files;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.time.Duration;
 import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Collectors;
 
 public class AddAddressTest extends BaseTest {
 
-    private static final int DEFAULT_TOAST_WAIT = 2;
-    private static final int DEFAULT_LIST_WAIT = 2;
+    private static final Log LOG = Log.get(AddAddressTest.class);
 
     /* -------------------------
        Helper utilities inside test
        ------------------------- */
 
     private String saveAndWaitToast() {
-        return addressPopup.clickSaveAndWaitToast(DEFAULT_TOAST_WAIT);
+        return addressPopup().clickSaveAndWaitToast(); // timeout class "toast" (-Dwait.timeout.toast)
     }
 
-    private void dumpPageSnapshot(String filename) {
+    /** DOM snapshot taken just before Save (-Dsnapshot.beforeSave=true), diffed against the failure dump. */
+    private final ThreadLocal<Path> beforeSaveSnapshot = new ThreadLocal<>(); // per invocation: methods run in parallel
+
+    private void snapshotBeforeSave(String name) {
+        beforeSaveSnapshot.remove();
+        if (!TestConfig.getBoolean("snapshot.beforeSave", false)) return;
+        try {
+            beforeSaveSnapshot.set(DomSnapshot.capture(getDriver(), Paths.get(name + ".dom.jsonl.gz")));
+        } catch (Exception e) {
+            LOG.warn("Failed to write snapshot: " + e.getMessage());
+        }
+    }
+
+    /** Address list changes between the before-Save snapshot (if any) and {@code after}, to a .diff.txt file. */
+    private void dumpPageSnapshot(Path after, String filename) {
+        Path before = beforeSaveSnapshot.get();
+        if (before == null || after == null) return;
         try {
-            String html = driver.getPageSource();
-            Files.write(Paths.get(filename), html.getBytes(java.nio.charset.StandardCharsets.UTF_8));
-            System.out.println("Wrote page snapshot: " + filename);
+            List<String> changes = DomSnapshot.diff(before, after, ".address__summary");
+            Artifacts.write("dom-diff", Paths.get(filename), String.join("\n", changes).getBytes(StandardCharsets.UTF_8));
+            LOG.info(() -> "Address list changes since before Save (" + changes.size() + "):\n" + String.join("\n", changes));
         } catch (Exception e) {
-            System.out.println("Failed to write snapshot: " + e.getMessage());
+            LOG.warn("Failed to diff snapshots: " + e.getMessage());
         }
     }
 
     private void assertAddressAdded(String expectedFullName, int beforeCount) {
         // Wait until either card count increased OR robust name match appears
-        WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(DEFAULT_LIST_WAIT));
         try {
-            wait.until(d -> {
-                int now = accountPage.getAddressCardCount();
-                if (now > beforeCount) return true;
-                return accountPage.isAddressInListRobust(expectedFullName, 1);
-            });
-        } catch (Exception ignored) {
+            accountPage().waitForAddressAdded(expectedFullName, beforeCount);
+        } catch (BrowserCondition.ConditionTimeoutException e) {
             // timeout, will assert below with final robust check
+            LOG.info("Address not visible yet:\n" + e.getMessage());
         }
 
-        boolean finalFound = accountPage.isAddressInListRobust(expectedFullName, 3);
+        boolean finalFound = accountPage().isAddressInListRobust(expectedFullName, 3);
         if (!finalFound) {
-            accountPage.dumpVisibleAddressesToConsoleAndFile("tc_add_missing_address_list.txt");
-            dumpPageSnapshot("tc_add_missing_address_page.html");
+            Path snapshot = accountPage().dumpVisibleAddressesToConsoleAndFile("tc_add_missing_address.dom.jsonl.gz");
+            dumpPageSnapshot(snapshot, "tc_add_missing_address.diff.txt");
         }
         Assert.assertTrue(finalFound, "New address should appear in the list (expected: " + expectedFullName + ")");
     }
 
     private void assertNoNewAddressAddedAfterFailure(int beforeCount) {
-        int after = accountPage.getAddressCardCount();
+        int after = accountPage().getAddressCardCount();
         if (after > beforeCount) {
             // dump for debug
-            accountPage.dumpVisibleAddressesToConsoleAndFile("tc_negative_unexpected_added.txt");
-            dumpPageSnapshot("tc_negative_unexpected_added_page.html");
+            Path snapshot = accountPage().dumpVisibleAddressesToConsoleAndFile("tc_negative_unexpected_added.dom.jsonl.gz");
+            dumpPageSnapshot(snapshot, "tc_negative_unexpected_added.diff.txt");
         }
         Assert.assertEquals(after, beforeCount, "Address count must remain unchanged after invalid save");
     }
@@ -78,20 +93,20 @@ public class AddAddressTest extends BaseTest {
 
     @Test(priority = 1, description = "ACC_44 - Add Address Successfully")
     public void acc_44_addAddressSuccess() {
-        System.out.println("=== START: ACC_44 - Add Address Successfully ===");
+        LOG.info("=== START: ACC_44 - Add Address Successfully ===");
         loginToAccount();
-        accountPage.navigateToAccount();
-        accountPage.clickAddNewAddress();
-        Assert.assertTrue(addressPopup.isPopupDisplayed(), "Add address popup should be displayed");
+        accountPage().navigateToAccount();
+        accountPage().clickAddNewAddress();
+        Assert.assertTrue(addressPopup().isPopupDisplayed(), "Add address popup should be displayed");
 
         AddressData validData = AddressData.getValidUSAddress();
         String expectedFullName = validData.getFullName();
-        System.out.println("Fill valid data: " + validData);
+        LOG.info("Fill valid data: " + validData);
 
-        int beforeCount = accountPage.getAddressCardCount();
-        System.out.println("Address count before add: " + beforeCount);
+        int beforeCount = accountPage().getAddressCardCount();
+        LOG.info("Address count before add: " + beforeCount);
 
-        addressPopup.fillAddressForm(
+        addressPopup().fillAddressForm(
                 expectedFullName,
                 validData.getTelephone(),
                 validData.getAddress(),
@@ -101,17 +116,22 @@ public class AddAddressTest extends BaseTest {
                 validData.getPostcode()
         );
 
-        System.out.println("Click Save...");
+        snapshotBeforeSave("acc_44_before_save");
+        LOG.info("Click Save...");
         String toastMsg = saveAndWaitToast();
-        System.out.println("Toast message: " + toastMsg);
+        LOG.info("Toast message: " + toastMsg);
 
         Assert.assertNotNull(toastMsg, "Toast message should be displayed");
         Assert.assertTrue(toastMsg.toLowerCase().contains("successfully"),
                 "Success message should be displayed (expected 'successfully').");
 
         // verify address actually added to list
-        assertAddressAdded(expectedFullName, beforeCount);
-        System.out.println("=== END: ACC_44 ===");
+        try {
+            assertAddressAdded(expectedFullName, beforeCount);
+        } finally {
+            beforeSaveSnapshot.remove();
+        }
+        LOG.info("=== END: ACC_44 ===");
     }
 
     @Test(priority = 2, description = "ACC_45 - Add Address Unsuccessfully - Empty All Fields")
@@ -121,24 +141,24 @@ public class AddAddressTest extends BaseTest {
                 "full name", "telephone", "address", "city", "country", "postcode"
         );
 
-        System.out.println("=== START: ACC_45 - Empty all fields ===");
+        LOG.info("=== START: ACC_45 - Empty all fields ===");
         loginToAccount();
-        accountPage.navigateToAccount();
-        accountPage.clickAddNewAddress();
+        accountPage().navigateToAccount();
+        accountPage().clickAddNewAddress();
 
-        int beforeCount = accountPage.getAddressCardCount();
+        int beforeCount = accountPage().getAddressCardCount();
 
-        System.out.println("Click Save with no data entered...");
-        addressPopup.clickSave();
+        LOG.info("Click Save with no data entered...");
+        addressPopup().clickSave();
 
         // wait for field errors and capture
-        boolean any = addressPopup.waitForAnyFieldError(WAIT_TIMEOUT);
+        boolean any = addressPopup().waitForAnyFieldError(WAIT_TIMEOUT);
         if (!any) {
-            System.out.println("Warning: no field error detected within " + WAIT_TIMEOUT + "s (will still try to collect).");
+            LOG.warn("No field error detected within " + WAIT_TIMEOUT + "s (will still try to collect).");
         }
 
-        List<String> errors = addressPopup.getAllErrorMessages();
-        System.out.println("Error messages found (" + errors.size() + "): " + errors);
+        List<String> errors = addressPopup().getAllErrorMessages();
+        LOG.info("Error messages found (" + errors.size() + "): " + errors);
 
         // ensure no new address was added
         assertNoNewAddressAddedAfterFailure(beforeCount);
@@ -152,32 +172,32 @@ public class AddAddressTest extends BaseTest {
             Assert.assertTrue(found, "Missing expected field error containing: '" + expectedField + "'. Actual errors: " + errors);
         }
 
-        System.out.println("=== END: ACC_45 ===");
+        LOG.info("=== END: ACC_45 ===");
     }
 
     @Test(priority = 3, description = "ACC_46 - Add Address Unsuccessfully - Missing Full Name")
     public void acc_46_addAddressWithoutFullName() {
-        System.out.println("=== START: ACC_46 - Missing Full name ===");
+        LOG.info("=== START: ACC_46 - Missing Full name ===");
         loginToAccount();
-        accountPage.navigateToAccount();
-        accountPage.clickAddNewAddress();
+        accountPage().navigateToAccount();
+        accountPage().clickAddNewAddress();
 
-        int beforeCount = accountPage.getAddressCardCount();
+        int beforeCount = accountPage().getAddressCardCount();
 
         AddressData data = AddressData.getValidUSAddress();
-        System.out.println("Fill all fields except Full name...");
-        addressPopup.fillTelephone(data.getTelephone());
-        addressPopup.fillAddress(data.getAddress());
-        addressPopup.fillCity(data.getCity());
-        addressPopup.selectCountry(data.getCountry());
-        addressPopup.selectProvince(data.getProvince());
-        addressPopup.fillPostcode(data.getPostcode());
+        LOG.info("Fill all fields except Full name...");
+        addressPopup().fillTelephone(data.getTelephone());
+        addressPopup().fillAddress(data.getAddress());
+        addressPopup().fillCity(data.getCity());
+        addressPopup().selectCountry(data.getCountry());
+        addressPopup().selectProvince(data.getProvince());
+        addressPopup().fillPostcode(data.getPostcode());
 
-        System.out.println("Click Save...");
-        addressPopup.clickSave();
+        LOG.info("Click Save...");
+        addressPopup().clickSave();
 
-        String errorMsg = addressPopup.getErrorMessage();
-        System.out.println("Received error message: " + errorMsg);
+        String errorMsg = addressPopup().getErrorMessage();
+        LOG.info("Received error message: " + errorMsg);
 
         // no new card should be added
         assertNoNewAddressAddedAfterFailure(beforeCount);
@@ -185,21 +205,21 @@ public class AddAddressTest extends BaseTest {
         Assert.assertNotNull(errorMsg, "Error message should be displayed");
         Assert.assertTrue(errorMsg.contains("Full name") || errorMsg.toLowerCase().contains("required"),
                 "Full name is required");
-        System.out.println("=== END: ACC_46 ===");
+        LOG.info("=== END: ACC_46 ===");
     }
 
     @Test(priority = 4, description = "ACC_47 - Add Address Unsuccessfully - Full Name > 50 Characters")
     public void acc_47_addAddressWithLongFullName() {
-        System.out.println("=== START: ACC_47 - Full name > 50 chars ===");
+        LOG.info("=== START: ACC_47 - Full name > 50 chars ===");
         loginToAccount();
-        accountPage.navigateToAccount();
-        accountPage.clickAddNewAddress();
+        accountPage().navigateToAccount();
+        accountPage().clickAddNewAddress();
 
-        int beforeCount = accountPage.getAddressCardCount();
+        int beforeCount = accountPage().getAddressCardCount();
 
         AddressData data = AddressData.getAddressWithLongFullName();
-        System.out.println("Long full name: " + data.getFullName());
-        addressPopup.fillAddressForm(
+        LOG.info("Long full name: " + data.getFullName());
+        addressPopup().typeAddressForm(
                 data.getFullName(),
                 data.getTelephone(),
                 data.getAddress(),
@@ -209,31 +229,31 @@ public class AddAddressTest extends BaseTest {
                 data.getPostcode()
         );
 
-        System.out.println("Click Save...");
-        addressPopup.clickSave();
+        LOG.info("Click Save...");
+        addressPopup().clickSave();
 
-        String errorMsg = addressPopup.getErrorMessage();
-        System.out.println("Received error message: " + errorMsg);
+        String errorMsg = addressPopup().getErrorMessage();
+        LOG.info("Received error message: " + errorMsg);
 
         // ensure not added
         assertNoNewAddressAddedAfterFailure(beforeCount);
 
         Assert.assertNotNull(errorMsg, "Error message should be displayed");
-        System.out.println("=== END: ACC_47 ===");
+        LOG.info("=== END: ACC_47 ===");
     }
 
     @Test(priority = 5, description = "ACC_48 - Add Address Unsuccessfully - Telephone < 8 Digits")
     public void acc_48_addAddressWithShortTelephone() {
-        System.out.println("=== START: ACC_48 - Telephone < 8 digits ===");
+        LOG.info("=== START: ACC_48 - Telephone < 8 digits ===");
         loginToAccount();
-        accountPage.navigateToAccount();
-        accountPage.clickAddNewAddress();
+        accountPage().navigateToAccount();
+        accountPage().clickAddNewAddress();
 
-        int beforeCount = accountPage.getAddressCardCount();
+        int beforeCount = accountPage().getAddressCardCount();
 
         AddressData data = AddressData.getAddressWithShortTelephone();
-        System.out.println("Enter short telephone: " + data.getTelephone());
-        addressPopup.fillAddressForm(
+        LOG.info("Enter short telephone: " + data.getTelephone());
+        addressPopup().typeAddressForm(
                 data.getFullName(),
                 data.getTelephone(),
                 data.getAddress(),
@@ -243,10 +263,10 @@ public class AddAddressTest extends BaseTest {
                 data.getPostcode()
         );
 
-        addressPopup.clickSave();
+        addressPopup().clickSave();
 
-        String errorMsg = addressPopup.getErrorMessage();
-        System.out.println("Received error message: " + errorMsg);
+        String errorMsg = addressPopup().getErrorMessage();
+        LOG.info("Received error message: " + errorMsg);
 
         // ensure not added
         assertNoNewAddressAddedAfterFailure(beforeCount);
@@ -254,21 +274,21 @@ public class AddAddressTest extends BaseTest {
         Assert.assertNotNull(errorMsg, "Error message should be displayed");
         Assert.assertTrue(errorMsg.contains("Telephone") || errorMsg.toLowerCase().contains("valid"),
                 "Telephone validation error should be shown");
-        System.out.println("=== END: ACC_48 ===");
+        LOG.info("=== END: ACC_48 ===");
     }
 
     @Test(priority = 6, description = "ACC_49 - Add Address Unsuccessfully - Telephone > 11 Digits")
     public void acc_49_addAddressWithLongTelephone() {
-        System.out.println("=== START: ACC_49 - Telephone > 11 digits ===");
+        LOG.info("=== START: ACC_49 - Telephone > 11 digits ===");
         loginToAccount();
-        accountPage.navigateToAccount();
-        accountPage.clickAddNewAddress();
+        accountPage().navigateToAccount();
+        accountPage().clickAddNewAddress();
 
-        int beforeCount = accountPage.getAddressCardCount();
+        int beforeCount = accountPage().getAddressCardCount();
 
         AddressData data = AddressData.getAddressWithLongTelephone();
-        System.out.println("Enter long telephone: " + data.getTelephone());
-        addressPopup.fillAddressForm(
+        LOG.info("Enter long telephone: " + data.getTelephone());
+        addressPopup().typeAddressForm(
                 data.getFullName(),
                 data.getTelephone(),
                 data.getAddress(),
@@ -278,29 +298,29 @@ public class AddAddressTest extends BaseTest {
                 data.getPostcode()
         );
 
-        addressPopup.clickSave();
+        addressPopup().clickSave();
 
-        String errorMsg = addressPopup.getErrorMessage();
-        System.out.println("Received error message: " + errorMsg);
+        String errorMsg = addressPopup().getErrorMessage();
+        LOG.info("Received error message: " + errorMsg);
 
         // ensure not added
         assertNoNewAddressAddedAfterFailure(beforeCount);
 
         Assert.assertNotNull(errorMsg, "Error message should be displayed");
-        System.out.println("=== END: ACC_49 ===");
+        LOG.info("=== END: ACC_49 ===");
     }
 
     @Test(priority = 7, description = "ACC_50 - Add Address Unsuccessfully - Missing Address")
     public void acc_50_addAddressWithoutAddressField() {
-        System.out.println("=== START: ACC_50 - Missing Address ===");
+        LOG.info("=== START: ACC_50 - Missing Address ===");
         loginToAccount();
-        accountPage.navigateToAccount();
-        accountPage.clickAddNewAddress();
+        accountPage().navigateToAccount();
+        accountPage().clickAddNewAddress();
 
-        int beforeCount = accountPage.getAddressCardCount();
+        int beforeCount = accountPage().getAddressCardCount();
 
         AddressData data = AddressData.getSomeAddress(); // use a helper that returns reasonable fields (you can customize)
-        addressPopup.fillAddressForm(
+        addressPopup().fillAddressForm(
                 data.getFullName(),
                 data.getTelephone(),
                 "", // leave address blank
@@ -310,30 +330,30 @@ public class AddAddressTest extends BaseTest {
                 data.getPostcode()
         );
 
-        addressPopup.clickSave();
+        addressPopup().clickSave();
 
-        String errorMsg = addressPopup.getErrorMessage();
-        System.out.println("Received error message: " + errorMsg);
+        String errorMsg = addressPopup().getErrorMessage();
+        LOG.info("Received error message: " + errorMsg);
 
         assertNoNewAddressAddedAfterFailure(beforeCount);
 
         Assert.assertNotNull(errorMsg, "Error message should be displayed");
         Assert.assertTrue(errorMsg.toLowerCase().contains("address") || errorMsg.toLowerCase().contains("required"),
                 "Address validation error should be shown");
-        System.out.println("=== END: ACC_50 ===");
+        LOG.info("=== END: ACC_50 ===");
     }
 
     @Test(priority = 8, description = "ACC_51 - Add Address Unsuccessfully - Missing City")
     public void acc_51_addAddressWithoutCityField() {
-        System.out.println("=== START: ACC_51 - Missing City ===");
+        LOG.info("=== START: ACC_51 - Missing City ===");
         loginToAccount();
-        accountPage.navigateToAccount();
-        accountPage.clickAddNewAddress();
+        accountPage().navigateToAccount();
+        accountPage().clickAddNewAddress();
 
-        int beforeCount = accountPage.getAddressCardCount();
+        int beforeCount = accountPage().getAddressCardCount();
 
         AddressData data = AddressData.getSomeAddress();
-        addressPopup.fillAddressForm(
+        addressPopup().fillAddressForm(
                 data.getFullName(),
                 data.getTelephone(),
                 data.getAddress(),
@@ -343,30 +363,30 @@ public class AddAddressTest extends BaseTest {
                 data.getPostcode()
         );
 
-        addressPopup.clickSave();
+        addressPopup().clickSave();
 
-        String errorMsg = addressPopup.getErrorMessage();
-        System.out.println("Received error message: " + errorMsg);
+        String errorMsg = addressPopup().getErrorMessage();
+        LOG.info("Received error message: " + errorMsg);
 
         assertNoNewAddressAddedAfterFailure(beforeCount);
 
         Assert.assertNotNull(errorMsg, "Error message should be displayed");
         Assert.assertTrue(errorMsg.toLowerCase().contains("city") || errorMsg.toLowerCase().contains("required"),
                 "City validation error should be shown");
-        System.out.println("=== END: ACC_51 ===");
+        LOG.info("=== END: ACC_51 ===");
     }
 
     @Test(priority = 9, description = "ACC_52 - Add Address Unsuccessfully - Missing Postcode")
     public void acc_52_addAddressWithoutPostcodeField() {
-        System.out.println("=== START: ACC_52 - Missing Postcode ===");
+        LOG.info("=== START: ACC_52 - Missing Postcode ===");
         loginToAccount();
-        accountPage.navigateToAccount();
-        accountPage.clickAddNewAddress();
+        accountPage().navigateToAccount();
+        accountPage().clickAddNewAddress();
 
-        int beforeCount = accountPage.getAddressCardCount();
+        int beforeCount = accountPage().getAddressCardCount();
 
         AddressData data = AddressData.getSomeAddress();
-        addressPopup.fillAddressForm(
+        addressPopup().fillAddressForm(
                 data.getFullName(),
                 data.getTelephone(),
                 data.getAddress(),
@@ -376,30 +396,30 @@ public class AddAddressTest extends BaseTest {
                 "" // leave postcode blank
         );
 
-        addressPopup.clickSave();
+        addressPopup().clickSave();
 
-        String errorMsg = addressPopup.getErrorMessage();
-        System.out.println("Received error message: " + errorMsg);
+        String errorMsg = addressPopup().getErrorMessage();
+        LOG.info("Received error message: " + errorMsg);
 
         assertNoNewAddressAddedAfterFailure(beforeCount);
 
         Assert.assertNotNull(errorMsg, "Error message should be displayed");
         Assert.assertTrue(errorMsg.toLowerCase().contains("postcode") || errorMsg.toLowerCase().contains("required"),
                 "Postcode validation error should be shown");
-        System.out.println("=== END: ACC_52 ===");
+        LOG.info("=== END: ACC_52 ===");
     }
 
     @Test(priority = 10, description = "ACC_53 - Add Address Unsuccessfully - Address > 100 Characters")
     public void acc_53_addAddressOverLong() {
-        System.out.println("=== START: ACC_53 - Address > 100 chars ===");
+        LOG.info("=== START: ACC_53 - Address > 100 chars ===");
         loginToAccount();
-        accountPage.navigateToAccount();
-        accountPage.clickAddNewAddress();
+        accountPage().navigateToAccount();
+        accountPage().clickAddNewAddress();
 
-        int beforeCount = accountPage.getAddressCardCount();
+        int beforeCount = accountPage().getAddressCardCount();
 
         AddressData data = AddressData.getAddressWithVeryLongAddress(); // implement this in testdata
-        addressPopup.fillAddressForm(
+        addressPopup().typeAddressForm(
                 data.getFullName(),
                 data.getTelephone(),
                 data.getAddress(),
@@ -409,28 +429,28 @@ public class AddAddressTest extends BaseTest {
                 data.getPostcode()
         );
 
-        addressPopup.clickSave();
+        addressPopup().clickSave();
 
-        String errorMsg = addressPopup.getErrorMessage();
-        System.out.println("Received error message: " + errorMsg);
+        String errorMsg = addressPopup().getErrorMessage();
+        LOG.info("Received error message: " + errorMsg);
 
         assertNoNewAddressAddedAfterFailure(beforeCount);
 
         Assert.assertNotNull(errorMsg, "Error message should be displayed");
-        System.out.println("=== END: ACC_53 ===");
+        LOG.info("=== END: ACC_53 ===");
     }
 
     @Test(priority = 11, description = "ACC_54 - Add Address Unsuccessfully - City > 50 Characters")
     public void acc_54_addCityOverLong() {
-        System.out.println("=== START: ACC_54 - City > 50 chars ===");
+        LOG.info("=== START: ACC_54 - City > 50 chars ===");
         loginToAccount();
-        accountPage.navigateToAccount();
-        accountPage.clickAddNewAddress();
+        accountPage().navigateToAccount();
+        accountPage().clickAddNewAddress();
 
-        int beforeCount = accountPage.getAddressCardCount();
+        int beforeCount = accountPage().getAddressCardCount();
 
         AddressData data = AddressData.getAddressWithLongCity(); // implement in testdata
-        addressPopup.fillAddressForm(
+        addressPopup().typeAddressForm(
                 data.getFullName(),
                 data.getTelephone(),
                 data.getAddress(),
@@ -440,28 +460,28 @@ public class AddAddressTest extends BaseTest {
                 data.getPostcode()
         );
 
-        addressPopup.clickSave();
+        addressPopup().clickSave();
 
-        String errorMsg = addressPopup.getErrorMessage();
-        System.out.println("Received error message: " + errorMsg);
+        String errorMsg = addressPopup().getErrorMessage();
+        LOG.info("Received error message: " + errorMsg);
 
         assertNoNewAddressAddedAfterFailure(beforeCount);
 
         Assert.assertNotNull(errorMsg, "Error message should be displayed");
-        System.out.println("=== END: ACC_54 ===");
+        LOG.info("=== END: ACC_54 ===");
     }
 
     @Test(priority = 12, description = "ACC_55 - Add Address Unsuccessfully - Postcode > 20 Characters")
     public void acc_55_addPostcodeOverLong() {
-        System.out.println("=== START: ACC_55 - Postcode > 20 chars ===");
+        LOG.info("=== START: ACC_55 - Postcode > 20 chars ===");
         loginToAccount();
-        accountPage.navigateToAccount();
-        accountPage.clickAddNewAddress();
+        accountPage().navigateToAccount();
+        accountPage().clickAddNewAddress();
 
-        int beforeCount = accountPage.getAddressCardCount();
+        int beforeCount = accountPage().getAddressCardCount();
 
         AddressData data = AddressData.getAddressWithLongPostcode(); // implement in testdata
-        addressPopup.fillAddressForm(
+        addressPopup().typeAddressForm(
                 data.getFullName(),
                 data.getTelephone(),
                 data.getAddress(),
@@ -471,29 +491,29 @@ public class AddAddressTest extends BaseTest {
                 data.getPostcode()
         );
 
-        addressPopup.clickSave();
+        addressPopup().clickSave();
 
-        String errorMsg = addressPopup.getErrorMessage();
-        System.out.println("Received error message: " + errorMsg);
+        String errorMsg = addressPopup().getErrorMessage();
+        LOG.info("Received error message: " + errorMsg);
 
         assertNoNewAddressAddedAfterFailure(beforeCount);
 
         Assert.assertNotNull(errorMsg, "Error message should be displayed");
-        System.out.println("=== END: ACC_55 ===");
+        LOG.info("=== END: ACC_55 ===");
     }
 
     @Test(priority = 15, description = "ACC_58 - Allow Editing Default Address")
     public void acc_58_editDefaultAddress() {
-        System.out.println("=== START: ACC_58 - Allow editing default address ===");
+        LOG.info("=== START: ACC_58 - Allow editing default address ===");
         loginToAccount();
-        accountPage.navigateToAccount();
+        accountPage().navigateToAccount();
 
         // precondition: ensure at least one address exists and one is default
-        int beforeCount = accountPage.getAddressCardCount();
+        int beforeCount = accountPage().getAddressCardCount();
         Assert.assertTrue(beforeCount > 0, "Precondition: at least one address must exist");
 
         // ensure there is a default card (will click Make default if needed)
-        WebElement defaultCardBefore = accountPage.ensureDefaultAddressExists(5);
+        WebElement defaultCardBefore = accountPage().ensureDefaultAddressExists(5);
         Assert.assertNotNull(defaultCardBefore, "Precondition: a default address card must exist (or be created)");
 
         // For debug: capture the default card's name (so we can re-find it later)
@@ -504,35 +524,35 @@ public class AddAddressTest extends BaseTest {
         } catch (Exception ignored) {}
 
         // Click Edit inside that default card
-        accountPage.clickEditOnCard(defaultCardBefore);
+        accountPage().clickEditOnCard(defaultCardBefore);
 
         // modify a field (telephone) and save
         String newTelephone = "0900000000";
-        addressPopup.fillTelephone(newTelephone);
+        addressPopup().fillTelephone(newTelephone);
 
         // save and wait for toast (ensure you have saveAndWaitToast helper in test)
         String toast = saveAndWaitToast();
-        System.out.println("Toast after edit: " + toast);
+        LOG.info("Toast after edit: " + toast);
         Assert.assertNotNull(toast, "Expected a toast after save");
         Assert.assertTrue(toast.toLowerCase().contains("updated") || toast.toLowerCase().contains("successfully"),
                 "Expected update success toast (got: " + toast + ")");
 
         // After save the DOM might change. Re-find the default card element (do not reuse old WebElement)
-        WebElement defaultCardAfter = accountPage.findDefaultAddressCard();
+        WebElement defaultCardAfter = accountPage().findDefaultAddressCard();
         Assert.assertNotNull(defaultCardAfter, "Default card should still be present after edit");
 
         // Wait for updated telephone to appear inside that card
-        boolean updated = accountPage.waitForCardTelephoneToMatch(defaultCardAfter, newTelephone, 5);
+        boolean updated = accountPage().waitForCardTelephoneToMatch(defaultCardAfter, newTelephone, 5);
         if (!updated) {
             // fallback: try to find by full name (if we captured it) and check telephone there
             if (!defaultFullName.isEmpty()) {
-                List<WebElement> cards = driver.findElements(By.cssSelector(".address__summary"));
+                List<WebElement> cards = getDriver().findElements(By.cssSelector(".address__summary"));
                 for (WebElement c : cards) {
                     try {
                         String name = c.findElement(By.cssSelector(".full-name")).getText().trim();
                         if (name.equalsIgnoreCase(defaultFullName)) {
                             // wait on this card
-                            updated = accountPage.waitForCardTelephoneToMatch(c, newTelephone, 3);
+                            updated = accountPage().waitForCardTelephoneToMatch(c, newTelephone, 3);
                             if (updated) break;
                         }
                     } catch (Exception ignored) {}
@@ -542,23 +562,23 @@ public class AddAddressTest extends BaseTest {
         Assert.assertTrue(updated, "Edited telephone should be visible on card (expected: " + newTelephone + ")");
 
         // Verify the card we edited remains default
-        boolean stillDefault = accountPage.isCardDefault(defaultCardAfter);
+        boolean stillDefault = accountPage().isCardDefault(defaultCardAfter);
         Assert.assertTrue(stillDefault, "Edited card should remain default");
 
-        System.out.println("=== END: ACC_58 ===");
+        LOG.info("=== END: ACC_58 ===");
     }
     @Test(priority = 14, description = "ACC_57 - Add Address Unsuccessfully - Enter Only Spaces")
     public void acc_57_addAddressWithSpacesOnly() {
-        System.out.println("=== START: ACC_57 - Enter only spaces ===");
+        LOG.info("=== START: ACC_57 - Enter only spaces ===");
         loginToAccount();
-        accountPage.navigateToAccount();
-        accountPage.clickAddNewAddress();
+        accountPage().navigateToAccount();
+        accountPage().clickAddNewAddress();
 
-        int beforeCount = accountPage.getAddressCardCount();
+        int beforeCount = accountPage().getAddressCardCount();
 
         // Enter only spaces
         String space = "   ";
-        addressPopup.fillAddressForm(
+        addressPopup().typeAddressForm(
                 space,   // Full name
                 space,   // Telephone
                 space,   // Address
@@ -568,17 +588,17 @@ public class AddAddressTest extends BaseTest {
                 space    // Postcode
         );
 
-        System.out.println("Click Save...");
-        addressPopup.clickSave();
+        LOG.info("Click Save...");
+        addressPopup().clickSave();
 
         // Wait and get all errors displayed
-        boolean any = addressPopup.waitForAnyFieldError(5);
+        boolean any = addressPopup().waitForAnyFieldError(5);
         if (!any) {
-            System.out.println("Warning: No field error detected after Save click (check selector).");
+            LOG.warn("No field error detected after Save click (check selector).");
         }
 
-        List<String> errors = addressPopup.getAllErrorMessages();
-        System.out.println("Error messages found (" + errors.size() + "): " + errors);
+        List<String> errors = addressPopup().getAllErrorMessages();
+        LOG.info("Error messages found (" + errors.size() + "): " + errors);
 
         // No new address added
         assertNoNewAddressAddedAfterFailure(beforeCount);
@@ -592,25 +612,25 @@ public class AddAddressTest extends BaseTest {
         }
 
         // Popup remains open
-        Assert.assertTrue(addressPopup.isPopupDisplayed(), "Popup should remain open after validation errors");
+        Assert.assertTrue(addressPopup().isPopupDisplayed(), "Popup should remain open after validation errors");
 
-        System.out.println("=== END: ACC_57 ===");
+        LOG.info("=== END: ACC_57 ===");
     }
     @Test(priority = 13, description = "ACC_56 - Add Address Unsuccessfully - Invalid Telephone")
     public void acc_56_addAddressWithInvalidTelephone() {
-        System.out.println("=== START: ACC_56 - Invalid telephone ===");
+        LOG.info("=== START: ACC_56 - Invalid telephone ===");
         loginToAccount();
-        accountPage.navigateToAccount();
-        accountPage.clickAddNewAddress();
-        Assert.assertTrue(addressPopup.isPopupDisplayed(), "Add address popup should be displayed");
+        accountPage().navigateToAccount();
+        accountPage().clickAddNewAddress();
+        Assert.assertTrue(addressPopup().isPopupDisplayed(), "Add address popup should be displayed");
 
-        int beforeCount = accountPage.getAddressCardCount();
+        int beforeCount = accountPage().getAddressCardCount();
 
         // Test data
         AddressData data = AddressData.getSomeAddress();
         String invalidTelephone = "abc03422113"; // or "083218337{]"
 
-        addressPopup.fillAddressForm(
+        addressPopup().typeAddressForm(
                 "Kim Hoa",
                 invalidTelephone,
                 "12 MG Road",
@@ -620,12 +640,12 @@ public class AddAddressTest extends BaseTest {
                 "560001"
         );
 
-        System.out.println("Click Save...");
-        addressPopup.clickSave();
+        LOG.info("Click Save...");
+        addressPopup().clickSave();
 
         // Get displayed error message
-        String errorMsg = addressPopup.getErrorMessage();
-        System.out.println("Received error message: " + errorMsg);
+        String errorMsg = addressPopup().getErrorMessage();
+        LOG.info("Received error message: " + errorMsg);
 
         // No new address added
         assertNoNewAddressAddedAfterFailure(beforeCount);
@@ -637,7 +657,7 @@ public class AddAddressTest extends BaseTest {
                 "Expected 'Telephone number is invalid' message, got: " + errorMsg
         );
 
-        System.out.println("=== END: ACC_56 ===");
+        LOG.info("=== END: ACC_56 ===");
     }
 
 
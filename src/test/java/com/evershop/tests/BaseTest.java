@@ -1,91 +1,380 @@
 package com.evershop.tests;
 
+import com.evershop.driver.BrowserSlots;
+import com.evershop.driver.CommandProfiler;
+import com.evershop.driver.DriverFactory;
+import com.evershop.driver.ResourceGuard;
+import com.evershop.driver.RoundTripBudget;
+import com.evershop.driver.Screencast;
+import com.evershop.http.SiteHealth;
 import com.evershop.pages.*;
+import com.evershop.perf.JfrEvents;
+import com.evershop.perf.PageTelemetry;
+import com.evershop.perf.Spans;
 import com.evershop.testdata.SearchData;
-import io.github.bonigarcia.wdm.WebDriverManager;
-import io.qameta.allure.Allure;
-import io.qameta.allure.Attachment;
+import com.evershop.utils.Deadline;
+import com.evershop.utils.ExecutionMode;
+import com.evershop.utils.Log;
+import com.evershop.utils.LogAttachments;
+import com.evershop.utils.ReportBus;
+import com.evershop.utils.ReportSinks;
+import com.evershop.utils.SpanAttachments;
+import com.evershop.utils.TestConfig;
+import com.evershop.utils.TestContext;
+import com.evershop.utils.VirtualThreads;
 import org.openqa.selenium.OutputType;
 import org.openqa.selenium.TakesScreenshot;
 import org.openqa.selenium.WebDriver;
-import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.WebDriverException;
 import org.openqa.selenium.chrome.ChromeOptions;
-import org.testng.ITestListener;
+import org.testng.IHookCallBack;
+import org.testng.IHookable;
 import org.testng.ITestResult;
+import org.testng.SkipException;
 import org.testng.annotations.*;
 
-public class BaseTest implements ITestListener {
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
-    protected WebDriver driver;
-    protected LoginPage loginPage;
-    protected AccountPage accountPage;
-    protected AddressPopup addressPopup;
-    protected HomePage homePage;
-    protected SearchResultPage searchResultPage;
+public class BaseTest implements IHookable {
 
-    @BeforeClass
-    public void setupClass() {
-        WebDriverManager.chromedriver().setup();
+    private static final Log LOG = Log.get(BaseTest.class);
+
+    // -Dexecution.mode=virtual (profile virtual-threads, Java 21): setup, body and teardown of each
+    // invocation run together on one virtual thread; browsers stay capped by -Dbrowsers.max
+    private static final boolean VIRTUAL_MODE = ExecutionMode.isVirtual();
+    private static final ExecutorService INVOCATIONS = VIRTUAL_MODE ? VirtualThreads.newThreadPerTaskExecutor("test") : null;
+
+    // one instance serves every parallel invocation of the class: browser state lives per invocation
+    private static final ThreadLocal<Invocation> INVOCATION = new ThreadLocal<>();
+
+    static {
+        ReportSinks.install(); // Allure, Extent, metrics (-Dreport.sinks) read the ReportBus off the test thread
+    }
+
+    /** Browser, slot and page objects of the invocation running on this thread. */
+    private static final class Invocation {
+        WebDriver driver;
+        boolean holdsBrowserSlot;
+        int roundTripBudget; // 0 = none
+        boolean profiled;
+        Screencast screencast; // -Dscreencast.enabled: last seconds of screen, kept on failure only
+        LoginPage loginPage;
+        AccountPage accountPage;
+        AddressPopup addressPopup;
+        HomePage homePage;
     }
 
-    // inside BaseTest
+    /** Driver of the current invocation, or null outside one. */
     public WebDriver getDriver() {
-        return this.driver; // adjust if your webdriver field has different name
+        Invocation invocation = INVOCATION.get();
+        return invocation != null ? invocation.driver : null;
+    }
+
+    protected LoginPage loginPage() {
+        return invocation().loginPage;
+    }
+
+    protected AccountPage accountPage() {
+        return invocation().accountPage;
+    }
+
+    protected AddressPopup addressPopup() {
+        return invocation().addressPopup;
+    }
+
+    protected HomePage homePage() {
+        return invocation().homePage;
+    }
+
+    private static Invocation invocation() {
+        Invocation invocation = INVOCATION.get();
+        if (invocation == null || invocation.driver == null) {
+            throw new IllegalStateException("No browser open on " + Thread.currentThread() + " (outside a test invocation?)");
+        }
+        return invocation;
     }
 
     @BeforeMethod
-    public void setup() {
+    public void setup(Method method) {
+        if (!VIRTUAL_MODE) open(method); // virtual mode opens the browser in run(), on the invocation's thread
+    }
+
+    // alwaysRun: also after a failed setup, which may have left a browser and a slot behind
+    @AfterMethod(alwaysRun = true)
+    public void tearDown() {
+        if (!VIRTUAL_MODE) close();
+    }
+
+    private void open(Method method) {
+        String unavailable = SiteHealth.get().admit(); // pre-flight / circuit breaker, before Chrome starts
+        if (unavailable != null) throw new SkipException(unavailable);
+
+        TestContext context = TestContext.start(getClass().getSimpleName() + "." + method.getName());
+        Invocation invocation = new Invocation();
+        INVOCATION.set(invocation);
+
         ChromeOptions options = new ChromeOptions();
         options.addArguments("--start-maximized");
         options.addArguments("--disable-notifications");
         // options.addArguments("--headless"); // Commented out to show browser for debugging
-        driver = new ChromeDriver(options);
 
-        // Initialize page objects
-        loginPage = new LoginPage(driver);
-        accountPage = new AccountPage(driver);
-        addressPopup = new AddressPopup(driver);
-        homePage = new HomePage(driver);
+        BrowserSlots.acquire();
+        invocation.holdsBrowserSlot = true;
+        try {
+            WebDriver driver = DriverFactory.createDriver(options); // local Chrome or Selenium Grid (-Ddriver.mode=grid)
+            invocation.driver = driver;
+            invocation.roundTripBudget = roundTripBudgetOf(method);
+            invocation.profiled = invocation.roundTripBudget > 0 || TestConfig.getBoolean("webdriver.profile", false);
+            if (invocation.profiled || JfrEvents.isEnabled()) {
+                driver = CommandProfiler.decorate(driver); // count/time every command sent to the driver
+                invocation.driver = driver;
+            }
+            context.setDriver(driver);
+            invocation.screencast = Screencast.start(driver);
+
+            // Initialize page objects
+            invocation.loginPage = page(LoginPage.class);
+            invocation.accountPage = page(AccountPage.class);
+            invocation.addressPopup = page(AddressPopup.class);
+            invocation.homePage = page(HomePage.class);
+
+            // -Dtest.deadline starts now: waiting for a slot and launching Chrome are not the test's time
+            context.setDeadline(Deadline.fromConfig());
 
-        // Navigate to the home page
-        driver.get(SearchData.getBaseUrl());
+            // Navigate to the home page
+            try {
+                driver.get(SearchData.getBaseUrl());
+            } catch (RuntimeException e) {
+                SiteHealth.get().record(SearchData.getBaseUrl(), e); // a page-load timeout here is the shop's
+                throw e;
+            }
+            PageTelemetry.capture(driver, "home");
+        } catch (RuntimeException | Error e) {
+            closeBrowser(); // do not wait for tearDown: the slot is what the next test is queueing for
+            throw e;
+        }
     }
 
-    @AfterMethod
-    public void tearDown() {
-        if (driver != null) {
-            driver.quit();
+    private void close() {
+        try {
+            WebDriver driver = getDriver();
+            if (driver != null) {
+                PageTelemetry.finish(driver); // vitals of the last page, before the browser goes away
+            }
+        } finally {
+            closeBrowser();
+            INVOCATION.remove();
+            if (TestContext.current() != null) {
+                Spans.drain(TestContext.current().getTestId()); // spans after the body
+                CommandProfiler.finish(TestContext.current().getTestId());
+                Log.takeTestLog(TestContext.current().getTestId()); // teardown lines: console only
+            }
+            TestContext.clear();
         }
     }
 
-    protected void loginToAccount() {
-        // Sử dụng account test của demo.evershop.io
-        loginPage.login("kimanh61224@gmail.com", "123456");
+    // alwaysRun: a class whose setup failed may still hold a browser; reap it before the next class queues
+    @AfterClass(alwaysRun = true)
+    public void reapBrowsers() {
+        closeBrowser();
+        ResourceGuard.reapClass(getClass().getSimpleName());
     }
 
-    @Override
-    public void onTestFailure(ITestResult result) {
-        if (driver instanceof TakesScreenshot) {
-            takeScreenshot("Screenshot on Failure: " + result.getMethod().getMethodName());
+    @AfterSuite(alwaysRun = true)
+    public void writeWaitMetrics() {
+        try {
+            LOG.info(SiteHealth.get().describe());
+            ReportBus.flush();
+            WaitPolicy.writeMetrics(Paths.get("target", "wait-metrics.csv"));
+            LocatorSet.exportRanking();
+            if (Spans.isEnabled()) {
+                Spans.writeReport(Paths.get("target", "span-histograms.csv"));
+                SpanAttachments.attachSummary();
+            }
+            CommandProfiler.writeReport(Paths.get("target", "webdriver-commands.csv"));
+            if (PageTelemetry.isEnabled()) {
+                PageTelemetry.writeReport(Paths.get("target", "page-telemetry.csv"));
+                List<String> exceeded = PageTelemetry.violations();
+                if (!exceeded.isEmpty()) {
+                    throw new AssertionError("Page telemetry thresholds exceeded:\n  " + String.join("\n  ", exceeded));
+                }
+            }
+        } finally {
+            ResourceGuard.reportLeaks(Paths.get("target", "resource-leaks.csv")); // also when a report above failed
         }
     }
 
-    @Attachment(value = "{description}", type = "image/png")
-    public byte[] takeScreenshot(String description) {
-        return ((TakesScreenshot) driver).getScreenshotAs(OutputType.BYTES);
+    /** Page object for the current driver, instrumented with timing spans when -Dspans.enabled=true. */
+    protected <T extends BasePage> T page(Class<T> pageClass) {
+        return PageObjects.create(pageClass, getDriver());
     }
 
-    // Other ITestListener methods can be empty or default implementation
-    @Override
-    public void onTestStart(ITestResult result) {}
-    @Override
-    public void onTestSuccess(ITestResult result) {}
-    @Override
-    public void onTestSkipped(ITestResult result) {}
-    @Override
-    public void onTestFailedButWithinSuccessPercentage(ITestResult result) {}
-    @Override
-    public void onStart(org.testng.ITestContext context) {}
+    /**
+     * Quits this invocation's browser, if any, and returns the slot it acquired; safe to call more
+     * than once.
+     */
+    private static void closeBrowser() {
+        Invocation invocation = INVOCATION.get();
+        if (invocation == null) return;
+        WebDriver browser = invocation.driver;
+        invocation.driver = null;
+        try {
+            stopScreencast(invocation);
+            if (browser != null) browser.quit();
+        } catch (WebDriverException e) {
+            LOG.warn("Browser not quit cleanly: " + e.getMessage());
+        } finally {
+            if (invocation.holdsBrowserSlot) {
+                invocation.holdsBrowserSlot = false;
+                BrowserSlots.release();
+            }
+        }
+    }
+
+    /**
+     * Runs the test body, then publishes its failure screenshot, log and timing spans (if enabled)
+     * and waits for the report sinks while the report test is still open. In virtual mode the whole
+     * invocation - browser setup, body and teardown - runs on one virtual thread and the TestNG
+     * worker only waits for it.
+     */
     @Override
-    public void onFinish(org.testng.ITestContext context) {}
+    public void run(IHookCallBack callBack, ITestResult testResult) {
+        if (!VIRTUAL_MODE) {
+            runTest(callBack, testResult);
+            return;
+        }
+        Method method = testResult.getMethod().getConstructorOrMethod().getMethod();
+        Future<?> invocation = INVOCATIONS.submit(() -> {
+            try {
+                open(method);
+                runTest(callBack, testResult);
+            } finally {
+                close();
+            }
+            return null;
+        });
+        try {
+            invocation.get();
+        } catch (InterruptedException e) {
+            invocation.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for " + method.getName(), e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    private void runTest(IHookCallBack callBack, ITestResult testResult) {
+        String testId = TestContext.current() != null ? TestContext.current().getTestId() : null;
+        if (testId != null) ReportBus.testStarted(testId, ReportSinks.handles(testResult));
+        Invocation invocation = INVOCATION.get();
+        Throwable failure = null;
+        try {
+            try {
+                callBack.runTestMethod(testResult);
+                SiteHealth.get().record(testResult.getThrowable());
+            } finally {
+                if (testResult.getThrowable() != null) {
+                    publishScreenshot(testResult);
+                    saveScreencast(invocation);
+                }
+                stopScreencast(invocation);
+                reportMissedDeadline();
+                if (testId != null) {
+                    if (Spans.isEnabled()) SpanAttachments.attach(testId, Spans.drain(testId));
+                    LogAttachments.attach(testId);
+                }
+            }
+            checkRoundTripBudget(testResult, invocation);
+        } catch (RuntimeException | Error e) {
+            failure = e;
+            throw e;
+        } finally {
+            if (failure == null) failure = testResult.getThrowable();
+            if (testId != null) {
+                ReportBus.endTest(testId, failure == null ? "passed" : failure instanceof SkipException ? "skipped" : "failed", failure);
+            }
+        }
+    }
+
+    /** The one screenshot of a failed test, for every report. */
+    private void publishScreenshot(ITestResult testResult) {
+        WebDriver driver = getDriver();
+        if (!(driver instanceof TakesScreenshot)) return;
+        try {
+            byte[] png = ((TakesScreenshot) driver).getScreenshotAs(OutputType.BYTES);
+            ReportBus.attach("Screenshot on failure: " + testResult.getMethod().getMethodName(), "image/png", ".png", png);
+        } catch (WebDriverException e) {
+            LOG.warn("Failure screenshot not taken: " + e.getMessage());
+        }
+    }
+
+    /** The buffered screencast of a failed test, for every report. */
+    private static void saveScreencast(Invocation invocation) {
+        if (invocation == null || invocation.screencast == null || TestContext.current() == null) return;
+        try {
+            Path file = invocation.screencast.save(Paths.get("ExtentReports", "screencasts", TestContext.current().getTestId()));
+            if (file == null) return;
+            boolean gif = file.getFileName().toString().endsWith(".gif");
+            ReportBus.attach("Screencast before failure", gif ? "image/gif" : "video/x-motion-jpeg", gif ? ".gif" : ".mjpeg", file);
+        } catch (IOException | RuntimeException e) {
+            LOG.warn("Screencast not saved: " + e.getMessage());
+        }
+    }
+
+    private static void stopScreencast(Invocation invocation) {
+        if (invocation != null && invocation.screencast != null) {
+            invocation.screencast.stop();
+            invocation.screencast = null;
+        }
+    }
+
+    /** Where the time went, when the test ran past its Deadline. */
+    private void reportMissedDeadline() {
+        Deadline deadline = TestContext.current() != null ? TestContext.current().getDeadline() : null;
+        if (deadline == null || !deadline.isMissed()) return;
+        String report = deadline.describe();
+        LOG.warn(report);
+        ReportBus.attach("Test deadline missed", report);
+    }
+
+    /**
+     * Reports the heaviest WebDriver callers of a profiled test and fails a passing test that sent
+     * more commands than its @RoundTripBudget / -Dwebdriver.roundTrips.max.
+     */
+    private static void checkRoundTripBudget(ITestResult testResult, Invocation invocation) {
+        if (invocation == null || !invocation.profiled || TestContext.current() == null) return;
+        int roundTripBudget = invocation.roundTripBudget;
+        CommandProfiler.Profile profile = CommandProfiler.current(TestContext.current().getTestId());
+        String summary = profile.describe(10);
+        LOG.info(summary);
+        ReportBus.attach("WebDriver commands", summary);
+        ReportBus.metric("webdriver.roundTrips", profile.getRoundTrips(), "commands");
+
+        if (roundTripBudget > 0 && profile.getRoundTrips() > roundTripBudget && testResult.getThrowable() == null) {
+            throw new AssertionError("WebDriver round-trip budget exceeded: " + profile.getRoundTrips()
+                    + " > " + roundTripBudget + "\n" + summary);
+        }
+    }
+
+    private static int roundTripBudgetOf(Method method) {
+        RoundTripBudget budget = method.getAnnotation(RoundTripBudget.class);
+        if (budget == null) budget = method.getDeclaringClass().getAnnotation(RoundTripBudget.class);
+        return budget != null ? budget.value() : TestConfig.getInt("webdriver.roundTrips.max", 0);
+    }
+
+    protected void loginToAccount() {
+        // Sử dụng account test của demo.evershop.io
+        loginPage().login("kimanh61224@gmail.com", "123456");
+    }
 }
@@ -0,0 +1,55 @@
+package com.evershop.tests;
+
+import com.evershop.http.HttpLoadGenerator;
+import com.evershop.http.StandInServer;
+import com.evershop.utils.Log;
+import com.evershop.utils.TestConfig;
+import io.qameta.allure.Allure;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Open-loop HTTP load run (mvn test -Phttp-load -Dhttpload.rate=200 -Dhttpload.duration=30000).
+ *
+ * Runs HttpLoadGenerator against the local StandInServer, or against -Dhttpload.baseUrl when
+ * given, and writes target/http-load.csv and target/http-load.json. Latency percentiles are
+ * measured from each request's scheduled time (coordinated-omission corrected).
+ */
+public class HttpLoadTest {
+
+    private static final Log LOG = Log.get(HttpLoadTest.class);
+
+    private static final Path CSV = Paths.get("target", "http-load.csv");
+    private static final Path JSON = Paths.get("target", "http-load.json");
+
+    @Test(description = "Fixed arrival-rate HTTP load on search, login and address endpoints")
+    public void openLoopLoad() throws IOException {
+        String baseUrl = TestConfig.getString("httpload.baseUrl", null);
+        StandInServer standIn = baseUrl == null ? StandInServer.start() : null;
+        HttpLoadGenerator generator;
+        try {
+            generator = HttpLoadGenerator.fromConfig(standIn != null ? standIn.getBaseUrl() : baseUrl);
+            generator.run();
+        } finally {
+            if (standIn != null) standIn.close();
+        }
+        generator.writeReport(CSV, JSON);
+
+        String csv = new String(Files.readAllBytes(CSV), StandardCharsets.UTF_8);
+        LOG.info("HTTP load (" + (standIn != null ? "stand-in" : baseUrl) + "):\n" + csv);
+        Allure.addAttachment("HTTP load", "text/csv", csv, ".csv");
+        Allure.addAttachment("HTTP load (JSON)", "application/json",
+                new String(Files.readAllBytes(JSON), StandardCharsets.UTF_8), ".json");
+
+        Assert.assertTrue(generator.getRequests() > 0, "No request was measured");
+        double maxErrorRate = Double.parseDouble(TestConfig.getString("httpload.maxErrorRate", "0.01"));
+        Assert.assertTrue(generator.getErrors() <= maxErrorRate * generator.getRequests(),
+                generator.getErrors() + " of " + generator.getRequests() + " requests failed, see " + CSV);
+    }
+}
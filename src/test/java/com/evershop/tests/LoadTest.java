@@ -0,0 +1,52 @@
+package com.evershop.tests;
+
+import com.evershop.perf.LoadRunner;
+import com.evershop.perf.LoadScenarios;
+import com.evershop.testdata.SearchData;
+import com.evershop.utils.Log;
+import com.evershop.utils.TestConfig;
+import io.qameta.allure.Allure;
+import org.testng.Assert;
+import org.testng.SkipException;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Synthetic-user load run (mvn test -Pload -Dbase.url=https://staging.example -Dload.mix=search:80,address:20).
+ *
+ * Runs the LoadRunner phases with the page-object scenarios and writes target/load-timeline.csv
+ * (per window) and target/load-summary.csv (steady state). The public demo shop is refused unless
+ * -Dload.allowPublicDemo=true.
+ */
+public class LoadTest {
+
+    private static final Log LOG = Log.get(LoadTest.class);
+
+    private static final Path TIMELINE = Paths.get("target", "load-timeline.csv");
+    private static final Path SUMMARY = Paths.get("target", "load-summary.csv");
+
+    @Test(description = "Browser-level load with ramp-up, steady state and ramp-down")
+    public void loadProfile() throws IOException {
+        if (SearchData.BASE_URL.equals(SearchData.getBaseUrl()) && !TestConfig.getBoolean("load.allowPublicDemo", false)) {
+            throw new SkipException("Load run needs -Dbase.url (staging or local stand-in), not the public demo shop");
+        }
+        LoadRunner.Result result = LoadRunner.fromConfig(LoadScenarios.all()).run();
+        result.writeReport(TIMELINE, SUMMARY);
+
+        String summary = new String(Files.readAllBytes(SUMMARY), StandardCharsets.UTF_8);
+        LOG.info("Load steady state (" + SearchData.getBaseUrl() + "):\n" + summary);
+        Allure.addAttachment("Load steady state", "text/csv", summary, ".csv");
+        Allure.addAttachment("Load timeline", "text/csv",
+                new String(Files.readAllBytes(TIMELINE), StandardCharsets.UTF_8), ".csv");
+
+        Assert.assertTrue(result.getIterations() > 0, "No scenario iteration completed");
+        double maxErrorRate = Double.parseDouble(TestConfig.getString("load.maxErrorRate", "0.05"));
+        Assert.assertTrue(result.getErrors() <= maxErrorRate * result.getIterations(),
+                result.getErrors() + " of " + result.getIterations() + " iterations failed, see " + TIMELINE);
+    }
+}
@@ -0,0 +1,120 @@
+package com.evershop.tests;
+
+import com.evershop.driver.DriverFactory;
+import com.evershop.pages.LoginPage;
+import com.evershop.perf.LocatorBudget;
+import com.evershop.perf.LocatorCostAnalyzer;
+import com.evershop.testdata.SearchData;
+import com.evershop.utils.TestConfig;
+import io.qameta.allure.Allure;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Build-time locator cost check (mvn test -Plocator-budget).
+ *
+ * Measures every locator in the page objects on the DOM fixtures in src/test/resources/recorded-dom
+ * and fails when a locator's counted work exceeds its budget in src/test/resources/locator-budget.txt,
+ * or when it does not evaluate at all. Only the fixtures are measured, so the result does not depend
+ * on the live site; -Dlocator.dom.record=true records fresh pages into target/recorded-dom instead
+ * (copy them into the fixtures folder to pin them).
+ */
+public class LocatorBudgetTest {
+
+    private static final Path PAGES_SOURCE = Paths.get(TestConfig.getString("locator.sources", "src/main/java/com/evershop/pages"));
+    private static final Path RECORDED_DOM = Paths.get(TestConfig.getString("locator.dom", "src/test/resources/recorded-dom"));
+    private static final Path BUDGET_FILE = Paths.get(TestConfig.getString("locator.budget", "src/test/resources/locator-budget.txt"));
+    private static final Path REPORT_DIR = Paths.get("target", "locator-cost");
+
+    private WebDriver driver;
+
+    @BeforeClass
+    public void startBrowser() {
+        ChromeOptions options = new ChromeOptions();
+        options.addArguments("--headless=new");
+        options.addArguments("--window-size=1920,1080");
+        driver = DriverFactory.createDriver(options);
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void stopBrowser() {
+        if (driver != null) {
+            driver.quit();
+        }
+    }
+
+    @Test(description = "Page-object locators stay within their evaluation budget on the recorded DOM")
+    public void locatorsWithinBudget() throws IOException {
+        List<LocatorCostAnalyzer.Locator> locators = LocatorCostAnalyzer.scan(PAGES_SOURCE);
+        Assert.assertFalse(locators.isEmpty(), "No locators found under " + PAGES_SOURCE);
+
+        List<Path> doms = recordedDoms();
+        Assert.assertFalse(doms.isEmpty(), "No DOM fixtures (*.html) in " + RECORDED_DOM);
+        LocatorCostAnalyzer analyzer = new LocatorCostAnalyzer();
+        List<LocatorCostAnalyzer.Cost> costs = new ArrayList<>();
+        for (Path dom : doms) {
+            costs.addAll(analyzer.measure(driver, dom, locators));
+        }
+        Map<LocatorCostAnalyzer.Locator, LocatorCostAnalyzer.Cost> worst = LocatorCostAnalyzer.worstCase(costs);
+
+        LocatorCostAnalyzer.writeCsv(costs, REPORT_DIR.resolve("locator-cost.csv"));
+        LocatorCostAnalyzer.writeSuggestions(worst, REPORT_DIR.resolve("suggestions.txt"));
+        Allure.addAttachment("Locator suggestions", "text/plain",
+                new String(Files.readAllBytes(REPORT_DIR.resolve("suggestions.txt")), StandardCharsets.UTF_8), ".txt");
+
+        LocatorBudget budget = LocatorBudget.load(BUDGET_FILE, TestConfig.getInt("locator.budget.default", 3));
+        if (TestConfig.getBoolean("locator.budget.update", false)) {
+            budget.writeBaseline(worst, BUDGET_FILE);
+            return;
+        }
+        List<String> violations = budget.violations(worst);
+        Assert.assertTrue(violations.isEmpty(),
+                "Locators over budget (" + BUDGET_FILE + "):\n" + String.join("\n", violations));
+    }
+
+    /* -----------------------------
+       Recorded DOM
+       ----------------------------- */
+
+    private List<Path> recordedDoms() throws IOException {
+        if (!TestConfig.getBoolean("locator.dom.record", false)) return htmlFiles(RECORDED_DOM);
+
+        Path target = Paths.get("target", "recorded-dom");
+        String base = SearchData.getBaseUrl();
+        record(base, target.resolve("home.html"));
+        record(base + "/search?keyword=" + SearchData.VALID_KEYWORD, target.resolve("search-results.html"));
+        record(base + "/search?keyword=" + SearchData.NON_EXISTENT_PRODUCT, target.resolve("search-empty.html"));
+
+        new LoginPage(driver).login("kimanh61224@gmail.com", "123456");
+        record(base + "/account", target.resolve("account.html"));
+        return htmlFiles(target);
+    }
+
+    private void record(String url, Path file) throws IOException {
+        driver.get(url);
+        Files.createDirectories(file.getParent());
+        Files.write(file, driver.getPageSource().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static List<Path> htmlFiles(Path dir) throws IOException {
+        if (!Files.isDirectory(dir)) return new ArrayList<>();
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(p -> p.toString().endsWith(".html")).sorted().collect(Collectors.toList());
+        }
+    }
+}
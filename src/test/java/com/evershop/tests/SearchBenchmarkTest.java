@@ -0,0 +1,57 @@
+package com.evershop.tests;
+
+import com.evershop.perf.SearchBenchmark;
+import com.evershop.testdata.SearchCorpus;
+import com.evershop.testdata.SearchData;
+import com.evershop.utils.Log;
+import com.evershop.utils.TestConfig;
+import io.qameta.allure.Allure;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Search latency and relevance benchmark (mvn test -Psearch-benchmark).
+ *
+ * Streams the keyword corpus (-Dbenchmark.corpus, CSV or JSONL) through a pool of
+ * -Dbenchmark.browsers headless browsers and writes target/search-benchmark.csv (p50/p99 and
+ * relevance per keyword class) and target/search-benchmark-queries.csv (one row per query).
+ */
+public class SearchBenchmarkTest {
+
+    private static final Log LOG = Log.get(SearchBenchmarkTest.class);
+
+    private static final Path CORPUS = Paths.get(TestConfig.getString("benchmark.corpus", "src/test/resources/search-corpus.csv"));
+    private static final Path SUMMARY = Paths.get("target", "search-benchmark.csv");
+    private static final Path QUERIES = Paths.get("target", "search-benchmark-queries.csv");
+
+    @Test(description = "Search latency and relevance over the keyword corpus")
+    public void searchBenchmark() throws IOException {
+        SearchBenchmark benchmark = new SearchBenchmark(
+                TestConfig.getString("benchmark.baseUrl", SearchData.getBaseUrl()),
+                TestConfig.getInt("benchmark.browsers", 2));
+
+        List<SearchBenchmark.QueryResult> results;
+        try (Stream<SearchCorpus.Query> corpus = SearchCorpus.open(CORPUS)) {
+            results = benchmark.run(corpus.iterator(), TestConfig.getInt("benchmark.queries", 0));
+        }
+        Assert.assertFalse(results.isEmpty(), "No queries in " + CORPUS);
+
+        SearchBenchmark.writeReport(results, SUMMARY, QUERIES);
+        String summary = new String(Files.readAllBytes(SUMMARY), StandardCharsets.UTF_8);
+        LOG.info(summary);
+        Allure.addAttachment("Search benchmark", "text/csv", summary, ".csv");
+
+        long errors = results.stream().filter(SearchBenchmark.QueryResult::isError).count();
+        double maxErrorRate = Double.parseDouble(TestConfig.getString("benchmark.maxErrorRate", "0.1"));
+        Assert.assertTrue(errors <= maxErrorRate * results.size(),
+                errors + " of " + results.size() + " queries failed, see " + QUERIES);
+    }
+}
@@ -0,0 +1,99 @@
+package com.evershop.tests;
+
+import com.evershop.http.SearchProbe;
+import com.evershop.pages.SearchResults;
+import com.evershop.testdata.SearchCorpus;
+import com.evershop.testdata.SearchData;
+import com.evershop.utils.Log;
+import com.evershop.utils.TestConfig;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Search result content checked over HTTP, without a browser (SearchProbe).
+ *
+ * Same assertions as SearchTests on the server-rendered results: title, product count, keyword
+ * in every product name, "no product" message. The browser tests keep focus, border colour and
+ * the Enter key.
+ */
+public class SearchProbeTests {
+
+    private static final Log LOG = Log.get(SearchProbeTests.class);
+
+    private SearchProbe probe;
+
+    @BeforeClass
+    public void createProbe() {
+        probe = new SearchProbe();
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void closeProbe() {
+        if (probe != null) probe.close();
+    }
+
+    @DataProvider(name = "keywordsWithResults")
+    public Object[][] keywordsWithResults() {
+        return new Object[][] {
+                {SearchData.getExactProductName()},
+                {SearchData.getValidKeyword()},
+                {SearchData.getKeywordWithSpaces()},
+                {SearchData.getMultipleWords()},
+                {SearchData.getSingleCharacter()}
+        };
+    }
+
+    @Test(dataProvider = "keywordsWithResults", description = "Probe: results page lists matching products")
+    public void probe_resultsContainAllKeywords(String keyword) {
+        SearchResults results = probe.search(keyword).join();
+        LOG.info("Probe '" + keyword + "': " + results);
+
+        Assert.assertTrue(results.titleMatches(keyword),
+                "Expected title 'search results for' + '" + keyword.trim() + "' but was: " + results.getTitle());
+        Assert.assertTrue(results.getProductCount() > 0, "Should list at least one product for '" + keyword + "'");
+        Assert.assertTrue(results.allContainAllKeywords(keyword.trim().split("\\s+")),
+                "All products should contain '" + keyword.trim() + "': " + results.getProductNames());
+    }
+
+    @Test(description = "Probe: non-existent product shows the no-result message")
+    public void probe_nonExistentProduct() {
+        SearchResults results = probe.search(SearchData.getNonExistentProduct()).join();
+
+        Assert.assertTrue(results.isNoResultMessageDisplayed(), "Expected '" + SearchResults.NO_RESULT_TEXT + "'");
+        Assert.assertEquals(results.getProductCount(), 0, "No product should be listed");
+    }
+
+    /** Every corpus keyword with expected hits (-Dbenchmark.corpus), all requests in flight together. */
+    @Test(description = "Probe: keyword corpus sweep meets expected hits")
+    public void probe_corpusSweep() throws IOException {
+        List<SearchCorpus.Query> queries;
+        try (Stream<SearchCorpus.Query> corpus = SearchCorpus.open(
+                Paths.get(TestConfig.getString("benchmark.corpus", "src/test/resources/search-corpus.csv")))) {
+            queries = corpus.filter(q -> q.getExpectedHits() != SearchCorpus.Query.UNCHECKED).collect(Collectors.toList());
+        }
+        long start = System.nanoTime();
+        Map<String, SearchResults> results = probe.sweep(queries.stream().map(SearchCorpus.Query::getKeyword)
+                .distinct().collect(Collectors.toList()));
+        LOG.info("Probe sweep: " + results.size() + " keywords in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+
+        List<String> misses = new ArrayList<>();
+        for (SearchCorpus.Query q : queries) {
+            int count = results.get(q.getKeyword()).getProductCount();
+            if (!Boolean.TRUE.equals(q.hitsAsExpected(count))) {
+                misses.add(q + " expected " + q.getExpectedHits() + " got " + count);
+            }
+        }
+        Assert.assertTrue(misses.isEmpty(), "Keywords with unexpected hit counts:\n" + String.join("\n", misses));
+    }
+}
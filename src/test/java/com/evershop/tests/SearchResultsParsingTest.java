@@ -0,0 +1,106 @@
+package com.evershop.tests;
+
+import com.evershop.http.HtmlTokenizer;
+import com.evershop.http.SearchProbe;
+import com.evershop.pages.SearchResults;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * HtmlTokenizer and SearchProbe extraction on committed HTML, without a browser or the site.
+ *
+ * The sample page (src/test/resources/html/search-results-sample.html) covers entities in text,
+ * titles and attributes, self-closing tags, product cards nested in wrappers, a card without a
+ * price and one without a name; the storefront fixtures in recorded-dom cover a full results page
+ * and the empty one.
+ */
+public class SearchResultsParsingTest {
+
+    private static final String SAMPLE = "src/test/resources/html/search-results-sample.html";
+    private static final String RESULTS_PAGE = "src/test/resources/recorded-dom/search-results.html";
+    private static final String EMPTY_PAGE = "src/test/resources/recorded-dom/search-empty.html";
+
+    @Test(description = "Parse: title and product names with entities decoded")
+    public void parse_decodesEntities() throws IOException {
+        SearchResults results = parse(SAMPLE);
+
+        Assert.assertEquals(results.getTitle(), "Search results for \"shoes & boots\"");
+        Assert.assertTrue(results.titleMatches("shoes & boots"), "Title should match the decoded keyword");
+        Assert.assertEquals(results.getProductNames().get(0), "Men's court shoes & boots");
+        Assert.assertEquals(results.getProductNames().get(2), "Running shoes <boots edition>");
+    }
+
+    @Test(description = "Parse: nested cards, self-closing tags, missing price and missing name")
+    public void parse_productCards() throws IOException {
+        SearchResults results = parse(SAMPLE);
+
+        // markup inside script and comments is not a product; a card without a name still counts
+        Assert.assertEquals(results.getProductNames(),
+                Arrays.asList("Men's court shoes & boots", "Trail boots & shoes", "Running shoes <boots edition>", ""));
+        Assert.assertFalse(results.isNoResultMessageDisplayed(), "The sample page lists products");
+    }
+
+    @Test(description = "Parse: storefront results page, one product without a price")
+    public void parse_resultsPage() throws IOException {
+        SearchResults results = parse(RESULTS_PAGE);
+
+        Assert.assertEquals(results.getProductCount(), 12);
+        Assert.assertTrue(results.getProductNames().contains("Ultraboost 22 shoes"), "Product without a price is listed");
+        Assert.assertTrue(results.titleMatches("shoes"), "Title was: " + results.getTitle());
+        Assert.assertTrue(results.allContainKeyword("shoes"), "Names: " + results.getProductNames());
+    }
+
+    @Test(description = "Parse: empty results page shows the no-result message")
+    public void parse_emptyPage() throws IOException {
+        SearchResults results = parse(EMPTY_PAGE);
+
+        Assert.assertTrue(results.isNoResultMessageDisplayed(), "Expected '" + SearchResults.NO_RESULT_TEXT + "'");
+        Assert.assertEquals(results.getProductCount(), 0, "No product should be listed");
+    }
+
+    @Test(description = "Tokenizer: attributes, entities and self-closing tags")
+    public void tokenizer_tokens() throws IOException {
+        List<String> tokens = new ArrayList<>();
+        new HtmlTokenizer(new StringReader("<P Title='a &amp; b' data-x=1 hidden>x&nbsp;&#39;&#x26;&bogus; & y<br/><img src=a.png /></p>"),
+                new HtmlTokenizer.Handler() {
+                    @Override
+                    public void startTag(String name, Map<String, String> attributes, boolean selfClosing) {
+                        tokens.add("<" + name + " " + attributes + (selfClosing ? " />" : ">"));
+                    }
+
+                    @Override
+                    public void endTag(String name) {
+                        tokens.add("</" + name + ">");
+                    }
+
+                    @Override
+                    public void text(String text) {
+                        tokens.add(text);
+                    }
+                }).run();
+
+        Assert.assertEquals(tokens, Arrays.asList(
+                "<p {title=a & b, data-x=1, hidden=}>",
+                "x\u00a0'&&bogus; & y",
+                "<br {} />",
+                "<img {src=a.png} />",
+                "</p>"));
+    }
+
+    private static SearchResults parse(String file) throws IOException {
+        try (Reader html = Files.newBufferedReader(Paths.get(file), StandardCharsets.UTF_8)) {
+            return SearchProbe.parse(html);
+        }
+    }
+}
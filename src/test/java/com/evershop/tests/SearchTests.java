@@ -4,84 +4,87 @@ import com.evershop.testdata.SearchData;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 import com.evershop.pages.SearchResultPage;
+import com.evershop.utils.Log;
 import java.util.List;
 
 public class SearchTests extends BaseTest {
 
+    private static final Log LOG = Log.get(SearchTests.class);
+
     /**
      * Search_01: Tìm kiếm sản phẩm thành công với tên chính xác
      */
     @Test(priority = 1, description = "Search with exact product name")
     public void Search_01_SearchByExactName() {
-        System.out.println("=== STARTING SEARCH_01: Search with exact product name ===");
+        LOG.info("=== STARTING SEARCH_01: Search with exact product name ===");
 
         String searchKeyword = SearchData.getExactProductName();
-        System.out.println("Search keyword: " + searchKeyword);
+        LOG.info("Search keyword: " + searchKeyword);
 
         // Click vào Search icon
-        System.out.println("Clicking search icon...");
-        homePage.clickSearchIcon();
+        LOG.info("Clicking search icon...");
+        homePage().clickSearchIcon();
 
         // Verify Search textbox hiển thị
-        System.out.println("Verifying search input is displayed...");
-        Assert.assertTrue(homePage.isSearchInputDisplayed(),
+        LOG.info("Verifying search input is displayed...");
+        Assert.assertTrue(homePage().isSearchInputDisplayed(),
                 "Search textbox should be displayed");
 
         // Verify con trỏ chuột tự động vào ô tìm kiếm
-        System.out.println("Verifying search input is focused...");
-        Assert.assertTrue(homePage.isSearchInputFocused(),
+        LOG.info("Verifying search input is focused...");
+        Assert.assertTrue(homePage().isSearchInputFocused(),
                 "Search input should be focused");
 
         // Nhập tên sản phẩm
-        System.out.println("Entering search keyword...");
-        homePage.enterSearchKeyword(searchKeyword);
+        LOG.info("Entering search keyword...");
+        homePage().enterSearchKeyword(searchKeyword);
 
         // Verify nội dung đã nhập
-        System.out.println("Verifying search input value...");
-        Assert.assertEquals(homePage.getSearchInputValue(), searchKeyword,
+        LOG.info("Verifying search input value...");
+        Assert.assertEquals(homePage().getSearchInputValue(), searchKeyword,
                 "Search input should contain the entered text");
 
         // Nhấn Enter
-        System.out.println("Pressing Enter to search...");
-        homePage.pressEnter();
+        LOG.info("Pressing Enter to search...");
+        homePage().pressEnter();
 
         // Verify kết quả tìm kiếm
-        System.out.println("Loading search results page...");
-        searchResultPage = new SearchResultPage(driver);
+        LOG.info("Loading search results page...");
+        SearchResultPage searchResultPage = page(SearchResultPage.class);
         String pageTitle = searchResultPage.getPageTitle().toLowerCase();
 
         // Log for comparison
-        System.out.println("=== SEARCH RESULTS ===");
-        System.out.println("Search_01 - Page Title: " + pageTitle);
-        System.out.println("Search_01 - Search URL: " + driver.getCurrentUrl());
-        System.out.println("Search_01 - Product Count: " + searchResultPage.getProductCount());
+        LOG.info("=== SEARCH RESULTS ===");
+        LOG.info("Search_01 - Page Title: " + pageTitle);
+        LOG.info("Search_01 - Search URL: " + getDriver().getCurrentUrl());
+        LOG.info("Search_01 - Product Count: " + searchResultPage.getProductCount());
 
         Assert.assertTrue(pageTitle.contains("search results for"),
                 "Expected page title to contain 'search results for' but was: " + pageTitle);
-        System.out.println("✓ Page title contains 'search results for'");
+        LOG.info("✓ Page title contains 'search results for'");
 
         Assert.assertTrue(pageTitle.contains(searchKeyword.toLowerCase()),
                 "Expected page title to contain search keyword '" + searchKeyword + "' but was: " + pageTitle);
-        System.out.println("✓ Page title contains search keyword");
+        LOG.info("✓ Page title contains search keyword");
 
         // Verify hiển thị sản phẩm
         Assert.assertTrue(searchResultPage.getProductCount() > 0,
                 "Should display at least one product");
-        System.out.println("✓ At least 1 product displayed");
+        LOG.info("✓ At least 1 product displayed");
 
         // Verify sản phẩm chứa từ khóa
         Assert.assertTrue(searchResultPage.allProductsContainKeyword(searchKeyword),
                 "All products should contain the search keyword");
-        System.out.println("✓ All products contain search keyword");
+        LOG.info("✓ All products contain search keyword");
 
         // Log product names
         List<String> productNames = searchResultPage.getProductNames();
-        System.out.println("Search_01 - Product Names:");
+        LOG.info("Search_01 - Product Names:");
         for (int i = 0; i < productNames.size(); i++) {
-            System.out.println("  " + (i + 1) + ". " + productNames.get(i));
+            LOG.info("  " + (i + 1) + ". " + productNames.get(i));
         }
 
-        System.out.println("=== SEARCH_01 COMPLETED SUCCESSFULLY ===");
+        LOG.info("=== SEARCH_01 COMPLETED SUCCESSFULLY ===");
     }
 
     /**
@@ -89,44 +92,44 @@ public class SearchTests extends BaseTest {
      */
     @Test(priority = 6, description = "Search with empty input")
     public void Search_06_SearchEmpty() {
-        System.out.println("=== STARTING SEARCH_06: Search with empty input ===");
+        LOG.info("=== STARTING SEARCH_06: Search with empty input ===");
 
         // Click vào Search icon
-        System.out.println("Step 1: Clicking search icon to display textbox...");
-        homePage.clickSearchIcon();
-        Assert.assertTrue(homePage.isSearchInputDisplayed(),
+        LOG.info("Step 1: Clicking search icon to display textbox...");
+        homePage().clickSearchIcon();
+        Assert.assertTrue(homePage().isSearchInputDisplayed(),
                 "Search textbox should be displayed after clicking icon");
 
         // Không nhập gì và nhấn Enter
-        System.out.println("Step 2: Pressing Enter with empty input...");
-        homePage.pressEnter();
+        LOG.info("Step 2: Pressing Enter with empty input...");
+        homePage().pressEnter();
 
 
 
         // Also verify still on home page
-        String currentUrl = homePage.getCurrentUrl();
+        String currentUrl = homePage().getCurrentUrl();
         boolean stayedOnSamePage = currentUrl.equals(SearchData.getBaseUrl()) ||
                 currentUrl.equals(SearchData.getBaseUrl() + "/");
 
-        System.out.println("Current URL: " + currentUrl);
-        System.out.println("Stayed on home page: " + stayedOnSamePage);
+        LOG.info("Current URL: " + currentUrl);
+        LOG.info("Stayed on home page: " + stayedOnSamePage);
 
         Assert.assertTrue(stayedOnSamePage,
                 "Expected to stay on home page for empty search validation, but navigated to: " + currentUrl);
 
-        if (stayedOnSamePage && homePage.isSearchInputDisplayed()) {
+        if (stayedOnSamePage && homePage().isSearchInputDisplayed()) {
 
             // Empty search validation: apply red border and focus
 
-            System.out.println("Input still displayed after empty enter - applying red border and focus validation...");
+            LOG.info("Input still displayed after empty enter - applying red border and focus validation...");
 
-            homePage.performEmptySearchValidation();
+            homePage().performEmptySearchValidation();
 
             // Assert border color is red
 
-            String borderColor = homePage.getSearchInputBorderColor();
+            String borderColor = homePage().getSearchInputBorderColor();
 
-            System.out.println("Border color after empty search: " + borderColor);
+            LOG.info("Border color after empty search: " + borderColor);
 
             Assert.assertEquals(borderColor, "rgb(255, 0, 0)",
 
@@ -134,25 +137,25 @@ public class SearchTests extends BaseTest {
 
             // Assert input is focused
 
-            Assert.assertTrue(homePage.isSearchInputFocused(),
+            Assert.assertTrue(homePage().isSearchInputFocused(),
 
                 "Search input should be focused after empty search");
 
-            System.out.println("✓ Empty search validation successful - red border applied, focused, and remained on home page");
+            LOG.info("✓ Empty search validation successful - red border applied, focused, and remained on home page");
 
         } else if (stayedOnSamePage) {
 
-            System.out.println("Input no longer displayed after empty enter - page handles validation by removing/hiding the search input.");
+            LOG.info("Input no longer displayed after empty enter - page handles validation by removing/hiding the search input.");
 
-            System.out.println("✓ Empty search handled by page - remained on home page without input showing error.");
+            LOG.info("✓ Empty search handled by page - remained on home page without input showing error.");
 
         } else {
 
-            System.out.println("Unexpected behavior: navigated away after empty search.");
+            LOG.info("Unexpected behavior: navigated away after empty search.");
 
         }
 
-        System.out.println("=== SEARCH_06 COMPLETED SUCCESSFULLY ===");
+        LOG.info("=== SEARCH_06 COMPLETED SUCCESSFULLY ===");
     }
 
     /**
@@ -163,35 +166,35 @@ public class SearchTests extends BaseTest {
         String searchKeyword = SearchData.getValidKeyword();
 
         // Click vào Search icon
-        homePage.clickSearchIcon();
+        homePage().clickSearchIcon();
 
         // Verify Search textbox hiển thị và focused
-        Assert.assertTrue(homePage.isSearchInputDisplayed(),
+        Assert.assertTrue(homePage().isSearchInputDisplayed(),
                 "Search textbox should be displayed");
-        Assert.assertTrue(homePage.isSearchInputFocused(),
+        Assert.assertTrue(homePage().isSearchInputFocused(),
                 "Search input should be focused");
 
         // Nhập từ khóa
-        homePage.enterSearchKeyword(searchKeyword);
-        Assert.assertEquals(homePage.getSearchInputValue(), searchKeyword);
+        homePage().enterSearchKeyword(searchKeyword);
+        Assert.assertEquals(homePage().getSearchInputValue(), searchKeyword);
 
         // Nhấn Enter
-        homePage.pressEnter();
+        homePage().pressEnter();
 
         // Verify kết quả
-        searchResultPage = new SearchResultPage(driver);
+        SearchResultPage searchResultPage = page(SearchResultPage.class);
         String pageTitle = searchResultPage.getPageTitle().toLowerCase();
 
         // Log for comparison
-        System.out.println("Search_02 - Page Title: " + pageTitle);
-        System.out.println("Search_02 - Search URL: " + driver.getCurrentUrl());
-        System.out.println("Search_02 - Product Count: " + searchResultPage.getProductCount());
+        LOG.info("Search_02 - Page Title: " + pageTitle);
+        LOG.info("Search_02 - Search URL: " + getDriver().getCurrentUrl());
+        LOG.info("Search_02 - Product Count: " + searchResultPage.getProductCount());
 
         // Log product names
         List<String> productNames = searchResultPage.getProductNames();
-        System.out.println("Search_02 - Product Names:");
+        LOG.info("Search_02 - Product Names:");
         for (int i = 0; i < productNames.size(); i++) {
-            System.out.println("  " + (i + 1) + ". " + productNames.get(i));
+            LOG.info("  " + (i + 1) + ". " + productNames.get(i));
         }
 
         Assert.assertTrue(pageTitle.contains(searchKeyword.toLowerCase()),
@@ -210,24 +213,24 @@ public class SearchTests extends BaseTest {
         String searchKeyword = SearchData.getNonExistentProduct();
 
         // Click và tìm kiếm
-        homePage.clickSearchIcon();
-        Assert.assertTrue(homePage.isSearchInputDisplayed());
+        homePage().clickSearchIcon();
+        Assert.assertTrue(homePage().isSearchInputDisplayed());
 
-        homePage.enterSearchKeyword(searchKeyword);
-        Assert.assertEquals(homePage.getSearchInputValue(), searchKeyword);
+        homePage().enterSearchKeyword(searchKeyword);
+        Assert.assertEquals(homePage().getSearchInputValue(), searchKeyword);
 
-        homePage.pressEnter();
+        homePage().pressEnter();
 
         // Verify kết quả
-        searchResultPage = new SearchResultPage(driver);
+        SearchResultPage searchResultPage = page(SearchResultPage.class);
 
         // Log for comparison
-        System.out.println("Search_03 - Page Title: " + searchResultPage.getPageTitle());
-        System.out.println("Search_03 - Search URL: " + driver.getCurrentUrl());
-        System.out.println("Search_03 - Product Count: " + searchResultPage.getProductCount());
-        System.out.println("Search_03 - No Result Message Displayed: " + searchResultPage.isNoResultMessageDisplayed());
+        LOG.info("Search_03 - Page Title: " + searchResultPage.getPageTitle());
+        LOG.info("Search_03 - Search URL: " + getDriver().getCurrentUrl());
+        LOG.info("Search_03 - Product Count: " + searchResultPage.getProductCount());
+        LOG.info("Search_03 - No Result Message Displayed: " + searchResultPage.isNoResultMessageDisplayed());
         if (searchResultPage.isNoResultMessageDisplayed()) {
-            System.out.println("Search_03 - No Result Message: " + searchResultPage.getNoResultMessage());
+            LOG.info("Search_03 - No Result Message: " + searchResultPage.getNoResultMessage());
         }
 
         // Verify thông báo "There is no product to display"
@@ -242,8 +245,8 @@ public class SearchTests extends BaseTest {
                 "Expected 0 products to be displayed but found " + searchResultPage.getProductCount());
 
         // Verify không bị crash
-        Assert.assertTrue(driver.getCurrentUrl().contains("search"),
-                "Expected URL to contain 'search' but was: " + driver.getCurrentUrl());
+        Assert.assertTrue(getDriver().getCurrentUrl().contains("search"),
+                "Expected URL to contain 'search' but was: " + getDriver().getCurrentUrl());
     }
 
     /**
@@ -255,24 +258,24 @@ public class SearchTests extends BaseTest {
         String trimmedKeyword = SearchData.getKeywordTrimmed();
 
         // Thực hiện tìm kiếm
-        homePage.clickSearchIcon();
-        homePage.enterSearchKeyword(searchKeyword);
-        homePage.pressEnter();
+        homePage().clickSearchIcon();
+        homePage().enterSearchKeyword(searchKeyword);
+        homePage().pressEnter();
 
         // Verify kết quả
-        searchResultPage = new SearchResultPage(driver);
+        SearchResultPage searchResultPage = page(SearchResultPage.class);
         String pageTitle = searchResultPage.getPageTitle().toLowerCase();
 
         // Log for comparison
-        System.out.println("Search_04 - Page Title: " + pageTitle);
-        System.out.println("Search_04 - Search URL: " + driver.getCurrentUrl());
-        System.out.println("Search_04 - Product Count: " + searchResultPage.getProductCount());
+        LOG.info("Search_04 - Page Title: " + pageTitle);
+        LOG.info("Search_04 - Search URL: " + getDriver().getCurrentUrl());
+        LOG.info("Search_04 - Product Count: " + searchResultPage.getProductCount());
 
         // Log product names
         List<String> productNames = searchResultPage.getProductNames();
-        System.out.println("Search_04 - Product Names:");
+        LOG.info("Search_04 - Product Names:");
         for (int i = 0; i < productNames.size(); i++) {
-            System.out.println("  " + (i + 1) + ". " + productNames.get(i));
+            LOG.info("  " + (i + 1) + ". " + productNames.get(i));
         }
 
         Assert.assertTrue(pageTitle.contains(trimmedKeyword.toLowerCase()),
@@ -292,29 +295,29 @@ public class SearchTests extends BaseTest {
         String[] keywords = searchKeyword.split(" ");
 
         // Click và verify
-        homePage.clickSearchIcon();
-        Assert.assertTrue(homePage.isSearchInputDisplayed());
-        Assert.assertTrue(homePage.isSearchInputFocused());
+        homePage().clickSearchIcon();
+        Assert.assertTrue(homePage().isSearchInputDisplayed());
+        Assert.assertTrue(homePage().isSearchInputFocused());
 
         // Tìm kiếm
-        homePage.enterSearchKeyword(searchKeyword);
-        Assert.assertEquals(homePage.getSearchInputValue(), searchKeyword);
-        homePage.pressEnter();
+        homePage().enterSearchKeyword(searchKeyword);
+        Assert.assertEquals(homePage().getSearchInputValue(), searchKeyword);
+        homePage().pressEnter();
 
         // Verify kết quả
-        searchResultPage = new SearchResultPage(driver);
+        SearchResultPage searchResultPage = page(SearchResultPage.class);
         String pageTitle = searchResultPage.getPageTitle().toLowerCase();
 
         // Log for comparison
-        System.out.println("Search_05 - Page Title: " + pageTitle);
-        System.out.println("Search_05 - Search URL: " + driver.getCurrentUrl());
-        System.out.println("Search_05 - Product Count: " + searchResultPage.getProductCount());
+        LOG.info("Search_05 - Page Title: " + pageTitle);
+        LOG.info("Search_05 - Search URL: " + getDriver().getCurrentUrl());
+        LOG.info("Search_05 - Product Count: " + searchResultPage.getProductCount());
 
         // Log product names
         List<String> productNames = searchResultPage.getProductNames();
-        System.out.println("Search_05 - Product Names:");
+        LOG.info("Search_05 - Product Names:");
         for (int i = 0; i < productNames.size(); i++) {
-            System.out.println("  " + (i + 1) + ". " + productNames.get(i));
+            LOG.info("  " + (i + 1) + ". " + productNames.get(i));
         }
 
         Assert.assertTrue(pageTitle.contains(searchKeyword.toLowerCase()),
@@ -331,72 +334,72 @@ public class SearchTests extends BaseTest {
      */
     @Test(priority = 7, description = "Search with single character")
     public void Search_07_SearchSingleCharacter() {
-        System.out.println("=== STARTING SEARCH_07: Search with single character ===");
+        LOG.info("=== STARTING SEARCH_07: Search with single character ===");
 
         String searchKeyword = SearchData.getSingleCharacter();
-        System.out.println("Search keyword: " + searchKeyword);
+        LOG.info("Search keyword: " + searchKeyword);
 
         // Click vào Search icon
-        System.out.println("Clicking search icon...");
-        homePage.clickSearchIcon();
+        LOG.info("Clicking search icon...");
+        homePage().clickSearchIcon();
 
         // Verify Search textbox hiển thị và focused
-        System.out.println("Verifying search input is displayed...");
-        Assert.assertTrue(homePage.isSearchInputDisplayed(),
+        LOG.info("Verifying search input is displayed...");
+        Assert.assertTrue(homePage().isSearchInputDisplayed(),
                 "Search textbox should be displayed");
-        System.out.println("Verifying search input is focused...");
-        Assert.assertTrue(homePage.isSearchInputFocused(),
+        LOG.info("Verifying search input is focused...");
+        Assert.assertTrue(homePage().isSearchInputFocused(),
                 "Search input should be focused");
 
         // Nhập từ khóa
-        System.out.println("Entering search keyword...");
-        homePage.enterSearchKeyword(searchKeyword);
+        LOG.info("Entering search keyword...");
+        homePage().enterSearchKeyword(searchKeyword);
 
         // Verify nội dung đã nhập
-        System.out.println("Verifying search input value...");
-        Assert.assertEquals(homePage.getSearchInputValue(), searchKeyword,
+        LOG.info("Verifying search input value...");
+        Assert.assertEquals(homePage().getSearchInputValue(), searchKeyword,
                 "Search input should contain the entered text");
 
         // Nhấn Enter
-        System.out.println("Pressing Enter to search...");
-        homePage.pressEnter();
+        LOG.info("Pressing Enter to search...");
+        homePage().pressEnter();
 
         // Verify kết quả tìm kiếm
-        System.out.println("Loading search results page...");
-        searchResultPage = new SearchResultPage(driver);
+        LOG.info("Loading search results page...");
+        SearchResultPage searchResultPage = page(SearchResultPage.class);
         String pageTitle = searchResultPage.getPageTitle().toLowerCase();
 
         // Log for comparison
-        System.out.println("=== SEARCH RESULTS ===");
-        System.out.println("Search_07 - Page Title: " + pageTitle);
-        System.out.println("Search_07 - Search URL: " + driver.getCurrentUrl());
-        System.out.println("Search_07 - Product Count: " + searchResultPage.getProductCount());
+        LOG.info("=== SEARCH RESULTS ===");
+        LOG.info("Search_07 - Page Title: " + pageTitle);
+        LOG.info("Search_07 - Search URL: " + getDriver().getCurrentUrl());
+        LOG.info("Search_07 - Product Count: " + searchResultPage.getProductCount());
 
         // Log product names
         List<String> productNames = searchResultPage.getProductNames();
-        System.out.println("Search_07 - Product Names:");
+        LOG.info("Search_07 - Product Names:");
         for (int i = 0; i < productNames.size(); i++) {
-            System.out.println("  " + (i + 1) + ". " + productNames.get(i));
+            LOG.info("  " + (i + 1) + ". " + productNames.get(i));
         }
 
         Assert.assertTrue(pageTitle.contains("search results for"),
                 "Expected page title to contain 'search results for' but was: " + pageTitle);
-        System.out.println("✓ Page title contains 'search results for'");
+        LOG.info("✓ Page title contains 'search results for'");
 
         Assert.assertTrue(pageTitle.contains(searchKeyword.toLowerCase()),
                 "Expected page title to contain search keyword '" + searchKeyword + "' but was: " + pageTitle);
-        System.out.println("✓ Page title contains search keyword");
+        LOG.info("✓ Page title contains search keyword");
 
         // Verify hiển thị sản phẩm chứa ký tự
         Assert.assertTrue(searchResultPage.getProductCount() > 0,
                 "Should display at least one product containing the character '" + searchKeyword + "'");
-        System.out.println("✓ At least 1 product displayed");
+        LOG.info("✓ At least 1 product displayed");
 
         // Verify tất cả sản phẩm chứa ký tự (không phân biệt hoa/thường)
         Assert.assertTrue(searchResultPage.allProductsContainKeyword(searchKeyword),
                 "All products should contain the search character '" + searchKeyword + "'");
-        System.out.println("✓ All products contain search character (case insensitive)");
+        LOG.info("✓ All products contain search character (case insensitive)");
 
-        System.out.println("=== SEARCH_07 COMPLETED SUCCESSFULLY ===");
+        LOG.info("=== SEARCH_07 COMPLETED SUCCESSFULLY ===");
     }
 }
@@ -0,0 +1,89 @@
+package com.evershop.tests;
+
+import com.evershop.http.SiteHealth;
+import com.evershop.utils.TestConfig;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriverException;
+import org.testng.Assert;
+import org.testng.SkipException;
+import org.testng.annotations.Test;
+
+import java.net.ConnectException;
+import java.net.UnknownHostException;
+import java.net.http.HttpConnectTimeoutException;
+
+/**
+ * SiteHealth failure classification on hand-built exceptions, without a browser or the site.
+ *
+ * The shop is http://localhost:3000 with chromedriver and the Grid on the same host (other ports),
+ * so only the port tells a shop outage from a lost driver connection.
+ */
+public class SiteHealthClassificationTest {
+
+    private static final String SHOP = "http://localhost:3000";
+
+    private final SiteHealth health = new SiteHealth(SHOP);
+
+    @Test(description = "Classify: connection errors naming the shop's host and port count")
+    public void classify_shopConnectionErrors() {
+        Assert.assertTrue(health.isInfrastructureFailure(
+                new WebDriverException("unknown error", new ConnectException("Connection refused: localhost/127.0.0.1:3000"))));
+        Assert.assertTrue(health.isInfrastructureFailure(
+                new HttpConnectTimeoutException("HTTP connect timed out: http://localhost:3000/account/login")));
+        Assert.assertTrue(health.isInfrastructureFailure(new UnknownHostException("localhost")),
+                "DNS errors name the host without a port");
+    }
+
+    @Test(description = "Classify: the same errors towards chromedriver, the Grid or another host do not count")
+    public void classify_otherEndpoints() {
+        Assert.assertFalse(health.isInfrastructureFailure(
+                new WebDriverException("Could not start a new session", new ConnectException("Connection refused: localhost/127.0.0.1:4444"))),
+                "Grid connection");
+        Assert.assertFalse(health.isInfrastructureFailure(
+                new ConnectException("Failed to connect to localhost/127.0.0.1:9515")), "chromedriver connection");
+        Assert.assertFalse(health.isInfrastructureFailure(new UnknownHostException("cdn.example.com")), "another host");
+        Assert.assertFalse(health.isInfrastructureFailure(new WebDriverException("timeout: localhost:3000 answered slowly")),
+                "names the shop but is no network error");
+    }
+
+    @Test(description = "Classify: a base URL without a port matches the host on any port")
+    public void classify_baseUrlWithoutPort() {
+        SiteHealth portless = new SiteHealth("https://shop.example.com/");
+
+        Assert.assertTrue(portless.isInfrastructureFailure(new ConnectException("Connection refused: shop.example.com:443")));
+        Assert.assertFalse(portless.isInfrastructureFailure(new ConnectException("Connection refused: localhost:4444")));
+    }
+
+    @Test(description = "Classify: browser net::ERR_* navigation errors count whatever they name")
+    public void classify_navigationErrors() {
+        Assert.assertTrue(health.isInfrastructureFailure(
+                new WebDriverException("unknown error: net::ERR_CONNECTION_REFUSED\n  (Session info: chrome=120.0)")));
+        Assert.assertFalse(health.isInfrastructureFailure(new AssertionError("expected [3] but found [2]")));
+    }
+
+    @Test(description = "Classify: a page-load timeout counts only when driver.get went to the shop")
+    public void classify_navigationTimeout() {
+        TimeoutException pageLoad = new TimeoutException("timeout: Timed out receiving message from renderer: 30.000");
+
+        Assert.assertFalse(health.isInfrastructureFailure(pageLoad), "an element wait throws the same exception");
+        Assert.assertTrue(health.isNavigationFailure(SHOP + "/account/login", pageLoad));
+        Assert.assertTrue(health.isNavigationFailure(SHOP, new WebDriverException("navigation failed", pageLoad)));
+        Assert.assertFalse(health.isNavigationFailure("http://localhost:4444/ui", pageLoad), "another port");
+        Assert.assertFalse(health.isNavigationFailure("https://cdn.example.com/", pageLoad), "another host");
+        Assert.assertFalse(health.isNavigationFailure(SHOP, new AssertionError("title")));
+    }
+
+    @Test(description = "Breaker: page-load timeouts on the shop in a row open it, element-wait timeouts do not")
+    public void breaker_opensOnNavigationTimeouts() {
+        if (!TestConfig.getBoolean("health.enabled", true)) throw new SkipException("-Dhealth.enabled=false");
+        SiteHealth breaker = new SiteHealth(SHOP);
+        TimeoutException pageLoad = new TimeoutException("timeout: Timed out receiving message from renderer");
+        int threshold = Math.max(1, TestConfig.getInt("health.failures", 3));
+
+        for (int i = 0; i < threshold; i++) breaker.record(pageLoad);
+        Assert.assertEquals(breaker.getState(), SiteHealth.State.CLOSED);
+
+        for (int i = 0; i < threshold; i++) breaker.record(SHOP, pageLoad);
+        Assert.assertEquals(breaker.getState(), SiteHealth.State.OPEN);
+    }
+}
@@ -0,0 +1,151 @@
+package com.evershop.utils;
+
+import io.qameta.allure.Allure;
+import io.qameta.allure.AllureLifecycle;
+import io.qameta.allure.model.Attachment;
+import io.qameta.allure.model.Stage;
+import io.qameta.allure.model.Status;
+import io.qameta.allure.model.StatusDetails;
+import io.qameta.allure.model.StepResult;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * AllureReportSink - the report event stream (ReportBus) into the Allure test results.
+ *
+ * Provides:
+ *  - steps as nested Allure steps with the published start/stop times; a failed step is FAILED
+ *    (assertion) or BROKEN
+ *  - attachments on the innermost open step, or on the test case
+ *  - WARN/ERROR log lines as zero-length steps, metrics as one "Metrics" table per test
+ *
+ * Notes:
+ *  - the test case uuid comes with TEST_START (handle "allure"), so results are built with
+ *    explicit uuids and never through Allure's thread-bound current step
+ *  - needsOpenTest: BaseTest waits for this sink's TEST_END before TestNG (and AllureTestNg)
+ *    writes the result
+ */
+public final class AllureReportSink implements ReportBus.Sink {
+
+    public static final String HANDLE = "allure";
+
+    private final Map<String, TestState> tests = new HashMap<>();
+
+    @Override
+    public String name() {
+        return "allure";
+    }
+
+    @Override
+    public boolean needsOpenTest() {
+        return true; // the Allure result is written as soon as the test ends
+    }
+
+    @Override
+    public void accept(ReportBus.Event event) throws Exception {
+        if (event.getKind() == ReportBus.Kind.TEST_START) {
+            Object uuid = event.getHandle(HANDLE);
+            if (uuid != null) tests.put(event.getTestId(), new TestState(uuid.toString()));
+            return;
+        }
+        TestState test = event.getTestId() != null ? tests.get(event.getTestId()) : null;
+        if (test == null) return; // outside a test, or a test without an Allure result
+
+        AllureLifecycle lifecycle = Allure.getLifecycle();
+        switch (event.getKind()) {
+            case STEP_START: {
+                StepResult step = new StepResult().setName(event.getName()).setStage(Stage.RUNNING).setStart(event.getMillis());
+                test.add(lifecycle, step);
+                test.open.push(step);
+                test.steps.put(event.getStepId(), step);
+                break;
+            }
+            case STEP_END: {
+                StepResult step = test.steps.remove(event.getStepId());
+                if (step == null) break;
+                test.open.remove(step);
+                step.setStage(Stage.FINISHED).setStop(event.getMillis()).setStatus(statusOf(event.getError()));
+                if (event.getError() != null) step.setStatusDetails(detailsOf(event.getError()));
+                break;
+            }
+            case ATTACHMENT: {
+                String source = UUID.randomUUID() + "-attachment" + event.getExtension();
+                try (InputStream in = event.openContent()) {
+                    lifecycle.writeAttachment(source, in);
+                }
+                Attachment attachment = new Attachment().setName(event.getName()).setType(event.getContentType()).setSource(source);
+                if (test.open.isEmpty()) {
+                    lifecycle.updateTestCase(test.uuid, result -> result.getAttachments().add(attachment));
+                } else {
+                    test.open.peek().getAttachments().add(attachment);
+                }
+                break;
+            }
+            case LOG:
+                if (event.getLevel().compareTo(Log.Level.WARN) >= 0) {
+                    test.add(lifecycle, new StepResult().setName("[" + event.getLevel() + "] " + event.getName())
+                            .setStatus(Status.PASSED).setStage(Stage.FINISHED)
+                            .setStart(event.getMillis()).setStop(event.getMillis()));
+                }
+                break;
+            case METRIC:
+                test.metrics.append(event.getName()).append('\t')
+                        .append(String.format(Locale.ROOT, "%.3f", event.getValue())).append('\t')
+                        .append(event.getUnit() == null ? "" : event.getUnit()).append('\n');
+                break;
+            case TEST_END:
+                tests.remove(event.getTestId());
+                if (test.metrics.length() > 0) {
+                    String source = UUID.randomUUID() + "-attachment.tsv";
+                    lifecycle.writeAttachment(source, new ByteArrayInputStream(
+                            ("metric\tvalue\tunit\n" + test.metrics).getBytes(StandardCharsets.UTF_8)));
+                    Attachment attachment = new Attachment().setName("Metrics").setType("text/tab-separated-values").setSource(source);
+                    lifecycle.updateTestCase(test.uuid, result -> result.getAttachments().add(attachment));
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    private static Status statusOf(Throwable error) {
+        if (error == null) return Status.PASSED;
+        return error instanceof AssertionError ? Status.FAILED : Status.BROKEN;
+    }
+
+    private static StatusDetails detailsOf(Throwable error) {
+        StringWriter trace = new StringWriter();
+        error.printStackTrace(new PrintWriter(trace));
+        return new StatusDetails().setMessage(String.valueOf(error.getMessage())).setTrace(trace.toString());
+    }
+
+    private static final class TestState {
+        final String uuid;
+        final Deque<StepResult> open = new ArrayDeque<>();
+        final Map<Long, StepResult> steps = new HashMap<>();
+        final StringBuilder metrics = new StringBuilder();
+
+        TestState(String uuid) {
+            this.uuid = uuid;
+        }
+
+        /** Adds a step under the innermost open step, or at the top of the test case. */
+        void add(AllureLifecycle lifecycle, StepResult step) {
+            if (open.isEmpty()) {
+                lifecycle.updateTestCase(uuid, result -> result.getSteps().add(step));
+            } else {
+                open.peek().getSteps().add(step);
+            }
+        }
+    }
+}
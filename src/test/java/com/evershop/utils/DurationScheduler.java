@@ -0,0 +1,107 @@
+package com.evershop.utils;
+
+import org.testng.IMethodInstance;
+import org.testng.IMethodInterceptor;
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
+import org.testng.ITestContext;
+import org.testng.ITestListener;
+import org.testng.ITestNGMethod;
+import org.testng.ITestResult;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * DurationScheduler - orders tests by recorded run time instead of @Test(priority).
+ *
+ * Register it as a listener in the suite xml. It:
+ *  - records the wall time of every test method into {@link DurationHistory} (saved at suite end)
+ *  - runs the longest tests first so a parallel worker pool does not end on one long straggler
+ *  - with -Dshard.total=N -Dshard.index=i keeps only the tests planned for machine i,
+ *    and writes the full plan to target/shard-plans/ so every machine's share can be checked
+ *
+ * -Dschedule.order=priority switches back to plain TestNG priority ordering (recording still happens).
+ */
+public class DurationScheduler implements IMethodInterceptor, ITestListener, ISuiteListener {
+
+    private static final Log LOG = Log.get(DurationScheduler.class);
+
+    private static final DurationHistory HISTORY = DurationHistory.fromConfig();
+
+    @Override
+    public List<IMethodInstance> intercept(List<IMethodInstance> methods, ITestContext context) {
+        Map<String, Long> estimates = new LinkedHashMap<>();
+        for (IMethodInstance m : methods) {
+            estimates.put(keyOf(m.getMethod()), HISTORY.estimate(keyOf(m.getMethod())));
+        }
+
+        List<IMethodInstance> selected = new ArrayList<>(methods);
+        int shardTotal = TestConfig.getInt("shard.total", 1);
+        if (shardTotal > 1) {
+            int shardIndex = TestConfig.getInt("shard.index", 0);
+            if (shardIndex < 0 || shardIndex >= shardTotal) {
+                throw new IllegalArgumentException("shard.index must be in [0, " + shardTotal + ") but was " + shardIndex);
+            }
+            ShardPlan plan = ShardPlan.build(estimates, shardTotal);
+            writePlan(context, plan);
+            selected.removeIf(m -> plan.shardOf(keyOf(m.getMethod())) != shardIndex);
+            LOG.info("[Scheduler] shard " + shardIndex + "/" + shardTotal + ": running " + selected.size()
+                    + " of " + methods.size() + " tests (~" + plan.getEstimatedMillis(shardIndex) / 1000 + "s)");
+        }
+
+        if ("priority".equalsIgnoreCase(TestConfig.getString("schedule.order", "duration"))) {
+            return selected;
+        }
+
+        selected.sort(Comparator.comparingLong((IMethodInstance m) -> estimates.get(keyOf(m.getMethod()))).reversed()
+                .thenComparing(m -> keyOf(m.getMethod())));
+        // TestNG sorts by priority after interceptors run, so the new order has to be written back as priority
+        for (int i = 0; i < selected.size(); i++) {
+            selected.get(i).getMethod().setPriority(i);
+        }
+        return selected;
+    }
+
+    @Override
+    public void onTestSuccess(ITestResult result) {
+        record(result);
+    }
+
+    @Override
+    public void onTestFailure(ITestResult result) {
+        record(result);
+    }
+
+    @Override
+    public void onFinish(ISuite suite) {
+        HISTORY.save();
+    }
+
+    private void record(ITestResult result) {
+        HISTORY.record(keyOf(result.getMethod()), result.getEndMillis() - result.getStartMillis());
+    }
+
+    private static String keyOf(ITestNGMethod method) {
+        return DurationHistory.key(method.getRealClass().getName(), method.getMethodName());
+    }
+
+    private void writePlan(ITestContext context, ShardPlan plan) {
+        try {
+            Path dir = Paths.get("target", "shard-plans");
+            Files.createDirectories(dir);
+            Path out = dir.resolve(context.getName().replaceAll("[^A-Za-z0-9._-]", "_") + ".txt");
+            Files.write(out, plan.describe().getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            LOG.warn("[Scheduler] Failed to write shard plan: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.evershop.utils;
+
+import org.testng.IAlterSuiteListener;
+import org.testng.xml.XmlSuite;
+
+import java.util.List;
+
+/**
+ * ExecutionMode - how test invocations are run: -Dexecution.mode=platform (default) or virtual.
+ *
+ * Provides:
+ *  - {@link #isVirtual()}: true when each invocation (setup, body and teardown together) runs on
+ *    its own virtual thread; BaseTest does the hop, see BaseTest#run
+ *  - as a suite listener (registered through META-INF/services), in virtual mode every suite runs
+ *    its methods in parallel with -Dexecution.virtual.tests logical tests (default 32), while
+ *    -Dbrowsers.max alone caps the open browsers
+ *
+ * Notes:
+ *  - virtual mode needs Java 21 (profile virtual-threads builds and runs on a Java 21 toolchain);
+ *    on an older JVM the run stops at suite start instead of quietly using platform threads
+ *  - the TestNG workers only park on the invocation's future, so raising their count costs an idle
+ *    stack each; every WebDriver call, wait and fork happens on virtual threads
+ */
+public class ExecutionMode implements IAlterSuiteListener {
+
+    private static final Log LOG = Log.get(ExecutionMode.class);
+
+    private static final boolean VIRTUAL = "virtual".equalsIgnoreCase(TestConfig.getString("execution.mode", "platform"));
+
+    public static boolean isVirtual() {
+        if (VIRTUAL && !VirtualThreads.isAvailable()) {
+            throw new IllegalStateException("execution.mode=virtual needs Java 21+ (mvn test -P<suite>,virtual-threads), running on "
+                    + System.getProperty("java.version"));
+        }
+        return VIRTUAL;
+    }
+
+    @Override
+    public void alter(List<XmlSuite> suites) {
+        if (!isVirtual()) return;
+        int tests = Math.max(1, TestConfig.getInt("execution.virtual.tests", 32));
+        for (XmlSuite suite : suites) {
+            if (suite.getParallel() == null || suite.getParallel() == XmlSuite.ParallelMode.NONE) {
+                suite.setParallel(XmlSuite.ParallelMode.METHODS);
+            }
+            suite.setThreadCount(Math.max(suite.getThreadCount(), tests));
+            LOG.info("[ExecutionMode] " + suite.getName() + ": invocations on virtual threads, " + suite.getThreadCount()
+                    + " at once (" + suite.getParallel().name().toLowerCase() + ")");
+        }
+    }
+}
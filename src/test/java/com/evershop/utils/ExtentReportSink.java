@@ -0,0 +1,150 @@
+package com.evershop.utils;
+
+import com.aventstack.extentreports.ExtentTest;
+import com.aventstack.extentreports.Status;
+import com.aventstack.extentreports.markuputils.MarkupHelper;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * ExtentReportSink - the report event stream (ReportBus) into the Extent report.
+ *
+ * Provides:
+ *  - steps as nested nodes under the test, passed (with duration) or failed with the error
+ *  - images as screen captures, text as a code block node, anything else as a link; bytes are
+ *    written to ExtentReports/attachments, files already under ExtentReports are linked in place
+ *  - log lines as node entries (WARN/ERROR as warnings), metrics as one table node per test
+ *
+ * Notes:
+ *  - the Extent test comes with TEST_START (handle "extent"); without the Extent listener there
+ *    is none and the events are ignored
+ */
+public final class ExtentReportSink implements ReportBus.Sink {
+
+    public static final String HANDLE = "extent";
+
+    private static final int MAX_TEXT_CHARS = 256 * 1024;
+
+    private final Path reportDir;
+    private final Map<String, TestState> tests = new HashMap<>();
+
+    /** {@code reportDir}: folder of ExtentReport.html, attachment paths are relative to it. */
+    public ExtentReportSink(Path reportDir) {
+        this.reportDir = reportDir.toAbsolutePath().normalize();
+    }
+
+    @Override
+    public String name() {
+        return "extent";
+    }
+
+    @Override
+    public boolean needsOpenTest() {
+        return true; // the Extent result is written as soon as the test ends
+    }
+
+    @Override
+    public void accept(ReportBus.Event event) throws Exception {
+        if (event.getKind() == ReportBus.Kind.TEST_START) {
+            Object test = event.getHandle(HANDLE);
+            if (test instanceof ExtentTest) tests.put(event.getTestId(), new TestState((ExtentTest) test));
+            return;
+        }
+        TestState test = event.getTestId() != null ? tests.get(event.getTestId()) : null;
+        if (test == null) return;
+
+        switch (event.getKind()) {
+            case STEP_START: {
+                ExtentTest node = test.current().createNode(event.getName());
+                test.open.push(node);
+                test.started.put(event.getStepId(), event.getMillis());
+                test.nodes.put(event.getStepId(), node);
+                break;
+            }
+            case STEP_END: {
+                ExtentTest node = test.nodes.remove(event.getStepId());
+                Long started = test.started.remove(event.getStepId());
+                if (node == null) break;
+                test.open.remove(node);
+                if (event.getError() != null) {
+                    node.fail(event.getError());
+                } else {
+                    node.pass((event.getMillis() - started) + " ms");
+                }
+                break;
+            }
+            case ATTACHMENT:
+                attach(test.current(), event);
+                break;
+            case LOG:
+                test.current().log(event.getLevel().compareTo(Log.Level.WARN) >= 0 ? Status.WARNING : Status.INFO, event.getName());
+                break;
+            case METRIC:
+                test.metrics.add(new String[] {event.getName(), String.format(Locale.ROOT, "%.3f", event.getValue()),
+                        event.getUnit() == null ? "" : event.getUnit()});
+                break;
+            case TEST_END:
+                tests.remove(event.getTestId());
+                if (!test.metrics.isEmpty()) {
+                    List<String[]> rows = new ArrayList<>();
+                    rows.add(new String[] {"metric", "value", "unit"});
+                    rows.addAll(test.metrics);
+                    test.root.createNode("Metrics").info(MarkupHelper.createTable(rows.toArray(new String[0][])));
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void attach(ExtentTest parent, ReportBus.Event event) throws Exception {
+        String type = event.getContentType() == null ? "" : event.getContentType();
+        if (type.startsWith("text/") || type.equals("application/json")) {
+            String text = new String(event.readContent(), StandardCharsets.UTF_8);
+            if (text.length() > MAX_TEXT_CHARS) text = text.substring(0, MAX_TEXT_CHARS) + "\n... truncated";
+            parent.createNode(event.getName()).info(MarkupHelper.createCodeBlock(text));
+            return;
+        }
+        String path = reportPath(event);
+        if (type.startsWith("image/")) {
+            parent.addScreenCaptureFromPath(path, event.getName());
+        } else {
+            parent.info("<a href='" + path + "' target='_blank'>" + event.getName() + "</a>");
+        }
+    }
+
+    /** Path of the attachment relative to the report folder; bytes and files outside it are written there first. */
+    private String reportPath(ReportBus.Event event) throws Exception {
+        Path file = event.getFile() != null ? event.getFile().toAbsolutePath().normalize() : null;
+        if (file == null || !file.startsWith(reportDir)) {
+            String name = (event.getTestId() + "-" + event.getSeq() + "-" + event.getName()).replaceAll("[^A-Za-z0-9._-]+", "_");
+            file = Artifacts.write("report-attachment", reportDir.resolve("attachments").resolve(name + event.getExtension()),
+                    event.readContent());
+        }
+        return reportDir.relativize(file).toString().replace('\\', '/');
+    }
+
+    private static final class TestState {
+        final ExtentTest root;
+        final Deque<ExtentTest> open = new ArrayDeque<>();
+        final Map<Long, ExtentTest> nodes = new HashMap<>();
+        final Map<Long, Long> started = new HashMap<>();
+        final List<String[]> metrics = new ArrayList<>();
+
+        TestState(ExtentTest root) {
+            this.root = root;
+        }
+
+        ExtentTest current() {
+            return open.isEmpty() ? root : open.peek();
+        }
+    }
+}
@@ -5,47 +5,36 @@ import com.aventstack.extentreports.ExtentTest;
 import com.aventstack.extentreports.Status;
 import com.aventstack.extentreports.reporter.ExtentSparkReporter;
 import com.aventstack.extentreports.reporter.configuration.Theme;
-import org.openqa.selenium.OutputType;
-import org.openqa.selenium.TakesScreenshot;
-import org.openqa.selenium.WebDriver;
 import org.testng.*;
 import org.testng.xml.XmlSuite;
 
 import java.io.File;
-import java.io.IOException;
-import java.nio.file.Files;
 import java.util.List;
-import java.util.Map;
-
-import java.io.File;
-import java.io.IOException;
-import java.nio.file.Files;
-import java.util.HashMap;
-import java.util.Map;
 
 public class ExtentTestNGIReporter implements ITestListener, IReporter {
 
     private static ExtentReports extent;
     private static ExtentSparkReporter sparkReporter;
     private static ThreadLocal<ExtentTest> test = new ThreadLocal<>();
-    private static Map<String, WebDriver> drivers = new HashMap<>();
 
     public static ExtentTest getTest() {
         return test.get();
     }
 
-    public static void setDriver(String testName, WebDriver driver) {
-        drivers.put(testName, driver);
+    /** The report instance, null until the listener has started. */
+    public static ExtentReports getExtent() {
+        return extent;
     }
 
     @Override
     public void generateReport(List<XmlSuite> xmlSuites, List<ISuite> suites, String outputDirectory) {
-        extent.flush();
+        if (extent != null) extent.flush();
     }
 
     @Override
     public void onStart(ITestContext context) {
-        if (extent == null) {
+        // -Dreport.sinks without extent (e.g. the paged html report for big runs): no Extent model in heap
+        if (extent == null && ReportSinks.isEnabled("extent")) {
             String reportPath = System.getProperty("user.dir") + "/ExtentReports/ExtentReport.html";
             File reportDir = new File("ExtentReports");
             if (!reportDir.exists()) {
@@ -66,11 +55,12 @@ public class ExtentTestNGIReporter implements ITestListener, IReporter {
 
     @Override
     public void onFinish(ITestContext context) {
-        extent.flush();
+        if (extent != null) extent.flush();
     }
 
     @Override
     public void onTestStart(ITestResult result) {
+        if (extent == null) return;
         ExtentTest extentTest = extent.createTest(result.getMethod().getMethodName(), result.getMethod().getDescription());
         test.set(extentTest);
     }
@@ -89,18 +79,7 @@ public class ExtentTestNGIReporter implements ITestListener, IReporter {
         if (extentTest != null) {
             extentTest.log(Status.FAIL, "Test failed: " + result.getMethod().getMethodName());
             extentTest.log(Status.FAIL, result.getThrowable());
-
-            // Capture screenshot
-            String testName = result.getMethod().getMethodName();
-            WebDriver driver = drivers.get(testName);
-            if (driver instanceof TakesScreenshot) {
-                try {
-                    String screenshotPath = captureScreenshot(driver, testName);
-                    extentTest.addScreenCaptureFromPath(screenshotPath);
-                } catch (IOException e) {
-                    extentTest.log(Status.WARNING, "Failed to attach screenshot");
-                }
-            }
+            // the failure screenshot arrives through the ReportBus (BaseTest), like every other attachment
         }
     }
 
@@ -111,18 +90,4 @@ public class ExtentTestNGIReporter implements ITestListener, IReporter {
             extentTest.log(Status.SKIP, "Test skipped: " + result.getMethod().getMethodName());
         }
     }
-
-    private String captureScreenshot(WebDriver driver, String testName) throws IOException {
-        String screenshotDir = "ExtentReports/screenshots/";
-        File dir = new File(screenshotDir);
-        if (!dir.exists()) {
-            dir.mkdirs();
-        }
-        String screenshotName = testName + "_" + System.currentTimeMillis() + ".png";
-        String screenshotPath = screenshotDir + screenshotName;
-
-        byte[] screenshotBytes = ((TakesScreenshot) driver).getScreenshotAs(OutputType.BYTES);
-        Files.write(new File(screenshotPath).toPath(), screenshotBytes);
-        return screenshotPath;
-    }
 }
@@ -0,0 +1,22 @@
+package com.evershop.utils;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * LogAttachments - puts the log lines of one test (Log) into the reports.
+ *
+ * Called before the test's ReportBus barrier, after the body: the lines logged so far under the
+ * test id are drained and published as one "Test log" attachment (text in Allure, a code block
+ * node in Extent).
+ */
+public final class LogAttachments {
+
+    private LogAttachments() {
+    }
+
+    public static void attach(String testId) {
+        String lines = Log.takeTestLog(testId);
+        if (lines.isEmpty()) return;
+        ReportBus.attach("Test log", "text/plain", ".log", lines.getBytes(StandardCharsets.UTF_8));
+    }
+}
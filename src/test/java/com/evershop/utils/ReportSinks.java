@@ -0,0 +1,78 @@
+package com.evershop.utils;
+
+import io.qameta.allure.Allure;
+import org.testng.ITestResult;
+
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * ReportSinks - registers the report sinks on the ReportBus and collects a test's report handles.
+ *
+ * -Dreport.sinks (default allure,extent,metrics) picks the sinks: allure, extent, metrics
+ * (target/report-metrics.csv), jsonl (target/report-events.jsonl, attachments in
+ * target/report-attachments) and html (paged report in -Dreport.html.dir, default
+ * target/paged-report). Without extent the Extent listener builds no report either.
+ */
+public final class ReportSinks {
+
+    private static final String DEFAULT_SINKS = "allure,extent,metrics";
+    private static final AtomicBoolean INSTALLED = new AtomicBoolean();
+
+    private ReportSinks() {
+    }
+
+    /** Registers the configured sinks once per run. */
+    public static void install() {
+        if (!INSTALLED.compareAndSet(false, true)) return;
+        for (String name : TestConfig.getString("report.sinks", DEFAULT_SINKS).split(",")) {
+            switch (name.trim().toLowerCase(Locale.ROOT)) {
+                case "allure":
+                    ReportBus.register(new AllureReportSink());
+                    break;
+                case "extent":
+                    ReportBus.register(new ExtentReportSink(Paths.get("ExtentReports")));
+                    break;
+                case "metrics":
+                    ReportBus.register(new MetricsReportSink(Paths.get("target", "report-metrics.csv")));
+                    break;
+                case "html":
+                    ReportBus.register(new PagedHtmlReportSink(Paths.get(TestConfig.getString("report.html.dir", "target/paged-report"))));
+                    break;
+                case "jsonl":
+                    ReportBus.register(new JsonlReportSink(Paths.get("target", "report-events.jsonl"),
+                            Paths.get("target", "report-attachments")));
+                    break;
+                case "":
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown report sink in -Dreport.sinks: " + name);
+            }
+        }
+    }
+
+    public static boolean isEnabled(String sink) {
+        for (String name : TestConfig.getString("report.sinks", DEFAULT_SINKS).split(",")) {
+            if (name.trim().equalsIgnoreCase(sink)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * The Allure test case and Extent test of the test running on this thread, and the invocation
+     * parameters (data providers) for the paged HTML report, for TEST_START.
+     */
+    public static Map<String, Object> handles(ITestResult testResult) {
+        Map<String, Object> handles = new HashMap<>();
+        if (testResult.getParameters().length > 0) {
+            handles.put(PagedHtmlReportSink.HANDLE, Arrays.toString(testResult.getParameters()));
+        }
+        Allure.getLifecycle().getCurrentTestCase().ifPresent(uuid -> handles.put(AllureReportSink.HANDLE, uuid));
+        if (ExtentTestNGIReporter.getTest() != null) handles.put(ExtentReportSink.HANDLE, ExtentTestNGIReporter.getTest());
+        return handles;
+    }
+}
@@ -0,0 +1,92 @@
+package com.evershop.utils;
+
+import com.aventstack.extentreports.ExtentReports;
+import com.aventstack.extentreports.markuputils.MarkupHelper;
+import com.evershop.perf.Span;
+import com.evershop.perf.Spans;
+import io.qameta.allure.Allure;
+import io.qameta.allure.AllureLifecycle;
+import io.qameta.allure.model.Attachment;
+import io.qameta.allure.model.Stage;
+import io.qameta.allure.model.Status;
+import io.qameta.allure.model.TestResult;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * SpanAttachments - puts the timing spans of a test into the Allure and Extent reports.
+ *
+ * Provides:
+ *  - {@link #attach(String, List)}: the span tree of one test as nested steps on the ReportBus
+ *    (real start/stop times), i.e. Allure steps and Extent nodes
+ *  - {@link #attachSummary()}: the suite-wide per-action histogram table
+ *
+ * Notes:
+ *  - the summary is written after the last test, when no Allure test case is open, so it goes
+ *    into a result of its own ("Page action latency") instead of Allure.addAttachment
+ */
+public final class SpanAttachments {
+
+    private SpanAttachments() {
+    }
+
+    public static void attach(String testId, List<Span> roots) {
+        for (Span root : roots) publish(testId, root);
+    }
+
+    public static void attachSummary() {
+        List<String[]> rows = Spans.summaryRows();
+        if (rows.isEmpty()) return;
+
+        StringBuilder text = new StringBuilder(String.join("\t", Spans.summaryHeader())).append('\n');
+        for (String[] row : rows) text.append(String.join("\t", row)).append('\n');
+        writeAllureResult("Page action latency histograms", "text/tab-separated-values", ".tsv", text.toString());
+
+        ExtentReports extent = ExtentTestNGIReporter.getExtent();
+        if (extent != null) {
+            String[][] table = new String[rows.size() + 1][];
+            table[0] = Spans.summaryHeader();
+            for (int i = 0; i < rows.size(); i++) table[i + 1] = rows.get(i);
+            extent.createTest("Page action latency").info(MarkupHelper.createTable(table));
+        }
+    }
+
+    /** A passed suite-level test result carrying one attachment. */
+    private static void writeAllureResult(String name, String type, String extension, String content) {
+        AllureLifecycle lifecycle = Allure.getLifecycle();
+        String source = UUID.randomUUID() + "-attachment" + extension;
+        lifecycle.writeAttachment(source, new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)));
+
+        String uuid = UUID.randomUUID().toString();
+        long now = System.currentTimeMillis();
+        lifecycle.scheduleTestCase(new TestResult()
+                .setUuid(uuid)
+                .setName("Page action latency")
+                .setFullName(SpanAttachments.class.getName() + ".summary")
+                .setStatus(Status.PASSED)
+                .setStart(now)
+                .setAttachments(Collections.singletonList(new Attachment().setName(name).setType(type).setSource(source))));
+        lifecycle.startTestCase(uuid);
+        lifecycle.updateTestCase(uuid, result -> result.setStage(Stage.FINISHED).setStop(now));
+        lifecycle.stopTestCase(uuid);
+        lifecycle.writeTestCase(uuid);
+    }
+
+    /** The span as a step with its real start and stop times, children nested inside. */
+    private static void publish(String testId, Span span) {
+        long start = span.getStartMillis();
+        long step = ReportBus.startStep(testId, label(span), start);
+        for (Span child : span.getChildren()) publish(testId, child);
+        ReportBus.endStep(testId, step, start + span.getWallNanos() / 1_000_000, span.isFailed() ? span.getFailure() : null);
+    }
+
+    private static String label(Span span) {
+        return String.format(Locale.ROOT, "%s - %.0f ms (active %.0f ms, wait %.0f ms)", span.getName(),
+                span.getWallNanos() / 1e6, span.getActiveNanos() / 1e6, span.getWaitNanos() / 1e6);
+    }
+}